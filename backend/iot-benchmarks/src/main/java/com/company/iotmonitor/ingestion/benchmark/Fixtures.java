@@ -0,0 +1,85 @@
+package com.company.iotmonitor.ingestion.benchmark;
+
+import com.company.iotmonitor.ingestion.domain.Gateway;
+import com.company.iotmonitor.ingestion.domain.ReadingView;
+import com.company.iotmonitor.ingestion.repository.GatewayRepository;
+import com.company.iotmonitor.ingestion.service.GatewayRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Objects the benchmarks share, built the way the running service builds
+ * them but without a Spring context or database.
+ */
+final class Fixtures {
+    static final String[] SENSORS = {"house", "garage", "battery 1", "battery 2"};
+    static final String[] UNITS = {"celsius", "celsius", "volt", "volt"};
+
+    private Fixtures() {
+    }
+
+    /**
+     * An ObjectMapper with the settings Spring Boot applies to the one used
+     * for request and response bodies.
+     */
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    /**
+     * A registry backed by an in-memory repository holding {@code gateways},
+     * preloaded as at startup.
+     */
+    static GatewayRegistry gatewayRegistry(List<Gateway> gateways) {
+        Map<UUID, Gateway> byId = gateways.stream().collect(Collectors.toMap(Gateway::getGatewayId, Function.identity()));
+        GatewayRepository repository = (GatewayRepository) Proxy.newProxyInstance(
+            GatewayRepository.class.getClassLoader(), new Class<?>[] {GatewayRepository.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "findById" -> Optional.ofNullable(byId.get((UUID) args[0]));
+                case "findAll" -> List.copyOf(byId.values());
+                case "getReferenceById" -> byId.get((UUID) args[0]);
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+        GatewayRegistry registry = new GatewayRegistry(repository, new SimpleMeterRegistry(),
+            100_000, Duration.ofHours(1), Duration.ofMinutes(1));
+        gateways.forEach(registry::put);
+        return registry;
+    }
+
+    static List<Gateway> gateways(int count) {
+        List<Gateway> gateways = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Gateway gateway = new Gateway();
+            gateway.setGatewayId(UUID.randomUUID());
+            gateway.setName("gateway " + i);
+            gateway.setStatus(Gateway.STATUS_ACTIVE);
+            gateways.add(gateway);
+        }
+        return gateways;
+    }
+
+    /**
+     * Readings of one gateway at one minute steps, cycling through {@link #SENSORS}.
+     */
+    static List<ReadingView> readings(UUID gatewayId, int count) {
+        Instant start = Instant.parse("2025-10-09T00:00:00Z");
+        List<ReadingView> readings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            readings.add(new ReadingView(UUID.randomUUID().toString(), gatewayId, start.plusSeconds(60L * i),
+                SENSORS[i % SENSORS.length], UNITS[i % UNITS.length], 20 + (i % 100) / 10.0));
+        }
+        return readings;
+    }
+}
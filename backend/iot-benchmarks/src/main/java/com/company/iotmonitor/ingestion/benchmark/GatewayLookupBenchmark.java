@@ -0,0 +1,66 @@
+package com.company.iotmonitor.ingestion.benchmark;
+
+import com.company.iotmonitor.ingestion.domain.Gateway;
+import com.company.iotmonitor.ingestion.service.GatewayRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GatewayRegistry} lookups as done once per ingest and query request,
+ * over 10,000 registered gateways. Unknown gateways hit the negative cache,
+ * as they do after the first request from a misconfigured client.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GatewayLookupBenchmark {
+    private static final int GATEWAYS = 10_000;
+
+    private GatewayRegistry registry;
+    private UUID[] known;
+    private UUID[] unknown;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<Gateway> gateways = Fixtures.gateways(GATEWAYS);
+        registry = Fixtures.gatewayRegistry(gateways);
+        known = gateways.stream().map(Gateway::getGatewayId).toArray(UUID[]::new);
+        unknown = new UUID[1000];
+        for (int i = 0; i < unknown.length; i++) {
+            unknown[i] = UUID.randomUUID();
+            registry.exists(unknown[i]);
+        }
+    }
+
+    @Benchmark
+    public boolean existsKnown() {
+        return registry.exists(known[advance(known.length)]);
+    }
+
+    @Benchmark
+    public boolean existsUnknown() {
+        return registry.exists(unknown[advance(unknown.length)]);
+    }
+
+    private int advance(int length) {
+        int current = next % length;
+        next = current + 1;
+        return current;
+    }
+}
@@ -0,0 +1,139 @@
+package com.company.iotmonitor.ingestion.benchmark;
+
+import com.company.iotmonitor.ingestion.controller.ReadingController;
+import com.company.iotmonitor.ingestion.domain.Gateway;
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import com.company.iotmonitor.ingestion.domain.Reading;
+import com.company.iotmonitor.ingestion.domain.SensorSeries;
+import com.company.iotmonitor.ingestion.service.ReadingCborDecoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-request work of {@code POST /readings/batch} before anything is
+ * queued: reading the JSON body, and turning it into queue entries. Entity
+ * construction is the path batches took before readings were queued as
+ * {@link IncomingReading}, kept as a reference point.
+ *
+ * <p>{@code decodeJson} and {@code decodeCbor} compare the whole decode of
+ * the same batch as JSON and as {@code application/cbor} (with string
+ * references, as a gateway would send it). Body sizes of both are printed
+ * at setup.
+ *
+ * <p>Scores and {@code gc.alloc.rate.norm} are per batch; divide by
+ * {@code batchSize} for the cost per reading.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IngestRequestBenchmark {
+
+    @Param({"1", "100", "1000"})
+    int batchSize;
+
+    private ObjectMapper objectMapper;
+    private byte[] body;
+    private byte[] cborBody;
+    private ReadingCborDecoder cborDecoder;
+    private ReadingController.BatchReadingRequest request;
+    private Gateway gateway;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = Fixtures.objectMapper();
+        gateway = Fixtures.gateways(1).get(0);
+
+        Instant start = Instant.parse("2025-10-09T00:00:00Z");
+        List<ReadingController.ReadingRequest> data = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            ReadingController.ReadingRequest reading = new ReadingController.ReadingRequest();
+            reading.setTimestamp(start.plusSeconds(60L * i));
+            reading.setSensor(Fixtures.SENSORS[i % Fixtures.SENSORS.length]);
+            reading.setUnit(Fixtures.UNITS[i % Fixtures.UNITS.length]);
+            reading.setReading(20 + (i % 100) / 10.0);
+            data.add(reading);
+        }
+        ReadingController.BatchReadingRequest batch = new ReadingController.BatchReadingRequest();
+        batch.setGatewayId(gateway.getGatewayId());
+        batch.setData(data);
+
+        body = objectMapper.writeValueAsBytes(batch);
+        request = objectMapper.readValue(body, ReadingController.BatchReadingRequest.class);
+
+        List<List<Object>> cborData = new ArrayList<>(batchSize);
+        for (ReadingController.ReadingRequest reading : data) {
+            cborData.add(List.of(reading.getTimestamp().toEpochMilli(), reading.getSensor(), reading.getUnit(),
+                                 reading.getReading()));
+        }
+        Map<String, Object> cborBatch = new LinkedHashMap<>();
+        cborBatch.put("gatewayId", ByteBuffer.allocate(16)
+            .putLong(gateway.getGatewayId().getMostSignificantBits())
+            .putLong(gateway.getGatewayId().getLeastSignificantBits())
+            .array());
+        cborBatch.put("data", cborData);
+        cborBody = CBORMapper.builder().enable(CBORGenerator.Feature.STRINGREF).build().writeValueAsBytes(cborBatch);
+        cborDecoder = new ReadingCborDecoder();
+        System.out.printf("%nbatchSize=%d: JSON %d bytes (%.1f/reading), CBOR %d bytes (%.1f/reading)%n",
+                          batchSize, body.length, (double) body.length / batchSize,
+                          cborBody.length, (double) cborBody.length / batchSize);
+    }
+
+    @Benchmark
+    public ReadingController.BatchReadingRequest deserialize() throws IOException {
+        return objectMapper.readValue(body, ReadingController.BatchReadingRequest.class);
+    }
+
+    @Benchmark
+    public List<IncomingReading> decodeJson() throws IOException {
+        return objectMapper.readValue(body, ReadingController.BatchReadingRequest.class).toIncomingReadings();
+    }
+
+    @Benchmark
+    public List<IncomingReading> decodeCbor() throws IOException {
+        return cborDecoder.decodeBatch(new ByteArrayInputStream(cborBody), batchSize).readings();
+    }
+
+    @Benchmark
+    public List<IncomingReading> toIncomingReadings() {
+        return request.toIncomingReadings();
+    }
+
+    @Benchmark
+    public List<Reading> toReadingEntities() {
+        List<Reading> readings = new ArrayList<>(batchSize);
+        for (ReadingController.ReadingRequest data : request.getData()) {
+            SensorSeries series = new SensorSeries();
+            series.setGateway(gateway);
+            series.setSensorLabel(data.getSensor());
+            series.setUnit(data.getUnit());
+            readings.add(new Reading(null, series, data.getTimestamp(), data.getReading()));
+        }
+        return readings;
+    }
+}
@@ -0,0 +1,66 @@
+package com.company.iotmonitor.ingestion.benchmark;
+
+import com.company.iotmonitor.ingestion.interceptor.GatewayRateLimiter;
+import com.company.iotmonitor.ingestion.interceptor.RateLimitInterceptor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RateLimitInterceptor#preHandle} as it runs on every request to a
+ * {@code /gateways/{gatewayId}/...} route. With many gateways each call
+ * touches a different bucket, as under real traffic. The limit is set high
+ * enough that no call is rejected.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RateLimitInterceptorBenchmark {
+
+    @Param({"1", "10000"})
+    int gateways;
+
+    private RateLimitInterceptor interceptor;
+    private MockHttpServletRequest[] requests;
+    private MockHttpServletResponse response;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        GatewayRateLimiter rateLimiter = new GatewayRateLimiter(new SimpleMeterRegistry(), 1_000_000_000L, 60, 100_000);
+        interceptor = new RateLimitInterceptor(rateLimiter);
+        requests = new MockHttpServletRequest[gateways];
+        for (int i = 0; i < gateways; i++) {
+            requests[i] = new MockHttpServletRequest();
+            requests[i].setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE,
+                Map.of("gatewayId", UUID.randomUUID().toString()));
+        }
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public boolean preHandle() {
+        MockHttpServletRequest request = requests[next];
+        next = next + 1 == requests.length ? 0 : next + 1;
+        return interceptor.preHandle(request, response, null);
+    }
+}
@@ -0,0 +1,94 @@
+package com.company.iotmonitor.ingestion.benchmark;
+
+import com.company.iotmonitor.ingestion.domain.Gateway;
+import com.company.iotmonitor.ingestion.domain.ReadingPage;
+import com.company.iotmonitor.ingestion.domain.ReadingView;
+import com.company.iotmonitor.ingestion.repository.ReadingQueryRepository;
+import com.company.iotmonitor.ingestion.service.ReadingStreamExporter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Writing readings to a response body: a {@link ReadingPage} through the
+ * ObjectMapper, as {@code GET /readings/{gatewayId}/page} does, and the
+ * streaming export behind {@code GET /readings/{gatewayId}} as a JSON array
+ * and as NDJSON. Rows come from memory, so only serialization is measured.
+ *
+ * <p>Scores and {@code gc.alloc.rate.norm} are per response; divide by
+ * {@code readings} for the cost per reading.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadingResponseBenchmark {
+
+    @Param({"100", "1000"})
+    int readings;
+
+    private ObjectMapper objectMapper;
+    private ReadingPage page;
+    private ReadingStreamExporter exporter;
+    private UUID gatewayId;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Fixtures.objectMapper();
+        Gateway gateway = Fixtures.gateways(1).get(0);
+        gatewayId = gateway.getGatewayId();
+        List<ReadingView> rows = Fixtures.readings(gatewayId, readings);
+        page = new ReadingPage(rows, ReadingPage.Cursor.after(rows.get(rows.size() - 1)).encode());
+        exporter = new ReadingStreamExporter(Fixtures.gatewayRegistry(List.of(gateway)),
+            new InMemoryQueryRepository(rows), objectMapper);
+    }
+
+    @Benchmark
+    public byte[] page() throws IOException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public long exportJsonArray() throws IOException {
+        return exporter.export(gatewayId, Instant.MIN, Instant.MAX, false, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public long exportNdjson() throws IOException {
+        return exporter.export(gatewayId, Instant.MIN, Instant.MAX, true, OutputStream.nullOutputStream());
+    }
+
+    private static final class InMemoryQueryRepository extends ReadingQueryRepository {
+        private final List<ReadingView> rows;
+
+        InMemoryQueryRepository(List<ReadingView> rows) {
+            super(null, null, null, null, 1000, false, Duration.ofHours(1));
+            this.rows = rows;
+        }
+
+        @Override
+        public void stream(UUID gatewayId, Instant start, Instant end, Consumer<ReadingView> consumer) {
+            rows.forEach(consumer);
+        }
+    }
+}
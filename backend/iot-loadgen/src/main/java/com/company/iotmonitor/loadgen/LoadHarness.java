@@ -0,0 +1,278 @@
+package com.company.iotmonitor.loadgen;
+
+import com.company.iotmonitor.ingestion.DataIngestionApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load generator for the ingestion service. Registers gateways, then drives
+ * single posts, batch posts and range queries at fixed rates (open loop, see
+ * {@link OpenLoopDriver}) and writes throughput and latency percentiles to
+ * the console and to a JSON file.
+ *
+ * <p>Without {@code --target} the service is booted in this JVM with its
+ * default configuration (in-memory H2), so client and server share the
+ * machine; point {@code --target} at a separately started service to keep
+ * them apart. See {@link LoadOptions#USAGE} for all options.
+ */
+public final class LoadHarness {
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    /** Sensor kinds cycled through per gateway: label prefix, unit, typical value, variation. */
+    private record SensorKind(String label, String unit, double base, double variation) {
+    }
+
+    private static final SensorKind[] SENSOR_KINDS = {
+        new SensorKind("temperature", "celsius", 18, 10),
+        new SensorKind("humidity", "percent", 50, 20),
+        new SensorKind("battery", "volt", 12.6, 0.5),
+    };
+
+    private final LoadOptions options;
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final HttpClient client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(10))
+        .build();
+    private String target;
+    private List<String> gatewayIds;
+
+    private LoadHarness(LoadOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (List.of(args).contains("--help")) {
+            System.out.println(LoadOptions.USAGE);
+            return;
+        }
+        LoadOptions options;
+        try {
+            options = LoadOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(LoadOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+        new LoadHarness(options).run();
+    }
+
+    private void run() throws Exception {
+        ConfigurableApplicationContext service = null;
+        if (options.target() != null) {
+            target = options.target().replaceAll("/+$", "");
+        } else {
+            service = bootService();
+        }
+        try {
+            gatewayIds = registerGateways();
+            List<OpenLoopDriver> drivers = drivers();
+            Instant startedAt = Instant.now();
+            long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+            long measureFrom = start + options.warmup().toNanos();
+            long end = measureFrom + options.duration().toNanos();
+            System.out.printf("Running %s warmup and %s measured load against %s%n",
+                              options.warmup(), options.duration(), target);
+            List<Thread> threads = new ArrayList<>();
+            for (OpenLoopDriver driver : drivers) {
+                threads.add(driver.start(start, measureFrom, end));
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            for (OpenLoopDriver driver : drivers) {
+                driver.drain();
+            }
+            report(startedAt, drivers);
+        } finally {
+            if (service != null) {
+                service.close();
+            }
+        }
+    }
+
+    private ConfigurableApplicationContext bootService() {
+        // Quiet per-request logging unless the caller asks otherwise; it costs more than the requests
+        Map<String, String> defaults = Map.of(
+            "server.port", "0",
+            "logging.level.com.company.iotmonitor", "WARN");
+        List<String> args = new ArrayList<>(options.serviceArgs());
+        defaults.forEach((name, value) -> {
+            if (args.stream().noneMatch(arg -> arg.startsWith("--" + name + "="))) {
+                args.add("--" + name + "=" + value);
+            }
+        });
+        ConfigurableApplicationContext context =
+            SpringApplication.run(DataIngestionApplication.class, args.toArray(String[]::new));
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        target = "http://localhost:" + port + context.getEnvironment().getProperty("server.servlet.context-path", "");
+        return context;
+    }
+
+    private List<String> registerGateways() throws IOException, InterruptedException {
+        List<String> ids = new ArrayList<>(options.gateways());
+        for (int i = 0; i < options.gateways(); i++) {
+            Map<String, String> body = Map.of("name", "Load gateway " + i, "location", "load test", "model", "LOAD-1");
+            HttpResponse<String> response = client.send(post("/gateways/gateways", body),
+                                                        HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 201) {
+                throw new IllegalStateException("Registering a gateway failed with " + response.statusCode()
+                    + ": " + response.body());
+            }
+            String location = response.headers().firstValue("Location")
+                .orElseThrow(() -> new IllegalStateException("Gateway registration returned no Location"));
+            ids.add(location.substring(location.lastIndexOf('/') + 1));
+        }
+        System.out.printf("Registered %d gateways with %d sensors each%n", ids.size(), options.sensors());
+        return ids;
+    }
+
+    private List<OpenLoopDriver> drivers() {
+        List<OpenLoopDriver> drivers = new ArrayList<>();
+        if (options.singleRate() > 0) {
+            drivers.add(new OpenLoopDriver("single", options.singleRate(), client, i -> {
+                int gateways = gatewayIds.size();
+                return post("/readings", Map.of(
+                    "gatewayId", gatewayIds.get((int) (i % gateways)),
+                    "data", reading((int) ((i / gateways) % options.sensors()))));
+            }));
+        }
+        if (options.batchRate() > 0) {
+            drivers.add(new OpenLoopDriver("batch", options.batchRate(), client, i -> {
+                List<Map<String, Object>> data = new ArrayList<>(options.batchSize());
+                for (int r = 0; r < options.batchSize(); r++) {
+                    data.add(reading(r % options.sensors()));
+                }
+                return post("/readings/batch", Map.of(
+                    "gatewayId", gatewayIds.get((int) (i % gatewayIds.size())),
+                    "data", data));
+            }));
+        }
+        if (options.queryRate() > 0) {
+            drivers.add(new OpenLoopDriver("query", options.queryRate(), client, i -> {
+                Instant end = Instant.now();
+                Instant start = end.minus(options.queryWindow());
+                return HttpRequest.newBuilder(URI.create(target + "/readings/" + gatewayIds.get((int) (i % gatewayIds.size()))
+                        + "?start=" + start + "&end=" + end))
+                    .timeout(REQUEST_TIMEOUT)
+                    .header("Accept", "application/json")
+                    .GET()
+                    .build();
+            }));
+        }
+        if (drivers.isEmpty()) {
+            throw new IllegalArgumentException("All rates are 0");
+        }
+        return drivers;
+    }
+
+    private Map<String, Object> reading(int sensor) {
+        SensorKind kind = SENSOR_KINDS[sensor % SENSOR_KINDS.length];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Instant timestamp = options.history().isZero()
+            ? Instant.now()
+            : Instant.now().minusMillis(random.nextLong(options.history().toMillis()));
+        return Map.of(
+            "sensor", kind.label() + " " + (sensor / SENSOR_KINDS.length + 1),
+            "unit", kind.unit(),
+            "reading", kind.base() + random.nextDouble(-kind.variation(), kind.variation()),
+            "timestamp", timestamp);
+    }
+
+    private HttpRequest post(String path, Object body) {
+        try {
+            return HttpRequest.newBuilder(URI.create(target + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void report(Instant startedAt, List<OpenLoopDriver> drivers) throws IOException {
+        double seconds = options.duration().toNanos() / 1e9;
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("startedAt", startedAt);
+        results.put("target", options.target() != null ? target : "in-process");
+        results.put("options", Map.of(
+            "gateways", options.gateways(),
+            "sensors", options.sensors(),
+            "batchSize", options.batchSize(),
+            "queryWindow", options.queryWindow().toString(),
+            "warmup", options.warmup().toString(),
+            "duration", options.duration().toString(),
+            "serviceArgs", options.serviceArgs()));
+        List<Map<String, Object>> operations = new ArrayList<>();
+
+        System.out.printf("%n%-7s %9s %9s %9s   %-34s %-34s%n", "", "target/s", "done/s", "errors",
+                          "latency ms p50/p99/p99.9/max", "corrected ms p50/p99/p99.9/max");
+        for (OpenLoopDriver driver : drivers) {
+            long completed = driver.serviceTime().getTotalCount();
+            long errors = driver.failures() + driver.unanswered() + driver.statuses().entrySet().stream()
+                .filter(status -> status.getKey() >= 400)
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+            Map<String, Object> operation = new LinkedHashMap<>();
+            operation.put("name", driver.name());
+            operation.put("targetRate", driver.rate());
+            operation.put("sent", driver.sent());
+            operation.put("completed", completed);
+            operation.put("throughput", completed / seconds);
+            operation.put("statuses", driver.statuses());
+            operation.put("failures", driver.failures());
+            operation.put("unanswered", driver.unanswered());
+            operation.put("maxSendLagMs", driver.maxLagNanos() / 1e6);
+            operation.put("latencyMs", percentiles(driver.serviceTime()));
+            operation.put("correctedLatencyMs", percentiles(driver.responseTime()));
+            operations.add(operation);
+
+            System.out.printf("%-7s %9.1f %9.1f %9d   %-34s %-34s%n", driver.name(), driver.rate(),
+                              completed / seconds, errors, summary(driver.serviceTime()), summary(driver.responseTime()));
+        }
+        results.put("operations", operations);
+
+        objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT).writeValue(options.out().toFile(), results);
+        System.out.printf("%nResults written to %s%n", options.out().toAbsolutePath());
+    }
+
+    private static Map<String, Double> percentiles(Histogram histogram) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (double percentile : PERCENTILES) {
+            values.put("p" + String.valueOf(percentile).replace(".0", "").replace(".", ""),
+                       histogram.getValueAtPercentile(percentile) / 1e6);
+        }
+        values.put("max", histogram.getMaxValue() / 1e6);
+        values.put("mean", histogram.getMean() / 1e6);
+        return values;
+    }
+
+    private static String summary(Histogram histogram) {
+        return String.format(Locale.ROOT, "%.1f/%.1f/%.1f/%.1f",
+                             histogram.getValueAtPercentile(50) / 1e6, histogram.getValueAtPercentile(99) / 1e6,
+                             histogram.getValueAtPercentile(99.9) / 1e6, histogram.getMaxValue() / 1e6);
+    }
+}
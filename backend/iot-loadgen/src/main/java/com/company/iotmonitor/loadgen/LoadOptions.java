@@ -0,0 +1,101 @@
+package com.company.iotmonitor.loadgen;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line options, given as {@code --name=value}. Options starting with
+ * {@code --spring.}, {@code --iot.}, {@code --server.} or {@code --logging.}
+ * are passed to the in-process service unchanged, e.g. a
+ * {@code --spring.datasource.url} pointing at a local PostgreSQL.
+ *
+ * <p>Rates are requests per second across all gateways; a rate of 0 turns
+ * that operation off.
+ */
+record LoadOptions(
+        String target,
+        int gateways,
+        int sensors,
+        double singleRate,
+        double batchRate,
+        int batchSize,
+        double queryRate,
+        Duration queryWindow,
+        Duration history,
+        Duration warmup,
+        Duration duration,
+        Path out,
+        List<String> serviceArgs) {
+
+    private static final List<String> SERVICE_PREFIXES = List.of("--spring.", "--iot.", "--server.", "--logging.");
+
+    static final String USAGE = """
+        Options (defaults in brackets):
+          --target=URL          base URL of a running service, e.g. http://localhost:8082/api/ingestion
+                                [boot the service in-process on a random port]
+          --gateways=N          gateways to register [10]
+          --sensors=M           sensors per gateway [4]
+          --single-rate=R       POST /readings per second [200]
+          --batch-rate=R        POST /readings/batch per second [20]
+          --batch-size=N        readings per batch [100]
+          --query-rate=R        GET /readings/{gatewayId} per second [10]
+          --query-window=D      time range of each query [1h]
+          --history=D           spread reading timestamps over the last D instead of now [0s]
+          --warmup=D            load before measuring starts [10s]
+          --duration=D          measured load [60s]
+          --out=FILE            JSON results [load-results.json]
+          --spring.*, --iot.*, --server.*, --logging.*
+                                passed to the in-process service
+        """;
+
+    static LoadOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        List<String> serviceArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (SERVICE_PREFIXES.stream().anyMatch(arg::startsWith)) {
+                serviceArgs.add(arg);
+                continue;
+            }
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+
+        LoadOptions options = new LoadOptions(
+            values.remove("target"),
+            Integer.parseInt(values.getOrDefault("gateways", "10")),
+            Integer.parseInt(values.getOrDefault("sensors", "4")),
+            Double.parseDouble(values.getOrDefault("single-rate", "200")),
+            Double.parseDouble(values.getOrDefault("batch-rate", "20")),
+            Integer.parseInt(values.getOrDefault("batch-size", "100")),
+            Double.parseDouble(values.getOrDefault("query-rate", "10")),
+            DurationStyle.detectAndParse(values.getOrDefault("query-window", "1h")),
+            DurationStyle.detectAndParse(values.getOrDefault("history", "0s")),
+            DurationStyle.detectAndParse(values.getOrDefault("warmup", "10s")),
+            DurationStyle.detectAndParse(values.getOrDefault("duration", "60s")),
+            Path.of(values.getOrDefault("out", "load-results.json")),
+            List.copyOf(serviceArgs));
+        for (String name : List.of("gateways", "sensors", "single-rate", "batch-rate", "batch-size", "query-rate",
+                                   "query-window", "history", "warmup", "duration", "out")) {
+            values.remove(name);
+        }
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options: " + values.keySet());
+        }
+        if (options.gateways < 1 || options.sensors < 1 || options.batchSize < 1) {
+            throw new IllegalArgumentException("gateways, sensors and batch-size must be at least 1");
+        }
+        if (options.duration.isZero() || options.duration.isNegative()) {
+            throw new IllegalArgumentException("duration must be positive");
+        }
+        return options;
+    }
+}
@@ -0,0 +1,150 @@
+package com.company.iotmonitor.loadgen;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongFunction;
+
+/**
+ * Sends one kind of request on a fixed schedule, whether or not earlier
+ * requests have completed, and records how long each took.
+ *
+ * <p>Request {@code i} is due at {@code start + i / rate}. Latency is
+ * recorded twice: from the moment the request was actually sent, and from
+ * the moment it was due. When the service (or this client) stalls, sends
+ * fall behind schedule; only the second measure charges that wait to the
+ * requests that would have been sent during the stall, which is the
+ * correction for coordinated omission.
+ */
+final class OpenLoopDriver {
+    private static final long DRAIN_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final String name;
+    private final double rate;
+    private final HttpClient client;
+    private final LongFunction<HttpRequest> requests;
+
+    private final Histogram serviceTime = new ConcurrentHistogram(3);
+    private final Histogram responseTime = new ConcurrentHistogram(3);
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile long maxLagNanos;
+
+    /**
+     * @param requests builds request {@code i}; called on the driver thread
+     */
+    OpenLoopDriver(String name, double rate, HttpClient client, LongFunction<HttpRequest> requests) {
+        this.name = name;
+        this.rate = rate;
+        this.client = client;
+        this.requests = requests;
+    }
+
+    /**
+     * Starts sending on a new thread. Requests due before
+     * {@code measureFromNanos} warm up the service and are not recorded;
+     * none are sent after {@code endNanos}.
+     */
+    Thread start(long startNanos, long measureFromNanos, long endNanos) {
+        return Thread.ofPlatform().name("load-" + name).start(() -> run(startNanos, measureFromNanos, endNanos));
+    }
+
+    private void run(long startNanos, long measureFromNanos, long endNanos) {
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        for (long i = 0; ; i++) {
+            long due = startNanos + (long) (i * intervalNanos);
+            if (due >= endNanos) {
+                break;
+            }
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            HttpRequest request = requests.apply(i);
+            long sentAt = System.nanoTime();
+            boolean measured = due >= measureFromNanos;
+            if (measured) {
+                maxLagNanos = Math.max(maxLagNanos, sentAt - due);
+                sent.increment();
+            }
+            inFlight.incrementAndGet();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                long doneAt = System.nanoTime();
+                inFlight.decrementAndGet();
+                if (!measured) {
+                    return;
+                }
+                if (error != null) {
+                    failures.increment();
+                    return;
+                }
+                serviceTime.recordValue(doneAt - sentAt);
+                responseTime.recordValue(doneAt - due);
+                statuses.computeIfAbsent(response.statusCode(), status -> new LongAdder()).increment();
+            });
+        }
+    }
+
+    /**
+     * Waits for outstanding responses, giving up after 30 seconds; requests
+     * still outstanding then are reported as unanswered.
+     */
+    void drain() throws InterruptedException {
+        long deadline = System.nanoTime() + DRAIN_TIMEOUT_NANOS;
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+    }
+
+    String name() {
+        return name;
+    }
+
+    double rate() {
+        return rate;
+    }
+
+    long sent() {
+        return sent.sum();
+    }
+
+    long failures() {
+        return failures.sum();
+    }
+
+    long unanswered() {
+        return inFlight.get();
+    }
+
+    long maxLagNanos() {
+        return maxLagNanos;
+    }
+
+    Map<Integer, Long> statuses() {
+        Map<Integer, Long> counts = new TreeMap<>();
+        statuses.forEach((status, count) -> counts.put(status, count.sum()));
+        return counts;
+    }
+
+    /** Latency from the actual send, what most load tools report. */
+    Histogram serviceTime() {
+        return serviceTime;
+    }
+
+    /** Latency from when the request was due, corrected for coordinated omission. */
+    Histogram responseTime() {
+        return responseTime;
+    }
+}
@@ -0,0 +1,33 @@
+package com.company.iotmonitor.ingestion.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class DataSourceConfig {
+
+    /**
+     * Wraps the pooled data source in a {@link ConcurrencyLimitedDataSource}
+     * sized to the pool, so database concurrency is bounded by
+     * {@code iot.db.max-concurrency} rather than by the number of threads.
+     */
+    @Bean
+    static BeanPostProcessor concurrencyLimitedDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConcurrencyLimitedDataSource)
+                        && environment.getProperty("iot.db.max-concurrency", Integer.class, 0) > 0) {
+                    return new ConcurrencyLimitedDataSource(dataSource,
+                        environment.getRequiredProperty("iot.db.max-concurrency", Integer.class),
+                        environment.getRequiredProperty("iot.db.acquire-timeout-ms", Long.class));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -1,12 +1,17 @@
 package com.company.iotmonitor.ingestion.config;
 
+import com.company.iotmonitor.ingestion.exception.IngestBackpressureException;
+import com.company.iotmonitor.ingestion.exception.MalformedRequestBodyException;
 import com.company.iotmonitor.ingestion.exception.RateLimitException;
+import com.company.iotmonitor.ingestion.exception.RequestBodyTooLargeException;
+import com.company.iotmonitor.ingestion.exception.SubscriptionLimitException;
 import jakarta.validation.ConstraintViolationException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -41,6 +46,22 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return ResponseEntity.status(status).body(problemDetail);
     }
 
+    @Override
+    protected ResponseEntity<Object> handleHttpMessageNotReadable(
+            HttpMessageNotReadableException ex,
+            HttpHeaders headers,
+            HttpStatusCode status,
+            WebRequest request) {
+        // Decompression failures reach @RequestBody endpoints wrapped by the message converter
+        if (ex.getCause() instanceof RequestBodyTooLargeException tooLarge) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(handleRequestBodyTooLarge(tooLarge).getBody());
+        }
+        if (ex.getCause() instanceof MalformedRequestBodyException malformed) {
+            return ResponseEntity.badRequest().body(handleMalformedRequestBody(malformed).getBody());
+        }
+        return super.handleHttpMessageNotReadable(ex, headers, status, request);
+    }
+
     @ExceptionHandler(ConstraintViolationException.class)
     public ResponseEntity<ProblemDetail> handleConstraintViolation(ConstraintViolationException ex) {
         ProblemDetail problemDetail = ProblemDetail.forStatus(HttpStatus.BAD_REQUEST);
@@ -75,6 +96,51 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         problemDetail.setTitle("Rate Limit Exceeded");
         problemDetail.setDetail(ex.getMessage());
         problemDetail.setProperty("retryAfter", ex.getRetryAfter());
-        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(problemDetail);
+        // X-Rate-Limit-* headers are already on the response, set by GatewayRateLimiter
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter()))
+            .body(problemDetail);
+    }
+
+    @ExceptionHandler(IngestBackpressureException.class)
+    public ResponseEntity<ProblemDetail> handleIngestBackpressure(IngestBackpressureException ex) {
+        ProblemDetail problemDetail = ProblemDetail.forStatus(HttpStatus.SERVICE_UNAVAILABLE);
+        problemDetail.setType(ERROR_TYPE);
+        problemDetail.setTitle("Ingest Queue Full");
+        problemDetail.setDetail(ex.getMessage());
+        problemDetail.setProperty("retryAfter", ex.getRetryAfter());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter()))
+            .body(problemDetail);
+    }
+
+    @ExceptionHandler(SubscriptionLimitException.class)
+    public ResponseEntity<ProblemDetail> handleSubscriptionLimit(SubscriptionLimitException ex) {
+        ProblemDetail problemDetail = ProblemDetail.forStatus(HttpStatus.SERVICE_UNAVAILABLE);
+        problemDetail.setType(ERROR_TYPE);
+        problemDetail.setTitle("Too Many Live Subscribers");
+        problemDetail.setDetail(ex.getMessage());
+        problemDetail.setProperty("retryAfter", ex.getRetryAfter());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter()))
+            .body(problemDetail);
+    }
+
+    @ExceptionHandler(RequestBodyTooLargeException.class)
+    public ResponseEntity<ProblemDetail> handleRequestBodyTooLarge(RequestBodyTooLargeException ex) {
+        ProblemDetail problemDetail = ProblemDetail.forStatus(HttpStatus.PAYLOAD_TOO_LARGE);
+        problemDetail.setType(ERROR_TYPE);
+        problemDetail.setTitle("Request Body Too Large");
+        problemDetail.setDetail(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(problemDetail);
+    }
+
+    @ExceptionHandler(MalformedRequestBodyException.class)
+    public ResponseEntity<ProblemDetail> handleMalformedRequestBody(MalformedRequestBodyException ex) {
+        ProblemDetail problemDetail = ProblemDetail.forStatus(HttpStatus.BAD_REQUEST);
+        problemDetail.setType(ERROR_TYPE);
+        problemDetail.setTitle("Malformed Request Body");
+        problemDetail.setDetail(ex.getMessage());
+        return ResponseEntity.badRequest().body(problemDetail);
     }
-}
\ No newline at end of file
+}
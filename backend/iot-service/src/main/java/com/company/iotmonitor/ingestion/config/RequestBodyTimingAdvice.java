@@ -0,0 +1,72 @@
+package com.company.iotmonitor.ingestion.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the decoding of every {@code @RequestBody}, tagged by the type it
+ * decodes to. The time includes reading the body off the connection, so a
+ * slow client shows up here too. Streamed uploads are parsed by the
+ * controller itself and are not covered.
+ */
+@ControllerAdvice
+public class RequestBodyTimingAdvice extends RequestBodyAdviceAdapter {
+    private final MeterRegistry meterRegistry;
+    private final Map<Type, Timer> timers = new ConcurrentHashMap<>();
+
+    public RequestBodyTimingAdvice(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                           Class<? extends HttpMessageConverter<?>> converterType) {
+        return new TimedInputMessage(inputMessage, System.nanoTime());
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter,
+                                Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+        if (inputMessage instanceof TimedInputMessage timed) {
+            // One timer per @RequestBody type, so the tag set is fixed by the controllers
+            timers.computeIfAbsent(targetType, type -> Timer.builder("iot.http.request.decode")
+                    .description("Time to read and decode a request body")
+                    .tag("type", parameter.getParameterType().getSimpleName())
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry))
+                .record(System.nanoTime() - timed.startNanos(), TimeUnit.NANOSECONDS);
+        }
+        return body;
+    }
+
+    private record TimedInputMessage(HttpInputMessage delegate, long startNanos) implements HttpInputMessage {
+        @Override
+        public InputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+    }
+}
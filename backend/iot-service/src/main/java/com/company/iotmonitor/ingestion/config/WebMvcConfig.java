@@ -1,18 +1,27 @@
 package com.company.iotmonitor.ingestion.config;
 
+import com.company.iotmonitor.ingestion.interceptor.RateLimitInterceptor;
 import com.company.iotmonitor.ingestion.repository.DeviceRepository;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer {
     private final DeviceRepository deviceRepository;
+    private final RateLimitInterceptor rateLimitInterceptor;
 
-    public WebMvcConfig(DeviceRepository deviceRepository) {
+    public WebMvcConfig(DeviceRepository deviceRepository, RateLimitInterceptor rateLimitInterceptor) {
         this.deviceRepository = deviceRepository;
+        this.rateLimitInterceptor = rateLimitInterceptor;
     }
-    
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(rateLimitInterceptor).addPathPatterns("/readings/**");
+    }
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
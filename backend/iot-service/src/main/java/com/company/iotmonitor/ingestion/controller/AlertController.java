@@ -0,0 +1,150 @@
+package com.company.iotmonitor.ingestion.controller;
+
+import com.company.iotmonitor.ingestion.domain.Alert;
+import com.company.iotmonitor.ingestion.domain.AlertRule;
+import com.company.iotmonitor.ingestion.domain.AlertRuleType;
+import com.company.iotmonitor.ingestion.service.AlertRuleService;
+import com.company.iotmonitor.ingestion.service.RecentAlertSink;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/alerts")
+@Tag(name = "Alerts", description = "Alert rules evaluated on ingest and the alerts they raised")
+public class AlertController {
+    private static final int MAX_RECENT = 1000;
+
+    private final AlertRuleService ruleService;
+    private final RecentAlertSink recentAlerts;
+
+    public AlertController(AlertRuleService ruleService, RecentAlertSink recentAlerts) {
+        this.ruleService = ruleService;
+        this.recentAlerts = recentAlerts;
+    }
+
+    @GetMapping("/rules")
+    @Operation(summary = "List alert rules")
+    @ApiResponse(responseCode = "200", description = "Alert rules",
+                content = @Content(schema = @Schema(implementation = AlertRule[].class)))
+    public List<AlertRule> listRules(
+            @Parameter(description = "Only rules of this gateway")
+            @RequestParam(required = false) UUID gatewayId) {
+        return ruleService.list(gatewayId);
+    }
+
+    @PostMapping("/rules")
+    @Operation(summary = "Create an alert rule",
+               description = "Threshold rules need minValue and/or maxValue, rate-of-change rules maxChangePerMinute, "
+                           + "no-data rules noDataMinutes. Without sensorLabel the rule covers every sensor of the "
+                           + "gateway. Takes effect for the next reading.")
+    @ApiResponse(responseCode = "201", description = "Rule created",
+                content = @Content(schema = @Schema(implementation = AlertRule.class)))
+    @ApiResponse(responseCode = "400", description = "Gateway not found or invalid rule",
+                content = @Content(schema = @Schema(implementation = String.class)))
+    public ResponseEntity<AlertRule> createRule(@RequestBody AlertRuleRequest request, UriComponentsBuilder uriBuilder) {
+        AlertRule rule = ruleService.create(request.toRule());
+        URI location = uriBuilder.path("/alerts/rules/{id}").buildAndExpand(rule.getRuleId()).toUri();
+        return ResponseEntity.created(location).body(rule);
+    }
+
+    @GetMapping("/rules/{id}")
+    @Operation(summary = "Get an alert rule")
+    @ApiResponse(responseCode = "200", description = "Alert rule",
+                content = @Content(schema = @Schema(implementation = AlertRule.class)))
+    @ApiResponse(responseCode = "404", description = "Rule not found")
+    public ResponseEntity<AlertRule> getRule(@PathVariable UUID id) {
+        return ruleService.find(id)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PutMapping("/rules/{id}")
+    @Operation(summary = "Replace an alert rule",
+               description = "Takes effect for the next reading. A rule whose conditions changed starts over, "
+                           + "so a sensor still matching it raises a new alert.")
+    @ApiResponse(responseCode = "200", description = "Rule updated",
+                content = @Content(schema = @Schema(implementation = AlertRule.class)))
+    @ApiResponse(responseCode = "400", description = "Gateway not found or invalid rule",
+                content = @Content(schema = @Schema(implementation = String.class)))
+    @ApiResponse(responseCode = "404", description = "Rule not found")
+    public ResponseEntity<AlertRule> updateRule(@PathVariable UUID id, @RequestBody AlertRuleRequest request) {
+        return ruleService.update(id, request.toRule())
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/rules/{id}")
+    @Operation(summary = "Delete an alert rule")
+    @ApiResponse(responseCode = "204", description = "Rule deleted")
+    @ApiResponse(responseCode = "404", description = "Rule not found")
+    public ResponseEntity<Void> deleteRule(@PathVariable UUID id) {
+        return ruleService.delete(id) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping
+    @Operation(summary = "Get recently raised alerts",
+               description = "Newest first, from memory; only the last iot.alerts.recent.max-size alerts are kept.")
+    @ApiResponse(responseCode = "200", description = "Recent alerts",
+                content = @Content(schema = @Schema(implementation = Alert[].class)))
+    public List<Alert> getRecentAlerts(
+            @Parameter(description = "Only alerts of this gateway")
+            @RequestParam(required = false) UUID gatewayId,
+            @Parameter(description = "Maximum alerts to return", example = "100")
+            @RequestParam(defaultValue = "100") int limit) {
+        if (limit < 1 || limit > MAX_RECENT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_RECENT);
+        }
+        return recentAlerts.recent(gatewayId, limit);
+    }
+
+    @Schema(description = "Request payload for creating or replacing an alert rule")
+    public record AlertRuleRequest(
+            @Schema(description = "Gateway the rule applies to", example = "550e8400-e29b-41d4-a716-446655440000", required = true)
+            UUID gatewayId,
+
+            @Schema(description = "Sensor label; every sensor of the gateway when omitted", example = "battery")
+            String sensorLabel,
+
+            @Schema(description = "Rule type", example = "THRESHOLD", required = true)
+            AlertRuleType type,
+
+            @Schema(description = "THRESHOLD: alert below this value", example = "3.3")
+            Double minValue,
+
+            @Schema(description = "THRESHOLD: alert above this value", example = "4.2")
+            Double maxValue,
+
+            @Schema(description = "RATE_OF_CHANGE: alert when the value moves faster than this per minute", example = "5")
+            Double maxChangePerMinute,
+
+            @Schema(description = "NO_DATA: alert after this many minutes without a reading", example = "10")
+            Integer noDataMinutes,
+
+            @Schema(description = "Disabled rules are stored but not evaluated", example = "true")
+            Boolean enabled) {
+
+        AlertRule toRule() {
+            AlertRule rule = new AlertRule();
+            rule.setGatewayId(gatewayId);
+            rule.setSensorLabel(sensorLabel);
+            rule.setType(type);
+            rule.setMinValue(minValue);
+            rule.setMaxValue(maxValue);
+            rule.setMaxChangePerMinute(maxChangePerMinute);
+            rule.setNoDataMinutes(noDataMinutes);
+            rule.setEnabled(enabled == null || enabled);
+            return rule;
+        }
+    }
+}
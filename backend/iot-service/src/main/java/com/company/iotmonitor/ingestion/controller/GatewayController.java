@@ -1,6 +1,7 @@
 package com.company.iotmonitor.ingestion.controller;
 
 import com.company.iotmonitor.ingestion.domain.Gateway;
+import com.company.iotmonitor.ingestion.domain.GatewayDeletionJob;
 import com.company.iotmonitor.ingestion.service.GatewayService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -26,7 +27,9 @@ public class GatewayController {
     }
 
     @GetMapping
-    @Operation(summary = "List all registered gateways")
+    @Operation(summary = "List all registered gateways",
+               description = "Each gateway carries its liveness, ONLINE if it sent a reading or heartbeat within "
+                           + "iot.gateway.liveness.timeout, and when it was last seen.")
     @ApiResponse(responseCode = "200", description = "List of gateways",
                 content = @Content(schema = @Schema(implementation = Gateway.class)))
     public ResponseEntity<List<Gateway>> listGateways() {
@@ -48,7 +51,8 @@ public class GatewayController {
     }
 
     @GetMapping("/{id}")
-    @Operation(summary = "Get gateway details")
+    @Operation(summary = "Get gateway details",
+               description = "Includes the gateway's liveness and when it was last seen.")
     @ApiResponse(responseCode = "200", description = "Gateway details",
                 content = @Content(schema = @Schema(implementation = Gateway.class)))
     @ApiResponse(responseCode = "404", description = "Gateway not found",
@@ -72,13 +76,42 @@ public class GatewayController {
             .orElse(ResponseEntity.notFound().build());
     }
 
+    @PostMapping("/{id}/heartbeat")
+    @Operation(summary = "Record a gateway heartbeat",
+               description = "Keeps a gateway that has no readings to send online. Any accepted reading counts "
+                           + "as a heartbeat too.")
+    @ApiResponse(responseCode = "204", description = "Heartbeat recorded")
+    @ApiResponse(responseCode = "404", description = "Gateway not found")
+    public ResponseEntity<Void> recordHeartbeat(@PathVariable UUID id) {
+        return gatewayService.recordHeartbeat(id)
+            ? ResponseEntity.noContent().build()
+            : ResponseEntity.notFound().build();
+    }
+
     @DeleteMapping("/{id}")
-    @Operation(summary = "Delete a gateway and all its readings")
-    @ApiResponse(responseCode = "204", description = "Gateway deleted successfully")
+    @Operation(summary = "Delete a gateway and all its readings",
+               description = "The gateway is hidden and stops accepting readings immediately; its readings are "
+                           + "removed in the background. Poll the returned Location for progress.")
+    @ApiResponse(responseCode = "202", description = "Deletion started",
+                content = @Content(schema = @Schema(implementation = GatewayDeletionJob.class)))
     @ApiResponse(responseCode = "404", description = "Gateway not found")
-    public ResponseEntity<Void> deleteGateway(@PathVariable UUID id) {
-        boolean deleted = gatewayService.deleteGateway(id);
-        return deleted ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    public ResponseEntity<GatewayDeletionJob> deleteGateway(@PathVariable UUID id, UriComponentsBuilder uriBuilder) {
+        return gatewayService.deleteGateway(id)
+            .map(job -> ResponseEntity.accepted()
+                .location(uriBuilder.path("/gateways/{id}/deletion").buildAndExpand(id).toUri())
+                .body(job))
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{id}/deletion")
+    @Operation(summary = "Get the progress of a gateway deletion")
+    @ApiResponse(responseCode = "200", description = "Deletion progress",
+                content = @Content(schema = @Schema(implementation = GatewayDeletionJob.class)))
+    @ApiResponse(responseCode = "404", description = "No deletion running or recently finished for this gateway")
+    public ResponseEntity<GatewayDeletionJob> getDeletion(@PathVariable UUID id) {
+        return gatewayService.getDeletionJob(id)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
     }
 
     @Schema(description = "Request payload for registering a new gateway")
@@ -1,23 +1,45 @@
 package com.company.iotmonitor.ingestion.controller;
 
-import com.company.iotmonitor.ingestion.domain.Gateway;
-import com.company.iotmonitor.ingestion.domain.Reading;
+import com.company.iotmonitor.ingestion.domain.AggregateFunction;
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import com.company.iotmonitor.ingestion.domain.LatestReading;
+import com.company.iotmonitor.ingestion.domain.LiveReadings;
+import com.company.iotmonitor.ingestion.domain.ReadingAggregate;
+import com.company.iotmonitor.ingestion.domain.ReadingPage;
+import com.company.iotmonitor.ingestion.domain.ReadingQuantiles;
+import com.company.iotmonitor.ingestion.domain.ReadingView;
+import com.company.iotmonitor.ingestion.domain.TimeBucket;
+import com.company.iotmonitor.ingestion.interceptor.GatewayRateLimiter;
+import com.company.iotmonitor.ingestion.interceptor.RequestDecompressionFilter;
 import com.company.iotmonitor.ingestion.service.GatewayService;
+import com.company.iotmonitor.ingestion.service.ReadingCborDecoder;
+import com.company.iotmonitor.ingestion.service.ReadingMetrics;
+import com.company.iotmonitor.ingestion.service.ReadingStreamExporter;
+import com.company.iotmonitor.ingestion.service.ReadingStreamIngestor;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
@@ -26,25 +48,49 @@ import java.util.UUID;
 public class ReadingController {
     private static final Logger logger = LoggerFactory.getLogger(ReadingController.class);
     private static final int MAX_BATCH_SIZE = 1000;
+    private static final int MAX_PAGE_SIZE = 10000;
+    private static final Duration MAX_QUANTILE_WINDOW = Duration.ofDays(31);
 
-    private final GatewayService gatewayService;
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
 
-    public ReadingController(GatewayService gatewayService) {
+    private final GatewayService gatewayService;
+    private final ReadingStreamIngestor streamIngestor;
+    private final ReadingStreamExporter streamExporter;
+    private final GatewayRateLimiter rateLimiter;
+    private final ReadingCborDecoder cborDecoder;
+    private final ReadingMetrics metrics;
+
+    public ReadingController(GatewayService gatewayService, ReadingStreamIngestor streamIngestor,
+                             ReadingStreamExporter streamExporter, GatewayRateLimiter rateLimiter,
+                             ReadingCborDecoder cborDecoder, ReadingMetrics metrics) {
         this.gatewayService = gatewayService;
+        this.streamIngestor = streamIngestor;
+        this.streamExporter = streamExporter;
+        this.rateLimiter = rateLimiter;
+        this.cborDecoder = cborDecoder;
+        this.metrics = metrics;
     }
 
     @PostMapping
     @Operation(summary = "Record a single reading",
-               description = "Records a single reading for a gateway. Rate limited to 100 requests per minute.")
-    @ApiResponse(responseCode = "202", description = "Reading accepted for processing")
+               description = "Queues a single reading for a gateway. Costs one rate limit token.")
+    @ApiResponse(responseCode = "202", description = "Reading queued for persistence")
     @ApiResponse(responseCode = "400", description = "Invalid input data",
                 content = @Content(schema = @Schema(implementation = String.class)))
     @ApiResponse(responseCode = "404", description = "Gateway not found",
                 content = @Content(schema = @Schema(implementation = String.class)))
     @ApiResponse(responseCode = "429", description = "Too many requests",
                 content = @Content(schema = @Schema(implementation = String.class)))
-    public ResponseEntity<Void> submitReading(@Valid @RequestBody ReadingRequestWrapper request) {
+    @ApiResponse(responseCode = "503", description = "Ingest queue is full",
+                content = @Content(schema = @Schema(implementation = String.class)))
+    public ResponseEntity<Void> submitReading(@Valid @RequestBody ReadingRequestWrapper request,
+                                              HttpServletRequest servletRequest,
+                                              HttpServletResponse response) {
         logger.info("Recording reading for gateway {}", request.getGatewayId());
+        RequestDecompressionFilter.recordGateway(servletRequest, request.getGatewayId());
+        rateLimiter.consume(request.getGatewayId(), 1, response);
         gatewayService.recordReading(
             request.getGatewayId(),
             request.getData().getTimestamp(),
@@ -56,8 +102,11 @@ public class ReadingController {
 
     @PostMapping("/batch")
     @Operation(summary = "Record batch readings",
-               description = "Records multiple readings for a gateway in one request. Rate limited to 50 requests per minute.")
-    @ApiResponse(responseCode = "202", description = "Readings accepted for processing")
+               description = "Queues multiple readings for a gateway in one request. Costs one rate limit token per reading. "
+                           + "The body may be compressed with Content-Encoding gzip or zstd. "
+                           + "With an Idempotency-Key, a repeat of an accepted batch is answered without writing it again.")
+    @ApiResponse(responseCode = "202", description = "Readings queued for persistence, or already accepted "
+                                                   + "under the same Idempotency-Key (Idempotent-Replayed: true)")
     @ApiResponse(responseCode = "400", description = "Invalid input data", // Includes gateway not found case now
                 content = @Content(schema = @Schema(implementation = String.class)))
     @ApiResponse(responseCode = "404", description = "Gateway not found", // Note: This might be masked by 400 due to throwing IllegalArgumentException
@@ -66,59 +115,336 @@ public class ReadingController {
                 content = @Content(schema = @Schema(implementation = String.class)))
     @ApiResponse(responseCode = "429", description = "Too many requests",
                 content = @Content(schema = @Schema(implementation = String.class)))
-    public ResponseEntity<Void> submitBatchReadings(@Valid @RequestBody BatchReadingRequest request) {
+    @ApiResponse(responseCode = "503", description = "Ingest queue is full",
+                content = @Content(schema = @Schema(implementation = String.class)))
+    public ResponseEntity<Void> submitBatchReadings(@Valid @RequestBody BatchReadingRequest request,
+                                                    @Parameter(description = "Client-chosen key; a retry with the same key is not written again")
+                                                    @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                                    HttpServletRequest servletRequest,
+                                                    HttpServletResponse response) {
+        RequestDecompressionFilter.recordGateway(servletRequest, request.getGatewayId());
         if (request.getData().size() > MAX_BATCH_SIZE) {
             throw new IllegalArgumentException("Batch size exceeds maximum of " + MAX_BATCH_SIZE);
         }
+        rateLimiter.consume(request.getGatewayId(), request.getData().size(), response);
+        metrics.recordRequestSize("batch", request.getData().size());
 
         logger.info("Recording {} readings for gateway {}", request.getData().size(), request.getGatewayId());
         logger.debug("submitBatchReadings: request={}", request);
 
-        // Fetch the managed Gateway entity using the gatewayId, handling Optional
-        Gateway managedGateway = gatewayService.getGatewayById(request.getGatewayId())
-                .orElseThrow(() -> new IllegalArgumentException("Gateway not found with ID: " + request.getGatewayId()));
+        return recordBatch(request.getGatewayId(), request.toIncomingReadings(), idempotencyKey);
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_CBOR_VALUE)
+    @Operation(summary = "Record a single reading (CBOR)",
+               description = "Same as the JSON variant, for a CBOR body of the form "
+                           + "{gatewayId: 16 bytes or UUID text, data: [epochMillis, sensor, unit, float64]}. "
+                           + "Costs one rate limit token.")
+    @ApiResponse(responseCode = "202", description = "Reading queued for persistence")
+    @ApiResponse(responseCode = "400", description = "Malformed body or invalid reading",
+                content = @Content(schema = @Schema(implementation = String.class)))
+    @ApiResponse(responseCode = "429", description = "Too many requests",
+                content = @Content(schema = @Schema(implementation = String.class)))
+    @ApiResponse(responseCode = "503", description = "Ingest queue is full",
+                content = @Content(schema = @Schema(implementation = String.class)))
+    public ResponseEntity<Void> submitReadingCbor(HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        ReadingCborDecoder.Body body = cborDecoder.decodeSingle(request.getInputStream());
+        RequestDecompressionFilter.recordGateway(request, body.gatewayId());
+        logger.info("Recording reading for gateway {}", body.gatewayId());
+        rateLimiter.consume(body.gatewayId(), 1, response);
+        gatewayService.recordBatchReadings(body.gatewayId(), body.readings());
+        return ResponseEntity.accepted().build();
+    }
 
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_CBOR_VALUE)
+    @Operation(summary = "Record batch readings (CBOR)",
+               description = "Same as the JSON variant, for a CBOR body of the form "
+                           + "{gatewayId: 16 bytes or UUID text, data: [[epochMillis, sensor, unit, float64], ...]}. "
+                           + "Readings are decoded straight into the ingest queue. "
+                           + "Costs one rate limit token per reading. Honors Idempotency-Key like the JSON variant.")
+    @ApiResponse(responseCode = "202", description = "Readings queued for persistence, or already accepted "
+                                                   + "under the same Idempotency-Key (Idempotent-Replayed: true)")
+    @ApiResponse(responseCode = "400", description = "Malformed body, invalid reading or too many readings",
+                content = @Content(schema = @Schema(implementation = String.class)))
+    @ApiResponse(responseCode = "429", description = "Too many requests",
+                content = @Content(schema = @Schema(implementation = String.class)))
+    @ApiResponse(responseCode = "503", description = "Ingest queue is full",
+                content = @Content(schema = @Schema(implementation = String.class)))
+    public ResponseEntity<Void> submitBatchReadingsCbor(
+            @Parameter(description = "Client-chosen key; a retry with the same key is not written again")
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        ReadingCborDecoder.Body body = cborDecoder.decodeBatch(request.getInputStream(), MAX_BATCH_SIZE);
+        RequestDecompressionFilter.recordGateway(request, body.gatewayId());
+        rateLimiter.consume(body.gatewayId(), body.readings().size(), response);
+        metrics.recordRequestSize("batch", body.readings().size());
+
+        logger.info("Recording {} readings for gateway {}", body.readings().size(), body.gatewayId());
+        return recordBatch(body.gatewayId(), body.readings(), idempotencyKey);
+    }
 
-        List<Reading> readings = request.getData().stream()
-        	.map(req -> {
-                logger.debug("ReadingRequest: {}", req);
-                return new Reading(
-                    null,
-                    managedGateway, // Use the fetched managed gateway
-                    req.getTimestamp(),
-                    req.getSensor(),
-                    req.getUnit(),
-                    req.getReading());
-            })
-            .toList();
-        gatewayService.recordBatchReadings(readings);
+    private ResponseEntity<Void> recordBatch(UUID gatewayId, List<IncomingReading> readings, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            gatewayService.recordBatchReadings(gatewayId, readings);
+        } else if (!gatewayService.recordBatchReadings(gatewayId, readings, idempotencyKey)) {
+            // Same answer as the first time; the readings were accepted then
+            return ResponseEntity.accepted().header(IDEMPOTENT_REPLAYED_HEADER, "true").build();
+        }
         return ResponseEntity.accepted().build();
     }
 
-    @GetMapping("/{gatewayId}")
-    @Cacheable(value = "readings", key = "{#gatewayId, #start, #end}")
+    @PostMapping(value = "/stream", consumes = {APPLICATION_NDJSON, MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Stream readings of arbitrary length",
+               description = "Accepts newline-delimited JSON or a JSON array of reading objects for one gateway. "
+                           + "The body is parsed incrementally and queued in chunks, so there is no batch size limit. "
+                           + "Each chunk is charged one rate limit token per reading before it is queued; an upload "
+                           + "that runs out of tokens or queue space stops there and reports how many readings "
+                           + "were accepted, so it can be resumed after them. "
+                           + "The body may be compressed with Content-Encoding gzip or zstd.")
+    @ApiResponse(responseCode = "202", description = "Upload consumed; readings queued for persistence",
+                content = @Content(schema = @Schema(implementation = ReadingStreamIngestor.Result.class)))
+    @ApiResponse(responseCode = "400", description = "Gateway not found, removed mid-upload, or malformed upload; "
+                                                     + "readings before the error stay queued",
+                content = @Content(schema = @Schema(implementation = ReadingStreamIngestor.Result.class)))
+    @ApiResponse(responseCode = "429", description = "Rate limit reached mid-upload; 'accepted' readings stay queued "
+                                                     + "and the upload can resume after them",
+                content = @Content(schema = @Schema(implementation = ReadingStreamIngestor.Result.class)))
+    @ApiResponse(responseCode = "503", description = "Ingest queue stayed full; 'accepted' readings stay queued "
+                                                     + "and the upload can resume after them",
+                content = @Content(schema = @Schema(implementation = ReadingStreamIngestor.Result.class)))
+    public ResponseEntity<ReadingStreamIngestor.Result> streamReadings(
+            @Parameter(description = "ID of the gateway", required = true, example = "550e8400-e29b-41d4-a716-446655440000")
+            @RequestParam UUID gatewayId,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        logger.info("Streaming readings for gateway {}", gatewayId);
+        RequestDecompressionFilter.recordGateway(request, gatewayId);
+        ReadingStreamIngestor.Result result = streamIngestor.ingest(gatewayId, request.getInputStream(),
+            chunkSize -> rateLimiter.consume(gatewayId, chunkSize, response));
+        metrics.recordRequestSize("stream", (int) Math.min(Integer.MAX_VALUE, result.accepted() + result.rejected()));
+        return switch (result.outcome()) {
+            case COMPLETED -> ResponseEntity.accepted().body(result);
+            case MALFORMED, GATEWAY_REMOVED -> ResponseEntity.badRequest().body(result);
+            case QUEUE_FULL -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(result.retryAfter()))
+                .body(result);
+            case RATE_LIMITED -> ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(result.retryAfter()))
+                .body(result);
+        };
+    }
+
+    @GetMapping(value = "/{gatewayId}", produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON})
     @Operation(summary = "Get readings for gateway",
-               description = "Returns readings for a gateway within a time range. Rate limited to 100 requests per minute.")
+               description = "Streams all readings for a gateway within a time range, ordered by time, as a JSON array "
+                           + "or as newline-delimited JSON when application/x-ndjson is accepted. Rows are written as "
+                           + "they are read, so any range size is supported. Readings carry a gatewayId instead "
+                           + "of an embedded gateway object. Costs one rate limit token.")
     @ApiResponse(responseCode = "200", description = "List of readings",
-                content = @Content(schema = @Schema(implementation = Reading[].class)))
+                content = @Content(schema = @Schema(implementation = ReadingView[].class)))
     @ApiResponse(responseCode = "400", description = "Invalid time range",
                 content = @Content(schema = @Schema(implementation = String.class)))
     @ApiResponse(responseCode = "404", description = "Gateway not found",
                 content = @Content(schema = @Schema(implementation = String.class)))
     @ApiResponse(responseCode = "429", description = "Too many requests",
                 content = @Content(schema = @Schema(implementation = String.class)))
-    public List<Reading> getReadings(
+    public void getReadings(
             @Parameter(description = "ID of the gateway", required = true, example = "550e8400-e29b-41d4-a716-446655440000")
             @PathVariable UUID gatewayId,
             @Parameter(description = "Start of time range (UTC)", required = true, example = "2025-07-04T00:00:00Z")
             @RequestParam Instant start,
             @Parameter(description = "End of time range (UTC)", required = true, example = "2025-07-04T23:59:59Z")
-            @RequestParam Instant end) {
+            @RequestParam Instant end,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            HttpServletResponse response) throws IOException {
         if (end.isBefore(start)) {
             throw new IllegalArgumentException("End time must be after start time");
         }
         logger.info("Fetching readings for gateway {} between {} and {}", gatewayId, start, end);
-        return gatewayService.getReadings(gatewayId, start, end);
+        boolean ndjson = accept != null && accept.contains(APPLICATION_NDJSON);
+        response.setContentType(ndjson ? APPLICATION_NDJSON : MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        long rows = streamExporter.export(gatewayId, start, end, ndjson, response.getOutputStream());
+        metrics.recordQuery("export", start, end, rows);
+    }
+
+    @GetMapping("/latest")
+    @Operation(summary = "Get latest values across gateways",
+               description = "Returns the latest value of every sensor, keyed by gateway ID. Served from memory.")
+    @ApiResponse(responseCode = "200", description = "Latest values by gateway")
+    public Map<UUID, List<LatestReading>> getLatestReadings(
+            @Parameter(description = "Only these gateways; all gateways with data when omitted")
+            @RequestParam(required = false) List<UUID> gatewayIds) {
+        return gatewayService.getLatestReadings(gatewayIds);
+    }
+
+    @GetMapping("/quantiles")
+    @Operation(summary = "Get approximate quantiles of a sensor across gateways",
+               description = "Estimates quantiles of one sensor label from hourly sketches maintained on ingest, "
+                           + "merged across the selected gateways or per gateway, with one result per unit. "
+                           + "Every hour overlapping the range is included whole. Each value is within 1% of the "
+                           + "exact quantile (relative error); min, max and count are exact. Ranges up to 31 days.")
+    @ApiResponse(responseCode = "200", description = "Quantiles per unit, and per gateway if requested",
+                content = @Content(schema = @Schema(implementation = ReadingQuantiles[].class)))
+    @ApiResponse(responseCode = "400", description = "Invalid time range or quantile",
+                content = @Content(schema = @Schema(implementation = String.class)))
+    public List<ReadingQuantiles> getQuantiles(
+            @Parameter(description = "Sensor label", required = true, example = "temperature")
+            @RequestParam String sensorLabel,
+            @Parameter(description = "Start of time range (UTC)", required = true, example = "2025-07-04T00:00:00Z")
+            @RequestParam Instant start,
+            @Parameter(description = "End of time range (UTC)", required = true, example = "2025-07-04T23:59:59Z")
+            @RequestParam Instant end,
+            @Parameter(description = "Only these gateways; all gateways when omitted")
+            @RequestParam(required = false) List<UUID> gatewayIds,
+            @Parameter(description = "One result per gateway instead of one across gateways", example = "false")
+            @RequestParam(defaultValue = "false") boolean perGateway,
+            @Parameter(description = "Quantiles to estimate, each in [0, 1]", example = "0.5,0.95,0.99")
+            @RequestParam(defaultValue = "0.5,0.95,0.99") List<Double> quantiles) {
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("End time must be after start time");
+        }
+        if (Duration.between(start, end).compareTo(MAX_QUANTILE_WINDOW) > 0) {
+            throw new IllegalArgumentException("Time range must not exceed " + MAX_QUANTILE_WINDOW.toDays() + " days");
+        }
+        if (quantiles.isEmpty() || quantiles.stream().anyMatch(q -> q == null || !(q >= 0 && q <= 1))) {
+            throw new IllegalArgumentException("Quantiles must be between 0 and 1");
+        }
+        List<ReadingQuantiles> results =
+            gatewayService.getQuantiles(sensorLabel, gatewayIds, perGateway, start, end, quantiles);
+        metrics.recordQuery("quantiles", start, end, results.size());
+        return results;
+    }
+
+    @GetMapping("/{gatewayId}/latest")
+    @Operation(summary = "Get latest value of each sensor for gateway",
+               description = "Returns the most recent value of each sensor, served from memory.")
+    @ApiResponse(responseCode = "200", description = "Latest value per sensor",
+                content = @Content(schema = @Schema(implementation = LatestReading[].class)))
+    @ApiResponse(responseCode = "400", description = "Gateway not found",
+                content = @Content(schema = @Schema(implementation = String.class)))
+    public List<LatestReading> getLatestReadings(
+            @Parameter(description = "ID of the gateway", required = true, example = "550e8400-e29b-41d4-a716-446655440000")
+            @PathVariable UUID gatewayId) {
+        return gatewayService.getLatestReadings(gatewayId);
+    }
+
+    @GetMapping(value = "/{gatewayId}/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Subscribe to live readings for gateway",
+               description = "Server-Sent Events stream of the readings accepted for a gateway from now on. Each "
+                           + "'readings' event carries the readings accepted since the previous one. A client that "
+                           + "falls behind gets readings coalesced into fewer events, and once its buffer is full the "
+                           + "oldest are dropped and counted in 'dropped'. Idle streams receive a heartbeat comment; "
+                           + "streams end after iot.live.timeout and EventSource clients reconnect. "
+                           + "Costs one rate limit token per subscription.")
+    @ApiResponse(responseCode = "200", description = "Event stream of readings",
+                content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                                   schema = @Schema(implementation = LiveReadings.class)))
+    @ApiResponse(responseCode = "400", description = "Gateway not found",
+                content = @Content(schema = @Schema(implementation = String.class)))
+    @ApiResponse(responseCode = "429", description = "Too many requests",
+                content = @Content(schema = @Schema(implementation = String.class)))
+    @ApiResponse(responseCode = "503", description = "Live subscriber limit reached",
+                content = @Content(schema = @Schema(implementation = String.class)))
+    public SseEmitter subscribeReadings(
+            @Parameter(description = "ID of the gateway", required = true, example = "550e8400-e29b-41d4-a716-446655440000")
+            @PathVariable UUID gatewayId,
+            @Parameter(description = "Only push this sensor", example = "house")
+            @RequestParam(required = false) String sensorLabel) {
+        logger.info("Live subscription for gateway {}", gatewayId);
+        return gatewayService.subscribeReadings(gatewayId, sensorLabel);
+    }
+
+    @GetMapping("/{gatewayId}/page")
+    @Operation(summary = "Get one page of readings for gateway",
+               description = "Returns up to limit readings ordered by time. Pass nextCursor from the response "
+                           + "as cursor to fetch the following page; it is absent on the last page.")
+    @ApiResponse(responseCode = "200", description = "Page of readings",
+                content = @Content(schema = @Schema(implementation = ReadingPage.class)))
+    @ApiResponse(responseCode = "400", description = "Invalid time range, limit or cursor",
+                content = @Content(schema = @Schema(implementation = String.class)))
+    public ReadingPage getReadingPage(
+            @Parameter(description = "ID of the gateway", required = true, example = "550e8400-e29b-41d4-a716-446655440000")
+            @PathVariable UUID gatewayId,
+            @Parameter(description = "Start of time range (UTC)", required = true, example = "2025-07-04T00:00:00Z")
+            @RequestParam Instant start,
+            @Parameter(description = "End of time range (UTC)", required = true, example = "2025-07-04T23:59:59Z")
+            @RequestParam Instant end,
+            @Parameter(description = "Continuation cursor from the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Maximum readings per page", example = "1000")
+            @RequestParam(defaultValue = "1000") int limit) {
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("End time must be after start time");
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        ReadingPage.Cursor after = cursor != null ? ReadingPage.Cursor.decode(cursor) : null;
+        ReadingPage page = gatewayService.getReadingPage(gatewayId, start, end, after, limit);
+        metrics.recordQuery("page", start, end, page.items().size());
+        return page;
+    }
+
+    @GetMapping("/{gatewayId}/aggregate")
+    @Operation(summary = "Aggregate readings into time buckets",
+               description = "Returns one row per bucket per sensor, computed in the database. "
+                           + "Buckets are aligned to the epoch (UTC).")
+    @ApiResponse(responseCode = "200", description = "Aggregated readings",
+                content = @Content(schema = @Schema(implementation = ReadingAggregate[].class)))
+    @ApiResponse(responseCode = "400", description = "Invalid time range, bucket or function",
+                content = @Content(schema = @Schema(implementation = String.class)))
+    public List<ReadingAggregate> getAggregates(
+            @Parameter(description = "ID of the gateway", required = true, example = "550e8400-e29b-41d4-a716-446655440000")
+            @PathVariable UUID gatewayId,
+            @Parameter(description = "Start of time range (UTC)", required = true, example = "2025-07-04T00:00:00Z")
+            @RequestParam Instant start,
+            @Parameter(description = "End of time range (UTC)", required = true, example = "2025-07-04T23:59:59Z")
+            @RequestParam Instant end,
+            @Parameter(description = "Bucket width: 1m, 5m, 1h or 1d", example = "1h")
+            @RequestParam(defaultValue = "1h") String bucket,
+            @Parameter(description = "Only aggregate this sensor", example = "house")
+            @RequestParam(required = false) String sensorLabel,
+            @Parameter(description = "Functions to compute: min, max, avg, count, sum, first, last", example = "min,max,avg")
+            @RequestParam(defaultValue = "min,max,avg,count") List<String> functions) {
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("End time must be after start time");
+        }
+        logger.info("Aggregating readings for gateway {} between {} and {} by {}", gatewayId, start, end, bucket);
+        List<ReadingAggregate> aggregates = gatewayService.getAggregates(gatewayId, start, end,
+            TimeBucket.fromLabel(bucket), sensorLabel, AggregateFunction.parse(functions));
+        metrics.recordQuery("aggregate", start, end, aggregates.size());
+        return aggregates;
+    }
+
+    @GetMapping("/{gatewayId}/rollups")
+    @Operation(summary = "Get in-memory rollups for gateway",
+               description = "Returns per-minute or per-hour min/max/avg/count/sum maintained as readings are ingested. "
+                           + "Served from memory; only the configured retention window is available.")
+    @ApiResponse(responseCode = "200", description = "Rollup buckets",
+                content = @Content(schema = @Schema(implementation = ReadingAggregate[].class)))
+    @ApiResponse(responseCode = "400", description = "Invalid time range or resolution",
+                content = @Content(schema = @Schema(implementation = String.class)))
+    public List<ReadingAggregate> getRollups(
+            @Parameter(description = "ID of the gateway", required = true, example = "550e8400-e29b-41d4-a716-446655440000")
+            @PathVariable UUID gatewayId,
+            @Parameter(description = "Start of time range (UTC)", required = true, example = "2025-07-04T00:00:00Z")
+            @RequestParam Instant start,
+            @Parameter(description = "End of time range (UTC)", required = true, example = "2025-07-04T23:59:59Z")
+            @RequestParam Instant end,
+            @Parameter(description = "Resolution: 1m or 1h", example = "1m")
+            @RequestParam(defaultValue = "1m") String resolution,
+            @Parameter(description = "Only return this sensor", example = "house")
+            @RequestParam(required = false) String sensorLabel) {
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("End time must be after start time");
+        }
+        List<ReadingAggregate> rollups =
+            gatewayService.getRollups(gatewayId, sensorLabel, TimeBucket.fromLabel(resolution), start, end);
+        metrics.recordQuery("rollups", start, end, rollups.size());
+        return rollups;
     }
 
     @Schema(description = "Request payload for a single reading")
@@ -220,6 +546,22 @@ public class ReadingController {
             this.data = data;
         }
 
+        /**
+         * Validates and converts every reading for queuing.
+         *
+         * @throws IllegalArgumentException if any reading could not be stored
+         */
+        public List<IncomingReading> toIncomingReadings() {
+            return data.stream()
+                .map(req -> IncomingReading.of(
+                    gatewayId,
+                    req.getTimestamp(),
+                    req.getSensor(),
+                    req.getUnit(),
+                    req.getReading()))
+                .toList();
+        }
+
         @Override
         public String toString() {
             return "BatchReadingRequest{" +
@@ -0,0 +1,29 @@
+package com.company.iotmonitor.ingestion.domain;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+public enum AggregateFunction {
+    MIN, MAX, AVG, COUNT, SUM, FIRST, LAST;
+
+    /** Functions that depend on row order and cannot be answered by a plain GROUP BY. */
+    public static final Set<AggregateFunction> ORDERED = EnumSet.of(FIRST, LAST);
+
+    public static Set<AggregateFunction> parse(List<String> names) {
+        Set<AggregateFunction> functions = EnumSet.noneOf(AggregateFunction.class);
+        for (String name : names) {
+            try {
+                functions.add(valueOf(name.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported function '" + name
+                    + "', expected any of min, max, avg, count, sum, first, last");
+            }
+        }
+        if (functions.isEmpty()) {
+            throw new IllegalArgumentException("At least one aggregate function is required");
+        }
+        return functions;
+    }
+}
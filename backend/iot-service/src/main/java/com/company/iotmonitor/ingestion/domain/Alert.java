@@ -0,0 +1,37 @@
+package com.company.iotmonitor.ingestion.domain;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A rule starting or stopping to match one sensor. Rules only report changes,
+ * so a sensor that stays out of range raises one FIRING alert, not one per
+ * reading.
+ */
+@Schema(description = "A rule starting (FIRING) or stopping (RESOLVED) to match a sensor")
+public record Alert(
+        @Schema(description = "Rule ID")
+        UUID ruleId,
+        @Schema(description = "Gateway ID", example = "550e8400-e29b-41d4-a716-446655440000")
+        UUID gatewayId,
+        @Schema(description = "Sensor label", example = "battery")
+        String sensorLabel,
+        @Schema(description = "Rule type")
+        AlertRuleType type,
+        @Schema(description = "FIRING or RESOLVED")
+        State state,
+        @Schema(description = "Value that changed the state; absent for no-data rules", example = "3.1")
+        Double readingValue,
+        @Schema(description = "Time of the reading that changed the state, or of the last reading for no-data rules")
+        Instant readingTimestamp,
+        @Schema(description = "When the alert was raised (UTC)")
+        Instant raisedAt,
+        @Schema(description = "Human-readable description", example = "battery 3.1 below minimum 3.3")
+        String message) {
+
+    public enum State {
+        FIRING, RESOLVED
+    }
+}
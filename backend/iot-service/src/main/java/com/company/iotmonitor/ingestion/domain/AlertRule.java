@@ -0,0 +1,56 @@
+package com.company.iotmonitor.ingestion.domain;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A condition on the readings of one gateway, for one sensor label or for
+ * all of them. Which limit fields apply depends on the {@link AlertRuleType}.
+ */
+@Entity
+@Table(name = "alert_rules", indexes = {
+    @Index(name = "idx_alert_rules_gateway", columnList = "gateway_id")
+})
+@Data
+public class AlertRule {
+    @Id
+    private UUID ruleId;
+
+    @Column(nullable = false)
+    private UUID gatewayId;
+
+    /** Null applies the rule to every sensor of the gateway. */
+    @Column(length = 100)
+    private String sensorLabel;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private AlertRuleType type;
+
+    private Double minValue;
+    private Double maxValue;
+    private Double maxChangePerMinute;
+    private Integer noDataMinutes;
+
+    private boolean enabled = true;
+
+    @Column(updatable = false)
+    private Instant createdAt;
+    private Instant updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (ruleId == null) {
+            ruleId = UUID.randomUUID();
+        }
+        createdAt = Instant.now();
+        updatedAt = createdAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = Instant.now();
+    }
+}
@@ -0,0 +1,14 @@
+package com.company.iotmonitor.ingestion.domain;
+
+/**
+ * What an {@link AlertRule} checks. Threshold and rate-of-change rules are
+ * evaluated on each accepted reading; no-data rules on a schedule.
+ */
+public enum AlertRuleType {
+    /** Value below {@code minValue} or above {@code maxValue}. */
+    THRESHOLD,
+    /** Change between consecutive readings faster than {@code maxChangePerMinute}, in either direction. */
+    RATE_OF_CHANGE,
+    /** No reading for {@code noDataMinutes}. */
+    NO_DATA
+}
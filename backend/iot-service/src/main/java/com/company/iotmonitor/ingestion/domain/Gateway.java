@@ -1,5 +1,6 @@
 package com.company.iotmonitor.ingestion.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.Data;
 import java.time.Instant;
@@ -8,7 +9,12 @@ import java.util.UUID;
 @Entity
 @Table(name = "gateways")
 @Data
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Gateway {
+    public static final String STATUS_ACTIVE = "ACTIVE";
+    /** Hidden and closed to ingest while its data is removed in the background. */
+    public static final String STATUS_DELETING = "DELETING";
+
     @Id
     private UUID gatewayId;
     
@@ -16,11 +22,19 @@ public class Gateway {
     private String name;
     private String location;
     private String model;
-    private String status = "ACTIVE";
+    private String status = STATUS_ACTIVE;
     
     @Column(updatable = false)
     private Instant registeredAt = Instant.now();
 
+    /** Last reading or heartbeat. Written in batches by the liveness tracker, never through the entity. */
+    @Column(insertable = false, updatable = false)
+    private Instant lastSeenAt;
+
+    /** Filled in from the liveness tracker when the gateway is returned; not stored. */
+    @Transient
+    private GatewayLiveness liveness;
+
     @PrePersist
     protected void onCreate() {
         if (gatewayId == null) {
@@ -0,0 +1,48 @@
+package com.company.iotmonitor.ingestion.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Progress of the background deletion of one gateway and its data. Jobs are
+ * identified by the gateway they delete.
+ */
+@Schema(description = "Progress of a gateway deletion")
+public record GatewayDeletionJob(
+        UUID gatewayId,
+        Status status,
+        @Schema(description = "Readings rows deleted so far")
+        long readingsDeleted,
+        Instant startedAt,
+        Instant finishedAt,
+        @Schema(description = "Failure reason; the gateway stays hidden and DELETE can be repeated to retry")
+        String error) {
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    public static GatewayDeletionJob started(UUID gatewayId) {
+        return new GatewayDeletionJob(gatewayId, Status.RUNNING, 0, Instant.now(), null, null);
+    }
+
+    public GatewayDeletionJob withProgress(long readingsDeleted) {
+        return new GatewayDeletionJob(gatewayId, status, readingsDeleted, startedAt, finishedAt, error);
+    }
+
+    public GatewayDeletionJob completed() {
+        return new GatewayDeletionJob(gatewayId, Status.COMPLETED, readingsDeleted, startedAt, Instant.now(), null);
+    }
+
+    public GatewayDeletionJob failed(String error) {
+        return new GatewayDeletionJob(gatewayId, Status.FAILED, readingsDeleted, startedAt, Instant.now(), error);
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status != Status.RUNNING;
+    }
+}
@@ -0,0 +1,11 @@
+package com.company.iotmonitor.ingestion.domain;
+
+/**
+ * Whether a {@link Gateway} is reporting: online while it has sent a reading
+ * or heartbeat within {@code iot.gateway.liveness.timeout}.
+ */
+public enum GatewayLiveness {
+    ONLINE,
+    /** Silent for longer than the timeout, or never heard from. */
+    OFFLINE
+}
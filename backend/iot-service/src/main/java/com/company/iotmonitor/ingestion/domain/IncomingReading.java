@@ -0,0 +1,45 @@
+package com.company.iotmonitor.ingestion.domain;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A reading that has been accepted by the API but not yet persisted.
+ * Kept deliberately small so queued readings don't carry entity state.
+ */
+public record IncomingReading(
+        UUID gatewayId,
+        Instant timestamp,
+        String sensorLabel,
+        String unit,
+        double readingValue) {
+
+    /** Column widths of {@code series.sensor_label} and {@code series.unit}. */
+    public static final int MAX_SENSOR_LABEL_LENGTH = 100;
+    public static final int MAX_UNIT_LENGTH = 10;
+
+    /**
+     * Builds a reading from API input, applying the same defaults the
+     * {@link Reading} entity does (missing timestamp means "now"). Readings
+     * that could never be stored are refused here, because once queued a
+     * failure can no longer be reported to the caller.
+     */
+    public static IncomingReading of(UUID gatewayId, Instant timestamp,
+                                     String sensorLabel, String unit, Double readingValue) {
+        if (readingValue == null) {
+            throw new IllegalArgumentException("Reading value is required");
+        }
+        if (sensorLabel == null || sensorLabel.isBlank() || sensorLabel.length() > MAX_SENSOR_LABEL_LENGTH) {
+            throw new IllegalArgumentException("Sensor must be 1-" + MAX_SENSOR_LABEL_LENGTH + " characters");
+        }
+        if (unit == null || unit.isBlank() || unit.length() > MAX_UNIT_LENGTH) {
+            throw new IllegalArgumentException("Unit must be 1-" + MAX_UNIT_LENGTH + " characters");
+        }
+        return new IncomingReading(
+            gatewayId,
+            timestamp != null ? timestamp : Instant.now(),
+            sensorLabel,
+            unit,
+            readingValue);
+    }
+}
@@ -0,0 +1,20 @@
+package com.company.iotmonitor.ingestion.domain;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+
+/**
+ * The most recent reading seen for one sensor of a gateway.
+ */
+@Schema(description = "Latest value of one sensor")
+public record LatestReading(
+        @Schema(description = "Sensor label", example = "house")
+        String sensorLabel,
+        @Schema(description = "Measurement unit", example = "celsius")
+        String unit,
+        @Schema(description = "Measured value", example = "21.5")
+        double readingValue,
+        @Schema(description = "Reading time (UTC)", example = "2025-04-01T08:00:00Z")
+        Instant timestamp) {
+}
@@ -0,0 +1,18 @@
+package com.company.iotmonitor.ingestion.domain;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * One {@code readings} event of a live subscription: the readings accepted
+ * since the previous event, oldest first.
+ */
+@Schema(description = "Readings pushed to a live subscriber")
+public record LiveReadings(
+        @Schema(description = "Readings accepted since the previous event, oldest first")
+        List<LatestReading> readings,
+        @Schema(description = "Readings left out since the previous event because the subscriber fell behind; "
+                            + "reload the range to fill the gap", example = "0")
+        long dropped) {
+}
@@ -3,45 +3,42 @@ package com.company.iotmonitor.ingestion.domain;
 import jakarta.persistence.*;
 import lombok.Data;
 import java.time.Instant;
+import java.util.UUID;
 
 @Entity
-@Table(name = "readings")
+@Table(name = "readings", indexes = {
+    // Range scans and keyset paging read in (timestamp, reading_id) order per series
+    @Index(name = "idx_readings_series_timestamp", columnList = "series_id, timestamp, reading_id")
+})
 @Data
 public class Reading {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
-    private String readingId;
+    private UUID readingId;
 
     @ManyToOne
-    @JoinColumn(name = "gateway_id", nullable = false)
-    private Gateway gateway;
+    @JoinColumn(name = "series_id", nullable = false)
+    private SensorSeries series;
 
     @Column(nullable = false)
     private Instant timestamp;
 
-    @Column(nullable = false, length = 100)
-    private String sensorLabel;
-
-    @Column(nullable = false, length = 10)
-    private String unit;
-
     @Column(nullable = false)
     private Double readingValue;
 
     public Reading() {}
 
-    public Reading(String readingId, Gateway gateway, Instant timestamp, 
-                  String sensorLabel, String unit, Double readingValue) {
+    public Reading(UUID readingId, SensorSeries series, Instant timestamp, Double readingValue) {
         this.readingId = readingId;
-        this.gateway = gateway;
+        this.series = series;
         this.timestamp = timestamp;
-        this.sensorLabel = sensorLabel;
-        this.unit = unit;
         this.readingValue = readingValue;
     }
 
     @PrePersist
     protected void onCreate() {
+        if (readingId == null) {
+            readingId = ReadingIds.next();
+        }
         if (timestamp == null) {
             timestamp = Instant.now();
         }
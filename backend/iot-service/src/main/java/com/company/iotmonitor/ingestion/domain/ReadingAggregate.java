@@ -0,0 +1,27 @@
+package com.company.iotmonitor.ingestion.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+
+/**
+ * One bucket of one sensor series. Only the requested functions are populated.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Aggregated readings for one sensor in one time bucket")
+public record ReadingAggregate(
+        @Schema(description = "Start of the bucket (inclusive, UTC)", example = "2025-04-01T08:00:00Z")
+        Instant bucketStart,
+        @Schema(description = "Sensor label", example = "house")
+        String sensorLabel,
+        @Schema(description = "Measurement unit", example = "celsius")
+        String unit,
+        Double min,
+        Double max,
+        Double avg,
+        Long count,
+        Double sum,
+        Double first,
+        Double last) {
+}
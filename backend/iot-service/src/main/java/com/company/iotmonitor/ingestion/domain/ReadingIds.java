@@ -0,0 +1,29 @@
+package com.company.iotmonitor.ingestion.domain;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Reading IDs are version 7 UUIDs (RFC 9562): the first 48 bits are the Unix
+ * time in milliseconds, the remaining 74 free bits are random. IDs created
+ * close together in time are close together in the primary key index, so
+ * inserts append to its right edge instead of splitting pages all over it.
+ */
+public final class ReadingIds {
+    private static final long VERSION_7 = 0x7000L;
+    private static final long VARIANT_RFC = 0x8000_0000_0000_0000L;
+
+    private ReadingIds() {
+    }
+
+    public static UUID next() {
+        return at(System.currentTimeMillis());
+    }
+
+    static UUID at(long epochMillis) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSignificant = (epochMillis << 16) | VERSION_7 | (random.nextLong() & 0x0FFFL);
+        long leastSignificant = VARIANT_RFC | (random.nextLong() >>> 2);
+        return new UUID(mostSignificant, leastSignificant);
+    }
+}
@@ -0,0 +1,48 @@
+package com.company.iotmonitor.ingestion.domain;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One page of readings ordered by {@code (timestamp, readingId)}. Pass
+ * {@link #nextCursor()} back to continue after the last item; it is null on
+ * the last page.
+ */
+@Schema(description = "A page of readings with a continuation cursor")
+public record ReadingPage(
+        List<ReadingView> items,
+        @Schema(description = "Opaque cursor for the next page; absent on the last page")
+        String nextCursor) {
+
+    /**
+     * Position after a reading in {@code (timestamp, readingId)} order.
+     */
+    public record Cursor(Instant timestamp, String readingId) {
+
+        public static Cursor after(ReadingView reading) {
+            return new Cursor(reading.timestamp(), reading.readingId());
+        }
+
+        public String encode() {
+            String raw = timestamp.getEpochSecond() + "." + timestamp.getNano() + "." + readingId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public static Cursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\\.", 3);
+                return new Cursor(
+                    Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1])),
+                    UUID.fromString(parts[2]).toString());
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+    }
+}
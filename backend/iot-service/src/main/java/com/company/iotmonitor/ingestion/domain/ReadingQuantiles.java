@@ -0,0 +1,45 @@
+package com.company.iotmonitor.ingestion.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Approximate quantiles of one sensor label and unit over a window, for one
+ * gateway or merged across gateways.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Approximate quantiles of one sensor over a time window")
+public record ReadingQuantiles(
+        @Schema(description = "Gateway; absent when merged across gateways",
+                example = "550e8400-e29b-41d4-a716-446655440000")
+        UUID gatewayId,
+        @Schema(description = "Sensor label", example = "temperature")
+        String sensorLabel,
+        @Schema(description = "Measurement unit", example = "celsius")
+        String unit,
+        @Schema(description = "Start of the first hour covered (inclusive, UTC)", example = "2025-04-01T08:00:00Z")
+        Instant start,
+        @Schema(description = "End of the last hour covered (exclusive, UTC)", example = "2025-04-03T09:00:00Z")
+        Instant end,
+        @Schema(description = "Readings summarized", example = "172800")
+        long count,
+        @Schema(description = "Exact minimum", example = "14.2")
+        double min,
+        @Schema(description = "Exact maximum", example = "31.7")
+        double max,
+        List<Quantile> quantiles,
+        @Schema(description = "Each value is within this fraction of the exact quantile", example = "0.01")
+        double relativeAccuracy) {
+
+    @Schema(description = "One estimated quantile")
+    public record Quantile(
+            @Schema(description = "Quantile in [0, 1]", example = "0.99")
+            double quantile,
+            @Schema(description = "Estimated value", example = "29.8")
+            double value) {
+    }
+}
@@ -0,0 +1,26 @@
+package com.company.iotmonitor.ingestion.domain;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Flat projection of a {@code readings} row, read without loading the
+ * {@link Reading} entity or its {@link Gateway}.
+ */
+@Schema(description = "A stored reading")
+public record ReadingView(
+        @Schema(description = "Reading ID")
+        String readingId,
+        @Schema(description = "Gateway ID", example = "550e8400-e29b-41d4-a716-446655440000")
+        UUID gatewayId,
+        @Schema(description = "Reading time (UTC)", example = "2025-04-01T08:00:00Z")
+        Instant timestamp,
+        @Schema(description = "Sensor label", example = "house")
+        String sensorLabel,
+        @Schema(description = "Measurement unit", example = "celsius")
+        String unit,
+        @Schema(description = "Measured value", example = "21.5")
+        double readingValue) {
+}
@@ -0,0 +1,30 @@
+package com.company.iotmonitor.ingestion.domain;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.util.UUID;
+
+/**
+ * One (gateway, sensor, unit) combination. Readings refer to their series by
+ * its small integer ID instead of repeating the label and unit on every row.
+ */
+@Entity
+@Table(name = "series", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_series_gateway_sensor_unit", columnNames = {"gateway_id", "sensor_label", "unit"})
+})
+@Data
+public class SensorSeries {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer seriesId;
+
+    @ManyToOne
+    @JoinColumn(name = "gateway_id", nullable = false)
+    private Gateway gateway;
+
+    @Column(nullable = false, length = 100)
+    private String sensorLabel;
+
+    @Column(nullable = false, length = 10)
+    private String unit;
+}
@@ -0,0 +1,49 @@
+package com.company.iotmonitor.ingestion.domain;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Supported aggregation bucket widths. Buckets are aligned to the epoch, so a
+ * one-hour bucket always starts on the hour (UTC).
+ */
+public enum TimeBucket {
+    ONE_MINUTE("1m", Duration.ofMinutes(1)),
+    FIVE_MINUTES("5m", Duration.ofMinutes(5)),
+    ONE_HOUR("1h", Duration.ofHours(1)),
+    ONE_DAY("1d", Duration.ofDays(1));
+
+    private final String label;
+    private final Duration width;
+
+    TimeBucket(String label, Duration width) {
+        this.label = label;
+        this.width = width;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public Duration getWidth() {
+        return width;
+    }
+
+    public long getSeconds() {
+        return width.getSeconds();
+    }
+
+    public Instant startOf(Instant timestamp) {
+        long seconds = timestamp.getEpochSecond();
+        return Instant.ofEpochSecond(seconds - Math.floorMod(seconds, getSeconds()));
+    }
+
+    public static TimeBucket fromLabel(String label) {
+        for (TimeBucket bucket : values()) {
+            if (bucket.label.equalsIgnoreCase(label)) {
+                return bucket;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported bucket '" + label + "', expected one of 1m, 5m, 1h, 1d");
+    }
+}
@@ -0,0 +1,13 @@
+package com.company.iotmonitor.ingestion.exception;
+
+import java.io.IOException;
+
+/**
+ * Thrown while reading a compressed request body that is not valid data of
+ * its declared {@code Content-Encoding}.
+ */
+public class MalformedRequestBodyException extends IOException {
+    public MalformedRequestBodyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
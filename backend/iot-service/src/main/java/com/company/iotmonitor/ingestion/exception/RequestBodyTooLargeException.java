@@ -0,0 +1,14 @@
+package com.company.iotmonitor.ingestion.exception;
+
+import java.io.IOException;
+
+/**
+ * Thrown while reading a compressed request body once it has decompressed to
+ * more than the configured limit. An {@link IOException} so it can surface
+ * from the body stream itself.
+ */
+public class RequestBodyTooLargeException extends IOException {
+    public RequestBodyTooLargeException(String message) {
+        super(message);
+    }
+}
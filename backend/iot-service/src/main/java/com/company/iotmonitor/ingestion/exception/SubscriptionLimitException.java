@@ -0,0 +1,14 @@
+package com.company.iotmonitor.ingestion.exception;
+
+public class SubscriptionLimitException extends RuntimeException {
+    private final long retryAfter;
+
+    public SubscriptionLimitException(String message, long retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,93 @@
+package com.company.iotmonitor.ingestion.interceptor;
+
+import com.company.iotmonitor.ingestion.exception.RateLimitException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-gateway token buckets. A read request costs one token and an ingest
+ * request one token per reading, so a batch of 500 readings is charged like
+ * 500 single posts.
+ *
+ * <p>Buckets refill continuously at {@code iot.rate.limit.tokens} per
+ * {@code iot.rate.limit.duration} seconds and consume lock-free. They live in
+ * a bounded cache that evicts a bucket once it has been idle for twice the
+ * refill period; by then it would be full again, so eviction never hands a
+ * gateway more tokens than it would have had.
+ */
+@Component
+public class GatewayRateLimiter {
+    public static final String LIMIT_HEADER = "X-Rate-Limit-Limit";
+    public static final String REMAINING_HEADER = "X-Rate-Limit-Remaining";
+    public static final String RETRY_AFTER_HEADER = "X-Rate-Limit-Retry-After";
+
+    private final long tokens;
+    private final Duration period;
+    private final String limitHeaderValue;
+    private final Cache<UUID, Bucket> buckets;
+    private final Counter rejections;
+
+    public GatewayRateLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${iot.rate.limit.tokens}") long tokens,
+            @Value("${iot.rate.limit.duration}") int durationSeconds,
+            @Value("${iot.gateway.registry.max-size}") long maxGateways) {
+        this.tokens = tokens;
+        this.period = Duration.ofSeconds(durationSeconds);
+        this.limitHeaderValue = Long.toString(tokens);
+        this.buckets = Caffeine.newBuilder()
+            .maximumSize(maxGateways)
+            .expireAfterAccess(period.multipliedBy(2))
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, buckets, "rateLimitBuckets");
+        this.rejections = Counter.builder("iot.rate.limit.rejections")
+            .description("Requests refused because the gateway was out of tokens")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Charges {@code cost} tokens to the gateway and reports the remaining
+     * allowance in the response headers.
+     *
+     * @throws RateLimitException if the gateway does not have {@code cost} tokens left
+     */
+    public void consume(UUID gatewayId, long cost, HttpServletResponse response) {
+        if (cost > tokens) {
+            throw new IllegalArgumentException("Request costs " + cost + " tokens but the limit is " + tokens
+                + " per " + period.toSeconds() + " seconds");
+        }
+        ConsumptionProbe probe = buckets.get(gatewayId, id -> newBucket()).tryConsumeAndReturnRemaining(cost);
+        response.setHeader(LIMIT_HEADER, limitHeaderValue);
+        response.setHeader(REMAINING_HEADER, Long.toString(probe.getRemainingTokens()));
+        if (!probe.isConsumed()) {
+            rejections.increment();
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(probe.getNanosToWaitForRefill()) + 1);
+            response.setHeader(RETRY_AFTER_HEADER, Long.toString(retryAfter));
+            throw new RateLimitException(
+                "Rate limit exceeded for gateway " + gatewayId + ". Try again in " + retryAfter + " seconds",
+                retryAfter);
+        }
+    }
+
+    public long size() {
+        return buckets.estimatedSize();
+    }
+
+    private Bucket newBucket() {
+        return Bucket.builder().addLimit(Bandwidth.simple(tokens, period)).build();
+    }
+}
@@ -1,67 +1,51 @@
 package com.company.iotmonitor.ingestion.interceptor;
 
-import com.company.iotmonitor.ingestion.exception.RateLimitException;
-import io.github.bucket4j.Bucket;
-import io.github.bucket4j.BucketConfiguration;
-import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.Refill;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
 
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import java.time.Duration;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-
+import java.util.UUID;
+
+/**
+ * Charges one token per request to routes with a {@code {gatewayId}} path
+ * variable. The gateway is taken from the variables Spring MVC has already
+ * extracted while matching the handler, so the check adds no parsing of its
+ * own. Ingest endpoints carry the gateway in the body and are charged by
+ * reading count in the controller instead.
+ */
 @Component
 public class RateLimitInterceptor implements HandlerInterceptor {
+    static final String GATEWAY_ID_VARIABLE = "gatewayId";
 
-    private final Map<String, Bucket> buckets;
-    private final int rateLimitRequests;
-    private final int rateLimitDuration;
+    private final GatewayRateLimiter rateLimiter;
 
-    public RateLimitInterceptor(
-            @Value("${iot.rate.limit.requests}") int rateLimitRequests,
-            @Value("${iot.rate.limit.duration}") int rateLimitDuration) {
-        this.buckets = new ConcurrentHashMap<>();
-        this.rateLimitRequests = rateLimitRequests;
-        this.rateLimitDuration = rateLimitDuration;
+    public RateLimitInterceptor(GatewayRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
     }
 
     @Override
-    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
-        String path = request.getRequestURI();
-        String deviceId = extractDeviceIdFromPath(path);
-        
-        if (deviceId == null) {
-            return true; // Skip rate limiting if no deviceId in path
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true; // Completion of a live stream, already charged when it was opened
         }
-
-        Bucket bucket = buckets.computeIfAbsent(deviceId, k -> createNewBucket());
-        
-        if (bucket.tryConsume(1)) {
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables =
+            (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String gatewayId = variables != null ? variables.get(GATEWAY_ID_VARIABLE) : null;
+        if (gatewayId == null) {
             return true;
-        } else {
-            throw new RateLimitException(
-                "Rate limit exceeded. Try again in " + rateLimitDuration + " seconds",
-                rateLimitDuration);
         }
-    }
-
-    private String extractDeviceIdFromPath(String path) {
-        // Matches paths like /api/ingestion/devices/{deviceId}/readings
-        if (path.matches(".*/devices/([^/]+)/readings.*")) {
-            String[] parts = path.split("/");
-            return parts[parts.length - 3]; // deviceId is third from last
+        UUID id;
+        try {
+            id = UUID.fromString(gatewayId);
+        } catch (IllegalArgumentException e) {
+            return true; // Not a gateway; argument binding rejects it with a 400
         }
-        return null;
-    }
-
-    private Bucket createNewBucket() {
-        Refill refill = Refill.intervally(rateLimitRequests, Duration.ofSeconds(rateLimitDuration));
-        Bandwidth limit = Bandwidth.classic(rateLimitRequests, refill);
-        return Bucket.builder().addLimit(limit).build();
+        rateLimiter.consume(id, 1, response);
+        return true;
     }
-}
\ No newline at end of file
+}
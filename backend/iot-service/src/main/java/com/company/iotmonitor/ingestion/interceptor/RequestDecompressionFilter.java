@@ -0,0 +1,278 @@
+package com.company.iotmonitor.ingestion.interceptor;
+
+import com.company.iotmonitor.ingestion.exception.MalformedRequestBodyException;
+import com.company.iotmonitor.ingestion.exception.RequestBodyTooLargeException;
+import com.company.iotmonitor.ingestion.service.GatewayRegistry;
+import com.company.iotmonitor.ingestion.service.ReadingMetrics;
+import com.github.luben.zstd.ZstdInputStreamNoFinalizer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Decompresses gzip and zstd request bodies of the ingest endpoints while
+ * they are read, so controllers and message converters see plain bytes and
+ * the whole body is never held in either form.
+ *
+ * <p>A body that decompresses to more than
+ * {@code iot.ingest.decompression.max-size} fails with
+ * {@link RequestBodyTooLargeException} at the read that crosses the limit.
+ * Compressed and decompressed byte counts are recorded per encoding and
+ * gateway model; controllers name the gateway with {@link #recordGateway}
+ * once they have decoded it.
+ */
+@Component
+public class RequestDecompressionFilter extends OncePerRequestFilter {
+    private static final Set<String> INGEST_PATHS = Set.of("/readings", "/readings/batch", "/readings/stream");
+    private static final String GATEWAY_ID_ATTRIBUTE = RequestDecompressionFilter.class.getName() + ".gatewayId";
+    private static final String UNKNOWN_MODEL = "unknown";
+
+    private final GatewayRegistry gatewayRegistry;
+    private final ReadingMetrics metrics;
+    private final long maxSize;
+
+    public RequestDecompressionFilter(
+            GatewayRegistry gatewayRegistry,
+            ReadingMetrics metrics,
+            @Value("${iot.ingest.decompression.max-size}") DataSize maxSize) {
+        this.gatewayRegistry = gatewayRegistry;
+        this.metrics = metrics;
+        this.maxSize = maxSize.toBytes();
+    }
+
+    /**
+     * Tells the filter which gateway a request belongs to, for the per-model
+     * byte counts. Harmless on requests that were not compressed.
+     */
+    public static void recordGateway(HttpServletRequest request, UUID gatewayId) {
+        request.setAttribute(GATEWAY_ID_ATTRIBUTE, gatewayId);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+            || request.getHeader(HttpHeaders.CONTENT_ENCODING) == null
+            || !INGEST_PATHS.contains(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING).trim().toLowerCase(Locale.ROOT);
+        if (encoding.equals("identity")) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!encoding.equals("gzip") && !encoding.equals("x-gzip") && !encoding.equals("zstd")) {
+            response.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE,
+                               "Content-Encoding must be gzip, zstd or identity");
+            return;
+        }
+        DecompressingInputStream body = new DecompressingInputStream(request.getInputStream(), encoding);
+        try {
+            chain.doFilter(new DecompressedRequest(request, body), response);
+        } finally {
+            Object gatewayId = request.getAttribute(GATEWAY_ID_ATTRIBUTE);
+            String model = gatewayId instanceof UUID id
+                ? gatewayRegistry.find(id).map(GatewayRegistry.Entry::model).orElse(UNKNOWN_MODEL)
+                : UNKNOWN_MODEL;
+            metrics.recordCompressedBody(encoding.equals("x-gzip") ? "gzip" : encoding, model,
+                                         body.compressedBytes(), body.decompressedBytes());
+        }
+    }
+
+    /** The request as it would have arrived uncompressed. */
+    private static final class DecompressedRequest extends HttpServletRequestWrapper {
+        private final DecompressingInputStream body;
+
+        DecompressedRequest(HttpServletRequest request, DecompressingInputStream body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return body;
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(body, charset));
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return isHidden(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return isHidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            return Collections.enumeration(Collections.list(super.getHeaderNames()).stream()
+                .filter(name -> !isHidden(name))
+                .toList());
+        }
+
+        private static boolean isHidden(String name) {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)
+                || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+    }
+
+    /**
+     * Decompresses the raw body, counting bytes on both sides. The
+     * decompressor is created on first read, so a corrupt header is reported
+     * to whoever reads the body rather than failing the filter.
+     */
+    private final class DecompressingInputStream extends ServletInputStream {
+        private final CountingInputStream compressed;
+        private final String encoding;
+        private InputStream decompressed;
+        private long decompressedBytes;
+        private boolean finished;
+
+        DecompressingInputStream(InputStream raw, String encoding) {
+            this.compressed = new CountingInputStream(raw);
+            this.encoding = encoding;
+        }
+
+        long compressedBytes() {
+            return compressed.count;
+        }
+
+        long decompressedBytes() {
+            return decompressedBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int n = read(single, 0, 1);
+            return n < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (finished) {
+                return -1;
+            }
+            int n;
+            try {
+                n = decompressed().read(buffer, offset, length);
+            } catch (IOException e) {
+                if (e instanceof RequestBodyTooLargeException) {
+                    throw e;
+                }
+                throw new MalformedRequestBodyException("Request body is not valid " + encoding + " data", e);
+            }
+            if (n < 0) {
+                finished = true;
+                return -1;
+            }
+            decompressedBytes += n;
+            if (decompressedBytes > maxSize) {
+                throw new RequestBodyTooLargeException(
+                    "Request body decompresses to more than " + maxSize + " bytes");
+            }
+            return n;
+        }
+
+        private InputStream decompressed() throws IOException {
+            if (decompressed == null) {
+                decompressed = encoding.equals("zstd")
+                    ? new ZstdInputStreamNoFinalizer(compressed)
+                    : new GZIPInputStream(compressed, 8192);
+            }
+            return decompressed;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException("Compressed bodies can only be read blocking");
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (decompressed != null) {
+                decompressed.close();
+            } else {
+                compressed.close();
+            }
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.company.iotmonitor.ingestion.repository;
+
+import com.company.iotmonitor.ingestion.domain.AlertRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface AlertRuleRepository extends JpaRepository<AlertRule, UUID> {
+    List<AlertRule> findByGatewayId(UUID gatewayId);
+
+    List<AlertRule> findByGatewayIdAndEnabledTrue(UUID gatewayId);
+
+    List<AlertRule> findByEnabledTrue();
+
+    @Modifying
+    @Query("DELETE FROM AlertRule r WHERE r.gatewayId = :gatewayId")
+    int deleteByGatewayId(@Param("gatewayId") UUID gatewayId);
+}
@@ -0,0 +1,64 @@
+package com.company.iotmonitor.ingestion.repository;
+
+import com.company.iotmonitor.ingestion.domain.Gateway;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * {@code gateways.last_seen_at}, written in batches by the liveness tracker
+ * rather than through the entity, which never writes the column.
+ */
+@Repository
+public class GatewayLastSeenRepository {
+
+    public record LastSeen(UUID gatewayId, Instant lastSeenAt) {
+    }
+
+    private static final String UPDATE_SQL =
+        "UPDATE gateways SET last_seen_at = ? WHERE gateway_id = ? AND (last_seen_at IS NULL OR last_seen_at < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public GatewayLastSeenRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Moves each gateway's last-seen time forward, never back, so instances
+     * flushing the same gateway can't undo each other. Rows are updated in ID
+     * order so concurrent flushes lock them in the same order.
+     */
+    @Transactional
+    public void updateAll(List<LastSeen> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<LastSeen> ordered = rows.stream().sorted(Comparator.comparing(LastSeen::gatewayId)).toList();
+        jdbcTemplate.batchUpdate(UPDATE_SQL, ordered, ordered.size(), (ps, row) -> {
+            OffsetDateTime lastSeenAt = OffsetDateTime.ofInstant(row.lastSeenAt(), ZoneOffset.UTC);
+            ps.setObject(1, lastSeenAt);
+            ps.setObject(2, row.gatewayId());
+            ps.setObject(3, lastSeenAt);
+        });
+    }
+
+    /** Streams the gateways, other than those being deleted, seen at or after {@code since}. */
+    @Transactional(readOnly = true)
+    public void forEachSeenSince(Instant since, Consumer<LastSeen> consumer) {
+        jdbcTemplate.query(
+            "SELECT gateway_id, last_seen_at FROM gateways WHERE last_seen_at >= ? AND status <> ?",
+            (RowCallbackHandler) rs -> consumer.accept(new LastSeen(
+                rs.getObject(1, UUID.class), rs.getObject(2, OffsetDateTime.class).toInstant())),
+            OffsetDateTime.ofInstant(since, ZoneOffset.UTC), Gateway.STATUS_DELETING);
+    }
+}
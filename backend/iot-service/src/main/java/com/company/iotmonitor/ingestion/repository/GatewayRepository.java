@@ -11,4 +11,8 @@ public interface GatewayRepository extends JpaRepository<Gateway, UUID> {
     
     // Add the method for gateway filtering
     List<Gateway> findByModelIsNotNull();
+
+    List<Gateway> findByModelIsNotNullAndStatusNot(String status);
+
+    List<Gateway> findByStatus(String status);
 }
@@ -0,0 +1,84 @@
+package com.company.iotmonitor.ingestion.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Idempotency keys of persisted ingest batches, in {@code ingest_batch_keys}.
+ * A key is written in the transaction that writes its batch's readings, so a
+ * stored key means the readings are stored too.
+ */
+@Repository
+public class IngestBatchKeyRepository {
+
+    /** An {@code Idempotency-Key} as sent by one gateway; keys of different gateways never collide. */
+    public record Key(UUID gatewayId, String idempotencyKey) {
+    }
+
+    private static final String DELETE_SQL =
+        "DELETE FROM ingest_batch_keys WHERE gateway_id = ? AND idempotency_key = ?";
+    private static final String INSERT_SQL =
+        "INSERT INTO ingest_batch_keys (gateway_id, idempotency_key, accepted_at) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IngestBatchKeyRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Stores keys in the caller's transaction. A key can outlive its
+     * retention in the table until the next purge, so each row replaces any
+     * earlier one.
+     */
+    public void saveAll(List<Key> keys, Instant acceptedAt) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(DELETE_SQL, keys, keys.size(), (ps, key) -> {
+            ps.setObject(1, key.gatewayId());
+            ps.setString(2, key.idempotencyKey());
+        });
+        OffsetDateTime timestamp = OffsetDateTime.ofInstant(acceptedAt, ZoneOffset.UTC);
+        jdbcTemplate.batchUpdate(INSERT_SQL, keys, keys.size(), (ps, key) -> {
+            ps.setObject(1, key.gatewayId());
+            ps.setString(2, key.idempotencyKey());
+            ps.setObject(3, timestamp);
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public boolean existsSince(Key key, Instant since) {
+        return Boolean.TRUE.equals(jdbcTemplate.query(
+            "SELECT 1 FROM ingest_batch_keys WHERE gateway_id = ? AND idempotency_key = ? AND accepted_at >= ?",
+            (ResultSetExtractor<Boolean>) ResultSet::next,
+            key.gatewayId(), key.idempotencyKey(), OffsetDateTime.ofInstant(since, ZoneOffset.UTC)));
+    }
+
+    /** Streams every key accepted at or after {@code since}. */
+    @Transactional(readOnly = true)
+    public void forEachSince(Instant since, Consumer<Key> consumer) {
+        jdbcTemplate.query(
+            "SELECT gateway_id, idempotency_key FROM ingest_batch_keys WHERE accepted_at >= ?",
+            (RowCallbackHandler) rs -> consumer.accept(new Key(rs.getObject(1, UUID.class), rs.getString(2))),
+            OffsetDateTime.ofInstant(since, ZoneOffset.UTC));
+    }
+
+    /** Deletes keys accepted before {@code cutoff}; returns how many. */
+    @Transactional
+    public int deleteBefore(Instant cutoff) {
+        return jdbcTemplate.update("DELETE FROM ingest_batch_keys WHERE accepted_at < ?",
+                                   OffsetDateTime.ofInstant(cutoff, ZoneOffset.UTC));
+    }
+}
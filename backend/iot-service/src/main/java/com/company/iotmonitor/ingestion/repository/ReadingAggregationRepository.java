@@ -0,0 +1,266 @@
+package com.company.iotmonitor.ingestion.repository;
+
+import com.company.iotmonitor.ingestion.domain.AggregateFunction;
+import com.company.iotmonitor.ingestion.domain.ReadingAggregate;
+import com.company.iotmonitor.ingestion.domain.TimeBucket;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Time-bucket aggregation over the {@code readings} table. Never materializes
+ * entities: min/max/avg/count/sum are computed by the database with the same
+ * (series, period) grouping as {@code daily_sensor_summary}, and first/last
+ * are computed by a single pass over an ordered, forward-only result set.
+ * A sensor filter selects that sensor's series up front, so the database
+ * reads their index ranges and nothing else.
+ *
+ * <p>With chunk storage enabled, part of the range lives in compressed
+ * chunks the database cannot aggregate, so readings are read through
+ * {@link ReadingQueryRepository} and folded here, one accumulator per
+ * (sensor, unit, bucket).
+ */
+@Repository
+public class ReadingAggregationRepository {
+    private static final Calendar UTC = Calendar.getInstance(TimeZone.getTimeZone(ZoneOffset.UTC));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadingQueryRepository queryRepository;
+    private final SeriesDictionary seriesDictionary;
+    private final int fetchSize;
+
+    public ReadingAggregationRepository(
+            JdbcTemplate jdbcTemplate,
+            ReadingQueryRepository queryRepository,
+            SeriesDictionary seriesDictionary,
+            @Value("${iot.query.fetch-size}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.queryRepository = queryRepository;
+        this.seriesDictionary = seriesDictionary;
+        this.fetchSize = fetchSize;
+    }
+
+    public List<ReadingAggregate> aggregate(UUID gatewayId, Instant start, Instant end, TimeBucket bucket,
+                                            String sensorLabel, Set<AggregateFunction> functions) {
+        if (queryRepository.isChunkStorageEnabled()) {
+            return aggregateMerged(gatewayId, start, end, bucket, sensorLabel, functions);
+        }
+        List<SeriesDictionary.Entry> series = seriesDictionary.forGateway(gatewayId, sensorLabel);
+        if (series.isEmpty()) {
+            return List.of();
+        }
+        boolean ordered = functions.stream().anyMatch(AggregateFunction.ORDERED::contains);
+        List<ReadingAggregate> results = ordered
+            ? aggregateStreaming(series, start, end, bucket, functions)
+            : aggregateInDatabase(series, start, end, bucket, functions);
+        // Series IDs follow creation order; callers expect sensor, unit, bucket order
+        results.sort(RESULT_ORDER);
+        return results;
+    }
+
+    private List<ReadingAggregate> aggregateInDatabase(List<SeriesDictionary.Entry> series, Instant start, Instant end,
+                                                       TimeBucket bucket, Set<AggregateFunction> functions) {
+        Map<Integer, SeriesDictionary.Entry> seriesById = SeriesDictionary.byId(series);
+        // The bucket width comes from the enum, so inlining it is safe and lets the
+        // GROUP BY repeat the exact select expression on every database.
+        String bucketExpression = "FLOOR(EXTRACT(EPOCH FROM timestamp) / " + bucket.getSeconds() + ")";
+        String sql = "SELECT " + bucketExpression + " AS bucket, series_id, "
+            + "MIN(reading_value) AS min_value, MAX(reading_value) AS max_value, AVG(reading_value) AS avg_value, "
+            + "COUNT(*) AS sample_count, SUM(reading_value) AS sum_value "
+            + "FROM readings WHERE " + seriesIn(series) + " AND timestamp >= ? AND timestamp <= ?"
+            + " GROUP BY " + bucketExpression + ", series_id";
+        return jdbcTemplate.query(sql, ps -> {
+            ps.setFetchSize(fetchSize);
+            bindRange(ps, series, start, end);
+        }, (rs, rowNum) -> {
+            SeriesDictionary.Entry entry = seriesById.get(rs.getInt("series_id"));
+            return new ReadingAggregate(
+                Instant.ofEpochSecond(rs.getLong("bucket") * bucket.getSeconds()),
+                entry.sensorLabel(),
+                entry.unit(),
+                functions.contains(AggregateFunction.MIN) ? rs.getDouble("min_value") : null,
+                functions.contains(AggregateFunction.MAX) ? rs.getDouble("max_value") : null,
+                functions.contains(AggregateFunction.AVG) ? rs.getDouble("avg_value") : null,
+                functions.contains(AggregateFunction.COUNT) ? rs.getLong("sample_count") : null,
+                functions.contains(AggregateFunction.SUM) ? rs.getDouble("sum_value") : null,
+                null,
+                null);
+        });
+    }
+
+    private List<ReadingAggregate> aggregateStreaming(List<SeriesDictionary.Entry> series, Instant start, Instant end,
+                                                      TimeBucket bucket, Set<AggregateFunction> functions) {
+        String sql = "SELECT series_id, timestamp, reading_value FROM readings "
+            + "WHERE " + seriesIn(series) + " AND timestamp >= ? AND timestamp <= ?"
+            + " ORDER BY series_id, timestamp";
+        StreamingAggregator aggregator = new StreamingAggregator(SeriesDictionary.byId(series), bucket, functions);
+        jdbcTemplate.query(sql, ps -> {
+            ps.setFetchSize(fetchSize);
+            bindRange(ps, series, start, end);
+        }, aggregator);
+        return aggregator.finish();
+    }
+
+    private List<ReadingAggregate> aggregateMerged(UUID gatewayId, Instant start, Instant end, TimeBucket bucket,
+                                                   String sensorLabel, Set<AggregateFunction> functions) {
+        Map<BucketKey, Accumulator> buckets = new TreeMap<>(BucketKey.ORDER);
+        queryRepository.streamMerged(gatewayId, sensorLabel, start, end, reading -> buckets
+            .computeIfAbsent(new BucketKey(reading.sensorLabel(), reading.unit(), bucket.startOf(reading.timestamp())),
+                             key -> new Accumulator())
+            .add(reading.readingValue()));
+        List<ReadingAggregate> results = new ArrayList<>(buckets.size());
+        buckets.forEach((key, acc) -> results.add(new ReadingAggregate(
+            key.bucketStart(),
+            key.sensorLabel(),
+            key.unit(),
+            functions.contains(AggregateFunction.MIN) ? acc.min : null,
+            functions.contains(AggregateFunction.MAX) ? acc.max : null,
+            functions.contains(AggregateFunction.AVG) ? acc.sum / acc.count : null,
+            functions.contains(AggregateFunction.COUNT) ? acc.count : null,
+            functions.contains(AggregateFunction.SUM) ? acc.sum : null,
+            functions.contains(AggregateFunction.FIRST) ? acc.first : null,
+            functions.contains(AggregateFunction.LAST) ? acc.last : null)));
+        return results;
+    }
+
+    private static String seriesIn(List<SeriesDictionary.Entry> series) {
+        return "series_id IN (" + "?, ".repeat(series.size() - 1) + "?)";
+    }
+
+    private static void bindRange(PreparedStatement ps, List<SeriesDictionary.Entry> series, Instant start,
+                                  Instant end) throws SQLException {
+        int i = 1;
+        for (SeriesDictionary.Entry entry : series) {
+            ps.setInt(i++, entry.seriesId());
+        }
+        ps.setObject(i++, OffsetDateTime.ofInstant(start, ZoneOffset.UTC));
+        ps.setObject(i, OffsetDateTime.ofInstant(end, ZoneOffset.UTC));
+    }
+
+    static Instant readInstant(ResultSet rs, String column) throws SQLException {
+        return rs.getTimestamp(column, (Calendar) UTC.clone()).toInstant();
+    }
+
+    private static final Comparator<ReadingAggregate> RESULT_ORDER =
+        Comparator.comparing(ReadingAggregate::sensorLabel)
+            .thenComparing(ReadingAggregate::unit)
+            .thenComparing(ReadingAggregate::bucketStart);
+
+    private record BucketKey(String sensorLabel, String unit, Instant bucketStart) {
+        static final Comparator<BucketKey> ORDER = Comparator.comparing(BucketKey::sensorLabel)
+            .thenComparing(BucketKey::unit)
+            .thenComparing(BucketKey::bucketStart);
+    }
+
+    /**
+     * Running values of one bucket; readings arrive in time order.
+     */
+    private static final class Accumulator {
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private double sum;
+        private long count;
+        private double first;
+        private double last;
+
+        void add(double value) {
+            if (count == 0) {
+                first = value;
+            }
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sum += value;
+            last = value;
+            count++;
+        }
+    }
+
+    /**
+     * Folds rows ordered by (series, timestamp) into buckets, holding only the
+     * bucket currently being filled.
+     */
+    private static final class StreamingAggregator implements RowCallbackHandler {
+        private final Map<Integer, SeriesDictionary.Entry> seriesById;
+        private final TimeBucket bucket;
+        private final Set<AggregateFunction> functions;
+        private final List<ReadingAggregate> results = new ArrayList<>();
+
+        private int seriesId;
+        private Instant bucketStart;
+        private double min;
+        private double max;
+        private double sum;
+        private long count;
+        private double first;
+        private double last;
+
+        StreamingAggregator(Map<Integer, SeriesDictionary.Entry> seriesById, TimeBucket bucket,
+                            Set<AggregateFunction> functions) {
+            this.seriesById = seriesById;
+            this.bucket = bucket;
+            this.functions = functions;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            int rowSeries = rs.getInt("series_id");
+            Instant rowBucket = bucket.startOf(readInstant(rs, "timestamp"));
+            double value = rs.getDouble("reading_value");
+            if (count == 0 || !rowBucket.equals(bucketStart) || rowSeries != seriesId) {
+                emit();
+                seriesId = rowSeries;
+                bucketStart = rowBucket;
+                min = value;
+                max = value;
+                sum = 0;
+                first = value;
+            }
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sum += value;
+            last = value;
+            count++;
+        }
+
+        List<ReadingAggregate> finish() {
+            emit();
+            return results;
+        }
+
+        private void emit() {
+            if (count == 0) {
+                return;
+            }
+            SeriesDictionary.Entry series = seriesById.get(seriesId);
+            results.add(new ReadingAggregate(
+                bucketStart,
+                series.sensorLabel(),
+                series.unit(),
+                functions.contains(AggregateFunction.MIN) ? min : null,
+                functions.contains(AggregateFunction.MAX) ? max : null,
+                functions.contains(AggregateFunction.AVG) ? sum / count : null,
+                functions.contains(AggregateFunction.COUNT) ? count : null,
+                functions.contains(AggregateFunction.SUM) ? sum : null,
+                functions.contains(AggregateFunction.FIRST) ? first : null,
+                functions.contains(AggregateFunction.LAST) ? last : null));
+            count = 0;
+        }
+    }
+}
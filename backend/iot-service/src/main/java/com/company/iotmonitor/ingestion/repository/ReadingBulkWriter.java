@@ -0,0 +1,140 @@
+package com.company.iotmonitor.ingestion.repository;
+
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import com.company.iotmonitor.ingestion.domain.ReadingIds;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Writes readings straight to the {@code readings} table, bypassing the JPA
+ * persistence context. Uses {@code COPY ... FROM STDIN} on PostgreSQL and
+ * batched multi-row {@code INSERT}s everywhere else (H2 in development).
+ *
+ * <p>Runs on the caller's connection, so it joins any surrounding Spring
+ * transaction.
+ */
+@Repository
+public class ReadingBulkWriter {
+    private static final Logger logger = LoggerFactory.getLogger(ReadingBulkWriter.class);
+
+    private static final String COLUMNS = "reading_id, series_id, timestamp, reading_value";
+    private static final String COPY_SQL = "COPY readings (" + COLUMNS + ") FROM STDIN WITH (FORMAT csv)";
+    private static final int COLUMN_COUNT = 4;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int rowsPerStatement;
+    private final boolean copyEnabled;
+    private final String fullStatementSql;
+
+    public ReadingBulkWriter(
+            JdbcTemplate jdbcTemplate,
+            @Value("${iot.ingest.bulk.rows-per-statement}") int rowsPerStatement,
+            @Value("${iot.ingest.bulk.copy-enabled}") boolean copyEnabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rowsPerStatement = rowsPerStatement;
+        this.copyEnabled = copyEnabled;
+        this.fullStatementSql = insertSql(rowsPerStatement);
+    }
+
+    /**
+     * Inserts all readings and returns the number of rows written.
+     *
+     * @param seriesIds the series of each reading, from {@link SeriesDictionary#idsOf}
+     */
+    public int write(List<IncomingReading> readings, int[] seriesIds) {
+        if (readings.isEmpty()) {
+            return 0;
+        }
+        Integer written = jdbcTemplate.execute((Connection connection) -> {
+            if (copyEnabled && connection.isWrapperFor(PGConnection.class)) {
+                return copy(connection.unwrap(PGConnection.class), readings, seriesIds);
+            }
+            return insert(connection, readings, seriesIds);
+        });
+        logger.debug("write: {} readings", written);
+        return written == null ? 0 : written;
+    }
+
+    private int copy(PGConnection connection, List<IncomingReading> readings, int[] seriesIds) throws SQLException {
+        CopyIn copyIn = connection.getCopyAPI().copyIn(COPY_SQL);
+        try {
+            StringBuilder line = new StringBuilder(96);
+            for (int i = 0; i < readings.size(); i++) {
+                IncomingReading reading = readings.get(i);
+                line.setLength(0);
+                line.append(ReadingIds.next()).append(',')
+                    .append(seriesIds[i]).append(',')
+                    .append(reading.timestamp()).append(',')
+                    .append(reading.readingValue()).append('\n');
+                byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+                copyIn.writeToCopy(bytes, 0, bytes.length);
+            }
+            return (int) copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private int insert(Connection connection, List<IncomingReading> readings, int[] seriesIds) throws SQLException {
+        int fullStatements = readings.size() / rowsPerStatement;
+        int remainder = readings.size() % rowsPerStatement;
+        int written = 0;
+        if (fullStatements > 0) {
+            try (PreparedStatement statement = connection.prepareStatement(fullStatementSql)) {
+                for (int i = 0; i < fullStatements; i++) {
+                    bindRows(statement, readings, seriesIds, i * rowsPerStatement, rowsPerStatement);
+                    statement.addBatch();
+                }
+                for (int count : statement.executeBatch()) {
+                    written += Math.max(count, 0);
+                }
+            }
+        }
+        if (remainder > 0) {
+            try (PreparedStatement statement = connection.prepareStatement(insertSql(remainder))) {
+                bindRows(statement, readings, seriesIds, fullStatements * rowsPerStatement, remainder);
+                written += statement.executeUpdate();
+            }
+        }
+        return written;
+    }
+
+    private static void bindRows(PreparedStatement statement, List<IncomingReading> readings, int[] seriesIds,
+                                 int offset, int rows) throws SQLException {
+        int parameter = 1;
+        for (int i = offset; i < offset + rows; i++) {
+            IncomingReading reading = readings.get(i);
+            statement.setObject(parameter++, ReadingIds.next());
+            statement.setInt(parameter++, seriesIds[i]);
+            statement.setObject(parameter++, OffsetDateTime.ofInstant(reading.timestamp(), ZoneOffset.UTC));
+            statement.setDouble(parameter++, reading.readingValue());
+        }
+    }
+
+    private static String insertSql(int rows) {
+        StringBuilder sql = new StringBuilder("INSERT INTO readings (" + COLUMNS + ") VALUES ");
+        String group = "(" + "?, ".repeat(COLUMN_COUNT - 1) + "?)";
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(group);
+        }
+        return sql.toString();
+    }
+}
@@ -0,0 +1,283 @@
+package com.company.iotmonitor.ingestion.repository;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Gorilla-style encoding of one series chunk: timestamps (epoch microseconds)
+ * as delta-of-delta and values as the XOR with the previous value, both
+ * packed into a bit stream.
+ *
+ * <p>Layout: sample count (int), then the first timestamp and value raw
+ * (64 bits each), then for every further sample a timestamp control code and a
+ * value control code. Regular sampling costs one bit per timestamp and an
+ * unchanged value one bit per value.
+ *
+ * <p>Timestamp delta-of-delta codes:
+ * <pre>
+ *   0                 dod == 0
+ *   10   + 7 bits     dod in [-63, 64]
+ *   110  + 12 bits    dod in [-2047, 2048]
+ *   1110 + 20 bits    dod in [-524287, 524288]
+ *   1111 + 64 bits    anything else
+ * </pre>
+ * Value codes: {@code 0} for an identical value; {@code 10} followed by the
+ * meaningful bits when they fit the previous leading/trailing zero window;
+ * otherwise {@code 11}, 5 bits of leading zeros, 6 bits of length - 1 and the
+ * meaningful bits.
+ */
+public final class ReadingChunkCodec {
+
+    /**
+     * Decoded samples, ordered by timestamp.
+     */
+    public record Samples(long[] timestamps, double[] values, int count) {
+    }
+
+    @FunctionalInterface
+    public interface SampleVisitor {
+        void visit(long timestampMicros, double value);
+    }
+
+    private ReadingChunkCodec() {
+    }
+
+    /**
+     * Encodes {@code count} samples. Timestamps must be non-decreasing.
+     */
+    public static byte[] encode(long[] timestamps, double[] values, int count) {
+        BitWriter out = new BitWriter(16 + count * 2);
+        out.writeBits(count, 32);
+        if (count == 0) {
+            return out.toByteArray();
+        }
+        out.writeBits(timestamps[0], 64);
+        out.writeBits(Double.doubleToRawLongBits(values[0]), 64);
+
+        long previousTimestamp = timestamps[0];
+        long previousDelta = 0;
+        long previousBits = Double.doubleToRawLongBits(values[0]);
+        int previousLeading = Integer.MAX_VALUE;
+        int previousTrailing = 0;
+        for (int i = 1; i < count; i++) {
+            long delta = timestamps[i] - previousTimestamp;
+            if (delta < 0) {
+                throw new IllegalArgumentException("Timestamps must be non-decreasing");
+            }
+            writeDeltaOfDelta(out, delta - previousDelta);
+            previousTimestamp = timestamps[i];
+            previousDelta = delta;
+
+            long bits = Double.doubleToRawLongBits(values[i]);
+            long xor = bits ^ previousBits;
+            previousBits = bits;
+            if (xor == 0) {
+                out.writeBit(false);
+                continue;
+            }
+            out.writeBit(true);
+            // The leading count is stored in 5 bits, so cap it at 31
+            int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (leading >= previousLeading && trailing >= previousTrailing) {
+                out.writeBit(false);
+                out.writeBits(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+            } else {
+                int length = 64 - leading - trailing;
+                out.writeBit(true);
+                out.writeBits(leading, 5);
+                out.writeBits(length - 1, 6);
+                out.writeBits(xor >>> trailing, length);
+                previousLeading = leading;
+                previousTrailing = trailing;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static int count(byte[] chunk) {
+        return ByteBuffer.wrap(chunk).getInt();
+    }
+
+    public static Samples decode(byte[] chunk) {
+        int count = count(chunk);
+        long[] timestamps = new long[count];
+        double[] values = new double[count];
+        int[] index = {0};
+        decode(chunk, Long.MIN_VALUE, Long.MAX_VALUE, (timestamp, value) -> {
+            timestamps[index[0]] = timestamp;
+            values[index[0]] = value;
+            index[0]++;
+        });
+        return new Samples(timestamps, values, count);
+    }
+
+    /**
+     * Visits samples with {@code from <= timestamp <= to}, stopping as soon as
+     * the chunk passes {@code to}.
+     */
+    public static void decode(byte[] chunk, long from, long to, SampleVisitor visitor) {
+        BitReader in = new BitReader(chunk);
+        int count = (int) in.readBits(32);
+        if (count == 0) {
+            return;
+        }
+        long timestamp = in.readBits(64);
+        long bits = in.readBits(64);
+        if (timestamp > to) {
+            return;
+        }
+        if (timestamp >= from) {
+            visitor.visit(timestamp, Double.longBitsToDouble(bits));
+        }
+
+        long delta = 0;
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 1; i < count; i++) {
+            delta += readDeltaOfDelta(in);
+            timestamp += delta;
+            if (in.readBit()) {
+                if (in.readBit()) {
+                    leading = (int) in.readBits(5);
+                    int length = (int) in.readBits(6) + 1;
+                    trailing = 64 - leading - length;
+                }
+                int length = 64 - leading - trailing;
+                bits ^= in.readBits(length) << trailing;
+            }
+            if (timestamp > to) {
+                return;
+            }
+            if (timestamp >= from) {
+                visitor.visit(timestamp, Double.longBitsToDouble(bits));
+            }
+        }
+    }
+
+    /**
+     * Merges two timestamp-ordered sample sets, keeping every sample of both.
+     */
+    public static Samples merge(Samples a, Samples b) {
+        int count = a.count() + b.count();
+        long[] timestamps = new long[count];
+        double[] values = new double[count];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < count; k++) {
+            if (j >= b.count() || (i < a.count() && a.timestamps()[i] <= b.timestamps()[j])) {
+                timestamps[k] = a.timestamps()[i];
+                values[k] = a.values()[i++];
+            } else {
+                timestamps[k] = b.timestamps()[j];
+                values[k] = b.values()[j++];
+            }
+        }
+        return new Samples(timestamps, values, count);
+    }
+
+    private static void writeDeltaOfDelta(BitWriter out, long dod) {
+        if (dod == 0) {
+            out.writeBit(false);
+        } else if (dod >= -63 && dod <= 64) {
+            out.writeBits(0b10, 2);
+            out.writeBits(dod, 7);
+        } else if (dod >= -2047 && dod <= 2048) {
+            out.writeBits(0b110, 3);
+            out.writeBits(dod, 12);
+        } else if (dod >= -524287 && dod <= 524288) {
+            out.writeBits(0b1110, 4);
+            out.writeBits(dod, 20);
+        } else {
+            out.writeBits(0b1111, 4);
+            out.writeBits(dod, 64);
+        }
+    }
+
+    private static long readDeltaOfDelta(BitReader in) {
+        if (!in.readBit()) {
+            return 0;
+        }
+        if (!in.readBit()) {
+            return signExtend(in.readBits(7), 7);
+        }
+        if (!in.readBit()) {
+            return signExtend(in.readBits(12), 12);
+        }
+        if (!in.readBit()) {
+            return signExtend(in.readBits(20), 20);
+        }
+        return in.readBits(64);
+    }
+
+    private static long signExtend(long value, int bits) {
+        // Ranges are asymmetric ([-63, 64] etc.), so the top positive value wraps to
+        // the bit pattern of the most negative one; undo that explicitly
+        long half = 1L << (bits - 1);
+        return value > half ? value - (1L << bits) : value;
+    }
+
+    private static final class BitWriter {
+        private byte[] buffer;
+        private int bitPosition;
+
+        BitWriter(int initialBytes) {
+            this.buffer = new byte[Math.max(initialBytes, 16)];
+        }
+
+        void writeBit(boolean bit) {
+            ensureCapacity(1);
+            if (bit) {
+                buffer[bitPosition >>> 3] |= (byte) (0x80 >>> (bitPosition & 7));
+            }
+            bitPosition++;
+        }
+
+        /**
+         * Writes the low {@code count} bits of {@code value}, most significant first.
+         */
+        void writeBits(long value, int count) {
+            ensureCapacity(count);
+            for (int shift = count - 1; shift >= 0; shift--) {
+                if (((value >>> shift) & 1) != 0) {
+                    buffer[bitPosition >>> 3] |= (byte) (0x80 >>> (bitPosition & 7));
+                }
+                bitPosition++;
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, (bitPosition + 7) >>> 3);
+        }
+
+        private void ensureCapacity(int bits) {
+            int required = (bitPosition + bits + 7) >>> 3;
+            if (required > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(required, buffer.length * 2));
+            }
+        }
+    }
+
+    private static final class BitReader {
+        private final byte[] buffer;
+        private int bitPosition;
+
+        BitReader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        boolean readBit() {
+            boolean bit = (buffer[bitPosition >>> 3] & (0x80 >>> (bitPosition & 7))) != 0;
+            bitPosition++;
+            return bit;
+        }
+
+        long readBits(int count) {
+            long value = 0;
+            for (int i = 0; i < count; i++) {
+                value = (value << 1) | (readBit() ? 1 : 0);
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.company.iotmonitor.ingestion.repository;
+
+import com.company.iotmonitor.ingestion.domain.ReadingView;
+import com.company.iotmonitor.ingestion.domain.TimeBucket;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Storage of readings as compressed per-series chunks in
+ * {@code reading_chunks}, one chunk per (gateway, sensor, unit, hour).
+ * Timestamps are kept at microsecond precision, like the {@code readings}
+ * column they replace.
+ */
+@Repository
+public class ReadingChunkRepository {
+    public static final TimeBucket CHUNK_WIDTH = TimeBucket.ONE_HOUR;
+
+    /**
+     * A (gateway, sensor, unit, hour) group that still has rows in {@code readings}.
+     */
+    public record Series(int seriesId, UUID gatewayId, String sensorLabel, String unit, Instant chunkStart) {
+    }
+
+    public record Stats(long chunks, long samples, long bytes) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ReadingChunkRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Series with rows older than {@code before}, oldest hour first.
+     */
+    @Transactional(readOnly = true)
+    public List<Series> findCompactionCandidates(Instant before, int limit) {
+        String hour = "FLOOR(EXTRACT(EPOCH FROM timestamp) / " + CHUNK_WIDTH.getSeconds() + ")";
+        return jdbcTemplate.query("SELECT c.series_id, s.gateway_id, s.sensor_label, s.unit, c.chunk FROM "
+                + "(SELECT series_id, " + hour + " AS chunk FROM readings WHERE timestamp < ? "
+                + "GROUP BY series_id, " + hour + " ORDER BY chunk LIMIT ?) c "
+                + "JOIN series s ON s.series_id = c.series_id ORDER BY c.chunk",
+            ps -> {
+                ps.setObject(1, OffsetDateTime.ofInstant(before, ZoneOffset.UTC));
+                ps.setInt(2, limit);
+            },
+            (rs, rowNum) -> new Series(
+                rs.getInt("series_id"),
+                rs.getObject("gateway_id", UUID.class),
+                rs.getString("sensor_label"),
+                rs.getString("unit"),
+                Instant.ofEpochSecond(rs.getLong("chunk") * CHUNK_WIDTH.getSeconds())));
+    }
+
+    /**
+     * Moves the rows of one series hour into its chunk, merging with any
+     * chunk written earlier for late data. Only the rows read here are
+     * deleted, so rows inserted concurrently are picked up by a later run.
+     *
+     * @return the number of rows moved
+     */
+    @Transactional
+    public int compact(Series series) {
+        Instant chunkEnd = series.chunkStart().plusSeconds(CHUNK_WIDTH.getSeconds());
+        List<UUID> readingIds = new ArrayList<>();
+        SampleBuffer rows = new SampleBuffer();
+        jdbcTemplate.query("SELECT reading_id, timestamp, reading_value FROM readings "
+                + "WHERE series_id = ? AND timestamp >= ? AND timestamp < ? ORDER BY timestamp",
+            ps -> {
+                ps.setInt(1, series.seriesId());
+                ps.setObject(2, OffsetDateTime.ofInstant(series.chunkStart(), ZoneOffset.UTC));
+                ps.setObject(3, OffsetDateTime.ofInstant(chunkEnd, ZoneOffset.UTC));
+            },
+            rs -> {
+                readingIds.add(rs.getObject("reading_id", UUID.class));
+                rows.add(toMicros(ReadingAggregationRepository.readInstant(rs, "timestamp")),
+                         rs.getDouble("reading_value"));
+            });
+        if (readingIds.isEmpty()) {
+            return 0;
+        }
+
+        ReadingChunkCodec.Samples samples = rows.toSamples();
+        List<byte[]> existing = jdbcTemplate.query("SELECT data FROM reading_chunks "
+                + "WHERE gateway_id = ? AND chunk_start = ? AND sensor_label = ? AND unit = ?",
+            (rs, rowNum) -> rs.getBytes("data"),
+            series.gatewayId(), OffsetDateTime.ofInstant(series.chunkStart(), ZoneOffset.UTC),
+            series.sensorLabel(), series.unit());
+        if (!existing.isEmpty()) {
+            samples = ReadingChunkCodec.merge(ReadingChunkCodec.decode(existing.get(0)), samples);
+            jdbcTemplate.update("DELETE FROM reading_chunks "
+                    + "WHERE gateway_id = ? AND chunk_start = ? AND sensor_label = ? AND unit = ?",
+                series.gatewayId(), OffsetDateTime.ofInstant(series.chunkStart(), ZoneOffset.UTC),
+                series.sensorLabel(), series.unit());
+        }
+        jdbcTemplate.update("INSERT INTO reading_chunks (gateway_id, sensor_label, unit, chunk_start, "
+                + "sample_count, data) VALUES (?, ?, ?, ?, ?, ?)",
+            series.gatewayId(), series.sensorLabel(), series.unit(),
+            OffsetDateTime.ofInstant(series.chunkStart(), ZoneOffset.UTC), samples.count(),
+            ReadingChunkCodec.encode(samples.timestamps(), samples.values(), samples.count()));
+        // The time range lets PostgreSQL prune to the one partition holding the hour
+        jdbcTemplate.batchUpdate("DELETE FROM readings WHERE reading_id = ? AND timestamp >= ? AND timestamp < ?",
+            readingIds, readingIds.size(), (ps, readingId) -> {
+                ps.setObject(1, readingId);
+                ps.setObject(2, OffsetDateTime.ofInstant(series.chunkStart(), ZoneOffset.UTC));
+                ps.setObject(3, OffsetDateTime.ofInstant(chunkEnd, ZoneOffset.UTC));
+            });
+        return readingIds.size();
+    }
+
+    /**
+     * Decodes the chunks of one gateway starting in {@code [chunkFrom, chunkTo)}
+     * and hands every sample within {@code [start, end]} to {@code consumer},
+     * chunk by chunk. Samples get a stable synthetic reading ID, since chunks do
+     * not keep the original one.
+     */
+    public void forEachSample(UUID gatewayId, String sensorLabel, Instant chunkFrom, Instant chunkTo,
+                              Instant start, Instant end, Consumer<ReadingView> consumer) {
+        long from = toMicros(start);
+        long to = toMicros(end);
+        jdbcTemplate.query("SELECT sensor_label, unit, data FROM reading_chunks "
+                + "WHERE gateway_id = ? AND chunk_start >= ? AND chunk_start < ?"
+                + (sensorLabel != null ? " AND sensor_label = ?" : ""),
+            ps -> {
+                ps.setObject(1, gatewayId);
+                ps.setObject(2, OffsetDateTime.ofInstant(chunkFrom, ZoneOffset.UTC));
+                ps.setObject(3, OffsetDateTime.ofInstant(chunkTo, ZoneOffset.UTC));
+                if (sensorLabel != null) {
+                    ps.setString(4, sensorLabel);
+                }
+            },
+            rs -> {
+                String sensor = rs.getString("sensor_label");
+                String unit = rs.getString("unit");
+                long[] previous = {Long.MIN_VALUE, 0};
+                ReadingChunkCodec.decode(rs.getBytes("data"), from, to, (timestamp, value) -> {
+                    // Duplicate timestamps within a series need distinct IDs
+                    previous[1] = timestamp == previous[0] ? previous[1] + 1 : 0;
+                    previous[0] = timestamp;
+                    consumer.accept(new ReadingView(
+                        syntheticReadingId(gatewayId, sensor, unit, timestamp, (int) previous[1]),
+                        gatewayId, fromMicros(timestamp), sensor, unit, value));
+                });
+            });
+    }
+
+    public void deleteByGateway(UUID gatewayId) {
+        jdbcTemplate.update("DELETE FROM reading_chunks WHERE gateway_id = ?", gatewayId);
+    }
+
+    /**
+     * Deletes chunks that end before {@code cutoff}.
+     */
+    @Transactional
+    public int deleteOlderThan(Instant cutoff) {
+        return jdbcTemplate.update("DELETE FROM reading_chunks WHERE chunk_start < ?",
+            OffsetDateTime.ofInstant(cutoff.minusSeconds(CHUNK_WIDTH.getSeconds()), ZoneOffset.UTC));
+    }
+
+    @Transactional(readOnly = true)
+    public Stats stats() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) AS chunks, COALESCE(SUM(sample_count), 0) AS samples, "
+                + "COALESCE(SUM(OCTET_LENGTH(data)), 0) AS bytes FROM reading_chunks",
+            (rs, rowNum) -> new Stats(rs.getLong("chunks"), rs.getLong("samples"), rs.getLong("bytes")));
+    }
+
+    static long toMicros(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1_000);
+    }
+
+    static Instant fromMicros(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L);
+    }
+
+    private static String syntheticReadingId(UUID gatewayId, String sensorLabel, String unit, long timestamp,
+                                             int duplicate) {
+        String key = gatewayId + "/" + sensorLabel + "/" + unit + "/" + timestamp + "/" + duplicate;
+        return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    private static final class SampleBuffer {
+        private long[] timestamps = new long[256];
+        private double[] values = new double[256];
+        private int count;
+
+        void add(long timestamp, double value) {
+            if (count == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, count * 2);
+                values = Arrays.copyOf(values, count * 2);
+            }
+            timestamps[count] = timestamp;
+            values[count] = value;
+            count++;
+        }
+
+        ReadingChunkCodec.Samples toSamples() {
+            return new ReadingChunkCodec.Samples(timestamps, values, count);
+        }
+    }
+}
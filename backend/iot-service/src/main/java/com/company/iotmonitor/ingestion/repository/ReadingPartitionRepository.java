@@ -0,0 +1,160 @@
+package com.company.iotmonitor.ingestion.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Range partitions of the PostgreSQL {@code readings} table (see the V10
+ * migration), and the batched row deletes used where whole partitions cannot
+ * be dropped: retention without partitions, and gateway deletion.
+ *
+ * <p>Partition names are {@code readings_pYYYYMMDD} after their first UTC
+ * day; bounds are always read back from the catalog, so day and week
+ * partitions can coexist.
+ */
+@Repository
+public class ReadingPartitionRepository {
+    private static final String DEFAULT_PARTITION = "readings_default";
+    private static final Pattern BOUNDS = Pattern.compile("FROM \\('([^']+)'\\) TO \\('([^']+)'\\)");
+    // pg_get_expr prints bounds in the session time zone, e.g. 2025-10-09 00:00:00+00,
+    // or 2025-10-09 05:30:00+05:30 where the zone is not a whole number of hours
+    private static final DateTimeFormatter PG_TIMESTAMP = new DateTimeFormatterBuilder()
+        .appendPattern("yyyy-MM-dd HH:mm:ss")
+        .optionalStart().appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true).optionalEnd()
+        .appendPattern("[XXX][X]")
+        .toFormatter();
+    private static final DateTimeFormatter NAME_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    public record Partition(String name, Instant from, Instant to) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ReadingPartitionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Range partitions ordered by lower bound; the default partition is not included.
+     */
+    @Transactional(readOnly = true)
+    public List<Partition> findPartitions() {
+        return jdbcTemplate.query("SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) AS bounds "
+                + "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                + "WHERE i.inhparent = 'readings'::regclass",
+                (rs, rowNum) -> {
+                    Matcher m = BOUNDS.matcher(rs.getString("bounds"));
+                    return m.find()
+                        ? new Partition(rs.getString("relname"), parse(m.group(1)), parse(m.group(2)))
+                        : null;
+                })
+            .stream()
+            .filter(Objects::nonNull)
+            .sorted(Comparator.comparing(Partition::from))
+            .toList();
+    }
+
+    /**
+     * Creates the partition for {@code [from, to)}. Rows that landed in the
+     * default partition for that range are moved into it first, since
+     * PostgreSQL refuses to add a partition that overlaps rows in the default.
+     */
+    @Transactional
+    public String createPartition(Instant from, Instant to) {
+        String name = "readings_p" + NAME_DATE.format(LocalDate.ofInstant(from, ZoneOffset.UTC));
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE readings INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION
+                + " WHERE timestamp >= ? AND timestamp < ? "
+                + "RETURNING reading_id, series_id, timestamp, reading_value) "
+                + "INSERT INTO " + name + " (reading_id, series_id, timestamp, reading_value) "
+                + "SELECT * FROM moved",
+            OffsetDateTime.ofInstant(from, ZoneOffset.UTC), OffsetDateTime.ofInstant(to, ZoneOffset.UTC));
+        // Attaching also builds the partition's copy of every index on readings
+        jdbcTemplate.execute("ALTER TABLE readings ATTACH PARTITION " + name
+            + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+        return name;
+    }
+
+    /**
+     * Detaches and drops a partition: a catalog operation, independent of
+     * how many rows it holds.
+     */
+    @Transactional
+    public void dropPartition(Partition partition) {
+        jdbcTemplate.execute("ALTER TABLE readings DETACH PARTITION " + partition.name());
+        jdbcTemplate.execute("DROP TABLE " + partition.name());
+    }
+
+    /**
+     * Deletes up to {@code batchSize} readings older than {@code cutoff}.
+     * Used where partitions cannot be dropped: H2, and rows in the default
+     * partition.
+     *
+     * @return the number of rows deleted
+     */
+    @Transactional
+    public int deleteOlderThan(Instant cutoff, int batchSize) {
+        OffsetDateTime before = OffsetDateTime.ofInstant(cutoff, ZoneOffset.UTC);
+        // Select then delete by key: a DELETE ... IN (subquery with LIMIT) re-runs the
+        // subquery per row on H2, and PostgreSQL has no DELETE ... LIMIT
+        List<UUID> readingIds = jdbcTemplate.queryForList(
+            "SELECT reading_id FROM readings WHERE timestamp < ? LIMIT ?", UUID.class, before, batchSize);
+        jdbcTemplate.batchUpdate("DELETE FROM readings WHERE reading_id = ? AND timestamp < ?",
+            readingIds, readingIds.size(), (ps, readingId) -> {
+                ps.setObject(1, readingId);
+                ps.setObject(2, before);
+            });
+        return readingIds.size();
+    }
+
+    /**
+     * Deletes up to {@code batchSize} readings of one gateway, optionally
+     * limited to {@code [from, to)} so that PostgreSQL only touches one
+     * partition. Each call is its own short transaction.
+     *
+     * @return the number of rows deleted
+     */
+    @Transactional
+    public int deleteByGateway(UUID gatewayId, Instant from, Instant to, int batchSize) {
+        String range = from != null ? " AND timestamp >= ? AND timestamp < ?" : "";
+        Object[] bounds = from != null
+            ? new Object[] {OffsetDateTime.ofInstant(from, ZoneOffset.UTC), OffsetDateTime.ofInstant(to, ZoneOffset.UTC)}
+            : new Object[0];
+        Object[] selectArgs = new Object[bounds.length + 2];
+        selectArgs[0] = gatewayId;
+        System.arraycopy(bounds, 0, selectArgs, 1, bounds.length);
+        selectArgs[selectArgs.length - 1] = batchSize;
+        // Walks idx_readings_series_timestamp per series, so each batch costs the same however large the gateway is.
+        // A join rather than series_id IN (subquery), which H2 can answer with the same row twice
+        List<UUID> readingIds = jdbcTemplate.queryForList("SELECT r.reading_id FROM series s "
+            + "JOIN readings r ON r.series_id = s.series_id WHERE s.gateway_id = ?"
+            + (from != null ? " AND r.timestamp >= ? AND r.timestamp < ?" : "") + " LIMIT ?", UUID.class, selectArgs);
+        jdbcTemplate.batchUpdate("DELETE FROM readings WHERE reading_id = ?" + range,
+            readingIds, readingIds.size(), (ps, readingId) -> {
+                ps.setObject(1, readingId);
+                for (int i = 0; i < bounds.length; i++) {
+                    ps.setObject(2 + i, bounds[i]);
+                }
+            });
+        return readingIds.size();
+    }
+
+    static Instant parse(String bound) {
+        return OffsetDateTime.parse(bound, PG_TIMESTAMP).toInstant();
+    }
+}
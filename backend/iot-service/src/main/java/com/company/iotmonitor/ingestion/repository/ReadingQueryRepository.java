@@ -0,0 +1,291 @@
+package com.company.iotmonitor.ingestion.repository;
+
+import com.company.iotmonitor.ingestion.domain.LatestReading;
+import com.company.iotmonitor.ingestion.domain.ReadingPage;
+import com.company.iotmonitor.ingestion.domain.ReadingView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Raw reads over {@code readings} in {@code (timestamp, reading_id)} order.
+ * Rows are mapped to {@link ReadingView}s, so no entities or gateways are
+ * loaded. Paging is keyset-based, so deep pages cost the same as the first.
+ *
+ * <p>Rows are stored per series, so a read of a whole gateway merges the
+ * ordered index ranges of all its series (see {@link #findInOrder}).
+ *
+ * <p>With chunk storage enabled, older readings live in
+ * {@code reading_chunks} instead. Reads then walk the range in windows of
+ * whole chunks, merging decoded chunk samples with the remaining rows of each
+ * window, so memory stays bounded by one window. Each window is read at
+ * repeatable read, so a concurrent compaction is seen either entirely or not
+ * at all.
+ */
+@Repository
+public class ReadingQueryRepository {
+    private static final String COLUMNS = "reading_id, series_id, timestamp, reading_value";
+    private static final Comparator<ReadingView> ORDER =
+        Comparator.comparing(ReadingView::timestamp).thenComparing(ReadingView::readingId);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadingChunkRepository chunkRepository;
+    private final SeriesDictionary seriesDictionary;
+    private final TransactionTemplate readTransaction;
+    private final int fetchSize;
+    private final boolean chunksEnabled;
+    private final long windowSeconds;
+
+    public ReadingQueryRepository(
+            JdbcTemplate jdbcTemplate,
+            ReadingChunkRepository chunkRepository,
+            SeriesDictionary seriesDictionary,
+            PlatformTransactionManager transactionManager,
+            @Value("${iot.query.fetch-size}") int fetchSize,
+            @Value("${iot.storage.chunks.enabled}") boolean chunksEnabled,
+            @Value("${iot.storage.chunks.read-window}") Duration readWindow) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkRepository = chunkRepository;
+        this.seriesDictionary = seriesDictionary;
+        // Joins the caller's transaction if there is one, e.g. a page read
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.readTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.fetchSize = fetchSize;
+        this.chunksEnabled = chunksEnabled;
+        long chunkSeconds = ReadingChunkRepository.CHUNK_WIDTH.getSeconds();
+        this.windowSeconds = Math.max(1, readWindow.getSeconds() / chunkSeconds) * chunkSeconds;
+    }
+
+    public boolean isChunkStorageEnabled() {
+        return chunksEnabled;
+    }
+
+    /**
+     * Returns up to {@code limit} readings after {@code after} (or from
+     * {@code start} when null).
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public ReadingPage findPage(UUID gatewayId, Instant start, Instant end, ReadingPage.Cursor after, int limit) {
+        if (chunksEnabled) {
+            return findPageMerged(gatewayId, start, end, after, limit);
+        }
+        List<SeriesDictionary.Entry> series = seriesDictionary.forGateway(gatewayId, null);
+        // One extra row tells us whether another page exists
+        List<ReadingView> rows = findInOrder(series, start, end, after, limit + 1);
+        if (rows.size() <= limit) {
+            return new ReadingPage(rows, null);
+        }
+        List<ReadingView> items = rows.subList(0, limit);
+        return new ReadingPage(items, ReadingPage.Cursor.after(items.get(limit - 1)).encode());
+    }
+
+    /**
+     * Hands every reading in the range to {@code consumer}, reading
+     * {@code iot.query.fetch-size} rows at a time by keyset, so at most one
+     * fetch of rows is held at a time. Each fetch is its own short
+     * transaction and the consumer runs between them, so a slow consumer,
+     * such as a client downloading an export, holds no connection while it
+     * works.
+     */
+    public void stream(UUID gatewayId, Instant start, Instant end, Consumer<ReadingView> consumer) {
+        if (chunksEnabled) {
+            forEachMerged(gatewayId, null, start, end, reading -> {
+                consumer.accept(reading);
+                return true;
+            });
+            return;
+        }
+        List<SeriesDictionary.Entry> series = seriesDictionary.forGateway(gatewayId, null);
+        ReadingPage.Cursor after = null;
+        List<ReadingView> rows;
+        do {
+            ReadingPage.Cursor from = after;
+            rows = readTransaction.execute(status -> findInOrder(series, start, end, from, fetchSize));
+            rows.forEach(consumer);
+            after = rows.isEmpty() ? null : ReadingPage.Cursor.after(rows.get(rows.size() - 1));
+        } while (rows.size() == fetchSize);
+    }
+
+    /**
+     * Reads up to {@code limit} readings of the given series in
+     * {@code (timestamp, reading_id)} order. Each series is a branch with its
+     * own order and limit, which PostgreSQL plans as an index range scan; the
+     * branches are then merged, reading from each only as far as the merge
+     * needs. Without the per-branch limit it sorts the whole range instead.
+     */
+    private List<ReadingView> findInOrder(List<SeriesDictionary.Entry> series, Instant start, Instant end,
+                                          ReadingPage.Cursor after, int limit) {
+        if (series.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, SeriesDictionary.Entry> seriesById = SeriesDictionary.byId(series);
+        String branch = "(SELECT " + COLUMNS + " FROM readings "
+            + "WHERE series_id = ? AND timestamp >= ? AND timestamp <= ?"
+            + (after != null ? " AND (timestamp, reading_id) > (?, ?)" : "")
+            + " ORDER BY timestamp, reading_id LIMIT ?)";
+        String sql = "SELECT " + COLUMNS + " FROM (" + String.join(" UNION ALL ", Collections.nCopies(series.size(), branch))
+            + ") r ORDER BY timestamp, reading_id LIMIT ?";
+        return jdbcTemplate.query(sql, ps -> {
+            int i = 1;
+            for (SeriesDictionary.Entry entry : series) {
+                ps.setInt(i++, entry.seriesId());
+                ps.setObject(i++, OffsetDateTime.ofInstant(start, ZoneOffset.UTC));
+                ps.setObject(i++, OffsetDateTime.ofInstant(end, ZoneOffset.UTC));
+                if (after != null) {
+                    ps.setObject(i++, OffsetDateTime.ofInstant(after.timestamp(), ZoneOffset.UTC));
+                    ps.setObject(i++, UUID.fromString(after.readingId()));
+                }
+                ps.setInt(i++, limit);
+            }
+            ps.setInt(i, limit);
+        }, (rs, rowNum) -> map(rs, seriesById));
+    }
+
+    /**
+     * Like {@link #stream}, restricted to one sensor when {@code sensorLabel}
+     * is set. Always reads through the chunk-aware path.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public void streamMerged(UUID gatewayId, String sensorLabel, Instant start, Instant end,
+                             Consumer<ReadingView> consumer) {
+        forEachMerged(gatewayId, sensorLabel, start, end, reading -> {
+            consumer.accept(reading);
+            return true;
+        });
+    }
+
+    private ReadingPage findPageMerged(UUID gatewayId, Instant start, Instant end, ReadingPage.Cursor after,
+                                       int limit) {
+        List<ReadingView> rows = new ArrayList<>(limit + 1);
+        Instant from = after != null && after.timestamp().isAfter(start) ? after.timestamp() : start;
+        forEachMerged(gatewayId, null, from, end, reading -> {
+            if (after == null || isAfter(reading, after)) {
+                rows.add(reading);
+            }
+            return rows.size() <= limit;
+        });
+        if (rows.size() <= limit) {
+            return new ReadingPage(rows, null);
+        }
+        List<ReadingView> items = rows.subList(0, limit);
+        return new ReadingPage(items, ReadingPage.Cursor.after(items.get(limit - 1)).encode());
+    }
+
+    private static boolean isAfter(ReadingView reading, ReadingPage.Cursor cursor) {
+        int byTime = reading.timestamp().compareTo(cursor.timestamp());
+        return byTime > 0 || (byTime == 0 && reading.readingId().compareTo(cursor.readingId()) > 0);
+    }
+
+    /**
+     * Visits readings of {@code [start, end]} in order until {@code visitor}
+     * returns false, one window of whole chunks at a time. Each window is
+     * read in its own transaction and visited after it ends.
+     */
+    private void forEachMerged(UUID gatewayId, String sensorLabel, Instant start, Instant end,
+                               Predicate<ReadingView> visitor) {
+        List<SeriesDictionary.Entry> series = seriesDictionary.forGateway(gatewayId, sensorLabel);
+        Map<Integer, SeriesDictionary.Entry> seriesById = SeriesDictionary.byId(series);
+        String seriesIn = "series_id IN (" + "?, ".repeat(Math.max(series.size() - 1, 0)) + "?)";
+        Instant windowStart = ReadingChunkRepository.CHUNK_WIDTH.startOf(start);
+        while (!windowStart.isAfter(end)) {
+            Instant windowEnd = windowStart.plusSeconds(windowSeconds);
+            Instant from = start.isAfter(windowStart) ? start : windowStart;
+            Instant chunkFrom = windowStart;
+            List<ReadingView> window = readTransaction.execute(status -> readWindow(
+                gatewayId, sensorLabel, series, seriesById, seriesIn, chunkFrom, windowEnd, from, end));
+            for (ReadingView reading : window) {
+                if (!visitor.test(reading)) {
+                    return;
+                }
+            }
+            windowStart = windowEnd;
+        }
+    }
+
+    /**
+     * Reads the chunk samples and rows of one window in
+     * {@code (timestamp, reading_id)} order.
+     */
+    private List<ReadingView> readWindow(UUID gatewayId, String sensorLabel, List<SeriesDictionary.Entry> series,
+                                         Map<Integer, SeriesDictionary.Entry> seriesById, String seriesIn,
+                                         Instant windowStart, Instant windowEnd, Instant from, Instant end) {
+        List<ReadingView> window = new ArrayList<>();
+        chunkRepository.forEachSample(gatewayId, sensorLabel, windowStart, windowEnd, from, end, window::add);
+        if (!series.isEmpty()) {
+            jdbcTemplate.query("SELECT " + COLUMNS + " FROM readings "
+                    + "WHERE " + seriesIn + " AND timestamp >= ? AND timestamp < ? AND timestamp <= ?",
+                ps -> {
+                    ps.setFetchSize(fetchSize);
+                    int i = 1;
+                    for (SeriesDictionary.Entry entry : series) {
+                        ps.setInt(i++, entry.seriesId());
+                    }
+                    ps.setObject(i++, OffsetDateTime.ofInstant(from, ZoneOffset.UTC));
+                    ps.setObject(i++, OffsetDateTime.ofInstant(windowEnd, ZoneOffset.UTC));
+                    ps.setObject(i, OffsetDateTime.ofInstant(end, ZoneOffset.UTC));
+                },
+                rs -> {
+                    window.add(map(rs, seriesById));
+                });
+        }
+        window.sort(ORDER);
+        return window;
+    }
+
+    /**
+     * Hands the newest row per series among rows since {@code since} to
+     * {@code consumer}. Ties on timestamp, and sensors reported in more than
+     * one unit, may yield more than one row per sensor.
+     */
+    @Transactional(readOnly = true)
+    public void forEachLatestSince(Instant since, BiConsumer<UUID, LatestReading> consumer) {
+        String sql = "SELECT s.gateway_id, s.sensor_label, s.unit, r.reading_value, r.timestamp FROM readings r "
+            + "JOIN (SELECT series_id, MAX(timestamp) AS max_timestamp FROM readings "
+            + "WHERE timestamp >= ? GROUP BY series_id) m "
+            + "ON r.series_id = m.series_id AND r.timestamp = m.max_timestamp "
+            + "JOIN series s ON s.series_id = r.series_id";
+        jdbcTemplate.query(sql, ps -> {
+            ps.setFetchSize(fetchSize);
+            ps.setObject(1, OffsetDateTime.ofInstant(since, ZoneOffset.UTC));
+        }, rs -> {
+            consumer.accept(rs.getObject("gateway_id", UUID.class), new LatestReading(
+                rs.getString("sensor_label"),
+                rs.getString("unit"),
+                rs.getDouble("reading_value"),
+                ReadingAggregationRepository.readInstant(rs, "timestamp")));
+        });
+    }
+
+    private static ReadingView map(ResultSet rs, Map<Integer, SeriesDictionary.Entry> seriesById) throws SQLException {
+        SeriesDictionary.Entry series = seriesById.get(rs.getInt("series_id"));
+        return new ReadingView(
+            rs.getString("reading_id"),
+            series.gatewayId(),
+            ReadingAggregationRepository.readInstant(rs, "timestamp"),
+            series.sensorLabel(),
+            series.unit(),
+            rs.getDouble("reading_value"));
+    }
+}
@@ -0,0 +1,87 @@
+package com.company.iotmonitor.ingestion.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Persistence for closed rollup buckets in {@code reading_rollups}.
+ */
+@Repository
+public class ReadingRollupRepository {
+
+    public record Row(UUID gatewayId, String sensorLabel, String unit, int resolutionSeconds,
+                      Instant bucketStart, double min, double max, double sum, long count) {
+    }
+
+    private static final String DELETE_SQL = "DELETE FROM reading_rollups WHERE gateway_id = ? AND sensor_label = ? "
+        + "AND unit = ? AND resolution_seconds = ? AND bucket_start = ?";
+    private static final String INSERT_SQL = "INSERT INTO reading_rollups (gateway_id, sensor_label, unit, "
+        + "resolution_seconds, bucket_start, min_value, max_value, sum_value, sample_count) "
+        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ReadingRollupRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Upserts buckets. A bucket can be written more than once if late data
+     * reopens it, so each row replaces any earlier version.
+     */
+    @Transactional
+    public void saveAll(List<Row> rows) {
+        jdbcTemplate.batchUpdate(DELETE_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setObject(1, row.gatewayId());
+            ps.setString(2, row.sensorLabel());
+            ps.setString(3, row.unit());
+            ps.setInt(4, row.resolutionSeconds());
+            ps.setObject(5, OffsetDateTime.ofInstant(row.bucketStart(), ZoneOffset.UTC));
+        });
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setObject(1, row.gatewayId());
+            ps.setString(2, row.sensorLabel());
+            ps.setString(3, row.unit());
+            ps.setInt(4, row.resolutionSeconds());
+            ps.setObject(5, OffsetDateTime.ofInstant(row.bucketStart(), ZoneOffset.UTC));
+            ps.setDouble(6, row.min());
+            ps.setDouble(7, row.max());
+            ps.setDouble(8, row.sum());
+            ps.setLong(9, row.count());
+        });
+    }
+
+    public void deleteByGateway(UUID gatewayId) {
+        jdbcTemplate.update("DELETE FROM reading_rollups WHERE gateway_id = ?", gatewayId);
+    }
+
+    @Transactional(readOnly = true)
+    public void forEachSince(int resolutionSeconds, Instant since, Consumer<Row> consumer) {
+        jdbcTemplate.query("SELECT gateway_id, sensor_label, unit, bucket_start, min_value, max_value, sum_value, "
+                + "sample_count FROM reading_rollups WHERE resolution_seconds = ? AND bucket_start >= ?",
+            ps -> {
+                ps.setInt(1, resolutionSeconds);
+                ps.setObject(2, OffsetDateTime.ofInstant(since, ZoneOffset.UTC));
+            },
+            rs -> {
+                consumer.accept(new Row(
+                    rs.getObject("gateway_id", UUID.class),
+                    rs.getString("sensor_label"),
+                    rs.getString("unit"),
+                    resolutionSeconds,
+                    rs.getObject("bucket_start", OffsetDateTime.class).toInstant(),
+                    rs.getDouble("min_value"),
+                    rs.getDouble("max_value"),
+                    rs.getDouble("sum_value"),
+                    rs.getLong("sample_count")));
+            });
+    }
+}
@@ -0,0 +1,98 @@
+package com.company.iotmonitor.ingestion.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Persistence for hourly quantile sketches in {@code reading_sketches}. The
+ * sketch bytes are opaque here; the sketch engine encodes and decodes them.
+ */
+@Repository
+public class ReadingSketchRepository {
+
+    public record Row(UUID gatewayId, String sensorLabel, String unit, Instant bucketStart,
+                      long count, byte[] sketch) {
+    }
+
+    private static final String DELETE_SQL = "DELETE FROM reading_sketches WHERE gateway_id = ? AND sensor_label = ? "
+        + "AND unit = ? AND bucket_start = ?";
+    private static final String INSERT_SQL = "INSERT INTO reading_sketches (gateway_id, sensor_label, unit, "
+        + "bucket_start, sample_count, sketch) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_COLUMNS =
+        "SELECT gateway_id, sensor_label, unit, bucket_start, sample_count, sketch FROM reading_sketches";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ReadingSketchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Upserts buckets. A bucket can be written more than once if late data
+     * reopens it, so each row replaces any earlier version.
+     */
+    @Transactional
+    public void saveAll(List<Row> rows) {
+        jdbcTemplate.batchUpdate(DELETE_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setObject(1, row.gatewayId());
+            ps.setString(2, row.sensorLabel());
+            ps.setString(3, row.unit());
+            ps.setObject(4, OffsetDateTime.ofInstant(row.bucketStart(), ZoneOffset.UTC));
+        });
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setObject(1, row.gatewayId());
+            ps.setString(2, row.sensorLabel());
+            ps.setString(3, row.unit());
+            ps.setObject(4, OffsetDateTime.ofInstant(row.bucketStart(), ZoneOffset.UTC));
+            ps.setLong(5, row.count());
+            ps.setBytes(6, row.sketch());
+        });
+    }
+
+    public void deleteByGateway(UUID gatewayId) {
+        jdbcTemplate.update("DELETE FROM reading_sketches WHERE gateway_id = ?", gatewayId);
+    }
+
+    /**
+     * Deletes buckets that start before {@code cutoff}.
+     */
+    @Transactional
+    public int deleteOlderThan(Instant cutoff) {
+        return jdbcTemplate.update("DELETE FROM reading_sketches WHERE bucket_start < ?",
+                                   OffsetDateTime.ofInstant(cutoff, ZoneOffset.UTC));
+    }
+
+    /** Streams every bucket starting at or after {@code since}. */
+    @Transactional(readOnly = true)
+    public void forEachSince(Instant since, Consumer<Row> consumer) {
+        jdbcTemplate.query(SELECT_COLUMNS + " WHERE bucket_start >= ?",
+                           rowHandler(consumer), OffsetDateTime.ofInstant(since, ZoneOffset.UTC));
+    }
+
+    /** Streams the buckets of one sensor label starting in {@code [from, to)}, across all gateways. */
+    @Transactional(readOnly = true)
+    public void forEachInRange(String sensorLabel, Instant from, Instant to, Consumer<Row> consumer) {
+        jdbcTemplate.query(SELECT_COLUMNS + " WHERE sensor_label = ? AND bucket_start >= ? AND bucket_start < ?",
+                           rowHandler(consumer), sensorLabel,
+                           OffsetDateTime.ofInstant(from, ZoneOffset.UTC), OffsetDateTime.ofInstant(to, ZoneOffset.UTC));
+    }
+
+    private static RowCallbackHandler rowHandler(Consumer<Row> consumer) {
+        return rs -> consumer.accept(new Row(
+            rs.getObject("gateway_id", UUID.class),
+            rs.getString("sensor_label"),
+            rs.getString("unit"),
+            rs.getObject("bucket_start", OffsetDateTime.class).toInstant(),
+            rs.getLong("sample_count"),
+            rs.getBytes("sketch")));
+    }
+}
@@ -0,0 +1,175 @@
+package com.company.iotmonitor.ingestion.repository;
+
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maps (gateway, sensor, unit) to the integer ID stored in {@code readings},
+ * and back. Both directions are cached in memory, so ingest resolves a
+ * series without a SELECT; the first reading of a new series inserts it.
+ *
+ * <p>Series are never renamed, so cached entries can only go stale by
+ * deletion, which happens together with the gateway. Reads that need every
+ * series of a gateway, including ones created by another instance, ask the
+ * database through {@link #forGateway}.
+ */
+@Repository
+public class SeriesDictionary {
+    private static final Logger logger = LoggerFactory.getLogger(SeriesDictionary.class);
+
+    public record Entry(int seriesId, UUID gatewayId, String sensorLabel, String unit) {
+    }
+
+    private record Key(UUID gatewayId, String sensorLabel, String unit) {
+    }
+
+    private static final String SELECT = "SELECT series_id, gateway_id, sensor_label, unit FROM series ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate createTransaction;
+    private final Cache<Key, Entry> byKey;
+    private final Cache<Integer, Entry> byId;
+
+    public SeriesDictionary(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${iot.series.dictionary.max-size}") long maxSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        // A new series must be committed before any reading refers to it, whatever the caller's transaction does
+        this.createTransaction = new TransactionTemplate(transactionManager);
+        this.createTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.byKey = Caffeine.newBuilder().maximumSize(maxSize).recordStats().build();
+        this.byId = Caffeine.newBuilder().maximumSize(maxSize).build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byKey, "seriesDictionary");
+    }
+
+    /**
+     * Returns the series ID of every reading, in order, creating missing
+     * series. Missing series are created in a transaction of their own, so
+     * call this before opening the transaction that writes the readings; from
+     * inside it, creating a series needs a second connection.
+     */
+    public int[] idsOf(List<IncomingReading> readings) {
+        int[] ids = new int[readings.size()];
+        for (int i = 0; i < ids.length; i++) {
+            IncomingReading reading = readings.get(i);
+            ids[i] = idOf(reading.gatewayId(), reading.sensorLabel(), reading.unit());
+        }
+        return ids;
+    }
+
+    public int idOf(UUID gatewayId, String sensorLabel, String unit) {
+        return byKey.get(new Key(gatewayId, sensorLabel, unit), this::loadOrCreate).seriesId();
+    }
+
+    /**
+     * Looks a series up by ID, loading it on a miss.
+     *
+     * @return the series, or null if it does not exist (anymore)
+     */
+    public Entry get(int seriesId) {
+        Entry entry = byId.getIfPresent(seriesId);
+        if (entry != null) {
+            return entry;
+        }
+        List<Entry> found = jdbcTemplate.query(SELECT + "WHERE series_id = ?", (rs, rowNum) -> map(rs), seriesId);
+        found.forEach(this::cache);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /**
+     * All series of one gateway, or those of one sensor when
+     * {@code sensorLabel} is set, read from the database.
+     */
+    public List<Entry> forGateway(UUID gatewayId, String sensorLabel) {
+        List<Entry> entries = sensorLabel == null
+            ? jdbcTemplate.query(SELECT + "WHERE gateway_id = ? ORDER BY series_id",
+                                 (rs, rowNum) -> map(rs), gatewayId)
+            : jdbcTemplate.query(SELECT + "WHERE gateway_id = ? AND sensor_label = ? ORDER BY series_id",
+                                 (rs, rowNum) -> map(rs), gatewayId, sensorLabel);
+        entries.forEach(this::cache);
+        return entries;
+    }
+
+    /**
+     * Indexes entries by series ID, for mapping rows back to their series.
+     */
+    public static Map<Integer, Entry> byId(List<Entry> entries) {
+        return entries.stream().collect(Collectors.toMap(Entry::seriesId, Function.identity()));
+    }
+
+    /**
+     * Deletes the series of a gateway, which must have no readings left, and
+     * forgets them.
+     */
+    public void deleteByGateway(UUID gatewayId) {
+        jdbcTemplate.update("DELETE FROM series WHERE gateway_id = ?", gatewayId);
+        evictGateway(gatewayId);
+    }
+
+    public void evictGateway(UUID gatewayId) {
+        byKey.asMap().keySet().removeIf(key -> key.gatewayId().equals(gatewayId));
+        byId.asMap().values().removeIf(entry -> entry.gatewayId().equals(gatewayId));
+    }
+
+    public long size() {
+        return byKey.estimatedSize();
+    }
+
+    private Entry loadOrCreate(Key key) {
+        Entry entry = find(key);
+        if (entry == null) {
+            try {
+                createTransaction.executeWithoutResult(status -> jdbcTemplate.update(
+                    "INSERT INTO series (gateway_id, sensor_label, unit) VALUES (?, ?, ?)",
+                    key.gatewayId(), key.sensorLabel(), key.unit()));
+                logger.debug("Created series {}/{}/{}", key.gatewayId(), key.sensorLabel(), key.unit());
+            } catch (DuplicateKeyException e) {
+                // Another instance created it first; read theirs
+            }
+            entry = find(key);
+        }
+        byId.put(entry.seriesId(), entry);
+        return entry;
+    }
+
+    private Entry find(Key key) {
+        List<Entry> found = jdbcTemplate.query(SELECT + "WHERE gateway_id = ? AND sensor_label = ? AND unit = ?",
+            (rs, rowNum) -> map(rs), key.gatewayId(), key.sensorLabel(), key.unit());
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    private void cache(Entry entry) {
+        byId.put(entry.seriesId(), entry);
+        byKey.put(new Key(entry.gatewayId(), entry.sensorLabel(), entry.unit()), entry);
+    }
+
+    private static Entry map(ResultSet rs) throws SQLException {
+        return new Entry(
+            rs.getInt("series_id"),
+            rs.getObject("gateway_id", UUID.class),
+            rs.getString("sensor_label"),
+            rs.getString("unit"));
+    }
+}
@@ -0,0 +1,327 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.Alert;
+import com.company.iotmonitor.ingestion.domain.AlertRule;
+import com.company.iotmonitor.ingestion.domain.AlertRuleType;
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import com.company.iotmonitor.ingestion.domain.LatestReading;
+import com.company.iotmonitor.ingestion.repository.AlertRuleRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Evaluates {@link AlertRule}s as readings are accepted and publishes
+ * {@link Alert}s to every {@link AlertSink}.
+ *
+ * <p>Rules are compiled per gateway into an immutable {@link GatewayRules}
+ * and, on the first reading of each sensor label, into one array of rules
+ * and their state for that series. Evaluating a reading is two map lookups
+ * and one pass over the rules of its series, with no allocation unless an
+ * alert is raised. Rule changes build a new {@link GatewayRules} and swap it
+ * in; readings being evaluated finish against the old one, and rules whose
+ * definition did not change keep their state.
+ *
+ * <p>Rules report state changes only: a sensor raises FIRING when it starts
+ * to match and RESOLVED when it stops. Readings older than the last one
+ * evaluated for a series are skipped, so late data does not flap a rule.
+ * No-data rules cannot be decided by a reading and are checked every
+ * {@code iot.alerts.no-data.check-interval-ms} against the latest values in
+ * {@link LatestReadingCache}.
+ */
+@Service
+public class AlertRuleEngine implements ReadingAcceptedListener {
+    private static final Logger logger = LoggerFactory.getLogger(AlertRuleEngine.class);
+
+    private final Map<UUID, GatewayRules> rulesByGateway = new ConcurrentHashMap<>();
+    private final AlertRuleRepository ruleRepository;
+    private final LatestReadingCache latestReadingCache;
+    private final List<AlertSink> sinks;
+    private final Map<AlertRuleType, Counter> firedCounters = new EnumMap<>(AlertRuleType.class);
+
+    public AlertRuleEngine(AlertRuleRepository ruleRepository,
+                           LatestReadingCache latestReadingCache,
+                           List<AlertSink> sinks,
+                           MeterRegistry meterRegistry) {
+        this.ruleRepository = ruleRepository;
+        this.latestReadingCache = latestReadingCache;
+        this.sinks = sinks;
+        for (AlertRuleType type : AlertRuleType.values()) {
+            firedCounters.put(type, Counter.builder("iot.alerts.fired")
+                .description("Alerts raised, by rule type")
+                .tag("type", type.name())
+                .register(meterRegistry));
+        }
+        Gauge.builder("iot.alerts.rules", this, AlertRuleEngine::ruleCount)
+            .description("Enabled alert rules")
+            .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void loadRules() {
+        Map<UUID, List<AlertRule>> rules = ruleRepository.findByEnabledTrue().stream()
+            .collect(Collectors.groupingBy(AlertRule::getGatewayId));
+        rules.forEach(this::install);
+        logger.info("Loaded {} alert rules for {} gateways", ruleCount(), rules.size());
+    }
+
+    /**
+     * Replaces the rules of one gateway with the given enabled rules. Takes
+     * effect for the next reading; ingest is not paused.
+     */
+    public void install(UUID gatewayId, List<AlertRule> rules) {
+        rulesByGateway.compute(gatewayId, (id, current) -> {
+            List<CompiledRule> compiled = new ArrayList<>();
+            for (AlertRule rule : rules) {
+                if (!rule.isEnabled()) {
+                    continue;
+                }
+                Definition definition = Definition.of(rule);
+                CompiledRule previous = current != null ? current.find(rule.getRuleId()) : null;
+                compiled.add(previous != null && previous.definition.equals(definition)
+                    ? previous
+                    : new CompiledRule(definition));
+            }
+            return compiled.isEmpty() ? null : new GatewayRules(compiled);
+        });
+    }
+
+    @Override
+    public void onAccepted(UUID gatewayId, List<IncomingReading> readings) {
+        GatewayRules rules = rulesByGateway.get(gatewayId);
+        if (rules == null) {
+            return;
+        }
+        for (int i = 0; i < readings.size(); i++) {
+            IncomingReading reading = readings.get(i);
+            SeriesRules series = rules.forSensor(reading.sensorLabel());
+            long timestamp = reading.timestamp().toEpochMilli();
+            double value = reading.readingValue();
+            for (int r = 0; r < series.rules.length; r++) {
+                Alert alert = series.rules[r].evaluate(series.states[r], reading.sensorLabel(), timestamp, value);
+                if (alert != null) {
+                    publish(alert);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onGatewayRemoved(UUID gatewayId) {
+        rulesByGateway.remove(gatewayId);
+        ruleRepository.deleteByGatewayId(gatewayId);
+    }
+
+    /**
+     * Raises no-data alerts for sensors whose latest reading is older than a
+     * rule's window, and resolves them once data is back. A rule for one
+     * sensor label counts a sensor with no reading at all as silent from the
+     * time the rule was installed; a rule for all sensors covers those that
+     * have reported.
+     */
+    @Scheduled(fixedDelayString = "${iot.alerts.no-data.check-interval-ms}",
+               initialDelayString = "${iot.alerts.no-data.check-interval-ms}")
+    public void checkSilentSeries() {
+        long now = System.currentTimeMillis();
+        rulesByGateway.forEach((gatewayId, rules) -> {
+            if (rules.noData.length == 0) {
+                return;
+            }
+            Map<String, Instant> lastSeen = new HashMap<>();
+            for (LatestReading latest : latestReadingCache.get(gatewayId)) {
+                lastSeen.put(latest.sensorLabel(), latest.timestamp());
+            }
+            for (CompiledRule rule : rules.noData) {
+                String label = rule.definition.sensorLabel;
+                if (label != null) {
+                    Instant seen = lastSeen.get(label);
+                    checkSilence(rule, label, seen != null ? seen.toEpochMilli() : rule.installedAt, now);
+                } else {
+                    lastSeen.forEach((sensor, seen) -> checkSilence(rule, sensor, seen.toEpochMilli(), now));
+                }
+            }
+        });
+    }
+
+    private void checkSilence(CompiledRule rule, String sensorLabel, long lastSeen, long now) {
+        Alert alert = rule.evaluateSilence(rule.stateFor(sensorLabel), sensorLabel, lastSeen, now);
+        if (alert != null) {
+            publish(alert);
+        }
+    }
+
+    private void publish(Alert alert) {
+        if (alert.state() == Alert.State.FIRING) {
+            firedCounters.get(alert.type()).increment();
+        }
+        for (AlertSink sink : sinks) {
+            try {
+                sink.publish(alert);
+            } catch (RuntimeException e) {
+                // A broken sink must not fail ingest or starve the other sinks
+                logger.error("Alert sink {} failed: {}", sink.getClass().getSimpleName(), e.getMessage(), e);
+            }
+        }
+    }
+
+    private int ruleCount() {
+        return rulesByGateway.values().stream().mapToInt(rules -> rules.all.size()).sum();
+    }
+
+    /** The fields of a rule that decide what it matches; a change to any of them resets the rule's state. */
+    private record Definition(UUID ruleId, UUID gatewayId, String sensorLabel, AlertRuleType type,
+                              double minValue, double maxValue, double maxChangePerMinute, long noDataMillis) {
+        static Definition of(AlertRule rule) {
+            return new Definition(
+                rule.getRuleId(), rule.getGatewayId(), rule.getSensorLabel(), rule.getType(),
+                rule.getMinValue() != null ? rule.getMinValue() : Double.NEGATIVE_INFINITY,
+                rule.getMaxValue() != null ? rule.getMaxValue() : Double.POSITIVE_INFINITY,
+                rule.getMaxChangePerMinute() != null ? rule.getMaxChangePerMinute() : Double.POSITIVE_INFINITY,
+                rule.getNoDataMinutes() != null ? rule.getNoDataMinutes() * 60_000L : Long.MAX_VALUE);
+        }
+    }
+
+    /** What a rule remembers about one series. */
+    private static final class RuleState {
+        private long lastTimestamp = Long.MIN_VALUE;
+        private double lastValue;
+        private boolean firing;
+    }
+
+    private static final class CompiledRule {
+        private final Definition definition;
+        private final long installedAt = System.currentTimeMillis();
+        private final Map<String, RuleState> states = new ConcurrentHashMap<>();
+
+        CompiledRule(Definition definition) {
+            this.definition = definition;
+        }
+
+        RuleState stateFor(String sensorLabel) {
+            return states.computeIfAbsent(sensorLabel, label -> new RuleState());
+        }
+
+        Alert evaluate(RuleState state, String sensorLabel, long timestamp, double value) {
+            boolean matches;
+            double rate = 0;
+            synchronized (state) {
+                if (timestamp < state.lastTimestamp) {
+                    return null;
+                }
+                if (definition.type == AlertRuleType.THRESHOLD) {
+                    matches = value < definition.minValue || value > definition.maxValue;
+                } else {
+                    if (state.lastTimestamp == Long.MIN_VALUE || timestamp == state.lastTimestamp) {
+                        // Nothing to compare with yet, or a second value for the same instant
+                        state.lastTimestamp = timestamp;
+                        state.lastValue = value;
+                        return null;
+                    }
+                    rate = Math.abs(value - state.lastValue) * 60_000.0 / (timestamp - state.lastTimestamp);
+                    matches = rate > definition.maxChangePerMinute;
+                }
+                state.lastTimestamp = timestamp;
+                state.lastValue = value;
+                if (matches == state.firing) {
+                    return null;
+                }
+                state.firing = matches;
+            }
+            String message = definition.type == AlertRuleType.THRESHOLD
+                ? thresholdMessage(sensorLabel, value)
+                : String.format("%s changing by %.3f per minute, limit %s",
+                                sensorLabel, rate, definition.maxChangePerMinute);
+            return alert(matches, sensorLabel, value, timestamp, message);
+        }
+
+        Alert evaluateSilence(RuleState state, String sensorLabel, long lastSeen, long now) {
+            boolean matches = now - lastSeen > definition.noDataMillis;
+            synchronized (state) {
+                if (matches == state.firing) {
+                    return null;
+                }
+                state.firing = matches;
+            }
+            String message = matches
+                ? sensorLabel + " has sent no data for " + (now - lastSeen) / 60_000 + " minutes"
+                : sensorLabel + " is sending data again";
+            return alert(matches, sensorLabel, null, lastSeen, message);
+        }
+
+        private String thresholdMessage(String sensorLabel, double value) {
+            if (value < definition.minValue) {
+                return sensorLabel + " " + value + " below minimum " + definition.minValue;
+            }
+            if (value > definition.maxValue) {
+                return sensorLabel + " " + value + " above maximum " + definition.maxValue;
+            }
+            return sensorLabel + " " + value + " back within range";
+        }
+
+        private Alert alert(boolean firing, String sensorLabel, Double value, long timestamp, String message) {
+            return new Alert(definition.ruleId, definition.gatewayId, sensorLabel, definition.type,
+                             firing ? Alert.State.FIRING : Alert.State.RESOLVED,
+                             value, Instant.ofEpochMilli(timestamp), Instant.now(), message);
+        }
+    }
+
+    /** Rules of one series, with their state for it, in matching order. */
+    private record SeriesRules(CompiledRule[] rules, RuleState[] states) {
+    }
+
+    /** All rules of one gateway. Immutable except for the per-label cache. */
+    private static final class GatewayRules {
+        private final List<CompiledRule> all;
+        private final CompiledRule[] noData;
+        private final Map<String, SeriesRules> series = new ConcurrentHashMap<>();
+
+        GatewayRules(List<CompiledRule> all) {
+            this.all = List.copyOf(all);
+            this.noData = all.stream()
+                .filter(rule -> rule.definition.type == AlertRuleType.NO_DATA)
+                .toArray(CompiledRule[]::new);
+        }
+
+        CompiledRule find(UUID ruleId) {
+            for (CompiledRule rule : all) {
+                if (rule.definition.ruleId.equals(ruleId)) {
+                    return rule;
+                }
+            }
+            return null;
+        }
+
+        SeriesRules forSensor(String sensorLabel) {
+            SeriesRules rules = series.get(sensorLabel);
+            return rules != null ? rules : series.computeIfAbsent(sensorLabel, this::compile);
+        }
+
+        private SeriesRules compile(String sensorLabel) {
+            List<CompiledRule> matching = all.stream()
+                .filter(rule -> rule.definition.type != AlertRuleType.NO_DATA)
+                .filter(rule -> rule.definition.sensorLabel == null
+                    || Objects.equals(rule.definition.sensorLabel, sensorLabel))
+                .toList();
+            return new SeriesRules(
+                matching.toArray(CompiledRule[]::new),
+                matching.stream().map(rule -> rule.stateFor(sensorLabel)).toArray(RuleState[]::new));
+        }
+    }
+}
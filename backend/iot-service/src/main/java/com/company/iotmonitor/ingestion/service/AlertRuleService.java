@@ -0,0 +1,126 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.AlertRule;
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import com.company.iotmonitor.ingestion.repository.AlertRuleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Stores alert rules and hands each change to {@link AlertRuleEngine} once it
+ * is committed.
+ */
+@Service
+public class AlertRuleService {
+    private static final Logger logger = LoggerFactory.getLogger(AlertRuleService.class);
+
+    private final AlertRuleRepository ruleRepository;
+    private final AlertRuleEngine engine;
+    private final GatewayRegistry gatewayRegistry;
+
+    public AlertRuleService(AlertRuleRepository ruleRepository, AlertRuleEngine engine,
+                            GatewayRegistry gatewayRegistry) {
+        this.ruleRepository = ruleRepository;
+        this.engine = engine;
+        this.gatewayRegistry = gatewayRegistry;
+    }
+
+    public List<AlertRule> list(UUID gatewayId) {
+        return gatewayId != null ? ruleRepository.findByGatewayId(gatewayId) : ruleRepository.findAll();
+    }
+
+    public Optional<AlertRule> find(UUID ruleId) {
+        return ruleRepository.findById(ruleId);
+    }
+
+    public AlertRule create(AlertRule rule) {
+        validate(rule);
+        rule.setRuleId(null);
+        AlertRule saved = ruleRepository.save(rule);
+        reload(saved.getGatewayId());
+        logger.info("Created {} alert rule {} for gateway {}", saved.getType(), saved.getRuleId(), saved.getGatewayId());
+        return saved;
+    }
+
+    /**
+     * Replaces every field of a rule except its ID and creation time.
+     *
+     * @return the updated rule, or empty if it does not exist
+     */
+    public Optional<AlertRule> update(UUID ruleId, AlertRule changes) {
+        validate(changes);
+        return ruleRepository.findById(ruleId).map(rule -> {
+            UUID previousGateway = rule.getGatewayId();
+            rule.setGatewayId(changes.getGatewayId());
+            rule.setSensorLabel(changes.getSensorLabel());
+            rule.setType(changes.getType());
+            rule.setMinValue(changes.getMinValue());
+            rule.setMaxValue(changes.getMaxValue());
+            rule.setMaxChangePerMinute(changes.getMaxChangePerMinute());
+            rule.setNoDataMinutes(changes.getNoDataMinutes());
+            rule.setEnabled(changes.isEnabled());
+            AlertRule saved = ruleRepository.save(rule);
+            reload(saved.getGatewayId());
+            if (!previousGateway.equals(saved.getGatewayId())) {
+                reload(previousGateway);
+            }
+            return saved;
+        });
+    }
+
+    public boolean delete(UUID ruleId) {
+        return ruleRepository.findById(ruleId).map(rule -> {
+            ruleRepository.delete(rule);
+            reload(rule.getGatewayId());
+            logger.info("Deleted alert rule {} for gateway {}", ruleId, rule.getGatewayId());
+            return true;
+        }).orElse(false);
+    }
+
+    private void reload(UUID gatewayId) {
+        engine.install(gatewayId, ruleRepository.findByGatewayIdAndEnabledTrue(gatewayId));
+    }
+
+    private void validate(AlertRule rule) {
+        if (rule.getGatewayId() == null || !gatewayRegistry.exists(rule.getGatewayId())) {
+            throw new IllegalArgumentException("Gateway not found with ID: " + rule.getGatewayId());
+        }
+        if (rule.getSensorLabel() != null) {
+            if (rule.getSensorLabel().isBlank()) {
+                rule.setSensorLabel(null);
+            } else if (rule.getSensorLabel().length() > IncomingReading.MAX_SENSOR_LABEL_LENGTH) {
+                throw new IllegalArgumentException("Sensor label must be at most "
+                    + IncomingReading.MAX_SENSOR_LABEL_LENGTH + " characters");
+            }
+        }
+        if (rule.getType() == null) {
+            throw new IllegalArgumentException("Rule type is required: THRESHOLD, RATE_OF_CHANGE or NO_DATA");
+        }
+        switch (rule.getType()) {
+            case THRESHOLD -> {
+                if (rule.getMinValue() == null && rule.getMaxValue() == null) {
+                    throw new IllegalArgumentException("A threshold rule needs minValue, maxValue or both");
+                }
+                if (rule.getMinValue() != null && rule.getMaxValue() != null
+                        && rule.getMinValue() > rule.getMaxValue()) {
+                    throw new IllegalArgumentException("minValue must not be greater than maxValue");
+                }
+            }
+            case RATE_OF_CHANGE -> {
+                if (rule.getMaxChangePerMinute() == null || !(rule.getMaxChangePerMinute() > 0)) {
+                    throw new IllegalArgumentException("A rate-of-change rule needs a positive maxChangePerMinute");
+                }
+            }
+            case NO_DATA -> {
+                if (rule.getNoDataMinutes() == null || rule.getNoDataMinutes() < 1) {
+                    throw new IllegalArgumentException("A no-data rule needs noDataMinutes of at least 1");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.Alert;
+
+/**
+ * Receives alerts raised by {@link AlertRuleEngine}. Threshold and
+ * rate-of-change alerts are published on the ingest request thread, so
+ * implementations must be cheap and hand any slow delivery off.
+ */
+public interface AlertSink {
+    void publish(Alert alert);
+}
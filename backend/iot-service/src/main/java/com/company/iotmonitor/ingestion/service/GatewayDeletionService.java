@@ -0,0 +1,212 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.Gateway;
+import com.company.iotmonitor.ingestion.domain.GatewayDeletionJob;
+import com.company.iotmonitor.ingestion.repository.GatewayRepository;
+import com.company.iotmonitor.ingestion.repository.ReadingChunkRepository;
+import com.company.iotmonitor.ingestion.repository.ReadingPartitionRepository;
+import com.company.iotmonitor.ingestion.repository.SeriesDictionary;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Deletes gateways in the background.
+ *
+ * <p>{@link #start(UUID)} only marks the gateway {@link Gateway#STATUS_DELETING}
+ * (hiding it and closing it to ingest) and drops the in-memory state kept for
+ * it. A single worker thread then removes its readings in batches of
+ * {@code iot.gateway.deletion.batch-size} rows, each in its own transaction,
+ * one partition at a time when readings are partitioned, and finally deletes
+ * the gateway's series and its row.
+ *
+ * <p>Gateways still marked deleting at startup are resumed.
+ */
+@Service
+public class GatewayDeletionService {
+    private static final Logger logger = LoggerFactory.getLogger(GatewayDeletionService.class);
+
+    private final GatewayRepository gatewayRepository;
+    private final GatewayRegistry gatewayRegistry;
+    private final ReadingPartitionRepository partitionRepository;
+    private final ReadingChunkRepository chunkRepository;
+    private final SeriesDictionary seriesDictionary;
+    private final ReadingIngestPipeline ingestPipeline;
+    private final List<ReadingAcceptedListener> acceptedListeners;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean partitioningEnabled;
+    private final int batchSize;
+    private final Duration drainTimeout;
+    private final Cache<UUID, GatewayDeletionJob> jobs;
+    private final ExecutorService worker;
+
+    public GatewayDeletionService(
+            GatewayRepository gatewayRepository,
+            GatewayRegistry gatewayRegistry,
+            ReadingPartitionRepository partitionRepository,
+            ReadingChunkRepository chunkRepository,
+            SeriesDictionary seriesDictionary,
+            ReadingIngestPipeline ingestPipeline,
+            List<ReadingAcceptedListener> acceptedListeners,
+            TransactionTemplate transactionTemplate,
+            @Value("${iot.storage.partitioning.enabled}") boolean partitioningEnabled,
+            @Value("${iot.gateway.deletion.batch-size}") int batchSize,
+            @Value("${iot.gateway.deletion.drain-timeout}") Duration drainTimeout,
+            @Value("${iot.gateway.deletion.job-retention}") Duration jobRetention,
+            @Value("${spring.threads.virtual.enabled}") boolean virtualThreads) {
+        this.gatewayRepository = gatewayRepository;
+        this.gatewayRegistry = gatewayRegistry;
+        this.partitionRepository = partitionRepository;
+        this.chunkRepository = chunkRepository;
+        this.seriesDictionary = seriesDictionary;
+        this.ingestPipeline = ingestPipeline;
+        this.acceptedListeners = acceptedListeners;
+        this.transactionTemplate = transactionTemplate;
+        this.partitioningEnabled = partitioningEnabled;
+        this.batchSize = batchSize;
+        this.drainTimeout = drainTimeout;
+        this.worker = Executors.newSingleThreadExecutor(virtualThreads
+            ? Thread.ofVirtual().name("gateway-deletion").factory()
+            : Thread.ofPlatform().daemon().name("gateway-deletion").factory());
+        // Running jobs never expire; finished ones stay visible for jobRetention
+        this.jobs = Caffeine.newBuilder()
+            .expireAfter(new Expiry<UUID, GatewayDeletionJob>() {
+                @Override
+                public long expireAfterCreate(UUID key, GatewayDeletionJob job, long currentTime) {
+                    return job.isFinished() ? jobRetention.toNanos() : Long.MAX_VALUE;
+                }
+
+                @Override
+                public long expireAfterUpdate(UUID key, GatewayDeletionJob job, long currentTime, long currentDuration) {
+                    return expireAfterCreate(key, job, currentTime);
+                }
+
+                @Override
+                public long expireAfterRead(UUID key, GatewayDeletionJob job, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void resumePending() {
+        for (Gateway gateway : gatewayRepository.findByStatus(Gateway.STATUS_DELETING)) {
+            logger.info("Resuming deletion of gateway {}", gateway.getGatewayId());
+            submit(gateway.getGatewayId());
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        // An interrupted job is resumed on the next start, since the gateway is still marked deleting
+        worker.shutdownNow();
+    }
+
+    /**
+     * Marks the gateway deleting and queues the removal of its data. Repeating
+     * the call for a gateway whose deletion failed restarts it.
+     *
+     * @return the job, or empty if the gateway does not exist
+     */
+    public Optional<GatewayDeletionJob> start(UUID gatewayId) {
+        GatewayDeletionJob current = jobs.getIfPresent(gatewayId);
+        if (current != null && !current.isFinished()) {
+            return Optional.of(current);
+        }
+        Boolean marked = transactionTemplate.execute(status -> gatewayRepository.findById(gatewayId)
+            .map(gateway -> {
+                gateway.setStatus(Gateway.STATUS_DELETING);
+                gatewayRegistry.put(gatewayRepository.save(gateway));
+                // Rollups, latest values and chunks are small; drop them now so the gateway disappears at once
+                chunkRepository.deleteByGateway(gatewayId);
+                acceptedListeners.forEach(listener -> listener.onGatewayRemoved(gatewayId));
+                return true;
+            })
+            .orElse(false));
+        if (!Boolean.TRUE.equals(marked)) {
+            return Optional.empty();
+        }
+        logger.info("Gateway {} marked for deletion", gatewayId);
+        return Optional.of(submit(gatewayId));
+    }
+
+    public Optional<GatewayDeletionJob> find(UUID gatewayId) {
+        return Optional.ofNullable(jobs.getIfPresent(gatewayId));
+    }
+
+    private GatewayDeletionJob submit(UUID gatewayId) {
+        GatewayDeletionJob job = GatewayDeletionJob.started(gatewayId);
+        jobs.put(gatewayId, job);
+        worker.execute(() -> run(gatewayId));
+        return job;
+    }
+
+    private void run(UUID gatewayId) {
+        long deleted = 0;
+        try {
+            if (partitioningEnabled) {
+                for (ReadingPartitionRepository.Partition partition : partitionRepository.findPartitions()) {
+                    deleted = deleteReadings(gatewayId, partition.from(), partition.to(), deleted);
+                }
+            }
+            // Everything left: the whole table without partitions, else the default partition
+            deleted = deleteReadings(gatewayId, null, null, deleted);
+
+            // Readings queued before the gateway was marked are written behind our back; wait for
+            // them and delete them too, or the series delete below fails on their foreign key
+            if (!ingestPipeline.awaitFlushed(drainTimeout)) {
+                throw new IllegalStateException("Ingest queue did not drain within " + drainTimeout);
+            }
+            deleted = deleteReadings(gatewayId, null, null, deleted);
+
+            transactionTemplate.executeWithoutResult(status -> {
+                chunkRepository.deleteByGateway(gatewayId);
+                seriesDictionary.deleteByGateway(gatewayId);
+                gatewayRepository.deleteById(gatewayId);
+                gatewayRegistry.remove(gatewayId);
+                acceptedListeners.forEach(listener -> listener.onGatewayRemoved(gatewayId));
+            });
+            jobs.asMap().computeIfPresent(gatewayId, (id, job) -> job.completed());
+            logger.info("Gateway {} deleted with {} readings", gatewayId, deleted);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Deletion of gateway {} interrupted after {} readings", gatewayId, deleted);
+            jobs.asMap().computeIfPresent(gatewayId, (id, job) -> job.failed("Interrupted by shutdown"));
+        } catch (RuntimeException e) {
+            logger.error("Deletion of gateway {} failed after {} readings: {}", gatewayId, deleted, e.getMessage(), e);
+            jobs.asMap().computeIfPresent(gatewayId, (id, job) -> job.failed(e.getMessage()));
+        }
+    }
+
+    private long deleteReadings(UUID gatewayId, Instant from, Instant to, long deletedSoFar) {
+        long deleted = deletedSoFar;
+        int batch;
+        do {
+            batch = partitionRepository.deleteByGateway(gatewayId, from, to, batchSize);
+            deleted += batch;
+            long progress = deleted;
+            jobs.asMap().computeIfPresent(gatewayId, (id, job) -> job.withProgress(progress));
+            if (Thread.currentThread().isInterrupted()) {
+                throw new IllegalStateException("Interrupted by shutdown");
+            }
+        } while (batch == batchSize);
+        return deleted;
+    }
+}
@@ -0,0 +1,198 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.Gateway;
+import com.company.iotmonitor.ingestion.domain.GatewayLiveness;
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import com.company.iotmonitor.ingestion.repository.GatewayLastSeenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Tracks when each gateway last sent a reading or heartbeat, and whether it
+ * did so within {@code iot.gateway.liveness.timeout}.
+ *
+ * <p>Recording a sighting is a map lookup and a couple of volatile accesses,
+ * however many gateways there are; gateways that go silent are found by a
+ * {@link LivenessTimerWheel} advanced every {@code iot.gateway.liveness.tick-ms},
+ * not by scanning them all. Last-seen times reach {@code gateways.last_seen_at}
+ * every {@code iot.gateway.liveness.flush-interval-ms}, one row per gateway
+ * seen since the previous flush, so the stored time lags by up to that long.
+ */
+@Service
+public class GatewayLivenessTracker implements ReadingAcceptedListener {
+    private static final Logger logger = LoggerFactory.getLogger(GatewayLivenessTracker.class);
+
+    private final GatewayLastSeenRepository lastSeenRepository;
+    private final Duration timeout;
+    private final int flushBatchSize;
+    private final Clock clock;
+    private final LivenessTimerWheel wheel;
+    private final Map<UUID, TrackedGateway> gateways = new ConcurrentHashMap<>();
+    private final Queue<TrackedGateway> unflushed = new ConcurrentLinkedQueue<>();
+    private final Counter wentOffline;
+
+    public GatewayLivenessTracker(
+            GatewayLastSeenRepository lastSeenRepository,
+            MeterRegistry meterRegistry,
+            @Value("${iot.gateway.liveness.timeout}") Duration timeout,
+            @Value("${iot.gateway.liveness.tick-ms}") long tickMillis,
+            @Value("${iot.gateway.liveness.flush.batch-size}") int flushBatchSize) {
+        this.lastSeenRepository = lastSeenRepository;
+        this.timeout = timeout;
+        this.flushBatchSize = flushBatchSize;
+        this.clock = Clock.systemUTC();
+        this.wheel = new LivenessTimerWheel(timeout, Duration.ofMillis(tickMillis), clock);
+        Gauge.builder("iot.gateway.online", wheel, LivenessTimerWheel::onlineCount)
+            .description("Gateways that sent a reading or heartbeat within the liveness timeout")
+            .register(meterRegistry);
+        this.wentOffline = Counter.builder("iot.gateway.offline")
+            .description("Times a gateway went silent for longer than the liveness timeout")
+            .register(meterRegistry);
+    }
+
+    /** Picks up the gateways still within the timeout when the last instance stopped. */
+    @EventListener(ApplicationReadyEvent.class)
+    void restore() {
+        lastSeenRepository.forEachSeenSince(clock.instant().minus(timeout), row -> {
+            TrackedGateway gateway = new TrackedGateway(row.gatewayId(), row.lastSeenAt().toEpochMilli());
+            if (gateways.putIfAbsent(row.gatewayId(), gateway) == null) {
+                wheel.track(gateway);
+            }
+        });
+        logger.info("Liveness tracker restored {} online gateways", wheel.onlineCount());
+    }
+
+    @Override
+    public void onAccepted(UUID gatewayId, List<IncomingReading> readings) {
+        recordSeen(gatewayId);
+    }
+
+    /** Records a sign of life from a registered gateway. */
+    public void recordSeen(UUID gatewayId) {
+        TrackedGateway gateway = gateways.get(gatewayId);
+        if (gateway == null) {
+            gateway = gateways.computeIfAbsent(gatewayId, id -> new TrackedGateway(id, 0));
+        }
+        if (wheel.touch(gateway)) {
+            logger.debug("Gateway {} is online", gatewayId);
+        }
+        gateway.markUnflushed(unflushed);
+    }
+
+    @Override
+    public void onGatewayRemoved(UUID gatewayId) {
+        TrackedGateway gateway = gateways.remove(gatewayId);
+        if (gateway != null) {
+            wheel.remove(gateway);
+        }
+    }
+
+    /** Fills in the gateway's liveness, and its last-seen time where memory is ahead of the table. */
+    public Gateway describe(Gateway gateway) {
+        TrackedGateway tracked = gateways.get(gateway.getGatewayId());
+        boolean online = tracked != null && tracked.isOnline();
+        gateway.setLiveness(online ? GatewayLiveness.ONLINE : GatewayLiveness.OFFLINE);
+        if (tracked != null && tracked.lastSeenMillis() > 0) {
+            Instant lastSeen = Instant.ofEpochMilli(tracked.lastSeenMillis());
+            if (gateway.getLastSeenAt() == null || gateway.getLastSeenAt().isBefore(lastSeen)) {
+                gateway.setLastSeenAt(lastSeen);
+            }
+        }
+        return gateway;
+    }
+
+    public int getOnlineCount() {
+        return wheel.onlineCount();
+    }
+
+    @Scheduled(fixedRateString = "${iot.gateway.liveness.tick-ms}")
+    public void advance() {
+        wheel.advance(gateway -> {
+            wentOffline.increment();
+            logger.debug("Gateway {} went offline, last seen {}", gateway.id,
+                         Instant.ofEpochMilli(gateway.lastSeenMillis()));
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${iot.gateway.liveness.flush-interval-ms}",
+               initialDelayString = "${iot.gateway.liveness.flush-interval-ms}")
+    public void flush() {
+        List<GatewayLastSeenRepository.LastSeen> batch = new ArrayList<>(flushBatchSize);
+        List<TrackedGateway> pending = new ArrayList<>(flushBatchSize);
+        for (TrackedGateway gateway; (gateway = unflushed.poll()) != null; ) {
+            // Cleared before the time is read, so a sighting after the read queues it again
+            gateway.clearUnflushed();
+            if (gateway.isRemoved()) {
+                continue;
+            }
+            batch.add(new GatewayLastSeenRepository.LastSeen(gateway.id, Instant.ofEpochMilli(gateway.lastSeenMillis())));
+            pending.add(gateway);
+            if (batch.size() == flushBatchSize) {
+                write(batch, pending);
+            }
+        }
+        write(batch, pending);
+    }
+
+    private void write(List<GatewayLastSeenRepository.LastSeen> batch, List<TrackedGateway> pending) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            lastSeenRepository.updateAll(batch);
+        } catch (RuntimeException e) {
+            logger.warn("Storing last-seen times of {} gateways failed, will retry: {}", batch.size(), e.getMessage());
+            pending.forEach(gateway -> gateway.markUnflushed(unflushed));
+        }
+        batch.clear();
+        pending.clear();
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private static final class TrackedGateway extends LivenessTimerWheel.Member {
+        private static final AtomicIntegerFieldUpdater<TrackedGateway> UNFLUSHED =
+            AtomicIntegerFieldUpdater.newUpdater(TrackedGateway.class, "unflushed");
+
+        private volatile int unflushed;
+
+        TrackedGateway(UUID gatewayId, long lastSeenMillis) {
+            super(gatewayId, lastSeenMillis);
+        }
+
+        /** Queues the gateway for the next flush unless it already is; a read on the hot path. */
+        void markUnflushed(Queue<TrackedGateway> queue) {
+            if (unflushed == 0 && UNFLUSHED.compareAndSet(this, 0, 1)) {
+                queue.add(this);
+            }
+        }
+
+        void clearUnflushed() {
+            unflushed = 0;
+        }
+    }
+}
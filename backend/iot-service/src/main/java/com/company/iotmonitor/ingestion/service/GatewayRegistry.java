@@ -0,0 +1,139 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.Gateway;
+import com.company.iotmonitor.ingestion.repository.GatewayRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory view of which gateways exist and their status, so the ingest and
+ * query paths can resolve a gateway without a SELECT.
+ *
+ * <p>Misses are cached too (for a shorter time) so a misbehaving client posting
+ * to an unknown gateway doesn't turn every request into a database lookup.
+ * {@link GatewayService} keeps entries coherent on register, update and delete.
+ */
+@Service
+public class GatewayRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(GatewayRegistry.class);
+
+    public record Entry(UUID gatewayId, String status, String model) {
+        static Entry of(Gateway gateway) {
+            return new Entry(gateway.getGatewayId(), gateway.getStatus(), gateway.getModel());
+        }
+    }
+
+    private final GatewayRepository gatewayRepository;
+    private final LoadingCache<UUID, Optional<Entry>> cache;
+    private final Timer resolvedFound;
+    private final Timer resolvedMissing;
+
+    public GatewayRegistry(
+            GatewayRepository gatewayRepository,
+            MeterRegistry meterRegistry,
+            @Value("${iot.gateway.registry.max-size}") long maxSize,
+            @Value("${iot.gateway.registry.ttl}") Duration ttl,
+            @Value("${iot.gateway.registry.negative-ttl}") Duration negativeTtl) {
+        this.gatewayRepository = gatewayRepository;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfter(new Expiry<UUID, Optional<Entry>>() {
+                @Override
+                public long expireAfterCreate(UUID key, Optional<Entry> value, long currentTime) {
+                    return (value.isPresent() ? ttl : negativeTtl).toNanos();
+                }
+
+                @Override
+                public long expireAfterUpdate(UUID key, Optional<Entry> value, long currentTime, long currentDuration) {
+                    return expireAfterCreate(key, value, currentTime);
+                }
+
+                @Override
+                public long expireAfterRead(UUID key, Optional<Entry> value, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .recordStats()
+            .build(id -> gatewayRepository.findById(id).map(Entry::of));
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gatewayRegistry");
+        this.resolvedFound = resolveTimer(meterRegistry, "found");
+        this.resolvedMissing = resolveTimer(meterRegistry, "missing");
+    }
+
+    private static Timer resolveTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("iot.gateway.resolve")
+            .description("Time to resolve a gateway ID, including database loads on a cache miss")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void preload() {
+        gatewayRepository.findAll().forEach(gateway -> cache.put(gateway.getGatewayId(), Optional.of(Entry.of(gateway))));
+        logger.info("Gateway registry preloaded with {} gateways", cache.estimatedSize());
+    }
+
+    public Optional<Entry> find(UUID gatewayId) {
+        long start = System.nanoTime();
+        Optional<Entry> entry = cache.get(gatewayId);
+        (entry.isPresent() ? resolvedFound : resolvedMissing).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return entry;
+    }
+
+    /**
+     * Whether the gateway exists and is not being deleted, i.e. whether it
+     * may ingest and be queried.
+     */
+    public boolean exists(UUID gatewayId) {
+        return find(gatewayId).filter(entry -> !Gateway.STATUS_DELETING.equals(entry.status())).isPresent();
+    }
+
+    /**
+     * Records the gateway's current state once the surrounding transaction commits.
+     */
+    public void put(Gateway gateway) {
+        Entry entry = Entry.of(gateway);
+        afterCommit(() -> cache.put(entry.gatewayId(), Optional.of(entry)));
+    }
+
+    /**
+     * Forgets the gateway once the surrounding transaction commits.
+     */
+    public void remove(UUID gatewayId) {
+        afterCommit(() -> cache.put(gatewayId, Optional.empty()));
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -1,29 +1,78 @@
 package com.company.iotmonitor.ingestion.service;
 
+import com.company.iotmonitor.ingestion.domain.AggregateFunction;
 import com.company.iotmonitor.ingestion.domain.Gateway;
-import com.company.iotmonitor.ingestion.domain.Reading;
+import com.company.iotmonitor.ingestion.domain.GatewayDeletionJob;
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import com.company.iotmonitor.ingestion.domain.LatestReading;
+import com.company.iotmonitor.ingestion.domain.ReadingAggregate;
+import com.company.iotmonitor.ingestion.domain.ReadingPage;
+import com.company.iotmonitor.ingestion.domain.ReadingQuantiles;
+import com.company.iotmonitor.ingestion.domain.TimeBucket;
 import com.company.iotmonitor.ingestion.repository.GatewayRepository;
-import com.company.iotmonitor.ingestion.repository.ReadingRepository;
+import com.company.iotmonitor.ingestion.repository.IngestBatchKeyRepository;
+import com.company.iotmonitor.ingestion.repository.ReadingAggregationRepository;
+import com.company.iotmonitor.ingestion.repository.ReadingQueryRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
 public class GatewayService {
     private static final Logger logger = LoggerFactory.getLogger(GatewayService.class);
+    /** Width of {@code ingest_batch_keys.idempotency_key}. */
+    static final int MAX_IDEMPOTENCY_KEY_LENGTH = 128;
     private final GatewayRepository gatewayRepository;
-    private final ReadingRepository readingRepository;
+    private final ReadingIngestPipeline ingestPipeline;
+    private final IngestIdempotency idempotency;
+    private final GatewayRegistry gatewayRegistry;
+    private final ReadingAggregationRepository aggregationRepository;
+    private final ReadingQueryRepository queryRepository;
+    private final GatewayDeletionService deletionService;
+    private final ReadingRollupEngine rollupEngine;
+    private final ReadingSketchEngine sketchEngine;
+    private final LatestReadingCache latestReadingCache;
+    private final ReadingBroadcaster broadcaster;
+    private final GatewayLivenessTracker livenessTracker;
+    private final List<ReadingAcceptedListener> acceptedListeners;
 
     public GatewayService(GatewayRepository gatewayRepository,
-                       ReadingRepository readingRepository) {
+                       ReadingIngestPipeline ingestPipeline,
+                       IngestIdempotency idempotency,
+                       GatewayRegistry gatewayRegistry,
+                       ReadingAggregationRepository aggregationRepository,
+                       ReadingQueryRepository queryRepository,
+                       GatewayDeletionService deletionService,
+                       ReadingRollupEngine rollupEngine,
+                       ReadingSketchEngine sketchEngine,
+                       LatestReadingCache latestReadingCache,
+                       ReadingBroadcaster broadcaster,
+                       GatewayLivenessTracker livenessTracker,
+                       List<ReadingAcceptedListener> acceptedListeners) {
         this.gatewayRepository = gatewayRepository;
-        this.readingRepository = readingRepository;
+        this.ingestPipeline = ingestPipeline;
+        this.idempotency = idempotency;
+        this.gatewayRegistry = gatewayRegistry;
+        this.aggregationRepository = aggregationRepository;
+        this.queryRepository = queryRepository;
+        this.deletionService = deletionService;
+        this.rollupEngine = rollupEngine;
+        this.sketchEngine = sketchEngine;
+        this.latestReadingCache = latestReadingCache;
+        this.broadcaster = broadcaster;
+        this.livenessTracker = livenessTracker;
+        this.acceptedListeners = acceptedListeners;
     }
 
     @Transactional
@@ -33,9 +82,13 @@ public class GatewayService {
         return gatewayRepository.findByName(name)
             .map(existing -> {
                 logger.debug("registerGateway: existing gateway found - {}", existing);
+                if (Gateway.STATUS_DELETING.equals(existing.getStatus())) {
+                    throw new IllegalArgumentException("Gateway " + name + " is being deleted; try again once deletion completes");
+                }
                 existing.setLocation(location);
                 existing.setModel(model);
                 Gateway saved = gatewayRepository.save(existing);
+                gatewayRegistry.put(saved);
                 logger.debug("registerGateway: updated gateway - {}", saved);
                 return saved;
             })
@@ -45,6 +98,7 @@ public class GatewayService {
                 gateway.setLocation(location);
                 gateway.setModel(model);
                 Gateway saved = gatewayRepository.save(gateway);
+                gatewayRegistry.put(saved);
                 logger.debug("registerGateway: new gateway created - {}", saved);
                 return saved;
             });
@@ -53,86 +107,201 @@ public class GatewayService {
     @Transactional
     public Optional<Gateway> updateGateway(UUID gatewayId, String name, String location, String model) {
         logger.debug("updateGateway: gatewayId={}, name={}, location={}, model={}", gatewayId, name, location, model);
-        return gatewayRepository.findById(gatewayId).map(gateway -> {
-            logger.debug("updateGateway: gateway found - {}", gateway);
-            if (name != null) gateway.setName(name);
-            if (location != null) gateway.setLocation(location);
-            if (model != null) gateway.setModel(model);
-            Gateway saved = gatewayRepository.save(gateway);
-            logger.debug("updateGateway: updated gateway - {}", saved);
-            return saved;
-        });
+        return gatewayRepository.findById(gatewayId)
+            .filter(gateway -> !Gateway.STATUS_DELETING.equals(gateway.getStatus()))
+            .map(gateway -> {
+                logger.debug("updateGateway: gateway found - {}", gateway);
+                if (name != null) gateway.setName(name);
+                if (location != null) gateway.setLocation(location);
+                if (model != null) gateway.setModel(model);
+                Gateway saved = gatewayRepository.save(gateway);
+                gatewayRegistry.put(saved);
+                logger.debug("updateGateway: updated gateway - {}", saved);
+                return saved;
+            })
+            .map(livenessTracker::describe);
     }
 
-    @Transactional
-    public boolean deleteGateway(UUID gatewayId) {
+    /**
+     * Hides the gateway and closes it to ingest at once; its readings and the
+     * gateway itself are removed in the background by {@link GatewayDeletionService}.
+     *
+     * @return the deletion job, or empty if the gateway does not exist
+     */
+    public Optional<GatewayDeletionJob> deleteGateway(UUID gatewayId) {
         logger.debug("deleteGateway: gatewayId={}", gatewayId);
-        return gatewayRepository.findById(gatewayId).map(gateway -> {
-            logger.debug("deleteGateway: gateway found - {}", gateway);
-            // Delete all readings for this gateway
-            readingRepository.deleteByGatewayGatewayId(gatewayId);
-            // Delete the gateway
-            gatewayRepository.delete(gateway);
-            logger.debug("deleteGateway: gateway deleted");
-            return true;
-        }).orElse(false);
+        return deletionService.start(gatewayId);
     }
 
-    @Transactional
+    public Optional<GatewayDeletionJob> getDeletionJob(UUID gatewayId) {
+        return deletionService.find(gatewayId);
+    }
+
+    /**
+     * Queues a single reading for write-behind persistence. Returns once the
+     * reading is queued, not once it is committed.
+     */
     public void recordReading(UUID gatewayId, Instant timestamp,
                             String sensorLabel, String unit, Double readingValue) {
         logger.debug("recordReading: gatewayId={}, timestamp={}, sensorLabel={}, unit={}, readingValue={}", 
                     gatewayId, timestamp, sensorLabel, unit, readingValue);
-        Gateway gateway = gatewayRepository.findById(gatewayId)
-            .orElseThrow(() -> new IllegalArgumentException("Gateway not found"));
+        requireGateway(gatewayId);
         
         // No validation per requirements
 
-        Reading reading = new Reading();
-        reading.setGateway(gateway);
-        reading.setTimestamp(timestamp);
-        reading.setSensorLabel(sensorLabel);
-        reading.setUnit(unit);
-        reading.setReadingValue(readingValue);
-        
-        readingRepository.save(reading);
+        List<IncomingReading> readings = List.of(
+            IncomingReading.of(gatewayId, timestamp, sensorLabel, unit, readingValue));
+        ingestPipeline.enqueue(readings);
+        notifyAccepted(gatewayId, readings);
     }
 
-    @Transactional
-    public void recordBatchReadings(List<Reading> readings) {
+    /**
+     * Queues a batch of readings for one gateway. The batch is admitted to the
+     * write-behind queue as a whole or rejected as a whole.
+     */
+    public void recordBatchReadings(UUID gatewayId, List<IncomingReading> readings) {
+        recordBatchReadings(gatewayId, readings, Duration.ZERO);
+    }
+
+    /**
+     * Same as {@link #recordBatchReadings(UUID, List)}, but waits up to
+     * {@code maxWait} for queue capacity instead of failing immediately.
+     */
+    public void recordBatchReadings(UUID gatewayId, List<IncomingReading> readings, Duration maxWait) {
+        requireBatch(gatewayId, readings);
+        logger.debug("recordBatchReadings: gatewayId={}, count={}", gatewayId, readings.size());
+        ingestPipeline.enqueue(readings, maxWait);
+        notifyAccepted(gatewayId, readings);
+    }
+
+    /**
+     * Same as {@link #recordBatchReadings(UUID, List)} for a batch sent with
+     * an {@code Idempotency-Key}: if the gateway sent a batch with the same
+     * key before, nothing is queued.
+     *
+     * @return false if the batch was a replay
+     */
+    public boolean recordBatchReadings(UUID gatewayId, List<IncomingReading> readings, String idempotencyKey) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1-" + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+        }
+        requireBatch(gatewayId, readings);
+        IngestBatchKeyRepository.Key key = new IngestBatchKeyRepository.Key(gatewayId, idempotencyKey);
+        if (!idempotency.claim(key)) {
+            logger.debug("recordBatchReadings: replay of {} for gateway {}", idempotencyKey, gatewayId);
+            // Not accepted again, but the gateway is evidently alive
+            livenessTracker.recordSeen(gatewayId);
+            return false;
+        }
+        try {
+            ingestPipeline.enqueue(readings, key);
+        } catch (RuntimeException e) {
+            idempotency.release(List.of(key));
+            throw e;
+        }
+        notifyAccepted(gatewayId, readings);
+        return true;
+    }
+
+    private void requireBatch(UUID gatewayId, List<IncomingReading> readings) {
         if (readings.isEmpty()) {
             throw new IllegalArgumentException("Batch readings cannot be empty");
         }
+        requireGateway(gatewayId);
 
-        for (Reading reading : readings) {
-            Gateway gateway = reading.getGateway();
-            
-            if (gateway == null) {
-                throw new IllegalArgumentException("Gateway must be set for all readings");
+        for (IncomingReading reading : readings) {
+            if (!gatewayId.equals(reading.gatewayId())) {
+                throw new IllegalArgumentException("Gateway must be the same for all readings");
             }
 
             // No validation per requirements
         }
+    }
+
+    private void notifyAccepted(UUID gatewayId, List<IncomingReading> readings) {
+        for (ReadingAcceptedListener listener : acceptedListeners) {
+            listener.onAccepted(gatewayId, readings);
+        }
+    }
 
-        logger.debug("recordBatchReadings: readings={}", readings);
-        readingRepository.saveAll(readings);
+    private void requireGateway(UUID gatewayId) {
+        if (!gatewayRegistry.exists(gatewayId)) {
+            throw new IllegalArgumentException("Gateway not found with ID: " + gatewayId);
+        }
     }
 
     public Optional<Gateway> getGatewayById(UUID gatewayId) {
-        return gatewayRepository.findById(gatewayId);
+        return gatewayRepository.findById(gatewayId).map(livenessTracker::describe);
     }
 
     public List<Gateway> getAllGateways() {
-        return gatewayRepository.findByModelIsNotNull();
+        List<Gateway> gateways = gatewayRepository.findByModelIsNotNullAndStatusNot(Gateway.STATUS_DELETING);
+        gateways.forEach(livenessTracker::describe);
+        return gateways;
+    }
+
+    /**
+     * Records a heartbeat: the gateway counts as online for another
+     * liveness timeout without sending a reading.
+     *
+     * @return false if the gateway does not exist
+     */
+    public boolean recordHeartbeat(UUID gatewayId) {
+        if (!gatewayRegistry.exists(gatewayId)) {
+            return false;
+        }
+        livenessTracker.recordSeen(gatewayId);
+        return true;
     }
 
     public List<Gateway> getAllDevices() {
         return gatewayRepository.findAll();
     }
 
-    public List<Reading> getReadings(UUID gatewayId, Instant start, Instant end) {
-        Gateway gateway = gatewayRepository.findById(gatewayId)
-            .orElseThrow(() -> new IllegalArgumentException("Gateway not found"));
-        return readingRepository.findByGatewayAndTimestampBetween(gateway, start, end);
+    public ReadingPage getReadingPage(UUID gatewayId, Instant start, Instant end, ReadingPage.Cursor after,
+                                      int limit) {
+        requireGateway(gatewayId);
+        return queryRepository.findPage(gatewayId, start, end, after, limit);
+    }
+
+    public List<ReadingAggregate> getRollups(UUID gatewayId, String sensorLabel, TimeBucket resolution,
+                                             Instant start, Instant end) {
+        requireGateway(gatewayId);
+        return rollupEngine.query(gatewayId, sensorLabel, resolution, start, end);
+    }
+
+    public List<LatestReading> getLatestReadings(UUID gatewayId) {
+        requireGateway(gatewayId);
+        return latestReadingCache.get(gatewayId);
+    }
+
+    /**
+     * Opens a live stream of the readings accepted for a gateway from now on,
+     * optionally only those of one sensor.
+     */
+    public SseEmitter subscribeReadings(UUID gatewayId, String sensorLabel) {
+        requireGateway(gatewayId);
+        return broadcaster.subscribe(gatewayId, sensorLabel);
+    }
+
+    public Map<UUID, List<LatestReading>> getLatestReadings(Collection<UUID> gatewayIds) {
+        return gatewayIds == null || gatewayIds.isEmpty()
+            ? latestReadingCache.getAll()
+            : latestReadingCache.get(gatewayIds);
+    }
+
+    public List<ReadingAggregate> getAggregates(UUID gatewayId, Instant start, Instant end, TimeBucket bucket,
+                                                String sensorLabel, Set<AggregateFunction> functions) {
+        requireGateway(gatewayId);
+        return aggregationRepository.aggregate(gatewayId, start, end, bucket, sensorLabel, functions);
+    }
+
+    /**
+     * Approximate quantiles of one sensor label over whole hours, from the
+     * quantile sketches rather than the readings.
+     */
+    public List<ReadingQuantiles> getQuantiles(String sensorLabel, Collection<UUID> gatewayIds, boolean perGateway,
+                                               Instant start, Instant end, List<Double> quantiles) {
+        return sketchEngine.quantiles(sensorLabel, gatewayIds, perGateway, start, end, quantiles);
     }
 }
@@ -0,0 +1,133 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.repository.IngestBatchKeyRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Suppresses replays of ingest batches that carry an {@code Idempotency-Key},
+ * for {@code iot.ingest.idempotency.retention} after they were accepted.
+ *
+ * <p>Keys accepted by this instance are held exactly in a bounded in-memory
+ * map until it evicts them; they include batches still in the write-behind
+ * queue. Older keys are only in the database, where the pipeline stores each
+ * key with its batch. A Bloom filter over all keys of the retention window
+ * sits in front of the database, so a new key, the common case, is accepted
+ * without a query; only a filter hit (a replay, or a false positive at about
+ * {@code iot.ingest.idempotency.false-positive-rate}) costs a lookup. The
+ * filter is refilled from the database at startup.
+ */
+@Service
+public class IngestIdempotency {
+    private static final Logger logger = LoggerFactory.getLogger(IngestIdempotency.class);
+
+    private final IngestBatchKeyRepository keyRepository;
+    private final Duration retention;
+    private final Clock clock;
+    private final Cache<IngestBatchKeyRepository.Key, Boolean> recent;
+    private final RotatingBloomFilter persisted;
+    private final Counter replays;
+    private final Counter databaseLookups;
+
+    public IngestIdempotency(
+            IngestBatchKeyRepository keyRepository,
+            MeterRegistry meterRegistry,
+            @Value("${iot.ingest.idempotency.retention}") Duration retention,
+            @Value("${iot.ingest.idempotency.recent.max-size}") long recentMaxSize,
+            @Value("${iot.ingest.idempotency.expected-keys}") long expectedKeys,
+            @Value("${iot.ingest.idempotency.false-positive-rate}") double falsePositiveRate) {
+        this.keyRepository = keyRepository;
+        this.retention = retention;
+        this.clock = Clock.systemUTC();
+        this.recent = Caffeine.newBuilder()
+            .maximumSize(recentMaxSize)
+            .expireAfterWrite(retention)
+            .build();
+        this.persisted = new RotatingBloomFilter(expectedKeys, falsePositiveRate, retention, clock);
+        this.replays = Counter.builder("iot.ingest.idempotency.replays")
+            .description("Batches not written again because their Idempotency-Key was seen before")
+            .register(meterRegistry);
+        this.databaseLookups = Counter.builder("iot.ingest.idempotency.lookups")
+            .description("Idempotency keys the Bloom filter could not rule out, looked up in the database")
+            .register(meterRegistry);
+        Gauge.builder("iot.ingest.idempotency.filter.size", persisted, RotatingBloomFilter::sizeInBytes)
+            .description("Memory held by the idempotency key Bloom filter")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void loadPersistedKeys() {
+        long[] loaded = {0};
+        keyRepository.forEachSince(clock.instant().minus(retention), key -> {
+            persisted.put(filterEntry(key));
+            loaded[0]++;
+        });
+        logger.info("Loaded {} idempotency keys accepted in the last {}", loaded[0], retention);
+    }
+
+    /**
+     * Claims a key for a batch about to be queued. Returns false if the key
+     * was accepted before within the retention window, in which case the
+     * batch must not be queued again. A successful claim must be followed by
+     * queuing the batch, or by {@link #release} if that fails.
+     */
+    public boolean claim(IngestBatchKeyRepository.Key key) {
+        if (recent.getIfPresent(key) == null) {
+            String entry = filterEntry(key);
+            boolean seen = false;
+            if (persisted.mightContain(entry)) {
+                databaseLookups.increment();
+                seen = keyRepository.existsSince(key, clock.instant().minus(retention));
+            }
+            // putIfAbsent settles concurrent claims of the same key
+            if (!seen && recent.asMap().putIfAbsent(key, Boolean.TRUE) == null) {
+                persisted.put(entry);
+                return true;
+            }
+            if (seen) {
+                recent.put(key, Boolean.TRUE);
+            }
+        }
+        replays.increment();
+        return false;
+    }
+
+    /**
+     * Forgets claimed keys whose batches were refused or could not be
+     * written, so a retry of them is accepted. The Bloom filter cannot
+     * forget; a released key only costs a lookup when it comes back.
+     */
+    public void release(List<IngestBatchKeyRepository.Key> keys) {
+        recent.invalidateAll(keys);
+    }
+
+    @Scheduled(fixedDelayString = "${iot.storage.maintenance.interval-ms}",
+               initialDelayString = "${iot.storage.maintenance.interval-ms}")
+    public void purge() {
+        try {
+            int deleted = keyRepository.deleteBefore(clock.instant().minus(retention));
+            logger.info("Purged {} idempotency keys older than {}", deleted, retention);
+        } catch (RuntimeException e) {
+            logger.error("Idempotency key purge failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private static String filterEntry(IngestBatchKeyRepository.Key key) {
+        return key.gatewayId() + "/" + key.idempotencyKey();
+    }
+}
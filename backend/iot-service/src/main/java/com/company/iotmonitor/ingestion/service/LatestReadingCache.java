@@ -0,0 +1,118 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import com.company.iotmonitor.ingestion.domain.LatestReading;
+import com.company.iotmonitor.ingestion.repository.ReadingQueryRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Last value per (gateway, sensor), updated as readings are accepted and
+ * served from memory. An update only wins if it is not older than the value
+ * it replaces, so late or replayed data never moves a sensor backwards.
+ */
+@Service
+public class LatestReadingCache implements ReadingAcceptedListener {
+    private static final Logger logger = LoggerFactory.getLogger(LatestReadingCache.class);
+    private static final Comparator<LatestReading> BY_SENSOR = Comparator.comparing(LatestReading::sensorLabel);
+
+    private final Map<UUID, Map<String, LatestReading>> latestByGateway = new ConcurrentHashMap<>();
+    private final ReadingQueryRepository queryRepository;
+    private final Duration maxClockSkew;
+    private final Duration warmupWindow;
+
+    public LatestReadingCache(
+            ReadingQueryRepository queryRepository,
+            MeterRegistry meterRegistry,
+            @Value("${iot.latest.max-clock-skew}") Duration maxClockSkew,
+            @Value("${iot.latest.warmup-window}") Duration warmupWindow) {
+        this.queryRepository = queryRepository;
+        this.maxClockSkew = maxClockSkew;
+        this.warmupWindow = warmupWindow;
+        Gauge.builder("iot.latest.sensors", this, LatestReadingCache::sensorCount)
+            .description("Sensors with a cached latest value")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void onAccepted(UUID gatewayId, List<IncomingReading> readings) {
+        Instant latestAllowed = Instant.now().plus(maxClockSkew);
+        Map<String, LatestReading> sensors = latestByGateway.computeIfAbsent(gatewayId, id -> new ConcurrentHashMap<>());
+        for (IncomingReading reading : readings) {
+            if (reading.timestamp().isAfter(latestAllowed)) {
+                // A gateway with a wrong clock would otherwise pin the sensor to a future value
+                continue;
+            }
+            update(sensors, new LatestReading(reading.sensorLabel(), reading.unit(),
+                                              reading.readingValue(), reading.timestamp()));
+        }
+    }
+
+    @Override
+    public void onGatewayRemoved(UUID gatewayId) {
+        latestByGateway.remove(gatewayId);
+    }
+
+    /**
+     * Latest value of every sensor of one gateway, ordered by sensor label.
+     */
+    public List<LatestReading> get(UUID gatewayId) {
+        Map<String, LatestReading> sensors = latestByGateway.get(gatewayId);
+        return sensors == null ? List.of() : sensors.values().stream().sorted(BY_SENSOR).toList();
+    }
+
+    /**
+     * Latest values for the given gateways; gateways without data map to an empty list.
+     */
+    public Map<UUID, List<LatestReading>> get(Collection<UUID> gatewayIds) {
+        Map<UUID, List<LatestReading>> result = new LinkedHashMap<>();
+        for (UUID gatewayId : gatewayIds) {
+            result.put(gatewayId, get(gatewayId));
+        }
+        return result;
+    }
+
+    public Map<UUID, List<LatestReading>> getAll() {
+        return get(latestByGateway.keySet());
+    }
+
+    /**
+     * Seeds the cache from recent rows so the endpoint is useful right after a
+     * restart. Live updates that race with the warm-up still win by timestamp.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void warmUp() {
+        Instant since = Instant.now().minus(warmupWindow);
+        long[] loaded = {0};
+        queryRepository.forEachLatestSince(since, (gatewayId, latest) -> {
+            update(latestByGateway.computeIfAbsent(gatewayId, id -> new ConcurrentHashMap<>()), latest);
+            loaded[0]++;
+        });
+        logger.info("Latest reading cache warmed up with {} sensors from the last {}", loaded[0], warmupWindow);
+    }
+
+    private static void update(Map<String, LatestReading> sensors, LatestReading candidate) {
+        sensors.merge(candidate.sensorLabel(), candidate,
+            (current, next) -> next.timestamp().isBefore(current.timestamp()) ? current : next);
+    }
+
+    private int sensorCount() {
+        return latestByGateway.values().stream().mapToInt(Map::size).sum();
+    }
+}
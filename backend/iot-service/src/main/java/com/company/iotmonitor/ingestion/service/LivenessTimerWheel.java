@@ -0,0 +1,178 @@
+package com.company.iotmonitor.ingestion.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Consumer;
+
+/**
+ * Finds members not seen within a timeout with a hashed timer wheel: one slot
+ * per tick, an online member sitting in the slot of its deadline.
+ *
+ * <p>Seeing a member only stores the time; it is not moved on the wheel.
+ * When its slot comes up, a member seen since is moved to the slot of its new
+ * deadline and one that was not goes offline. So a sighting costs a volatile
+ * write no matter how many members there are, and a tick only looks at the
+ * members whose deadline it holds, each online member about once per
+ * timeout. Members coming online are handed to the ticking thread through a
+ * queue, so only it touches the slots.
+ *
+ * <p>{@link #touch} and {@link #remove} are safe for concurrent use;
+ * {@link #advance} is serialized.
+ */
+class LivenessTimerWheel {
+    private static final int OFFLINE = 0;
+    private static final int ONLINE = 1;
+    private static final int REMOVED = 2;
+
+    /** One tracked member and the time it was last seen. */
+    static class Member {
+        private static final AtomicIntegerFieldUpdater<Member> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(Member.class, "state");
+
+        final UUID id;
+        private volatile long lastSeenMillis;
+        private volatile int state = OFFLINE;
+
+        Member(UUID id, long lastSeenMillis) {
+            this.id = id;
+            this.lastSeenMillis = lastSeenMillis;
+        }
+
+        /** Epoch millis of the last sighting, 0 if never seen. */
+        long lastSeenMillis() {
+            return lastSeenMillis;
+        }
+
+        boolean isOnline() {
+            return state == ONLINE;
+        }
+
+        boolean isRemoved() {
+            return state == REMOVED;
+        }
+    }
+
+    private final long timeoutMillis;
+    private final long tickMillis;
+    private final Clock clock;
+    private final ArrayDeque<Member>[] slots;
+    private final Queue<Member> arrivals = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger onlineCount = new AtomicInteger();
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    LivenessTimerWheel(Duration timeout, Duration tick, Clock clock) {
+        this.timeoutMillis = timeout.toMillis();
+        this.tickMillis = Math.max(1, tick.toMillis());
+        this.clock = clock;
+        // A deadline is at most one timeout and a tick ahead, so it never wraps around the wheel
+        this.slots = new ArrayDeque[(int) (timeoutMillis / tickMillis) + 2];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new ArrayDeque<>();
+        }
+        this.currentTick = clock.millis() / tickMillis;
+    }
+
+    /**
+     * Records a sighting of the member now.
+     *
+     * @return whether the member came online with it
+     */
+    boolean touch(Member member) {
+        long now = clock.millis();
+        // Racing writers can step it back by the milliseconds between them, far below the timeout
+        if (member.lastSeenMillis < now) {
+            member.lastSeenMillis = now;
+        }
+        return member.state == OFFLINE && goOnline(member);
+    }
+
+    /**
+     * Puts a member restored with an earlier sighting on the wheel if that
+     * sighting is still within the timeout.
+     */
+    void track(Member member) {
+        if (clock.millis() - member.lastSeenMillis < timeoutMillis) {
+            goOnline(member);
+        }
+    }
+
+    /** Stops tracking the member for good; the wheel lets go of it when its slot comes up. */
+    void remove(Member member) {
+        if (Member.STATE.getAndSet(member, REMOVED) == ONLINE) {
+            onlineCount.decrementAndGet();
+        }
+    }
+
+    private boolean goOnline(Member member) {
+        if (!Member.STATE.compareAndSet(member, OFFLINE, ONLINE)) {
+            return false;
+        }
+        onlineCount.incrementAndGet();
+        arrivals.add(member);
+        return true;
+    }
+
+    /**
+     * Processes every slot up to the current time, passing the members that
+     * went offline to {@code offline}. Should be called about once per tick;
+     * after a longer gap each slot is processed at most once.
+     */
+    synchronized void advance(Consumer<Member> offline) {
+        long now = clock.millis();
+        long nowTick = now / tickMillis;
+        for (Member member; (member = arrivals.poll()) != null; ) {
+            schedule(member, currentTick);
+        }
+        for (long tick = Math.max(currentTick + 1, nowTick - slots.length + 1); tick <= nowTick; tick++) {
+            ArrayDeque<Member> slot = slots[slotIndex(tick)];
+            // Members rescheduled into this same slot belong to a later turn
+            for (int remaining = slot.size(); remaining > 0; remaining--) {
+                expireOrReschedule(slot.pollFirst(), now, tick, offline);
+            }
+        }
+        currentTick = Math.max(currentTick, nowTick);
+    }
+
+    private void expireOrReschedule(Member member, long now, long tick, Consumer<Member> offline) {
+        if (member.state != ONLINE) {
+            return;
+        }
+        long seen = member.lastSeenMillis;
+        if (now - seen < timeoutMillis) {
+            schedule(member, tick);
+            return;
+        }
+        if (!Member.STATE.compareAndSet(member, ONLINE, OFFLINE)) {
+            return;
+        }
+        onlineCount.decrementAndGet();
+        // A touch racing with this either sees OFFLINE and brings the member back itself, or
+        // stored its time before the state changed and is seen here
+        if (member.lastSeenMillis != seen && Member.STATE.compareAndSet(member, OFFLINE, ONLINE)) {
+            onlineCount.incrementAndGet();
+            schedule(member, tick);
+            return;
+        }
+        offline.accept(member);
+    }
+
+    private void schedule(Member member, long afterTick) {
+        long deadlineTick = Math.max((member.lastSeenMillis + timeoutMillis) / tickMillis, afterTick + 1);
+        slots[slotIndex(deadlineTick)].addLast(member);
+    }
+
+    private int slotIndex(long tick) {
+        return (int) Math.floorMod(tick, (long) slots.length);
+    }
+
+    int onlineCount() {
+        return onlineCount.get();
+    }
+}
@@ -0,0 +1,22 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.Alert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "iot.alerts.log.enabled", havingValue = "true", matchIfMissing = true)
+public class LoggingAlertSink implements AlertSink {
+    private static final Logger logger = LoggerFactory.getLogger(LoggingAlertSink.class);
+
+    @Override
+    public void publish(Alert alert) {
+        if (alert.state() == Alert.State.FIRING) {
+            logger.warn("Alert {} on gateway {}: {}", alert.ruleId(), alert.gatewayId(), alert.message());
+        } else {
+            logger.info("Alert {} on gateway {} resolved: {}", alert.ruleId(), alert.gatewayId(), alert.message());
+        }
+    }
+}
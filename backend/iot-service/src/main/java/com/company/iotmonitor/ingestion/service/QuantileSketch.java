@@ -0,0 +1,323 @@
+package com.company.iotmonitor.ingestion.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Mergeable quantile sketch after DDSketch: values are counted in bins
+ * whose bounds grow geometrically by {@code gamma = (1 + a) / (1 - a)}, so
+ * a bin's midpoint is within relative error {@code a} of every value in it.
+ *
+ * <p>Any quantile is therefore estimated within {@link #RELATIVE_ACCURACY} of
+ * the exact value at that rank: the estimate for a true p99 of 80.0 lies in
+ * [79.2, 80.8]. Values closer to zero than {@link #MIN_INDEXABLE} are
+ * counted as zero. Merging adds bin counts, so a merged sketch answers with
+ * the same accuracy as one fed every value, whatever the number of inputs.
+ *
+ * <p>Each sign keeps at most {@link #MAX_BINS} contiguous bins, about 18
+ * orders of magnitude at 1%; beyond that the bins nearest zero are folded
+ * together, costing accuracy only for quantiles that fall in them.
+ *
+ * <p>Not thread-safe.
+ */
+final class QuantileSketch {
+    static final double RELATIVE_ACCURACY = 0.01;
+    static final double MIN_INDEXABLE = 1e-9;
+    static final int MAX_BINS = 2048;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final byte FORMAT_VERSION = 1;
+
+    private final BinStore positive = new BinStore();
+    private final BinStore negative = new BinStore();
+    private long zeroCount;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /** Adds one value; NaN and infinities are ignored. */
+    void add(double value) {
+        if (!Double.isFinite(value)) {
+            return;
+        }
+        if (value > MIN_INDEXABLE) {
+            positive.add(index(value), 1);
+        } else if (value < -MIN_INDEXABLE) {
+            negative.add(index(-value), 1);
+        } else {
+            zeroCount++;
+        }
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    void merge(QuantileSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        positive.merge(other.positive);
+        negative.merge(other.negative);
+        zeroCount += other.zeroCount;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /** Empties the sketch, keeping its bin arrays for reuse. */
+    void clear() {
+        positive.clear();
+        negative.clear();
+        zeroCount = 0;
+        count = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+    }
+
+    long count() {
+        return count;
+    }
+
+    /** Exact smallest value added; NaN when empty. */
+    double min() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    /** Exact largest value added; NaN when empty. */
+    double max() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    /**
+     * Estimates the {@code q}-quantile, {@code q} in [0, 1], as the value of
+     * rank {@code floor(q * (count - 1))}, clamped to the exact min and max.
+     * NaN when empty.
+     */
+    double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) (q * (count - 1));
+        double estimate;
+        if (rank < negative.total) {
+            // Most negative first: the negative bins from the largest magnitude down
+            estimate = -midpoint(negative.indexAtRankFromTop(rank));
+        } else if (rank < negative.total + zeroCount) {
+            estimate = 0;
+        } else {
+            estimate = midpoint(positive.indexAtRank(rank - negative.total - zeroCount));
+        }
+        return Math.max(min, Math.min(max, estimate));
+    }
+
+    /**
+     * Layout: format version, count, zero count (varints), min and max
+     * (raw doubles), then the positive and negative bins, each as the number
+     * of bins (varint), and if non-zero the first bin index (zigzag varint)
+     * and the bin counts (varints).
+     */
+    byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 + 2 * (positive.width() + negative.width()));
+        out.write(FORMAT_VERSION);
+        writeVarLong(out, count);
+        writeVarLong(out, zeroCount);
+        writeDouble(out, min);
+        writeDouble(out, max);
+        positive.encode(out);
+        negative.encode(out);
+        return out.toByteArray();
+    }
+
+    static QuantileSketch decode(byte[] data) {
+        ByteBuffer in = ByteBuffer.wrap(data);
+        byte version = in.get();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unknown quantile sketch format " + version);
+        }
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.count = readVarLong(in);
+        sketch.zeroCount = readVarLong(in);
+        sketch.min = in.getDouble();
+        sketch.max = in.getDouble();
+        sketch.positive.decode(in);
+        sketch.negative.decode(in);
+        return sketch;
+    }
+
+    private static int index(double magnitude) {
+        return (int) Math.ceil(Math.log(magnitude) / LOG_GAMMA);
+    }
+
+    /** The point of bin {@code (gamma^(i-1), gamma^i]} at relative distance {@code a} from both bounds. */
+    private static double midpoint(int index) {
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static void writeDouble(ByteArrayOutputStream out, double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (bits >>> shift));
+        }
+    }
+
+    /**
+     * Counts per bin index for one sign, in one array covering a contiguous
+     * index range that grows as needed.
+     */
+    private static final class BinStore {
+        private static final long[] NO_BINS = new long[0];
+        private static final int INITIAL_BINS = 16;
+
+        private long[] bins = NO_BINS;
+        private int offset;
+        private long total;
+
+        void add(int index, long n) {
+            ensureRange(index, index);
+            bins[Math.max(index, offset) - offset] += n;
+            total += n;
+        }
+
+        void merge(BinStore other) {
+            if (other.total == 0) {
+                return;
+            }
+            int first = other.firstUsed();
+            int last = other.lastUsed();
+            ensureRange(other.offset + first, other.offset + last);
+            for (int i = first; i <= last; i++) {
+                long n = other.bins[i];
+                if (n != 0) {
+                    bins[Math.max(other.offset + i, offset) - offset] += n;
+                }
+            }
+            total += other.total;
+        }
+
+        void clear() {
+            Arrays.fill(bins, 0);
+            total = 0;
+        }
+
+        int indexAtRank(long rank) {
+            long seen = 0;
+            for (int i = 0; i < bins.length; i++) {
+                seen += bins[i];
+                if (seen > rank) {
+                    return offset + i;
+                }
+            }
+            return offset + bins.length - 1;
+        }
+
+        int indexAtRankFromTop(long rank) {
+            long seen = 0;
+            for (int i = bins.length - 1; i >= 0; i--) {
+                seen += bins[i];
+                if (seen > rank) {
+                    return offset + i;
+                }
+            }
+            return offset;
+        }
+
+        int width() {
+            return total == 0 ? 0 : lastUsed() - firstUsed() + 1;
+        }
+
+        void encode(ByteArrayOutputStream out) {
+            int width = width();
+            writeVarLong(out, width);
+            if (width == 0) {
+                return;
+            }
+            int first = firstUsed();
+            int firstIndex = offset + first;
+            writeVarLong(out, ((firstIndex << 1) ^ (firstIndex >> 31)) & 0xFFFFFFFFL);
+            for (int i = first; i < first + width; i++) {
+                writeVarLong(out, bins[i]);
+            }
+        }
+
+        void decode(ByteBuffer in) {
+            int width = (int) readVarLong(in);
+            if (width == 0) {
+                return;
+            }
+            int zigzag = (int) readVarLong(in);
+            int firstIndex = (zigzag >>> 1) ^ -(zigzag & 1);
+            ensureRange(firstIndex, firstIndex + width - 1);
+            for (int i = 0; i < width; i++) {
+                long n = readVarLong(in);
+                bins[Math.max(firstIndex + i, offset) - offset] += n;
+                total += n;
+            }
+        }
+
+        private int firstUsed() {
+            int i = 0;
+            while (bins[i] == 0) {
+                i++;
+            }
+            return i;
+        }
+
+        private int lastUsed() {
+            int i = bins.length - 1;
+            while (bins[i] == 0) {
+                i--;
+            }
+            return i;
+        }
+
+        /**
+         * Makes the array cover {@code [low, high]}, folding the lowest bins
+         * together if that would take more than {@link #MAX_BINS}.
+         */
+        private void ensureRange(int low, int high) {
+            if (bins.length > 0 && low >= offset && high < offset + bins.length) {
+                return;
+            }
+            if (bins.length > 0) {
+                low = Math.min(low, offset);
+                high = Math.max(high, offset + bins.length - 1);
+            }
+            int length = (int) Math.min(MAX_BINS, Math.max((long) high - low + 1, Math.max(INITIAL_BINS, 2L * bins.length)));
+            // Spare room goes on the side that grew, or both sides for the first bins
+            int spare = (int) (length - ((long) high - low + 1));
+            int newOffset = bins.length == 0 ? low - spare / 2 : low < offset ? high - length + 1 : low;
+            if ((long) high - newOffset + 1 > length) {
+                newOffset = high - length + 1;
+            }
+            long[] resized = new long[length];
+            for (int i = 0; i < bins.length; i++) {
+                if (bins[i] != 0) {
+                    resized[Math.max(offset + i, newOffset) - newOffset] += bins[i];
+                }
+            }
+            bins = resized;
+            offset = newOffset;
+        }
+    }
+}
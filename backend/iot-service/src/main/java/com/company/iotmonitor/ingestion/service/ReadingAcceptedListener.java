@@ -0,0 +1,28 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Notified on the request thread once readings for a gateway have been
+ * accepted into the write-behind queue. Implementations must be cheap and
+ * must not throw; they run inline with ingest.
+ *
+ * <p>Listeners see readings before they are persisted. A reading the writer
+ * later fails to store (counted in {@code iot.ingest.readings.failed}) has
+ * still been seen, so derived state such as rollups, sketches and alerts
+ * describes what was accepted, not strictly what is stored.
+ */
+public interface ReadingAcceptedListener {
+    void onAccepted(UUID gatewayId, List<IncomingReading> readings);
+
+    /**
+     * Called inside the transaction that marks a gateway deleting, and again in
+     * the one that finally removes it, so listeners can drop any state they
+     * keep for it. Must be idempotent.
+     */
+    default void onGatewayRemoved(UUID gatewayId) {
+    }
+}
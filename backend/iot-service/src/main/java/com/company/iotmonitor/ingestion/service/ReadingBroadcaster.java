@@ -0,0 +1,319 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import com.company.iotmonitor.ingestion.domain.LatestReading;
+import com.company.iotmonitor.ingestion.domain.LiveReadings;
+import com.company.iotmonitor.ingestion.exception.SubscriptionLimitException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes accepted readings to live subscribers over Server-Sent Events.
+ *
+ * <p>Ingest never waits for a subscriber: each subscriber has its own buffer
+ * of at most {@code iot.live.buffer-size} readings, and a sender task writes
+ * whatever has accumulated as one event. Everything that arrives while an
+ * event is being written goes out in the next one, so a slow client gets
+ * fewer, larger events; once its buffer is full the oldest readings are
+ * dropped and the next event reports how many.
+ *
+ * <p>A write to a client that stopped reading blocks until the socket times
+ * out, so every send runs on a virtual thread of its own and a stalled client
+ * holds up nobody else. The heartbeat ends streams whose send has taken longer
+ * than {@code iot.live.send-timeout}.
+ *
+ * <p>Connections are held by the servlet container's async support, not by
+ * threads, so the number of subscribers is bounded by
+ * {@code iot.live.max-subscribers} and the container's connection limit.
+ */
+@Service
+public class ReadingBroadcaster implements ReadingAcceptedListener {
+    private static final Logger logger = LoggerFactory.getLogger(ReadingBroadcaster.class);
+    private static final String READINGS_EVENT = "readings";
+    private static final long RETRY_AFTER_SECONDS = 30;
+
+    private final Map<UUID, Set<Subscriber>> subscribersByGateway = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final int maxSubscribers;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final long sendTimeoutNanos;
+    private final ExecutorService sender;
+    private final Counter droppedCounter;
+    private final Counter stalledCounter;
+
+    public ReadingBroadcaster(
+            MeterRegistry meterRegistry,
+            @Value("${iot.live.max-subscribers}") int maxSubscribers,
+            @Value("${iot.live.buffer-size}") int bufferSize,
+            @Value("${iot.live.timeout}") Duration timeout,
+            @Value("${iot.live.send-timeout}") Duration sendTimeout) {
+        this.maxSubscribers = maxSubscribers;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeout.toMillis();
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        // Virtual in both thread modes: a fixed pool would be blocked by as many stalled clients as it has threads
+        this.sender = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("live-sender-", 0).factory());
+        Gauge.builder("iot.live.subscribers", subscriberCount, AtomicInteger::get)
+            .description("Open live reading subscriptions")
+            .register(meterRegistry);
+        this.droppedCounter = Counter.builder("iot.live.readings.dropped")
+            .description("Readings not pushed because a live subscriber fell behind")
+            .register(meterRegistry);
+        this.stalledCounter = Counter.builder("iot.live.subscribers.stalled")
+            .description("Live streams ended because a send took longer than the send timeout")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Opens a subscription to the readings of one gateway, optionally only one
+     * of its sensors. The caller checks that the gateway exists.
+     *
+     * @throws SubscriptionLimitException if {@code iot.live.max-subscribers} are open
+     */
+    public SseEmitter subscribe(UUID gatewayId, String sensorLabel) {
+        return subscribe(gatewayId, sensorLabel, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(UUID gatewayId, String sensorLabel, SseEmitter emitter) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new SubscriptionLimitException("Live subscriber limit of " + maxSubscribers + " reached",
+                                                 RETRY_AFTER_SECONDS);
+        }
+        Subscriber subscriber = new Subscriber(gatewayId, sensorLabel, emitter);
+        subscribersByGateway.compute(gatewayId, (id, subscribers) -> {
+            Set<Subscriber> set = subscribers != null ? subscribers : ConcurrentHashMap.newKeySet();
+            set.add(subscriber);
+            return set;
+        });
+        // Runs on a container thread once the stream ends for any reason, including timeout and client errors
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(emitter::complete);
+        try {
+            // Commits the response, so the client sees the stream open before the first reading
+            emitter.send(SseEmitter.event().comment("subscribed"));
+        } catch (IOException e) {
+            subscriber.close();
+            throw new UncheckedIOException(e);
+        }
+        logger.debug("subscribe: gatewayId={}, sensorLabel={}", gatewayId, sensorLabel);
+        return emitter;
+    }
+
+    @Override
+    public void onAccepted(UUID gatewayId, List<IncomingReading> readings) {
+        Set<Subscriber> subscribers = subscribersByGateway.get(gatewayId);
+        if (subscribers == null) {
+            return;
+        }
+        List<LatestReading> live = new ArrayList<>(readings.size());
+        for (IncomingReading reading : readings) {
+            live.add(new LatestReading(reading.sensorLabel(), reading.unit(), reading.readingValue(), reading.timestamp()));
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(live);
+        }
+    }
+
+    @Override
+    public void onGatewayRemoved(UUID gatewayId) {
+        Set<Subscriber> subscribers = subscribersByGateway.get(gatewayId);
+        if (subscribers != null) {
+            subscribers.forEach(Subscriber::complete);
+        }
+    }
+
+    /**
+     * Sends a comment on every stream so proxies keep idle connections open
+     * and clients that went away are noticed, and ends streams stuck in a
+     * send for longer than {@code iot.live.send-timeout}.
+     */
+    @Scheduled(fixedDelayString = "${iot.live.heartbeat.interval-ms}",
+               initialDelayString = "${iot.live.heartbeat.interval-ms}")
+    public void heartbeat() {
+        long now = System.nanoTime();
+        subscribersByGateway.values().forEach(subscribers -> subscribers.forEach(subscriber -> {
+            if (subscriber.isStalled(now)) {
+                logger.debug("Ending stalled live subscriber of gateway {}", subscriber.gatewayId);
+                stalledCounter.increment();
+                subscriber.complete();
+            } else {
+                subscriber.heartbeat();
+            }
+        }));
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @PreDestroy
+    void stop() {
+        subscribersByGateway.values().forEach(subscribers -> subscribers.forEach(Subscriber::complete));
+        sender.shutdownNow();
+    }
+
+    private void dispatch(Subscriber subscriber) {
+        try {
+            sender.execute(subscriber::sendNext);
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the stream is being completed
+            subscriber.close();
+        }
+    }
+
+    private final class Subscriber {
+        private final UUID gatewayId;
+        private final String sensorLabel;
+        private final SseEmitter emitter;
+        private final ArrayDeque<LatestReading> pending = new ArrayDeque<>();
+        private long dropped;
+        private boolean heartbeatDue;
+        private boolean scheduled;
+        private boolean closed;
+        // System.nanoTime() when the current send started, 0 while none is running
+        private volatile long sendStartedAt;
+
+        Subscriber(UUID gatewayId, String sensorLabel, SseEmitter emitter) {
+            this.gatewayId = gatewayId;
+            this.sensorLabel = sensorLabel;
+            this.emitter = emitter;
+        }
+
+        void offer(List<LatestReading> readings) {
+            int overflow = 0;
+            boolean schedule;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                for (LatestReading reading : readings) {
+                    if (sensorLabel != null && !sensorLabel.equals(reading.sensorLabel())) {
+                        continue;
+                    }
+                    if (pending.size() == bufferSize) {
+                        pending.pollFirst();
+                        overflow++;
+                    }
+                    pending.addLast(reading);
+                }
+                dropped += overflow;
+                schedule = !scheduled && !pending.isEmpty();
+                scheduled |= schedule;
+            }
+            if (overflow > 0) {
+                droppedCounter.increment(overflow);
+            }
+            if (schedule) {
+                dispatch(this);
+            }
+        }
+
+        boolean isStalled(long now) {
+            long startedAt = sendStartedAt;
+            return startedAt != 0 && now - startedAt > sendTimeoutNanos;
+        }
+
+        void heartbeat() {
+            boolean schedule;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                heartbeatDue = true;
+                schedule = !scheduled;
+                scheduled = true;
+            }
+            if (schedule) {
+                dispatch(this);
+            }
+        }
+
+        /** Writes one event with everything pending, then requeues itself if more arrived meanwhile. */
+        void sendNext() {
+            List<LatestReading> readings;
+            long lost;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                readings = List.copyOf(pending);
+                lost = dropped;
+                pending.clear();
+                dropped = 0;
+                heartbeatDue = false;
+            }
+            sendStartedAt = System.nanoTime();
+            try {
+                if (readings.isEmpty() && lost == 0) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } else {
+                    emitter.send(SseEmitter.event()
+                        .name(READINGS_EVENT)
+                        .data(new LiveReadings(readings, lost), MediaType.APPLICATION_JSON));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away or the stream was completed; the container completes the request
+                logger.debug("Live subscriber of gateway {} gone: {}", gatewayId, e.getMessage());
+                close();
+                return;
+            } finally {
+                sendStartedAt = 0;
+            }
+            boolean again;
+            synchronized (this) {
+                again = !closed && (!pending.isEmpty() || heartbeatDue);
+                scheduled = again;
+            }
+            if (again) {
+                dispatch(this);
+            }
+        }
+
+        /** Ends the stream from the server side. */
+        void complete() {
+            close();
+            emitter.complete();
+        }
+
+        void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                pending.clear();
+            }
+            subscribersByGateway.computeIfPresent(gatewayId, (id, subscribers) -> {
+                subscribers.remove(this);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+            subscriberCount.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Decodes {@code application/cbor} ingest bodies straight into
+ * {@link IncomingReading}s, without the request objects the JSON endpoints
+ * bind to. The body is a map with the gateway first, then the readings:
+ *
+ * <pre>
+ * {"gatewayId": h'16 bytes' or "uuid text",
+ *  "data": [timestamp, sensor, unit, reading]}             single reading
+ *  "data": [[timestamp, sensor, unit, reading], ...]}      batch
+ * </pre>
+ *
+ * Readings are positional arrays so keys are not repeated per reading.
+ * {@code timestamp} is an integer of epoch milliseconds (null means now) and
+ * {@code reading} is a float64. Encoders may use string references (tags 25
+ * and 256) to send repeated sensor and unit strings once.
+ */
+@Component
+public class ReadingCborDecoder {
+    private final CBORFactory cborFactory = new CBORFactory();
+
+    /** Gateway and readings of one request body. */
+    public record Body(UUID gatewayId, List<IncomingReading> readings) {
+    }
+
+    /**
+     * Decodes a body whose {@code data} is a single reading.
+     *
+     * @throws IllegalArgumentException if the body is malformed or the
+     *                                  reading could not be stored
+     */
+    public Body decodeSingle(InputStream body) throws IOException {
+        return decode(body, false, 1);
+    }
+
+    /**
+     * Decodes a body whose {@code data} is an array of readings.
+     *
+     * @throws IllegalArgumentException if the body is malformed, has more
+     *                                  than {@code maxReadings} readings, or
+     *                                  any reading could not be stored
+     */
+    public Body decodeBatch(InputStream body, int maxReadings) throws IOException {
+        return decode(body, true, maxReadings);
+    }
+
+    private Body decode(InputStream body, boolean batch, int maxReadings) throws IOException {
+        try (JsonParser parser = cborFactory.createParser(body)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            UUID gatewayId = null;
+            List<IncomingReading> readings = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                    case "gatewayId" -> gatewayId = readGatewayId(parser, token);
+                    case "data" -> {
+                        if (gatewayId == null) {
+                            throw new JsonParseException(parser, "gatewayId must come before data");
+                        }
+                        expect(parser, token, JsonToken.START_ARRAY);
+                        readings = batch
+                            ? readBatch(parser, gatewayId, maxReadings)
+                            : List.of(readReading(parser, gatewayId));
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+            if (gatewayId == null || readings == null) {
+                throw new IllegalArgumentException("Body must contain gatewayId and data");
+            }
+            return new Body(gatewayId, readings);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed CBOR body: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private static List<IncomingReading> readBatch(JsonParser parser, UUID gatewayId, int maxReadings)
+            throws IOException {
+        List<IncomingReading> readings = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (readings.size() == maxReadings) {
+                throw new IllegalArgumentException("Batch size exceeds maximum of " + maxReadings);
+            }
+            expect(parser, token, JsonToken.START_ARRAY);
+            readings.add(readReading(parser, gatewayId));
+        }
+        return readings;
+    }
+
+    /**
+     * Reads the elements of one reading array whose START_ARRAY has been
+     * consumed, leaving the parser on its END_ARRAY.
+     */
+    private static IncomingReading readReading(JsonParser parser, UUID gatewayId) throws IOException {
+        JsonToken token = parser.nextToken();
+        Instant timestamp = null;
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            timestamp = Instant.ofEpochMilli(parser.getLongValue());
+        } else {
+            expect(parser, token, JsonToken.VALUE_NULL);
+        }
+        String sensor = parser.nextTextValue();
+        String unit = parser.nextTextValue();
+        Double value = parser.nextToken().isNumeric() ? parser.getDoubleValue() : null;
+        expect(parser, parser.nextToken(), JsonToken.END_ARRAY);
+        return IncomingReading.of(gatewayId, timestamp, sensor, unit, value);
+    }
+
+    private static UUID readGatewayId(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_STRING) {
+            return UUID.fromString(parser.getText());
+        }
+        expect(parser, token, JsonToken.VALUE_EMBEDDED_OBJECT);
+        byte[] bytes = parser.getBinaryValue();
+        if (bytes.length != 16) {
+            throw new JsonParseException(parser, "gatewayId must be 16 bytes, got " + bytes.length);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws JsonParseException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but found " + actual);
+        }
+    }
+}
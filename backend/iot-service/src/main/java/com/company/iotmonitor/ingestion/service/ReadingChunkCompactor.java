@@ -0,0 +1,79 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.repository.ReadingChunkRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Moves readings older than {@code iot.storage.chunks.compact-after} from
+ * {@code readings} into compressed hourly chunks. Only active when
+ * {@code iot.storage.chunks.enabled=true}; each series hour is compacted in
+ * its own transaction, so a failure only delays that hour.
+ */
+@Service
+@ConditionalOnProperty(name = "iot.storage.chunks.enabled", havingValue = "true")
+public class ReadingChunkCompactor {
+    private static final Logger logger = LoggerFactory.getLogger(ReadingChunkCompactor.class);
+
+    private final ReadingChunkRepository chunkRepository;
+    private final Duration compactAfter;
+    private final int seriesPerRun;
+    private final Counter rowsCompacted;
+    private final AtomicReference<ReadingChunkRepository.Stats> stats =
+        new AtomicReference<>(new ReadingChunkRepository.Stats(0, 0, 0));
+
+    public ReadingChunkCompactor(
+            ReadingChunkRepository chunkRepository,
+            MeterRegistry meterRegistry,
+            @Value("${iot.storage.chunks.compact-after}") Duration compactAfter,
+            @Value("${iot.storage.chunks.series-per-run}") int seriesPerRun) {
+        this.chunkRepository = chunkRepository;
+        this.compactAfter = compactAfter;
+        this.seriesPerRun = seriesPerRun;
+        this.rowsCompacted = Counter.builder("iot.storage.chunks.rows.compacted")
+            .description("Rows moved from readings into chunks")
+            .register(meterRegistry);
+        Gauge.builder("iot.storage.chunks.samples", stats, s -> s.get().samples())
+            .description("Samples stored in chunks")
+            .register(meterRegistry);
+        Gauge.builder("iot.storage.chunks.bytes", stats, s -> s.get().bytes())
+            .description("Encoded size of all chunks")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${iot.storage.chunks.compact-interval-ms}",
+               initialDelayString = "${iot.storage.chunks.compact-interval-ms}")
+    public void compact() {
+        Instant before = ReadingChunkRepository.CHUNK_WIDTH.startOf(Instant.now().minus(compactAfter));
+        List<ReadingChunkRepository.Series> candidates = chunkRepository.findCompactionCandidates(before, seriesPerRun);
+        if (candidates.isEmpty()) {
+            return;
+        }
+        long moved = 0;
+        for (ReadingChunkRepository.Series series : candidates) {
+            try {
+                moved += chunkRepository.compact(series);
+            } catch (RuntimeException e) {
+                logger.warn("Compacting {} failed, will retry: {}", series, e.getMessage());
+            }
+        }
+        rowsCompacted.increment(moved);
+        ReadingChunkRepository.Stats current = chunkRepository.stats();
+        stats.set(current);
+        logger.info("Compacted {} rows in {} series hours; chunks hold {} samples in {} bytes ({} bytes/sample)",
+                    moved, candidates.size(), current.samples(), current.bytes(),
+                    current.samples() == 0 ? 0 : String.format("%.2f", (double) current.bytes() / current.samples()));
+    }
+}
@@ -0,0 +1,350 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import com.company.iotmonitor.ingestion.exception.IngestBackpressureException;
+import com.company.iotmonitor.ingestion.repository.IngestBatchKeyRepository;
+import com.company.iotmonitor.ingestion.repository.ReadingBulkWriter;
+import com.company.iotmonitor.ingestion.repository.SeriesDictionary;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind stage between the ingest endpoints and the database.
+ *
+ * <p>Request threads enqueue readings and return immediately. A small pool of
+ * writer threads drains the queue in micro-batches and commits each batch in a
+ * single transaction through {@link ReadingBulkWriter}, flushing when either
+ * {@code iot.ingest.batch.size} readings are buffered or
+ * {@code iot.ingest.flush.interval-ms} has passed since the first buffered
+ * reading. Capacity is counted in readings, not requests, so
+ * a full batch is admitted or rejected as a whole.
+ *
+ * <p>A request's idempotency key travels with its readings and is stored in
+ * the same transaction; if the readings are dropped, the key is released
+ * through {@link IngestIdempotency} so a retry is accepted.
+ *
+ * <p>{@link #awaitFlushed} is a barrier for callers that must not run ahead
+ * of the queue, such as gateway deletion.
+ */
+@Service
+public class ReadingIngestPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(ReadingIngestPipeline.class);
+
+    /** Readings of one request, with its idempotency key if it had one, in queue order. */
+    private record Chunk(List<IncomingReading> readings, IngestBatchKeyRepository.Key key, long sequence) {
+        UUID gatewayId() {
+            return readings.get(0).gatewayId();
+        }
+    }
+
+    private final ReadingBulkWriter bulkWriter;
+    private final SeriesDictionary seriesDictionary;
+    private final IngestBatchKeyRepository keyRepository;
+    private final IngestIdempotency idempotency;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int capacity;
+    private final int writerThreads;
+    private final boolean virtualThreads;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long shutdownTimeoutMillis;
+
+    private final BlockingQueue<Chunk> queue = new LinkedBlockingQueue<>();
+    // Sequences of chunks queued or being written; the set is also the monitor for lastSequence
+    private final ConcurrentSkipListSet<Long> unflushed = new ConcurrentSkipListSet<>();
+    private long lastSequence;
+    private final Semaphore permits;
+    private final List<Thread> writers = new ArrayList<>();
+    private volatile boolean running;
+
+    private final ReadingMetrics readingMetrics;
+    private final Timer flushTimer;
+    private final DistributionSummary flushSize;
+    private final Counter writtenCounter;
+    private final Counter failedCounter;
+    private final Counter rejectedCounter;
+
+    public ReadingIngestPipeline(
+            ReadingBulkWriter bulkWriter,
+            SeriesDictionary seriesDictionary,
+            IngestBatchKeyRepository keyRepository,
+            IngestIdempotency idempotency,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            ReadingMetrics readingMetrics,
+            @Value("${iot.ingest.queue.capacity}") int capacity,
+            @Value("${iot.ingest.writer.threads}") int writerThreads,
+            @Value("${iot.ingest.batch.size}") int batchSize,
+            @Value("${iot.ingest.flush.interval-ms}") long flushIntervalMillis,
+            @Value("${iot.ingest.shutdown.timeout-ms}") long shutdownTimeoutMillis,
+            @Value("${spring.threads.virtual.enabled}") boolean virtualThreads) {
+        this.bulkWriter = bulkWriter;
+        this.seriesDictionary = seriesDictionary;
+        this.keyRepository = keyRepository;
+        this.idempotency = idempotency;
+        this.transactionTemplate = transactionTemplate;
+        this.readingMetrics = readingMetrics;
+        this.capacity = capacity;
+        this.writerThreads = writerThreads;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+        this.virtualThreads = virtualThreads;
+        this.permits = new Semaphore(capacity);
+
+        Gauge.builder("iot.ingest.queue.depth", this, ReadingIngestPipeline::getQueueDepth)
+            .description("Readings accepted but not yet written")
+            .register(meterRegistry);
+        Gauge.builder("iot.ingest.queue.capacity", this, p -> p.capacity)
+            .description("Maximum readings the write-behind queue will hold")
+            .register(meterRegistry);
+        this.flushTimer = Timer.builder("iot.ingest.flush.latency")
+            .description("Time to persist one micro-batch")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+        this.flushSize = DistributionSummary.builder("iot.ingest.flush.size")
+            .description("Readings per persisted micro-batch")
+            .register(meterRegistry);
+        this.writtenCounter = Counter.builder("iot.ingest.readings.written").register(meterRegistry);
+        this.failedCounter = Counter.builder("iot.ingest.readings.failed").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("iot.ingest.readings.rejected")
+            .description("Readings refused because the queue was full")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        Thread.Builder builder = virtualThreads
+            ? Thread.ofVirtual().name("reading-writer-", 0)
+            : Thread.ofPlatform().daemon().name("reading-writer-", 0);
+        for (int i = 0; i < writerThreads; i++) {
+            writers.add(builder.start(this::drainLoop));
+        }
+        logger.info("Started {} {} reading writers (capacity={}, batchSize={}, flushInterval={}ms)",
+                    writerThreads, virtualThreads ? "virtual" : "platform", capacity, batchSize, flushIntervalMillis);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        long deadline = System.currentTimeMillis() + shutdownTimeoutMillis;
+        for (Thread writer : writers) {
+            writer.join(Math.max(1, deadline - System.currentTimeMillis()));
+        }
+        int remaining = getQueueDepth();
+        if (remaining > 0) {
+            logger.warn("Shutdown timed out with {} readings still queued", remaining);
+        } else {
+            logger.info("Reading writers drained and stopped");
+        }
+    }
+
+    /**
+     * Queues readings for persistence. Either all readings are queued or none are.
+     *
+     * @throws IngestBackpressureException if the queue cannot take the readings
+     */
+    public void enqueue(List<IncomingReading> readings) {
+        enqueue(readings, Duration.ZERO);
+    }
+
+    /**
+     * Queues readings for persistence, waiting up to {@code maxWait} for room.
+     * Used by streaming uploads, where blocking the upload is the natural
+     * backpressure.
+     *
+     * @throws IngestBackpressureException if no room became available in time
+     */
+    public void enqueue(List<IncomingReading> readings, Duration maxWait) {
+        enqueue(readings, null, maxWait);
+    }
+
+    /**
+     * Queues the readings of a request that carried an idempotency key,
+     * which is stored together with them.
+     *
+     * @throws IngestBackpressureException if the queue cannot take the readings
+     */
+    public void enqueue(List<IncomingReading> readings, IngestBatchKeyRepository.Key key) {
+        enqueue(readings, key, Duration.ZERO);
+    }
+
+    private void enqueue(List<IncomingReading> readings, IngestBatchKeyRepository.Key key, Duration maxWait) {
+        if (readings.isEmpty()) {
+            return;
+        }
+        if (!running) {
+            throw new IngestBackpressureException("Ingest pipeline is shutting down", 1);
+        }
+        if (readings.size() > capacity || !tryAcquire(readings.size(), maxWait)) {
+            rejectedCounter.increment(readings.size());
+            throw new IngestBackpressureException(
+                "Ingest queue is full. Try again in " + retryAfterSeconds() + " seconds",
+                retryAfterSeconds());
+        }
+        synchronized (unflushed) {
+            long sequence = ++lastSequence;
+            unflushed.add(sequence);
+            queue.add(new Chunk(readings, key, sequence));
+        }
+    }
+
+    /**
+     * Waits until every reading queued before the call has been written or
+     * dropped. Readings queued meanwhile are not waited for.
+     *
+     * @return false if the queue did not get that far within {@code timeout}
+     */
+    public boolean awaitFlushed(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (unflushed) {
+            long target = lastSequence;
+            Long oldest;
+            while ((oldest = unflushed.ceiling(Long.MIN_VALUE)) != null && oldest <= target) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(unflushed, remaining);
+            }
+            return true;
+        }
+    }
+
+    private boolean tryAcquire(int count, Duration maxWait) {
+        if (maxWait.isZero()) {
+            return permits.tryAcquire(count);
+        }
+        try {
+            return permits.tryAcquire(count, maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public int getQueueDepth() {
+        return capacity - permits.availablePermits();
+    }
+
+    private long retryAfterSeconds() {
+        return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(flushIntervalMillis));
+    }
+
+    private void drainLoop() {
+        List<Chunk> batch = new ArrayList<>();
+        int buffered = 0;
+        long flushDeadline = 0;
+        while (running || !queue.isEmpty()) {
+            long waitMillis = batch.isEmpty()
+                ? flushIntervalMillis
+                : Math.max(0, flushDeadline - System.currentTimeMillis());
+            Chunk chunk;
+            try {
+                chunk = queue.poll(waitMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (chunk != null) {
+                if (batch.isEmpty()) {
+                    flushDeadline = System.currentTimeMillis() + flushIntervalMillis;
+                }
+                batch.add(chunk);
+                buffered += chunk.readings().size();
+            }
+            if (buffered >= batchSize
+                    || (!batch.isEmpty() && System.currentTimeMillis() >= flushDeadline)
+                    || (!running && !batch.isEmpty())) {
+                flush(batch, buffered);
+                batch.clear();
+                buffered = 0;
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(batch, buffered);
+        }
+    }
+
+    private void flush(List<Chunk> batch, int size) {
+        flushSize.record(size);
+        try {
+            List<IncomingReading> readings = readingsOf(batch);
+            flushTimer.record(() -> persist(batch, readings));
+            writtenCounter.increment(size);
+            readingMetrics.recordWritten(readings);
+        } catch (RuntimeException e) {
+            // One bad gateway (e.g. deleted after its readings were queued) must not sink the rest
+            logger.warn("Flush of {} readings failed, retrying per gateway: {}", size, e.getMessage());
+            Map<UUID, List<Chunk>> byGateway = batch.stream().collect(Collectors.groupingBy(Chunk::gatewayId));
+            byGateway.forEach((gatewayId, chunks) -> {
+                List<IncomingReading> readings = readingsOf(chunks);
+                try {
+                    persist(chunks, readings);
+                    writtenCounter.increment(readings.size());
+                    readingMetrics.recordWritten(readings);
+                } catch (RuntimeException retryFailure) {
+                    logger.error("Dropping {} readings for gateway {}: {}",
+                                 readings.size(), gatewayId, retryFailure.getMessage());
+                    failedCounter.increment(readings.size());
+                    idempotency.release(keysOf(chunks));
+                }
+            });
+        } finally {
+            permits.release(size);
+            batch.forEach(chunk -> unflushed.remove(chunk.sequence()));
+            synchronized (unflushed) {
+                unflushed.notifyAll();
+            }
+        }
+    }
+
+    private static List<IncomingReading> readingsOf(List<Chunk> chunks) {
+        if (chunks.size() == 1) {
+            return chunks.get(0).readings();
+        }
+        List<IncomingReading> readings = new ArrayList<>();
+        chunks.forEach(chunk -> readings.addAll(chunk.readings()));
+        return readings;
+    }
+
+    private static List<IngestBatchKeyRepository.Key> keysOf(List<Chunk> chunks) {
+        return chunks.stream().map(Chunk::key).filter(Objects::nonNull).toList();
+    }
+
+    private void persist(List<Chunk> chunks, List<IncomingReading> readings) {
+        // New series are committed on their own, before and whether or not the batch commits
+        int[] seriesIds = seriesDictionary.idsOf(readings);
+        List<IngestBatchKeyRepository.Key> keys = keysOf(chunks);
+        transactionTemplate.executeWithoutResult(status -> {
+            bulkWriter.write(readings, seriesIds);
+            keyRepository.saveAll(keys, Instant.now());
+        });
+    }
+}
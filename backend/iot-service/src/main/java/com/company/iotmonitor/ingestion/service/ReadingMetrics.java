@@ -0,0 +1,153 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Meters for readings moving through the service: request sizes, query
+ * ranges and result sizes, compressed body sizes, and readings written per
+ * gateway.
+ *
+ * <p>Per-gateway counters are limited to {@code iot.metrics.gateway-tags.max}
+ * gateways at a time, first come first served; readings of any other gateway
+ * are counted under {@code gateway=other}. A gateway that writes nothing for
+ * {@code iot.metrics.gateway-tags.idle-expiry} gives up its counter, so
+ * deleted and retired gateways free their slot.
+ */
+@Component
+public class ReadingMetrics {
+    static final String OTHER_GATEWAYS = "other";
+
+    private final MeterRegistry meterRegistry;
+    private final long maxGatewayTags;
+    private final Counter otherGatewaysWritten;
+    private final Cache<UUID, Counter> gatewayWritten;
+
+    public ReadingMetrics(
+            MeterRegistry meterRegistry,
+            @Value("${iot.metrics.gateway-tags.max}") long maxGatewayTags,
+            @Value("${iot.metrics.gateway-tags.idle-expiry}") Duration idleExpiry) {
+        this.meterRegistry = meterRegistry;
+        this.maxGatewayTags = maxGatewayTags;
+        this.otherGatewaysWritten = gatewayWrittenCounter(OTHER_GATEWAYS);
+        this.gatewayWritten = Caffeine.newBuilder()
+            .expireAfterAccess(idleExpiry)
+            .<UUID, Counter>removalListener((gatewayId, counter, cause) -> {
+                if (counter != null && cause != RemovalCause.REPLACED) {
+                    meterRegistry.remove(counter);
+                }
+            })
+            .build();
+    }
+
+    /**
+     * Records how many readings one ingest request carried.
+     *
+     * @param endpoint {@code batch} or {@code stream}
+     */
+    public void recordRequestSize(String endpoint, int readings) {
+        DistributionSummary.builder("iot.ingest.request.size")
+            .description("Readings per ingest request")
+            .tag("endpoint", endpoint)
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry)
+            .record(readings);
+    }
+
+    /**
+     * Records the time range a query asked for and how many rows it returned.
+     *
+     * @param endpoint {@code export}, {@code page}, {@code aggregate} or {@code rollups}
+     */
+    public void recordQuery(String endpoint, Instant start, Instant end, long rows) {
+        DistributionSummary.builder("iot.query.range")
+            .description("Width of the requested time range")
+            .baseUnit("seconds")
+            .tag("endpoint", endpoint)
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry)
+            .record(Duration.between(start, end).toSeconds());
+        DistributionSummary.builder("iot.query.rows")
+            .description("Rows returned per query")
+            .tag("endpoint", endpoint)
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry)
+            .record(rows);
+    }
+
+    /**
+     * Records the wire and decompressed size of one compressed ingest body.
+     * Tagged by gateway model rather than gateway, which keeps the tag set
+     * small and is what bandwidth depends on.
+     *
+     * @param encoding {@code gzip} or {@code zstd}
+     */
+    public void recordCompressedBody(String encoding, String model, long compressedBytes, long decompressedBytes) {
+        Counter.builder("iot.ingest.body.compressed")
+            .description("Compressed ingest body bytes received")
+            .baseUnit("bytes")
+            .tag("encoding", encoding)
+            .tag("model", model)
+            .register(meterRegistry)
+            .increment(compressedBytes);
+        Counter.builder("iot.ingest.body.decompressed")
+            .description("Ingest body bytes after decompression")
+            .baseUnit("bytes")
+            .tag("encoding", encoding)
+            .tag("model", model)
+            .register(meterRegistry)
+            .increment(decompressedBytes);
+    }
+
+    /**
+     * Counts persisted readings by gateway. Readings of one gateway usually
+     * arrive together, so counters are looked up once per run, not per reading.
+     */
+    public void recordWritten(List<IncomingReading> readings) {
+        UUID current = null;
+        int count = 0;
+        for (IncomingReading reading : readings) {
+            if (!reading.gatewayId().equals(current)) {
+                if (count > 0) {
+                    writtenCounter(current).increment(count);
+                }
+                current = reading.gatewayId();
+                count = 0;
+            }
+            count++;
+        }
+        if (count > 0) {
+            writtenCounter(current).increment(count);
+        }
+    }
+
+    private Counter writtenCounter(UUID gatewayId) {
+        Counter counter = gatewayWritten.getIfPresent(gatewayId);
+        if (counter != null) {
+            return counter;
+        }
+        if (gatewayWritten.estimatedSize() >= maxGatewayTags) {
+            return otherGatewaysWritten;
+        }
+        return gatewayWritten.get(gatewayId, id -> gatewayWrittenCounter(id.toString()));
+    }
+
+    private Counter gatewayWrittenCounter(String gateway) {
+        return Counter.builder("iot.ingest.gateway.readings.written")
+            .description("Readings persisted, by gateway")
+            .tag("gateway", gateway)
+            .register(meterRegistry);
+    }
+}
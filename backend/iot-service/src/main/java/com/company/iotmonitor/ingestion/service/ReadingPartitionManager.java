@@ -0,0 +1,152 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.repository.ReadingChunkRepository;
+import com.company.iotmonitor.ingestion.repository.ReadingPartitionRepository;
+import com.company.iotmonitor.ingestion.repository.ReadingSketchRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+/**
+ * Keeps the time partitions of {@code readings} ahead of the clock and
+ * enforces retention.
+ *
+ * <p>With {@code iot.storage.partitioning.enabled=true} (PostgreSQL after
+ * the V10 migration), partitions are pre-created up to
+ * {@code iot.storage.partitioning.premake} ahead and expired ones are
+ * detached and dropped whole. Without partitioning (H2 in development) the
+ * same retention is enforced with batched row deletes.
+ */
+@Service
+public class ReadingPartitionManager {
+    private static final Logger logger = LoggerFactory.getLogger(ReadingPartitionManager.class);
+
+    public enum Period {
+        DAY, WEEK;
+
+        LocalDate startOf(LocalDate day) {
+            return this == DAY ? day : day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        }
+
+        LocalDate next(LocalDate start) {
+            return this == DAY ? start.plusDays(1) : start.plusWeeks(1);
+        }
+    }
+
+    private final ReadingPartitionRepository partitionRepository;
+    private final ReadingChunkRepository chunkRepository;
+    private final ReadingSketchRepository sketchRepository;
+    private final boolean partitioningEnabled;
+    private final Period period;
+    private final Duration premake;
+    private final boolean retentionEnabled;
+    private final Duration maxAge;
+    private final int deleteBatchSize;
+    private final Counter partitionsDropped;
+    private final Counter rowsDeleted;
+
+    public ReadingPartitionManager(
+            ReadingPartitionRepository partitionRepository,
+            ReadingChunkRepository chunkRepository,
+            ReadingSketchRepository sketchRepository,
+            MeterRegistry meterRegistry,
+            @Value("${iot.storage.partitioning.enabled}") boolean partitioningEnabled,
+            @Value("${iot.storage.partitioning.period}") Period period,
+            @Value("${iot.storage.partitioning.premake}") Duration premake,
+            @Value("${iot.retention.enabled}") boolean retentionEnabled,
+            @Value("${iot.retention.max-age}") Duration maxAge,
+            @Value("${iot.retention.delete-batch-size}") int deleteBatchSize) {
+        this.partitionRepository = partitionRepository;
+        this.chunkRepository = chunkRepository;
+        this.sketchRepository = sketchRepository;
+        this.partitioningEnabled = partitioningEnabled;
+        this.period = period;
+        this.premake = premake;
+        this.retentionEnabled = retentionEnabled;
+        this.maxAge = maxAge;
+        this.deleteBatchSize = deleteBatchSize;
+        this.partitionsDropped = Counter.builder("iot.retention.partitions.dropped")
+            .description("Expired readings partitions dropped")
+            .register(meterRegistry);
+        this.rowsDeleted = Counter.builder("iot.retention.rows.deleted")
+            .description("Expired readings removed by row deletes")
+            .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(fixedDelayString = "${iot.storage.maintenance.interval-ms}",
+               initialDelayString = "${iot.storage.maintenance.interval-ms}")
+    public void maintain() {
+        try {
+            if (partitioningEnabled) {
+                createUpcomingPartitions(Instant.now().plus(premake));
+            }
+            if (retentionEnabled) {
+                enforceRetention(Instant.now().minus(maxAge));
+            }
+        } catch (RuntimeException e) {
+            logger.error("Readings storage maintenance failed: {}", e.getMessage(), e);
+        }
+    }
+
+    void createUpcomingPartitions(Instant horizon) {
+        List<ReadingPartitionRepository.Partition> partitions = partitionRepository.findPartitions();
+        // Continue from the newest partition so ranges stay contiguous, even if the period changed
+        LocalDate start = partitions.isEmpty()
+            ? period.startOf(LocalDate.now(ZoneOffset.UTC))
+            : LocalDate.ofInstant(partitions.get(partitions.size() - 1).to(), ZoneOffset.UTC);
+        while (start.atStartOfDay(ZoneOffset.UTC).toInstant().isBefore(horizon)) {
+            LocalDate end = period.next(start);
+            String name = partitionRepository.createPartition(
+                start.atStartOfDay(ZoneOffset.UTC).toInstant(), end.atStartOfDay(ZoneOffset.UTC).toInstant());
+            logger.info("Created readings partition {} for [{}, {})", name, start, end);
+            start = end;
+        }
+    }
+
+    void enforceRetention(Instant cutoff) {
+        if (partitioningEnabled) {
+            for (ReadingPartitionRepository.Partition partition : partitionRepository.findPartitions()) {
+                if (!partition.to().isAfter(cutoff)) {
+                    partitionRepository.dropPartition(partition);
+                    partitionsDropped.increment();
+                    logger.info("Dropped readings partition {} [{}, {})",
+                                partition.name(), partition.from(), partition.to());
+                }
+            }
+        }
+        // Without partitions this is the retention mechanism; with them it only
+        // finds rows in the default partition or in the partition straddling the cutoff
+        long deleted = 0;
+        int batch;
+        do {
+            batch = partitionRepository.deleteOlderThan(cutoff, deleteBatchSize);
+            deleted += batch;
+        } while (batch == deleteBatchSize);
+        rowsDeleted.increment(deleted);
+        int chunks = chunkRepository.deleteOlderThan(cutoff);
+        int sketches = sketchRepository.deleteOlderThan(cutoff);
+        if (deleted > 0 || chunks > 0 || sketches > 0) {
+            logger.info("Retention removed {} readings, {} chunks and {} quantile sketches older than {}",
+                        deleted, chunks, sketches, cutoff);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import com.company.iotmonitor.ingestion.domain.ReadingAggregate;
+import com.company.iotmonitor.ingestion.domain.TimeBucket;
+import com.company.iotmonitor.ingestion.repository.ReadingRollupRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-minute and per-hour min/max/sum/count rollups for every
+ * (gateway, sensor, unit) series, maintained in memory as readings are
+ * accepted, so recent aggregates can be served without touching
+ * {@code readings}.
+ *
+ * <p>Each series owns its own {@link RollupRing}s and lock, so ingest threads
+ * only contend when they write to the same series. Closed buckets are written
+ * to {@code reading_rollups} periodically and reloaded on startup.
+ *
+ * <p>Rollups are fed on acceptance, not on write, so they answer without
+ * waiting for the write-behind queue. The rare reading the writer drops
+ * afterwards stays counted; see {@link ReadingAcceptedListener}.
+ */
+@Service
+public class ReadingRollupEngine implements ReadingAcceptedListener {
+    private static final Logger logger = LoggerFactory.getLogger(ReadingRollupEngine.class);
+
+    record SeriesKey(UUID gatewayId, String sensorLabel, String unit) {
+    }
+
+    static final class SeriesRollup {
+        final SeriesKey key;
+        final RollupRing minutes;
+        final RollupRing hours;
+
+        SeriesRollup(SeriesKey key, int minuteSlots, int hourSlots) {
+            this.key = key;
+            this.minutes = new RollupRing(TimeBucket.ONE_MINUTE.getSeconds(), minuteSlots);
+            this.hours = new RollupRing(TimeBucket.ONE_HOUR.getSeconds(), hourSlots);
+        }
+
+        RollupRing ring(TimeBucket resolution) {
+            return resolution == TimeBucket.ONE_MINUTE ? minutes : hours;
+        }
+    }
+
+    private final ReadingRollupRepository rollupRepository;
+    private final Map<UUID, Map<SeriesKey, SeriesRollup>> seriesByGateway = new ConcurrentHashMap<>();
+    private final Duration minuteRetention;
+    private final Duration hourRetention;
+    private final Duration closeGrace;
+    private final Duration maxClockSkew;
+    private final int minuteSlots;
+    private final int hourSlots;
+
+    public ReadingRollupEngine(
+            ReadingRollupRepository rollupRepository,
+            MeterRegistry meterRegistry,
+            @Value("${iot.rollup.minute.retention}") Duration minuteRetention,
+            @Value("${iot.rollup.hour.retention}") Duration hourRetention,
+            @Value("${iot.rollup.close-grace}") Duration closeGrace,
+            @Value("${iot.rollup.max-clock-skew}") Duration maxClockSkew) {
+        this.rollupRepository = rollupRepository;
+        this.minuteRetention = minuteRetention;
+        this.hourRetention = hourRetention;
+        this.closeGrace = closeGrace;
+        this.maxClockSkew = maxClockSkew;
+        this.minuteSlots = (int) (minuteRetention.getSeconds() / TimeBucket.ONE_MINUTE.getSeconds());
+        this.hourSlots = (int) (hourRetention.getSeconds() / TimeBucket.ONE_HOUR.getSeconds());
+        Gauge.builder("iot.rollup.series", this, ReadingRollupEngine::seriesCount)
+            .description("Series tracked by the in-memory rollup engine")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void onAccepted(UUID gatewayId, List<IncomingReading> readings) {
+        long latestAllowed = Instant.now().plus(maxClockSkew).getEpochSecond();
+        SeriesRollup current = null;
+        for (IncomingReading reading : readings) {
+            long epochSecond = reading.timestamp().getEpochSecond();
+            if (epochSecond > latestAllowed) {
+                // A gateway with a wrong clock would otherwise evict live buckets
+                continue;
+            }
+            if (current == null
+                    || !current.key.sensorLabel().equals(reading.sensorLabel())
+                    || !current.key.unit().equals(reading.unit())) {
+                current = seriesFor(new SeriesKey(gatewayId, reading.sensorLabel(), reading.unit()));
+            }
+            synchronized (current) {
+                current.minutes.add(epochSecond, reading.readingValue());
+                current.hours.add(epochSecond, reading.readingValue());
+            }
+        }
+    }
+
+    /**
+     * Returns buckets overlapping {@code [start, end]} for one gateway, ordered
+     * by sensor and bucket. Only {@link TimeBucket#ONE_MINUTE} and
+     * {@link TimeBucket#ONE_HOUR} are maintained.
+     */
+    public List<ReadingAggregate> query(UUID gatewayId, String sensorLabel, TimeBucket resolution,
+                                        Instant start, Instant end) {
+        if (resolution != TimeBucket.ONE_MINUTE && resolution != TimeBucket.ONE_HOUR) {
+            throw new IllegalArgumentException("Rollups are kept at 1m and 1h resolution only");
+        }
+        List<ReadingAggregate> results = new ArrayList<>();
+        seriesByGateway.getOrDefault(gatewayId, Map.of()).values().stream()
+            .filter(s -> sensorLabel == null || s.key.sensorLabel().equals(sensorLabel))
+            .sorted(Comparator.comparing((SeriesRollup s) -> s.key.sensorLabel()).thenComparing(s -> s.key.unit()))
+            .forEach(s -> {
+                synchronized (s) {
+                    s.ring(resolution).forEachInRange(start.getEpochSecond(), end.getEpochSecond(),
+                        (bucketStart, min, max, sum, count) -> results.add(new ReadingAggregate(
+                            Instant.ofEpochSecond(bucketStart), s.key.sensorLabel(), s.key.unit(),
+                            min, max, sum / count, count, sum, null, null)));
+                }
+            });
+        return results;
+    }
+
+    /**
+     * Forgets all series of a gateway, in memory and persisted.
+     */
+    @Override
+    public void onGatewayRemoved(UUID gatewayId) {
+        seriesByGateway.remove(gatewayId);
+        rollupRepository.deleteByGateway(gatewayId);
+    }
+
+    @Scheduled(fixedDelayString = "${iot.rollup.flush.interval-ms}", initialDelayString = "${iot.rollup.flush.interval-ms}")
+    public void persistClosedBuckets() {
+        Instant closedBefore = Instant.now().minus(closeGrace);
+        List<ReadingRollupRepository.Row> rows = new ArrayList<>();
+        for (SeriesRollup s : allSeries()) {
+            synchronized (s) {
+                drain(s, TimeBucket.ONE_MINUTE, closedBefore, rows);
+                drain(s, TimeBucket.ONE_HOUR, closedBefore, rows);
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            rollupRepository.saveAll(rows);
+            logger.debug("persistClosedBuckets: {} buckets written", rows.size());
+        } catch (RuntimeException e) {
+            logger.warn("Persisting {} rollup buckets failed, will retry: {}", rows.size(), e.getMessage());
+            for (ReadingRollupRepository.Row row : rows) {
+                SeriesRollup s = seriesByGateway.getOrDefault(row.gatewayId(), Map.of())
+                    .get(new SeriesKey(row.gatewayId(), row.sensorLabel(), row.unit()));
+                if (s != null) {
+                    synchronized (s) {
+                        s.ring(row.resolutionSeconds() == TimeBucket.ONE_MINUTE.getSeconds()
+                            ? TimeBucket.ONE_MINUTE : TimeBucket.ONE_HOUR).markDirty(row.bucketStart().getEpochSecond());
+                    }
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    void persistOnShutdown() {
+        // Buckets still open at shutdown are persisted too; they are upserted again once closed
+        List<ReadingRollupRepository.Row> rows = new ArrayList<>();
+        for (SeriesRollup s : allSeries()) {
+            synchronized (s) {
+                drain(s, TimeBucket.ONE_MINUTE, Instant.MAX, rows);
+                drain(s, TimeBucket.ONE_HOUR, Instant.MAX, rows);
+            }
+        }
+        if (!rows.isEmpty()) {
+            try {
+                rollupRepository.saveAll(rows);
+            } catch (RuntimeException e) {
+                logger.warn("Persisting {} rollup buckets on shutdown failed: {}", rows.size(), e.getMessage());
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void restore() {
+        Instant now = Instant.now();
+        restore(TimeBucket.ONE_MINUTE, now.minus(minuteRetention));
+        restore(TimeBucket.ONE_HOUR, now.minus(hourRetention));
+        logger.info("Rollup engine restored {} series", seriesCount());
+    }
+
+    private void restore(TimeBucket resolution, Instant since) {
+        rollupRepository.forEachSince((int) resolution.getSeconds(), since, row -> {
+            SeriesRollup s = seriesFor(new SeriesKey(row.gatewayId(), row.sensorLabel(), row.unit()));
+            synchronized (s) {
+                s.ring(resolution).restore(row.bucketStart().getEpochSecond(),
+                                           row.min(), row.max(), row.sum(), row.count());
+            }
+        });
+    }
+
+    private void drain(SeriesRollup s, TimeBucket resolution, Instant closedBefore,
+                       List<ReadingRollupRepository.Row> rows) {
+        long closedBeforeSecond = closedBefore == Instant.MAX ? Long.MAX_VALUE : closedBefore.getEpochSecond();
+        s.ring(resolution).drainClosed(closedBeforeSecond, (bucketStart, min, max, sum, count) ->
+            rows.add(new ReadingRollupRepository.Row(s.key.gatewayId(), s.key.sensorLabel(), s.key.unit(),
+                (int) resolution.getSeconds(), Instant.ofEpochSecond(bucketStart), min, max, sum, count)));
+    }
+
+    private SeriesRollup seriesFor(SeriesKey key) {
+        return seriesByGateway.computeIfAbsent(key.gatewayId(), id -> new ConcurrentHashMap<>())
+            .computeIfAbsent(key, k -> new SeriesRollup(k, minuteSlots, hourSlots));
+    }
+
+    private Iterable<SeriesRollup> allSeries() {
+        return () -> seriesByGateway.values().stream().flatMap(m -> m.values().stream()).iterator();
+    }
+
+    private int seriesCount() {
+        return seriesByGateway.values().stream().mapToInt(Map::size).sum();
+    }
+}
@@ -0,0 +1,331 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import com.company.iotmonitor.ingestion.domain.ReadingQuantiles;
+import com.company.iotmonitor.ingestion.domain.TimeBucket;
+import com.company.iotmonitor.ingestion.repository.ReadingSketchRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Hourly {@link QuantileSketch}es for every (gateway, sensor, unit) series,
+ * maintained as readings are accepted, so percentiles over days and
+ * thousands of series are answered without reading {@code readings}.
+ *
+ * <p>Like {@link ReadingRollupEngine}, each series owns a {@link SketchRing}
+ * and lock, closed buckets are written to {@code reading_sketches}
+ * periodically, and recent ones are reloaded on startup. Queries merge the
+ * buckets held in memory and, for the part of the window older than
+ * {@code iot.sketch.retention}, the stored ones; the merge runs on a
+ * fork-join pool that splits the series and buckets across its workers and
+ * combines their partial sketches pairwise.
+ */
+@Service
+public class ReadingSketchEngine implements ReadingAcceptedListener {
+    private static final Logger logger = LoggerFactory.getLogger(ReadingSketchEngine.class);
+    private static final long BUCKET_SECONDS = TimeBucket.ONE_HOUR.getSeconds();
+    /** Sources one fork-join task merges itself instead of splitting further. */
+    private static final int MERGE_LEAF_SIZE = 32;
+
+    record SeriesKey(UUID gatewayId, String sensorLabel, String unit) {
+    }
+
+    /** What a query merges into one result: a unit per gateway, or a unit across gateways. */
+    private record GroupKey(UUID gatewayId, String unit) {
+    }
+
+    private static final class SeriesSketches {
+        final SeriesKey key;
+        final SketchRing hours;
+
+        SeriesSketches(SeriesKey key, int slots) {
+            this.key = key;
+            this.hours = new SketchRing(BUCKET_SECONDS, slots);
+        }
+    }
+
+    private final ReadingSketchRepository sketchRepository;
+    private final Map<UUID, Map<SeriesKey, SeriesSketches>> seriesByGateway = new ConcurrentHashMap<>();
+    private final Duration closeGrace;
+    private final Duration maxClockSkew;
+    private final int slots;
+    private final ForkJoinPool mergePool;
+
+    public ReadingSketchEngine(
+            ReadingSketchRepository sketchRepository,
+            MeterRegistry meterRegistry,
+            @Value("${iot.sketch.retention}") Duration retention,
+            @Value("${iot.sketch.close-grace}") Duration closeGrace,
+            @Value("${iot.sketch.max-clock-skew}") Duration maxClockSkew,
+            @Value("${iot.sketch.query.parallelism}") int parallelism) {
+        this.sketchRepository = sketchRepository;
+        this.closeGrace = closeGrace;
+        this.maxClockSkew = maxClockSkew;
+        this.slots = (int) (retention.getSeconds() / BUCKET_SECONDS);
+        if (slots < 2) {
+            throw new IllegalArgumentException("iot.sketch.retention must be at least 2h");
+        }
+        this.mergePool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        Gauge.builder("iot.sketch.series", this, ReadingSketchEngine::seriesCount)
+            .description("Series with quantile sketches in memory")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void onAccepted(UUID gatewayId, List<IncomingReading> readings) {
+        long latestAllowed = Instant.now().plus(maxClockSkew).getEpochSecond();
+        SeriesSketches current = null;
+        for (IncomingReading reading : readings) {
+            long epochSecond = reading.timestamp().getEpochSecond();
+            if (epochSecond > latestAllowed) {
+                // A gateway with a wrong clock would otherwise evict live buckets
+                continue;
+            }
+            if (current == null
+                    || !current.key.sensorLabel().equals(reading.sensorLabel())
+                    || !current.key.unit().equals(reading.unit())) {
+                current = seriesFor(new SeriesKey(gatewayId, reading.sensorLabel(), reading.unit()));
+            }
+            synchronized (current) {
+                current.hours.add(epochSecond, reading.readingValue());
+            }
+        }
+    }
+
+    /**
+     * Estimates quantiles of one sensor label over the hours overlapping
+     * {@code [start, end]}, one result per unit, either per gateway or merged
+     * across gateways.
+     *
+     * @param gatewayIds only these gateways, or every gateway when null or empty
+     */
+    public List<ReadingQuantiles> quantiles(String sensorLabel, Collection<UUID> gatewayIds, boolean perGateway,
+                                            Instant start, Instant end, List<Double> quantiles) {
+        Set<UUID> gateways = gatewayIds == null || gatewayIds.isEmpty() ? null : Set.copyOf(gatewayIds);
+        long from = floorBucket(start.getEpochSecond());
+        long to = floorBucket(end.getEpochSecond());
+        // One slot short of the ring, so a bucket a skewed clock opened early can't have evicted the oldest
+        long memoryFrom = floorBucket(Instant.now().getEpochSecond()) - (slots - 2) * BUCKET_SECONDS;
+
+        List<Source> sources = new ArrayList<>();
+        if (to >= memoryFrom) {
+            long firstInMemory = Math.max(from, memoryFrom);
+            Collection<Map<SeriesKey, SeriesSketches>> selected = gateways == null
+                ? seriesByGateway.values()
+                : gateways.stream().map(seriesByGateway::get).filter(m -> m != null).toList();
+            for (Map<SeriesKey, SeriesSketches> series : selected) {
+                for (SeriesSketches s : series.values()) {
+                    if (s.key.sensorLabel().equals(sensorLabel)) {
+                        sources.add(new HeldSource(groupOf(s.key.gatewayId(), s.key.unit(), perGateway),
+                                                   s, firstInMemory, to));
+                    }
+                }
+            }
+        }
+        if (from < memoryFrom) {
+            sketchRepository.forEachInRange(sensorLabel, Instant.ofEpochSecond(from),
+                Instant.ofEpochSecond(Math.min(to + BUCKET_SECONDS, memoryFrom)), row -> {
+                    if (gateways == null || gateways.contains(row.gatewayId())) {
+                        sources.add(new StoredSource(groupOf(row.gatewayId(), row.unit(), perGateway), row.sketch()));
+                    }
+                });
+        }
+        Map<GroupKey, QuantileSketch> merged = sources.isEmpty()
+            ? Map.of()
+            : mergePool.invoke(new MergeTask(sources, 0, sources.size()));
+
+        Instant coveredStart = Instant.ofEpochSecond(from);
+        Instant coveredEnd = Instant.ofEpochSecond(to + BUCKET_SECONDS);
+        return merged.entrySet().stream()
+            .filter(e -> e.getValue().count() > 0)
+            .sorted(Map.Entry.comparingByKey(Comparator
+                .comparing(GroupKey::gatewayId, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(GroupKey::unit)))
+            .map(e -> {
+                QuantileSketch sketch = e.getValue();
+                return new ReadingQuantiles(e.getKey().gatewayId(), sensorLabel, e.getKey().unit(),
+                    coveredStart, coveredEnd, sketch.count(), sketch.min(), sketch.max(),
+                    quantiles.stream().map(q -> new ReadingQuantiles.Quantile(q, sketch.quantile(q))).toList(),
+                    QuantileSketch.RELATIVE_ACCURACY);
+            })
+            .toList();
+    }
+
+    /**
+     * Forgets all series of a gateway, in memory and persisted.
+     */
+    @Override
+    public void onGatewayRemoved(UUID gatewayId) {
+        seriesByGateway.remove(gatewayId);
+        sketchRepository.deleteByGateway(gatewayId);
+    }
+
+    @Scheduled(fixedDelayString = "${iot.sketch.flush.interval-ms}", initialDelayString = "${iot.sketch.flush.interval-ms}")
+    public void persistClosedBuckets() {
+        List<ReadingSketchRepository.Row> rows = drainAll(Instant.now().minus(closeGrace).getEpochSecond());
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            sketchRepository.saveAll(rows);
+            logger.debug("persistClosedBuckets: {} sketches written", rows.size());
+        } catch (RuntimeException e) {
+            logger.warn("Persisting {} quantile sketches failed, will retry: {}", rows.size(), e.getMessage());
+            for (ReadingSketchRepository.Row row : rows) {
+                SeriesSketches s = seriesByGateway.getOrDefault(row.gatewayId(), Map.of())
+                    .get(new SeriesKey(row.gatewayId(), row.sensorLabel(), row.unit()));
+                if (s != null) {
+                    synchronized (s) {
+                        s.hours.markDirty(row.bucketStart().getEpochSecond());
+                    }
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    void persistOnShutdown() {
+        mergePool.shutdownNow();
+        // Buckets still open at shutdown are persisted too; they are upserted again once closed
+        List<ReadingSketchRepository.Row> rows = drainAll(Long.MAX_VALUE);
+        if (!rows.isEmpty()) {
+            try {
+                sketchRepository.saveAll(rows);
+            } catch (RuntimeException e) {
+                logger.warn("Persisting {} quantile sketches on shutdown failed: {}", rows.size(), e.getMessage());
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void restore() {
+        long since = floorBucket(Instant.now().getEpochSecond()) - (slots - 1) * BUCKET_SECONDS;
+        sketchRepository.forEachSince(Instant.ofEpochSecond(since), row -> {
+            SeriesSketches s = seriesFor(new SeriesKey(row.gatewayId(), row.sensorLabel(), row.unit()));
+            QuantileSketch sketch = QuantileSketch.decode(row.sketch());
+            synchronized (s) {
+                s.hours.restore(row.bucketStart().getEpochSecond(), sketch);
+            }
+        });
+        logger.info("Sketch engine restored {} series", seriesCount());
+    }
+
+    private List<ReadingSketchRepository.Row> drainAll(long closedBefore) {
+        List<ReadingSketchRepository.Row> rows = new ArrayList<>();
+        for (SeriesSketches s : allSeries()) {
+            synchronized (s) {
+                s.hours.drainClosed(closedBefore, (bucketStart, sketch) ->
+                    rows.add(new ReadingSketchRepository.Row(s.key.gatewayId(), s.key.sensorLabel(), s.key.unit(),
+                        Instant.ofEpochSecond(bucketStart), sketch.count(), sketch.encode())));
+            }
+        }
+        return rows;
+    }
+
+    private static GroupKey groupOf(UUID gatewayId, String unit, boolean perGateway) {
+        return new GroupKey(perGateway ? gatewayId : null, unit);
+    }
+
+    private static long floorBucket(long epochSecond) {
+        return epochSecond - Math.floorMod(epochSecond, BUCKET_SECONDS);
+    }
+
+    private SeriesSketches seriesFor(SeriesKey key) {
+        return seriesByGateway.computeIfAbsent(key.gatewayId(), id -> new ConcurrentHashMap<>())
+            .computeIfAbsent(key, k -> new SeriesSketches(k, slots));
+    }
+
+    private Iterable<SeriesSketches> allSeries() {
+        return () -> seriesByGateway.values().stream().flatMap(m -> m.values().stream()).iterator();
+    }
+
+    private int seriesCount() {
+        return seriesByGateway.values().stream().mapToInt(Map::size).sum();
+    }
+
+    /** Buckets a query merges into one of its groups. */
+    private interface Source {
+        GroupKey group();
+
+        void mergeInto(QuantileSketch target);
+    }
+
+    /** The buckets of one in-memory series starting in {@code [from, to]}. */
+    private record HeldSource(GroupKey group, SeriesSketches series, long from, long to) implements Source {
+        @Override
+        public void mergeInto(QuantileSketch target) {
+            synchronized (series) {
+                series.hours.mergeInto(from, to, target);
+            }
+        }
+    }
+
+    /** One stored bucket, decoded by the worker that merges it. */
+    private record StoredSource(GroupKey group, byte[] sketch) implements Source {
+        @Override
+        public void mergeInto(QuantileSketch target) {
+            target.merge(QuantileSketch.decode(sketch));
+        }
+    }
+
+    /**
+     * Merges a range of sources into one sketch per group: small ranges
+     * directly, larger ones by forking the lower half and merging the
+     * halves' results.
+     */
+    private static final class MergeTask extends RecursiveTask<Map<GroupKey, QuantileSketch>> {
+        private final List<Source> sources;
+        private final int from;
+        private final int to;
+
+        MergeTask(List<Source> sources, int from, int to) {
+            this.sources = sources;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<GroupKey, QuantileSketch> compute() {
+            if (to - from <= MERGE_LEAF_SIZE) {
+                Map<GroupKey, QuantileSketch> merged = new HashMap<>();
+                for (int i = from; i < to; i++) {
+                    Source source = sources.get(i);
+                    source.mergeInto(merged.computeIfAbsent(source.group(), group -> new QuantileSketch()));
+                }
+                return merged;
+            }
+            int middle = (from + to) >>> 1;
+            MergeTask lower = new MergeTask(sources, from, middle);
+            lower.fork();
+            Map<GroupKey, QuantileSketch> upper = new MergeTask(sources, middle, to).compute();
+            Map<GroupKey, QuantileSketch> merged = lower.join();
+            upper.forEach((group, sketch) -> merged.merge(group, sketch, (a, b) -> {
+                a.merge(b);
+                return a;
+            }));
+            return merged;
+        }
+    }
+}
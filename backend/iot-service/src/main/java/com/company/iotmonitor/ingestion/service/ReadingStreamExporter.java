@@ -0,0 +1,84 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.ReadingView;
+import com.company.iotmonitor.ingestion.repository.ReadingQueryRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Writes every reading in a time range to a response body as it is read
+ * from the database, either as one JSON array or as newline-delimited JSON.
+ * Memory use is bounded by the JDBC fetch size, not by the range.
+ */
+@Service
+public class ReadingStreamExporter {
+    private static final Logger logger = LoggerFactory.getLogger(ReadingStreamExporter.class);
+
+    private final GatewayRegistry gatewayRegistry;
+    private final ReadingQueryRepository queryRepository;
+    private final ObjectMapper objectMapper;
+
+    public ReadingStreamExporter(
+            GatewayRegistry gatewayRegistry,
+            ReadingQueryRepository queryRepository,
+            ObjectMapper objectMapper) {
+        this.gatewayRegistry = gatewayRegistry;
+        this.queryRepository = queryRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Streams the range to {@code out}. An unknown gateway is rejected before
+     * anything is written, so the caller can still send an error response.
+     */
+    public long export(UUID gatewayId, Instant start, Instant end, boolean ndjson, OutputStream out)
+            throws IOException {
+        if (!gatewayRegistry.exists(gatewayId)) {
+            throw new IllegalArgumentException("Gateway not found with ID: " + gatewayId);
+        }
+        long[] written = {0};
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            if (ndjson) {
+                generator.setRootValueSeparator(null);
+            } else {
+                generator.writeStartArray();
+            }
+            try {
+                queryRepository.stream(gatewayId, start, end, reading -> {
+                    try {
+                        write(generator, reading, ndjson);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    written[0]++;
+                });
+            } catch (UncheckedIOException e) {
+                // Usually the client went away; no connection is held between fetches
+                logger.info("Streaming readings for gateway {} aborted after {} rows: {}",
+                            gatewayId, written[0], e.getCause().getMessage());
+                throw e.getCause();
+            }
+            if (!ndjson) {
+                generator.writeEndArray();
+            }
+        }
+        logger.debug("export: gatewayId={}, rows={}", gatewayId, written[0]);
+        return written[0];
+    }
+
+    private void write(JsonGenerator generator, ReadingView reading, boolean ndjson) throws IOException {
+        generator.writeObject(reading);
+        if (ndjson) {
+            generator.writeRaw('\n');
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import com.company.iotmonitor.ingestion.exception.IngestBackpressureException;
+import com.company.iotmonitor.ingestion.exception.RateLimitException;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.IntConsumer;
+
+/**
+ * Ingests an upload of arbitrary length for one gateway without materializing
+ * it. Accepts either newline-delimited JSON objects or a single JSON array of
+ * objects, each shaped like the {@code data} element of a batch request.
+ * Timestamps go through the same Jackson deserializer as the batch request,
+ * so a number is epoch seconds, with an optional fraction, on both endpoints.
+ *
+ * <p>The body is read token by token and handed to
+ * {@link GatewayService#recordBatchReadings(UUID, List, Duration)} in
+ * fixed-size chunks, so memory use is bounded by the chunk size and the
+ * write-behind queue, not by the upload size.
+ */
+@Service
+public class ReadingStreamIngestor {
+    private static final Logger logger = LoggerFactory.getLogger(ReadingStreamIngestor.class);
+    private static final Set<String> READING_FIELDS = Set.of("timestamp", "sensor", "unit", "reading");
+
+    /** How an upload ended. */
+    public enum Outcome {
+        /** The whole body was read and queued. */
+        COMPLETED,
+        /** The body could not be parsed past some point. */
+        MALFORMED,
+        /** The gateway stopped accepting readings, e.g. because it is being deleted. */
+        GATEWAY_REMOVED,
+        /** The ingest queue stayed full for the enqueue timeout. */
+        QUEUE_FULL,
+        /** The next chunk was refused by the {@code beforeChunk} charge, i.e. the gateway's rate limit. */
+        RATE_LIMITED
+    }
+
+    @Schema(description = "Outcome of a streaming upload")
+    public record Result(
+            @Schema(description = "Readings queued for persistence; an interrupted upload resumes after these")
+            long accepted,
+            @Schema(description = "Readings skipped because they were incomplete or invalid") long rejected,
+            @Schema(description = "Set when the upload was not consumed to the end") String error,
+            @Schema(description = "Seconds to wait before resuming, when the upload was refused by the rate limit "
+                                + "or for lack of capacity")
+            @JsonInclude(JsonInclude.Include.NON_NULL)
+            Long retryAfter,
+            @JsonIgnore
+            Outcome outcome) {
+    }
+
+    private final GatewayService gatewayService;
+    private final GatewayRegistry gatewayRegistry;
+    private final JsonFactory jsonFactory;
+    private final ObjectReader timestampReader;
+    private final int chunkSize;
+    private final Duration enqueueTimeout;
+
+    public ReadingStreamIngestor(
+            GatewayService gatewayService,
+            GatewayRegistry gatewayRegistry,
+            ObjectMapper objectMapper,
+            @Value("${iot.ingest.stream.chunk-size}") int chunkSize,
+            @Value("${iot.ingest.stream.enqueue-timeout}") Duration enqueueTimeout) {
+        this.gatewayService = gatewayService;
+        this.gatewayRegistry = gatewayRegistry;
+        this.jsonFactory = objectMapper.getFactory();
+        this.timestampReader = objectMapper.readerFor(Instant.class);
+        this.chunkSize = chunkSize;
+        this.enqueueTimeout = enqueueTimeout;
+    }
+
+    /**
+     * Consumes the whole body. An upload can end early: on a syntax error,
+     * when the gateway is removed, when the queue stays full, or when the
+     * rate limit refuses a chunk. Readings queued before that point stay
+     * queued and are counted in the result, so the client can resume after
+     * them.
+     *
+     * @param beforeChunk called with the size of each chunk before it is
+     *                    queued, e.g. to charge a rate limit; a
+     *                    {@link RateLimitException} thrown here ends the
+     *                    upload as {@link Outcome#RATE_LIMITED}
+     */
+    public Result ingest(UUID gatewayId, InputStream body, IntConsumer beforeChunk) throws IOException {
+        if (!gatewayRegistry.exists(gatewayId)) {
+            throw new IllegalArgumentException("Gateway not found with ID: " + gatewayId);
+        }
+        Upload upload = new Upload(gatewayId, beforeChunk);
+        try {
+            String parseError = upload.read(body);
+            if (parseError != null) {
+                logger.info("Streaming upload for gateway {} stopped after {} readings: {}",
+                            gatewayId, upload.accepted + upload.rejected, parseError);
+                return upload.result(parseError, null, Outcome.MALFORMED);
+            }
+        } catch (RateLimitException e) {
+            logger.info("Streaming upload for gateway {} stopped after {} accepted readings: {}",
+                        gatewayId, upload.accepted, e.getMessage());
+            return upload.result(e.getMessage(), e.getRetryAfter(), Outcome.RATE_LIMITED);
+        } catch (IngestBackpressureException e) {
+            logger.warn("Streaming upload for gateway {} stopped after {} accepted readings: {}",
+                        gatewayId, upload.accepted, e.getMessage());
+            return upload.result(e.getMessage(), e.getRetryAfter(), Outcome.QUEUE_FULL);
+        } catch (IllegalArgumentException e) {
+            logger.info("Streaming upload for gateway {} stopped after {} accepted readings: {}",
+                        gatewayId, upload.accepted, e.getMessage());
+            return upload.result(e.getMessage(), null, Outcome.GATEWAY_REMOVED);
+        }
+        logger.info("Streaming upload for gateway {}: accepted={}, rejected={}",
+                    gatewayId, upload.accepted, upload.rejected);
+        return upload.result(null, null, Outcome.COMPLETED);
+    }
+
+    /** State of one upload, kept outside the parse so counts survive an enqueue failure. */
+    private final class Upload {
+        private final UUID gatewayId;
+        private final IntConsumer beforeChunk;
+        private List<IncomingReading> chunk = new ArrayList<>(chunkSize);
+        private long accepted;
+        private long rejected;
+
+        Upload(UUID gatewayId, IntConsumer beforeChunk) {
+            this.gatewayId = gatewayId;
+            this.beforeChunk = beforeChunk;
+        }
+
+        /**
+         * Parses and queues the body. Returns the syntax error that ended it
+         * early, after queuing the readings before it, or null.
+         */
+        String read(InputStream body) throws IOException {
+            try (JsonParser parser = jsonFactory.createParser(body)) {
+                JsonToken token = parser.nextToken();
+                boolean array = token == JsonToken.START_ARRAY;
+                if (array) {
+                    token = parser.nextToken();
+                }
+                while (token != null && token != JsonToken.END_ARRAY) {
+                    if (token != JsonToken.START_OBJECT) {
+                        throw new JsonParseException(parser, "Expected a reading object but found " + token);
+                    }
+                    IncomingReading reading = readObject(gatewayId, parser);
+                    if (reading == null) {
+                        rejected++;
+                    } else {
+                        chunk.add(reading);
+                        if (chunk.size() == chunkSize) {
+                            flush();
+                        }
+                    }
+                    token = parser.nextToken();
+                }
+            } catch (JsonProcessingException e) {
+                flush();
+                return e.getOriginalMessage();
+            }
+            flush();
+            return null;
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            beforeChunk.accept(chunk.size());
+            gatewayService.recordBatchReadings(gatewayId, chunk, enqueueTimeout);
+            accepted += chunk.size();
+            chunk = new ArrayList<>(chunkSize);
+        }
+
+        Result result(String error, Long retryAfter, Outcome outcome) {
+            return new Result(accepted, rejected, error, retryAfter, outcome);
+        }
+    }
+
+    /**
+     * Reads one object, leaving the parser on its END_OBJECT. Returns null if
+     * the object is not a storable reading.
+     */
+    private IncomingReading readObject(UUID gatewayId, JsonParser parser) throws IOException {
+        Instant timestamp = null;
+        String sensor = null;
+        String unit = null;
+        Double value = null;
+        boolean valid = true;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken valueToken = parser.nextToken();
+            if (valueToken.isStructStart()) {
+                parser.skipChildren();
+                valid &= !READING_FIELDS.contains(field);
+                continue;
+            }
+            switch (field) {
+                case "timestamp" -> {
+                    if (valueToken.isNumeric() || valueToken == JsonToken.VALUE_STRING) {
+                        try {
+                            timestamp = timestampReader.readValue(parser);
+                        } catch (JsonMappingException e) {
+                            valid = false;
+                        }
+                    } else if (valueToken != JsonToken.VALUE_NULL) {
+                        valid = false;
+                    }
+                }
+                case "sensor" -> sensor = valueToken == JsonToken.VALUE_STRING ? parser.getText() : null;
+                case "unit" -> unit = valueToken == JsonToken.VALUE_STRING ? parser.getText() : null;
+                case "reading" -> value = valueToken.isNumeric() ? parser.getDoubleValue() : null;
+                default -> {
+                    // Unknown scalar fields are ignored
+                }
+            }
+        }
+        if (!valid) {
+            return null;
+        }
+        try {
+            return IncomingReading.of(gatewayId, timestamp, sensor, unit, value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
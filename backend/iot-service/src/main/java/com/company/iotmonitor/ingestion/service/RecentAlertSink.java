@@ -0,0 +1,48 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.Alert;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Keeps the last {@code iot.alerts.recent.max-size} alerts in memory, for the
+ * alerts endpoint and for tests.
+ */
+@Component
+public class RecentAlertSink implements AlertSink {
+    private final ArrayDeque<Alert> alerts = new ArrayDeque<>();
+    private final int maxSize;
+
+    public RecentAlertSink(@Value("${iot.alerts.recent.max-size}") int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public synchronized void publish(Alert alert) {
+        if (alerts.size() == maxSize) {
+            alerts.pollFirst();
+        }
+        alerts.addLast(alert);
+    }
+
+    /**
+     * Up to {@code limit} most recent alerts, newest first, optionally only
+     * those of one gateway.
+     */
+    public synchronized List<Alert> recent(UUID gatewayId, int limit) {
+        List<Alert> result = new ArrayList<>(Math.min(limit, alerts.size()));
+        for (Iterator<Alert> it = alerts.descendingIterator(); it.hasNext() && result.size() < limit; ) {
+            Alert alert = it.next();
+            if (gatewayId == null || gatewayId.equals(alert.gatewayId())) {
+                result.add(alert);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,130 @@
+package com.company.iotmonitor.ingestion.service;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size ring of min/max/sum/count buckets for one series at one
+ * resolution, held in parallel primitive arrays. A bucket's slot is reused
+ * once the ring wraps, which is what bounds retention.
+ *
+ * <p>Not thread-safe; callers serialize access per series.
+ */
+final class RollupRing {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    @FunctionalInterface
+    interface BucketVisitor {
+        void visit(long bucketStart, double min, double max, double sum, long count);
+    }
+
+    private final long widthSeconds;
+    private final int slots;
+    private final long[] bucketStart;
+    private final double[] min;
+    private final double[] max;
+    private final double[] sum;
+    private final long[] count;
+    private final boolean[] dirty;
+    private long newestStart = EMPTY;
+
+    RollupRing(long widthSeconds, int slots) {
+        this.widthSeconds = widthSeconds;
+        this.slots = slots;
+        this.bucketStart = new long[slots];
+        this.min = new double[slots];
+        this.max = new double[slots];
+        this.sum = new double[slots];
+        this.count = new long[slots];
+        this.dirty = new boolean[slots];
+        Arrays.fill(bucketStart, EMPTY);
+    }
+
+    /**
+     * Adds one sample. Samples older than the ring's retention are ignored.
+     */
+    void add(long epochSecond, double value) {
+        long start = epochSecond - Math.floorMod(epochSecond, widthSeconds);
+        int slot = slotOf(start);
+        if (bucketStart[slot] != start) {
+            if (bucketStart[slot] != EMPTY && bucketStart[slot] > start) {
+                return;
+            }
+            bucketStart[slot] = start;
+            newestStart = Math.max(newestStart, start);
+            min[slot] = value;
+            max[slot] = value;
+            sum[slot] = 0;
+            count[slot] = 0;
+        }
+        if (value < min[slot]) {
+            min[slot] = value;
+        }
+        if (value > max[slot]) {
+            max[slot] = value;
+        }
+        sum[slot] += value;
+        count[slot]++;
+        dirty[slot] = true;
+    }
+
+    /**
+     * Loads a previously persisted bucket, unless a newer bucket already owns the slot.
+     */
+    void restore(long start, double bucketMin, double bucketMax, double bucketSum, long bucketCount) {
+        int slot = slotOf(start);
+        if (bucketStart[slot] != EMPTY && bucketStart[slot] >= start) {
+            return;
+        }
+        bucketStart[slot] = start;
+        newestStart = Math.max(newestStart, start);
+        min[slot] = bucketMin;
+        max[slot] = bucketMax;
+        sum[slot] = bucketSum;
+        count[slot] = bucketCount;
+        dirty[slot] = false;
+    }
+
+    /**
+     * Visits buckets overlapping {@code [from, to]} (epoch seconds), oldest first.
+     */
+    void forEachInRange(long from, long to, BucketVisitor visitor) {
+        if (newestStart == EMPTY) {
+            return;
+        }
+        long last = Math.min(to - Math.floorMod(to, widthSeconds), newestStart);
+        long first = Math.max(from - Math.floorMod(from, widthSeconds), last - (slots - 1) * widthSeconds);
+        for (long start = first; start <= last; start += widthSeconds) {
+            int slot = slotOf(start);
+            if (bucketStart[slot] == start && count[slot] > 0) {
+                visitor.visit(start, min[slot], max[slot], sum[slot], count[slot]);
+            }
+        }
+    }
+
+    /**
+     * Visits buckets changed since the last drain that ended before
+     * {@code closedBefore}, and marks them clean.
+     */
+    void drainClosed(long closedBefore, BucketVisitor visitor) {
+        for (int slot = 0; slot < slots; slot++) {
+            if (dirty[slot] && bucketStart[slot] + widthSeconds <= closedBefore) {
+                visitor.visit(bucketStart[slot], min[slot], max[slot], sum[slot], count[slot]);
+                dirty[slot] = false;
+            }
+        }
+    }
+
+    /**
+     * Marks a bucket dirty again, e.g. after its persistence failed.
+     */
+    void markDirty(long start) {
+        int slot = slotOf(start);
+        if (bucketStart[slot] == start) {
+            dirty[slot] = true;
+        }
+    }
+
+    private int slotOf(long start) {
+        return (int) Math.floorMod(Math.floorDiv(start, widthSeconds), (long) slots);
+    }
+}
@@ -0,0 +1,110 @@
+package com.company.iotmonitor.ingestion.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter over strings that forgets old entries: entries go into the
+ * current generation, and every {@code retention} the previous generation is
+ * dropped and the current one becomes previous. Lookups check both, so an
+ * entry is remembered for at least {@code retention} and at most twice that.
+ *
+ * <p>Never gives a false negative within that window; false positives occur
+ * at about the configured rate while each generation holds at most
+ * {@code expectedEntries}. Safe for concurrent use.
+ */
+class RotatingBloomFilter {
+    private final int bits;
+    private final int hashes;
+    private final long retentionMillis;
+    private final Clock clock;
+
+    private volatile AtomicLongArray current;
+    private volatile AtomicLongArray previous;
+    private volatile long currentSince;
+
+    RotatingBloomFilter(long expectedEntries, double falsePositiveRate, Duration retention, Clock clock) {
+        // Optimal sizes for n entries at rate p: m = -n ln p / (ln 2)^2, k = m/n ln 2
+        long optimalBits = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, optimalBits));
+        this.hashes = Math.max(1, (int) Math.round((double) bits / expectedEntries * Math.log(2)));
+        this.retentionMillis = retention.toMillis();
+        this.clock = clock;
+        this.current = new AtomicLongArray((bits + 63) / 64);
+        this.previous = new AtomicLongArray((bits + 63) / 64);
+        this.currentSince = clock.millis();
+    }
+
+    void put(String entry) {
+        rotateIfDue();
+        long hash = hash64(entry);
+        AtomicLongArray words = current;
+        for (int i = 0; i < hashes; i++) {
+            int bit = bitIndex(hash, i);
+            long mask = 1L << bit;
+            int word = bit >>> 6;
+            long value;
+            while (((value = words.get(word)) & mask) == 0 && !words.compareAndSet(word, value, value | mask)) {
+                // Lost a race with another bit in the same word; retry
+            }
+        }
+    }
+
+    /** False means the entry was definitely not put within the retention window. */
+    boolean mightContain(String entry) {
+        rotateIfDue();
+        long hash = hash64(entry);
+        return contains(current, hash) || contains(previous, hash);
+    }
+
+    /** Bytes held by both generations. */
+    long sizeInBytes() {
+        return 2L * current.length() * Long.BYTES;
+    }
+
+    private boolean contains(AtomicLongArray words, long hash) {
+        for (int i = 0; i < hashes; i++) {
+            int bit = bitIndex(hash, i);
+            if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rotateIfDue() {
+        if (clock.millis() - currentSince < retentionMillis) {
+            return;
+        }
+        synchronized (this) {
+            long now = clock.millis();
+            if (now - currentSince >= retentionMillis) {
+                // After a long idle period both generations are stale
+                previous = now - currentSince >= 2 * retentionMillis ? new AtomicLongArray(current.length()) : current;
+                current = new AtomicLongArray(previous.length());
+                currentSince = now;
+            }
+        }
+    }
+
+    /** Double hashing (Kirsch and Mitzenmacher) from one 64-bit hash. */
+    private int bitIndex(long hash, int i) {
+        int combined = (int) hash + i * (int) (hash >>> 32);
+        return (combined & Integer.MAX_VALUE) % bits;
+    }
+
+    private static long hash64(String entry) {
+        // FNV-1a over the chars, finished with the MurmurHash3 mixer so both halves are well spread
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < entry.length(); i++) {
+            h = (h ^ entry.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,118 @@
+package com.company.iotmonitor.ingestion.service;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size ring of {@link QuantileSketch} buckets for one series, the
+ * counterpart of {@link RollupRing}. A slot's sketch is cleared and reused
+ * once the ring wraps, so a series allocates at most one sketch per slot.
+ *
+ * <p>Not thread-safe; callers serialize access per series.
+ */
+final class SketchRing {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    @FunctionalInterface
+    interface SketchVisitor {
+        void visit(long bucketStart, QuantileSketch sketch);
+    }
+
+    private final long widthSeconds;
+    private final int slots;
+    private final long[] bucketStart;
+    private final QuantileSketch[] sketches;
+    private final boolean[] dirty;
+    private long newestStart = EMPTY;
+
+    SketchRing(long widthSeconds, int slots) {
+        this.widthSeconds = widthSeconds;
+        this.slots = slots;
+        this.bucketStart = new long[slots];
+        this.sketches = new QuantileSketch[slots];
+        this.dirty = new boolean[slots];
+        Arrays.fill(bucketStart, EMPTY);
+    }
+
+    /**
+     * Adds one sample. Samples older than the ring's retention are ignored.
+     */
+    void add(long epochSecond, double value) {
+        long start = epochSecond - Math.floorMod(epochSecond, widthSeconds);
+        int slot = slotOf(start);
+        if (bucketStart[slot] != start) {
+            if (bucketStart[slot] != EMPTY && bucketStart[slot] > start) {
+                return;
+            }
+            claim(slot, start);
+        }
+        sketches[slot].add(value);
+        dirty[slot] = true;
+    }
+
+    /**
+     * Loads a previously persisted bucket, unless a newer bucket already owns the slot.
+     */
+    void restore(long start, QuantileSketch sketch) {
+        int slot = slotOf(start);
+        if (bucketStart[slot] != EMPTY && bucketStart[slot] >= start) {
+            return;
+        }
+        claim(slot, start);
+        sketches[slot].merge(sketch);
+        dirty[slot] = false;
+    }
+
+    /**
+     * Merges the buckets starting in {@code [from, to]} (epoch seconds) into {@code target}.
+     */
+    void mergeInto(long from, long to, QuantileSketch target) {
+        if (newestStart == EMPTY) {
+            return;
+        }
+        long last = Math.min(to - Math.floorMod(to, widthSeconds), newestStart);
+        long first = Math.max(from - Math.floorMod(from, widthSeconds), last - (slots - 1) * widthSeconds);
+        for (long start = first; start <= last; start += widthSeconds) {
+            int slot = slotOf(start);
+            if (bucketStart[slot] == start) {
+                target.merge(sketches[slot]);
+            }
+        }
+    }
+
+    /**
+     * Visits buckets changed since the last drain that ended before
+     * {@code closedBefore}, and marks them clean.
+     */
+    void drainClosed(long closedBefore, SketchVisitor visitor) {
+        for (int slot = 0; slot < slots; slot++) {
+            if (dirty[slot] && bucketStart[slot] + widthSeconds <= closedBefore) {
+                visitor.visit(bucketStart[slot], sketches[slot]);
+                dirty[slot] = false;
+            }
+        }
+    }
+
+    /**
+     * Marks a bucket dirty again, e.g. after its persistence failed.
+     */
+    void markDirty(long start) {
+        int slot = slotOf(start);
+        if (bucketStart[slot] == start) {
+            dirty[slot] = true;
+        }
+    }
+
+    private void claim(int slot, long start) {
+        bucketStart[slot] = start;
+        newestStart = Math.max(newestStart, start);
+        if (sketches[slot] == null) {
+            sketches[slot] = new QuantileSketch();
+        } else {
+            sketches[slot].clear();
+        }
+    }
+
+    private int slotOf(long start) {
+        return (int) Math.floorMod(Math.floorDiv(start, widthSeconds), (long) slots);
+    }
+}
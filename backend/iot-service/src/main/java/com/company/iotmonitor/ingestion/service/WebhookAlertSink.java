@@ -0,0 +1,76 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.Alert;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+
+/**
+ * POSTs each alert as JSON to {@code iot.alerts.webhook.url}. Delivery is
+ * asynchronous and best effort: there is no retry, and alerts are dropped
+ * with a warning while {@code iot.alerts.webhook.max-in-flight} requests are
+ * still open.
+ */
+@Component
+@ConditionalOnProperty(name = "iot.alerts.webhook.url")
+public class WebhookAlertSink implements AlertSink {
+    private static final Logger logger = LoggerFactory.getLogger(WebhookAlertSink.class);
+
+    private final URI url;
+    private final Duration timeout;
+    private final ObjectMapper objectMapper;
+    private final HttpClient client;
+    private final Semaphore inFlight;
+
+    public WebhookAlertSink(
+            ObjectMapper objectMapper,
+            @Value("${iot.alerts.webhook.url}") URI url,
+            @Value("${iot.alerts.webhook.timeout}") Duration timeout,
+            @Value("${iot.alerts.webhook.max-in-flight}") int maxInFlight) {
+        this.url = url;
+        this.timeout = timeout;
+        this.objectMapper = objectMapper;
+        this.client = HttpClient.newBuilder().connectTimeout(timeout).build();
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    @Override
+    public void publish(Alert alert) {
+        if (!inFlight.tryAcquire()) {
+            logger.warn("Webhook busy; dropped alert {} for gateway {}", alert.ruleId(), alert.gatewayId());
+            return;
+        }
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(alert);
+        } catch (JsonProcessingException e) {
+            inFlight.release();
+            throw new IllegalStateException("Alert not serializable", e);
+        }
+        HttpRequest request = HttpRequest.newBuilder(url)
+            .timeout(timeout)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+            .build();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+            .whenComplete((response, error) -> {
+                inFlight.release();
+                if (error != null) {
+                    logger.warn("Webhook delivery of alert {} failed: {}", alert.ruleId(), error.getMessage());
+                } else if (response.statusCode() >= 300) {
+                    logger.warn("Webhook answered {} for alert {}", response.statusCode(), alert.ruleId());
+                }
+            });
+    }
+}
@@ -0,0 +1,67 @@
+-- Rebuild readings as a table partitioned by range on timestamp, one partition
+-- per day. ReadingPartitionManager creates future partitions and enforces
+-- retention by dropping whole partitions (iot.storage.partitioning.*).
+--
+-- Column types now match the entity: timestamps are TIMESTAMPTZ (existing
+-- values are interpreted as UTC) and values DOUBLE PRECISION.
+
+-- The summary view depends on readings; it is recreated at the end
+DROP MATERIALIZED VIEW IF EXISTS daily_sensor_summary;
+
+ALTER TABLE readings RENAME TO readings_unpartitioned;
+
+CREATE TABLE readings (
+    reading_id VARCHAR(36) NOT NULL,
+    gateway_id UUID NOT NULL REFERENCES gateways(gateway_id) ON DELETE CASCADE,
+    timestamp TIMESTAMPTZ NOT NULL,
+    sensor_label VARCHAR(100) NOT NULL,
+    unit VARCHAR(10) NOT NULL,
+    reading_value DOUBLE PRECISION NOT NULL,
+    -- Unique constraints on a partitioned table must include the partition key
+    PRIMARY KEY (reading_id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+-- Catches rows outside every partition (far past or far future) so inserts never fail
+CREATE TABLE readings_default PARTITION OF readings DEFAULT;
+
+-- One partition per day from the oldest existing reading to a week ahead
+DO $$
+DECLARE
+    day DATE := COALESCE((SELECT MIN(timestamp)::date FROM readings_unpartitioned), CURRENT_DATE);
+BEGIN
+    WHILE day <= CURRENT_DATE + 7 LOOP
+        EXECUTE format(
+            'CREATE TABLE readings_p%s PARTITION OF readings FOR VALUES FROM (%L) TO (%L)',
+            to_char(day, 'YYYYMMDD'),
+            day::timestamp AT TIME ZONE 'UTC',
+            (day + 1)::timestamp AT TIME ZONE 'UTC');
+        day := day + 1;
+    END LOOP;
+END $$;
+
+INSERT INTO readings (reading_id, gateway_id, timestamp, sensor_label, unit, reading_value)
+SELECT reading_id, gateway_id, timestamp AT TIME ZONE 'UTC', sensor_label, unit, reading_value
+FROM readings_unpartitioned
+WHERE gateway_id IS NOT NULL AND timestamp IS NOT NULL;
+
+DROP TABLE readings_unpartitioned;
+
+-- Created on the parent, so every current and future partition gets its own
+-- copy; matches the per-gateway range scans and keyset paging. This replaces
+-- the single-column timestamp and sensor_label indexes.
+CREATE INDEX idx_readings_gateway_timestamp ON readings(gateway_id, timestamp, reading_id);
+
+CREATE MATERIALIZED VIEW IF NOT EXISTS daily_sensor_summary AS
+SELECT
+    gateway_id,
+    sensor_label,
+    DATE(timestamp) AS day,
+    AVG(reading_value) AS avg_value,
+    MIN(reading_value) AS min_value,
+    MAX(reading_value) AS max_value,
+    unit
+FROM readings
+GROUP BY gateway_id, sensor_label, DATE(timestamp), unit;
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_daily_sensor_summary_gateway_sensor_day
+    ON daily_sensor_summary(gateway_id, sensor_label, day, unit);
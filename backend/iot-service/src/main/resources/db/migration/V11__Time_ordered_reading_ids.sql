@@ -0,0 +1,9 @@
+-- Reading IDs become native UUIDs: 16 bytes instead of a 36 character string
+-- in the primary key and in idx_readings_gateway_timestamp. New IDs are
+-- generated by the application as UUIDv7 (see ReadingIds), whose leading bits
+-- are the creation time, so inserts append to the right edge of the primary
+-- key instead of landing on random pages. Existing random IDs keep their value.
+--
+-- Rewrites every partition and rebuilds their indexes under an exclusive lock;
+-- run it in a maintenance window on large tables.
+ALTER TABLE readings ALTER COLUMN reading_id TYPE UUID USING reading_id::uuid;
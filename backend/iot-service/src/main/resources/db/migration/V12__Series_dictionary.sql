@@ -0,0 +1,88 @@
+-- Sensor label and unit move out of readings into a series dictionary. Each
+-- (gateway, sensor, unit) combination becomes one series row with a 4 byte ID,
+-- and readings keep only that ID next to timestamp and value. Per-sensor reads
+-- become range scans of idx_readings_series_timestamp; per-gateway reads merge
+-- the ranges of the gateway's series (see ReadingQueryRepository).
+--
+-- Rebuilds readings with the same partitions, so like V10 it copies every row;
+-- run it in a maintenance window on large tables.
+
+-- The summary view depends on readings; it is recreated at the end
+DROP MATERIALIZED VIEW IF EXISTS daily_sensor_summary;
+
+CREATE TABLE series (
+    series_id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    gateway_id UUID NOT NULL REFERENCES gateways(gateway_id) ON DELETE CASCADE,
+    sensor_label VARCHAR(100) NOT NULL,
+    unit VARCHAR(10) NOT NULL,
+    CONSTRAINT uk_series_gateway_sensor_unit UNIQUE (gateway_id, sensor_label, unit)
+);
+
+INSERT INTO series (gateway_id, sensor_label, unit)
+SELECT DISTINCT gateway_id, sensor_label, unit
+FROM readings
+ORDER BY gateway_id, sensor_label, unit;
+
+-- The old table's indexes are not needed for the copy, and dropping them frees
+-- their names (V10 left the primary key named readings_pkey1)
+DO $$
+DECLARE
+    pkey NAME := (SELECT conname FROM pg_constraint WHERE conrelid = 'readings'::regclass AND contype = 'p');
+BEGIN
+    EXECUTE format('ALTER TABLE readings DROP CONSTRAINT %I', pkey);
+END $$;
+DROP INDEX IF EXISTS idx_readings_gateway_timestamp;
+
+ALTER TABLE readings RENAME TO readings_v11;
+
+CREATE TABLE readings (
+    reading_id UUID NOT NULL,
+    -- No cascade: GatewayDeletionService removes readings in batches before their series
+    series_id INTEGER NOT NULL REFERENCES series(series_id),
+    timestamp TIMESTAMPTZ NOT NULL,
+    reading_value DOUBLE PRECISION NOT NULL
+) PARTITION BY RANGE (timestamp);
+
+-- Same partitions, under the same names, as the old table
+DO $$
+DECLARE
+    old_partition RECORD;
+BEGIN
+    FOR old_partition IN
+        SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) AS bound
+        FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'readings_v11'::regclass
+    LOOP
+        EXECUTE format('ALTER TABLE %I RENAME TO %I', old_partition.relname, old_partition.relname || '_v11');
+        EXECUTE format('CREATE TABLE %I PARTITION OF readings %s', old_partition.relname, old_partition.bound);
+    END LOOP;
+END $$;
+
+INSERT INTO readings (reading_id, series_id, timestamp, reading_value)
+SELECT r.reading_id, s.series_id, r.timestamp, r.reading_value
+FROM readings_v11 r
+JOIN series s ON s.gateway_id = r.gateway_id AND s.sensor_label = r.sensor_label AND s.unit = r.unit;
+
+DROP TABLE readings_v11;
+
+-- Built after the copy, which is faster and packs them tighter than maintaining
+-- them row by row. The series index replaces idx_readings_gateway_timestamp.
+-- Unique constraints on a partitioned table must include the partition key.
+ALTER TABLE readings ADD PRIMARY KEY (reading_id, timestamp);
+CREATE INDEX idx_readings_series_timestamp ON readings(series_id, timestamp, reading_id);
+
+CREATE MATERIALIZED VIEW IF NOT EXISTS daily_sensor_summary AS
+SELECT
+    s.gateway_id,
+    s.sensor_label,
+    DATE(r.timestamp) AS day,
+    AVG(r.reading_value) AS avg_value,
+    MIN(r.reading_value) AS min_value,
+    MAX(r.reading_value) AS max_value,
+    s.unit
+FROM readings r
+JOIN series s ON s.series_id = r.series_id
+GROUP BY s.gateway_id, s.sensor_label, DATE(r.timestamp), s.unit;
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_daily_sensor_summary_gateway_sensor_day
+    ON daily_sensor_summary(gateway_id, sensor_label, day, unit);
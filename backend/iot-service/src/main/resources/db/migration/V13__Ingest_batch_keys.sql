@@ -0,0 +1,11 @@
+-- Idempotency keys of ingest batches, written in the transaction that writes
+-- the batch's readings (see IngestIdempotency). Rows older than
+-- iot.ingest.idempotency.retention are purged by the service.
+CREATE TABLE IF NOT EXISTS ingest_batch_keys (
+    gateway_id UUID NOT NULL REFERENCES gateways(gateway_id) ON DELETE CASCADE,
+    idempotency_key VARCHAR(128) NOT NULL,
+    accepted_at TIMESTAMPTZ NOT NULL,
+    PRIMARY KEY (gateway_id, idempotency_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_ingest_batch_keys_accepted_at ON ingest_batch_keys(accepted_at);
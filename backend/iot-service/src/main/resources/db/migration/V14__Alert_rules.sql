@@ -0,0 +1,18 @@
+-- Alert rules evaluated on ingest (see AlertRuleEngine). The limit columns
+-- used depend on the rule type; sensor_label NULL covers every sensor of
+-- the gateway.
+CREATE TABLE IF NOT EXISTS alert_rules (
+    rule_id UUID PRIMARY KEY,
+    gateway_id UUID NOT NULL REFERENCES gateways(gateway_id) ON DELETE CASCADE,
+    sensor_label VARCHAR(100),
+    type VARCHAR(20) NOT NULL,
+    min_value DOUBLE PRECISION,
+    max_value DOUBLE PRECISION,
+    max_change_per_minute DOUBLE PRECISION,
+    no_data_minutes INTEGER,
+    enabled BOOLEAN NOT NULL DEFAULT TRUE,
+    created_at TIMESTAMPTZ,
+    updated_at TIMESTAMPTZ
+);
+
+CREATE INDEX IF NOT EXISTS idx_alert_rules_gateway ON alert_rules(gateway_id);
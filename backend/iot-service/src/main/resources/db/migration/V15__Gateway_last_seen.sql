@@ -0,0 +1,3 @@
+-- Last reading or heartbeat per gateway, flushed in batches by
+-- GatewayLivenessTracker; lags the in-memory time by up to the flush interval.
+ALTER TABLE gateways ADD COLUMN IF NOT EXISTS last_seen_at TIMESTAMPTZ;
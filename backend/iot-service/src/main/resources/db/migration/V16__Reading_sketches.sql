@@ -0,0 +1,18 @@
+-- One quantile sketch per series per hour (see QuantileSketch for the
+-- encoding), persisted by ReadingSketchEngine for windows older than its
+-- in-memory retention
+CREATE TABLE IF NOT EXISTS reading_sketches (
+    gateway_id UUID NOT NULL REFERENCES gateways(gateway_id) ON DELETE CASCADE,
+    sensor_label VARCHAR(100) NOT NULL,
+    unit VARCHAR(10) NOT NULL,
+    bucket_start TIMESTAMPTZ NOT NULL,
+    sample_count BIGINT NOT NULL,
+    sketch BYTEA NOT NULL,
+    PRIMARY KEY (gateway_id, sensor_label, unit, bucket_start)
+);
+
+-- Quantile queries read one sensor label across gateways by time
+CREATE INDEX IF NOT EXISTS idx_reading_sketches_sensor_bucket ON reading_sketches(sensor_label, bucket_start);
+
+-- Startup reload and retention go by time alone
+CREATE INDEX IF NOT EXISTS idx_reading_sketches_bucket_start ON reading_sketches(bucket_start);
@@ -0,0 +1,16 @@
+-- Minute and hour rollup buckets persisted by the in-memory rollup engine
+CREATE TABLE IF NOT EXISTS reading_rollups (
+    gateway_id UUID NOT NULL REFERENCES gateways(gateway_id) ON DELETE CASCADE,
+    sensor_label VARCHAR(100) NOT NULL,
+    unit VARCHAR(10) NOT NULL,
+    resolution_seconds INTEGER NOT NULL,
+    bucket_start TIMESTAMPTZ NOT NULL,
+    min_value DOUBLE PRECISION NOT NULL,
+    max_value DOUBLE PRECISION NOT NULL,
+    sum_value DOUBLE PRECISION NOT NULL,
+    sample_count BIGINT NOT NULL,
+    PRIMARY KEY (gateway_id, sensor_label, unit, resolution_seconds, bucket_start)
+);
+
+-- Startup reload reads everything newer than the retention window
+CREATE INDEX IF NOT EXISTS idx_reading_rollups_bucket_start ON reading_rollups(bucket_start);
@@ -0,0 +1,5 @@
+-- Range scans and keyset paging read in (timestamp, reading_id) order per gateway
+CREATE INDEX IF NOT EXISTS idx_readings_gateway_timestamp ON readings(gateway_id, timestamp, reading_id);
+
+-- Superseded by the composite index above
+DROP INDEX IF EXISTS idx_readings_gateway_id;
@@ -0,0 +1,12 @@
+-- One row per series per hour holding delta-of-delta timestamps and XOR-encoded
+-- values (see ReadingChunkCodec). Only used when iot.storage.chunks.enabled=true.
+CREATE TABLE IF NOT EXISTS reading_chunks (
+    gateway_id UUID NOT NULL REFERENCES gateways(gateway_id) ON DELETE CASCADE,
+    sensor_label VARCHAR(100) NOT NULL,
+    unit VARCHAR(10) NOT NULL,
+    chunk_start TIMESTAMPTZ NOT NULL,
+    sample_count INTEGER NOT NULL,
+    data BYTEA NOT NULL,
+    -- Range reads scan one gateway by time, so gateway_id and chunk_start lead
+    PRIMARY KEY (gateway_id, chunk_start, sensor_label, unit)
+);
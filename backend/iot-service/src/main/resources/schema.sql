@@ -1,2 +1,50 @@
 -- Create UUID functions for H2
 CREATE ALIAS IF NOT EXISTS uuid_generate_v4 FOR "java.util.UUID.randomUUID";
+
+-- Closed rollup buckets persisted by ReadingRollupEngine (see V7 migration for PostgreSQL)
+CREATE TABLE IF NOT EXISTS reading_rollups (
+    gateway_id UUID NOT NULL,
+    sensor_label VARCHAR(100) NOT NULL,
+    unit VARCHAR(10) NOT NULL,
+    resolution_seconds INTEGER NOT NULL,
+    bucket_start TIMESTAMP WITH TIME ZONE NOT NULL,
+    min_value DOUBLE PRECISION NOT NULL,
+    max_value DOUBLE PRECISION NOT NULL,
+    sum_value DOUBLE PRECISION NOT NULL,
+    sample_count BIGINT NOT NULL,
+    PRIMARY KEY (gateway_id, sensor_label, unit, resolution_seconds, bucket_start)
+);
+CREATE INDEX IF NOT EXISTS idx_reading_rollups_bucket_start ON reading_rollups(bucket_start);
+
+-- Compressed per-series chunks written by ReadingChunkCompactor (see V9 migration for PostgreSQL)
+CREATE TABLE IF NOT EXISTS reading_chunks (
+    gateway_id UUID NOT NULL,
+    sensor_label VARCHAR(100) NOT NULL,
+    unit VARCHAR(10) NOT NULL,
+    chunk_start TIMESTAMP WITH TIME ZONE NOT NULL,
+    sample_count INTEGER NOT NULL,
+    data VARBINARY NOT NULL,
+    PRIMARY KEY (gateway_id, chunk_start, sensor_label, unit)
+);
+
+-- Hourly quantile sketches written by ReadingSketchEngine (see V16 migration for PostgreSQL)
+CREATE TABLE IF NOT EXISTS reading_sketches (
+    gateway_id UUID NOT NULL,
+    sensor_label VARCHAR(100) NOT NULL,
+    unit VARCHAR(10) NOT NULL,
+    bucket_start TIMESTAMP WITH TIME ZONE NOT NULL,
+    sample_count BIGINT NOT NULL,
+    sketch VARBINARY NOT NULL,
+    PRIMARY KEY (gateway_id, sensor_label, unit, bucket_start)
+);
+CREATE INDEX IF NOT EXISTS idx_reading_sketches_sensor_bucket ON reading_sketches(sensor_label, bucket_start);
+CREATE INDEX IF NOT EXISTS idx_reading_sketches_bucket_start ON reading_sketches(bucket_start);
+
+-- Idempotency keys of persisted ingest batches (see V13 migration for PostgreSQL)
+CREATE TABLE IF NOT EXISTS ingest_batch_keys (
+    gateway_id UUID NOT NULL,
+    idempotency_key VARCHAR(128) NOT NULL,
+    accepted_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (gateway_id, idempotency_key)
+);
+CREATE INDEX IF NOT EXISTS idx_ingest_batch_keys_accepted_at ON ingest_batch_keys(accepted_at);
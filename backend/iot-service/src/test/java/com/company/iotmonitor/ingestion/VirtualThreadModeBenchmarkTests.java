@@ -0,0 +1,160 @@
+package com.company.iotmonitor.ingestion;
+
+import com.company.iotmonitor.ingestion.domain.Gateway;
+import com.company.iotmonitor.ingestion.repository.GatewayRepository;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.TestPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares request throughput and p99 latency of the platform-thread and
+ * virtual-thread modes with N gateways posting single readings concurrently,
+ * each over its own connection, for {@code benchmark.duration}.
+ *
+ * <p>Skipped by default; run with
+ * {@code mvn test -Dbenchmark=true -Dtest=VirtualThreadModeBenchmarkTests}.
+ * Connection counts come from {@code -Dbenchmark.connections=1000,10000,50000}.
+ * Client and server share this JVM, so each connection costs two file
+ * descriptors and one ephemeral port: 10k needs {@code ulimit -n} above 20k,
+ * and 50k needs a wider {@code ip_local_port_range} or a separate client host.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@TestPropertySource(properties = {
+    "logging.level.com.company.iotmonitor=WARN",
+    "server.tomcat.max-connections=60000",
+    "server.tomcat.accept-count=10000",
+    "iot.ingest.queue.capacity=1000000"
+})
+class VirtualThreadModeBenchmarkTests {
+
+    @Nested
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+    @TestPropertySource(properties = "spring.threads.virtual.enabled=false")
+    class PlatformThreads extends Load {
+    }
+
+    @Nested
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+    @TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+    class VirtualThreads extends Load {
+    }
+
+    abstract static class Load {
+        @LocalServerPort
+        private int port;
+        @Value("${spring.threads.virtual.enabled}")
+        private boolean virtualThreads;
+        @Autowired
+        private GatewayRepository gatewayRepository;
+
+        @Test
+        void measure() throws Exception {
+            Duration duration = Duration.parse("PT" + System.getProperty("benchmark.duration", "20s"));
+            run(100, Duration.ofSeconds(5), false);
+            for (String level : System.getProperty("benchmark.connections", "1000,10000,50000").split(",")) {
+                run(Integer.parseInt(level.trim()), duration, true);
+            }
+        }
+
+        private void run(int connections, Duration duration, boolean report) throws Exception {
+            List<UUID> gateways = register(connections);
+            // HTTP/1.1 allows one request per connection at a time, so the shared client
+            // opens and keeps one connection per concurrently posting gateway
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            URI uri = URI.create("http://localhost:" + port + "/api/ingestion/readings");
+            AtomicLong errors = new AtomicLong();
+            long deadline = System.nanoTime() + duration.toNanos();
+            List<Future<long[]>> clients = new ArrayList<>(connections);
+            // Platform client threads, so the client does not compete with the server for virtual thread carriers
+            try (ExecutorService executor = Executors.newThreadPerTaskExecutor(
+                    Thread.ofPlatform().stackSize(256 * 1024).factory())) {
+                for (UUID gatewayId : gateways) {
+                    clients.add(executor.submit(() -> {
+                        long[] latencies = new long[1024];
+                        int count = 0;
+                        while (System.nanoTime() < deadline) {
+                            long start = System.nanoTime();
+                            try {
+                                HttpResponse<Void> response = client.send(post(uri, gatewayId),
+                                                                          HttpResponse.BodyHandlers.discarding());
+                                if (response.statusCode() != 202) {
+                                    errors.incrementAndGet();
+                                }
+                            } catch (Exception e) {
+                                errors.incrementAndGet();
+                            }
+                            if (count == latencies.length) {
+                                latencies = Arrays.copyOf(latencies, count * 2);
+                            }
+                            latencies[count++] = System.nanoTime() - start;
+                        }
+                        return Arrays.copyOf(latencies, count);
+                    }));
+                }
+            }
+            long[] all = clients.stream().map(Load::join).flatMapToLong(Arrays::stream).sorted().toArray();
+            if (!report) {
+                return;
+            }
+            System.out.printf("%-8s threads %,7d connections: %,9.0f req/s  p50 %7.1f ms  p99 %8.1f ms  errors %,d%n",
+                              virtualThreads ? "virtual" : "platform", connections,
+                              all.length / (double) duration.toSeconds(),
+                              percentile(all, 0.50) / 1e6, percentile(all, 0.99) / 1e6, errors.get());
+            assertThat(all).isNotEmpty();
+        }
+
+        private List<UUID> register(int count) {
+            List<Gateway> gateways = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Gateway gateway = new Gateway();
+                gateway.setName("load-" + UUID.randomUUID());
+                gateway.setModel("GW-2000");
+                gateways.add(gateway);
+            }
+            return gatewayRepository.saveAll(gateways).stream().map(Gateway::getGatewayId).toList();
+        }
+
+        private static HttpRequest post(URI uri, UUID gatewayId) {
+            String body = "{\"gatewayId\":\"" + gatewayId + "\",\"data\":{\"sensor\":\"load\",\"unit\":\"volt\","
+                + "\"reading\":12.6,\"timestamp\":\"" + Instant.now() + "\"}}";
+            return HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        }
+
+        private static long[] join(Future<long[]> future) {
+            try {
+                return future.get();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static long percentile(long[] sorted, double quantile) {
+            return sorted.length == 0 ? 0 : sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)];
+        }
+    }
+}
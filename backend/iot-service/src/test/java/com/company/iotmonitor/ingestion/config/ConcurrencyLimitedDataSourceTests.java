@@ -0,0 +1,116 @@
+package com.company.iotmonitor.ingestion.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.mock.env.MockEnvironment;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConcurrencyLimitedDataSourceTests {
+    private final DataSource target = mock(DataSource.class);
+    private final Connection connection = mock(Connection.class);
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition met before deadline").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void holdsAPermitUntilTheConnectionIsClosedOnce() throws SQLException {
+        when(target.getConnection()).thenReturn(connection);
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(target, 2, 100);
+
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+        assertThat(dataSource.getInUse()).isEqualTo(2);
+
+        // Other calls reach the target connection
+        first.isValid(1);
+        verify(connection).isValid(1);
+
+        // A repeated close is harmless on the target, but must not release a second permit
+        first.close();
+        first.close();
+        assertThat(dataSource.getInUse()).isEqualTo(1);
+        verify(connection, atLeastOnce()).close();
+
+        second.close();
+        assertThat(dataSource.getInUse()).isZero();
+    }
+
+    @Test
+    void releasesThePermitWhenTheTargetFailsToConnect() throws SQLException {
+        when(target.getConnection()).thenThrow(new SQLException("connection refused"));
+        when(target.getConnection("reader", "secret")).thenThrow(new IllegalStateException("pool closed"));
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(target, 1, 100);
+
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLException.class).hasMessage("connection refused");
+        assertThat(dataSource.getInUse()).isZero();
+        assertThatThrownBy(() -> dataSource.getConnection("reader", "secret"))
+            .isInstanceOf(IllegalStateException.class);
+        assertThat(dataSource.getInUse()).isZero();
+    }
+
+    @Test
+    void timesOutWaitingForAPermitAndCountsWaiters() throws Exception {
+        when(target.getConnection()).thenReturn(connection);
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(target, 1, 100);
+        Connection held = dataSource.getConnection();
+
+        assertThatThrownBy(dataSource::getConnection)
+            .isInstanceOf(SQLTransientConnectionException.class)
+            .hasMessageContaining("100ms");
+        assertThat(dataSource.getInUse()).isEqualTo(1);
+
+        // A waiter with a longer timeout is counted, then gets the permit once it is released
+        ConcurrencyLimitedDataSource patient = new ConcurrencyLimitedDataSource(target, 1, 10_000);
+        Connection patientHeld = patient.getConnection();
+        CompletableFuture<Connection> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return patient.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        await(() -> patient.getWaiting() == 1);
+        assertThat(waiter).isNotDone();
+
+        patientHeld.close();
+        waiter.get(5, TimeUnit.SECONDS).close();
+        assertThat(patient.getWaiting()).isZero();
+        assertThat(patient.getInUse()).isZero();
+        held.close();
+    }
+
+    @Test
+    void wrapsTheDataSourceOnlyWhenAConcurrencyLimitIsSet() {
+        MockEnvironment unlimited = new MockEnvironment().withProperty("iot.db.max-concurrency", "0");
+        BeanPostProcessor disabled = DataSourceConfig.concurrencyLimitedDataSourcePostProcessor(unlimited);
+        assertThat(disabled.postProcessAfterInitialization(target, "dataSource")).isSameAs(target);
+
+        MockEnvironment limited = new MockEnvironment()
+            .withProperty("iot.db.max-concurrency", "4")
+            .withProperty("iot.db.acquire-timeout-ms", "100");
+        BeanPostProcessor enabled = DataSourceConfig.concurrencyLimitedDataSourcePostProcessor(limited);
+        Object wrapped = enabled.postProcessAfterInitialization(target, "dataSource");
+        assertThat(wrapped).isInstanceOf(ConcurrencyLimitedDataSource.class);
+        assertThat(enabled.postProcessAfterInitialization(wrapped, "dataSource")).isSameAs(wrapped);
+        assertThat(enabled.postProcessAfterInitialization("not a data source", "other")).isEqualTo("not a data source");
+    }
+}
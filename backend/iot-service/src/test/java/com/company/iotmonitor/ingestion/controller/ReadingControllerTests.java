@@ -0,0 +1,77 @@
+package com.company.iotmonitor.ingestion.controller;
+
+import com.company.iotmonitor.ingestion.service.GatewayService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ReadingControllerTests {
+    // Integer and fractional epoch seconds, and an ISO-8601 string
+    private static final List<String> READINGS = List.of(
+        "{\"timestamp\":1743465600,\"sensor\":\"house\",\"unit\":\"celsius\",\"reading\":1}",
+        "{\"timestamp\":1743465600.25,\"sensor\":\"garage\",\"unit\":\"celsius\",\"reading\":2}",
+        "{\"timestamp\":\"2025-04-01T00:00:01Z\",\"sensor\":\"attic\",\"unit\":\"celsius\",\"reading\":3}");
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private GatewayService gatewayService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID registerGateway() {
+        return gatewayService.registerGateway("controller-" + UUID.randomUUID(), "lab", "GW-2000").getGatewayId();
+    }
+
+    private List<Instant> storedTimestamps(UUID gatewayId) {
+        return jdbcTemplate.queryForList("SELECT r.timestamp FROM readings r "
+                + "JOIN series s ON s.series_id = r.series_id WHERE s.gateway_id = ? ORDER BY r.reading_value",
+            OffsetDateTime.class, gatewayId).stream().map(OffsetDateTime::toInstant).toList();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition met before deadline").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void storesTheSameTimestampsFromTheBatchAndStreamEndpoints() throws Exception {
+        UUID batchGateway = registerGateway();
+        UUID streamGateway = registerGateway();
+
+        mockMvc.perform(post("/readings/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"gatewayId\":\"" + batchGateway + "\",\"data\":[" + String.join(",", READINGS) + "]}"))
+            .andExpect(status().isAccepted());
+        mockMvc.perform(post("/readings/stream")
+                .param("gatewayId", streamGateway.toString())
+                .contentType("application/x-ndjson")
+                .content(String.join("\n", READINGS)))
+            .andExpect(status().isAccepted());
+
+        await(() -> storedTimestamps(batchGateway).size() == 3 && storedTimestamps(streamGateway).size() == 3);
+        Instant start = Instant.parse("2025-04-01T00:00:00Z");
+        assertThat(storedTimestamps(batchGateway))
+            .containsExactly(start, start.plusMillis(250), start.plusSeconds(1))
+            .isEqualTo(storedTimestamps(streamGateway));
+    }
+}
@@ -0,0 +1,29 @@
+package com.company.iotmonitor.ingestion.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadingIdsTests {
+
+    @Test
+    void isVersion7WithTheTimestampInTheLeadingBits() {
+        long millis = 1_760_000_000_123L;
+        UUID id = ReadingIds.at(millis);
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        assertThat(id.getMostSignificantBits() >>> 16).isEqualTo(millis);
+    }
+
+    @Test
+    void laterIdsSortAfterEarlierOnesAsStoredAndAsText() {
+        UUID earlier = ReadingIds.at(1_760_000_000_000L);
+        UUID later = ReadingIds.at(1_760_000_000_001L);
+
+        // Databases compare UUIDs byte by byte, which is the order of their text form
+        assertThat(later.toString()).isGreaterThan(earlier.toString());
+    }
+}
@@ -0,0 +1,116 @@
+package com.company.iotmonitor.ingestion.interceptor;
+
+import com.company.iotmonitor.ingestion.exception.RateLimitException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimitInterceptorTests {
+
+    private static GatewayRateLimiter limiter(long tokens) {
+        return new GatewayRateLimiter(new SimpleMeterRegistry(), tokens, 60, 1000);
+    }
+
+    private static MockHttpServletRequest requestFor(String gatewayId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/ingestion/readings/" + gatewayId);
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE,
+                             Map.of(RateLimitInterceptor.GATEWAY_ID_VARIABLE, gatewayId));
+        return request;
+    }
+
+    @Test
+    void chargesOneTokenPerRequestAndReportsRemaining() {
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(limiter(2));
+        MockHttpServletRequest request = requestFor(UUID.randomUUID().toString());
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(request, first, null)).isTrue();
+        assertThat(first.getHeader(GatewayRateLimiter.LIMIT_HEADER)).isEqualTo("2");
+        assertThat(first.getHeader(GatewayRateLimiter.REMAINING_HEADER)).isEqualTo("1");
+
+        interceptor.preHandle(request, new MockHttpServletResponse(), null);
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        assertThatThrownBy(() -> interceptor.preHandle(request, rejected, null))
+            .isInstanceOf(RateLimitException.class);
+        assertThat(rejected.getHeader(GatewayRateLimiter.REMAINING_HEADER)).isEqualTo("0");
+        assertThat(Long.parseLong(rejected.getHeader(GatewayRateLimiter.RETRY_AFTER_HEADER))).isPositive();
+    }
+
+    @Test
+    void chargesBatchesByReadingCountAndKeepsGatewaysApart() {
+        GatewayRateLimiter limiter = limiter(100);
+        UUID gateway = UUID.randomUUID();
+
+        limiter.consume(gateway, 60, new MockHttpServletResponse());
+        assertThatThrownBy(() -> limiter.consume(gateway, 60, new MockHttpServletResponse()))
+            .isInstanceOf(RateLimitException.class);
+
+        MockHttpServletResponse other = new MockHttpServletResponse();
+        limiter.consume(UUID.randomUUID(), 60, other);
+        assertThat(other.getHeader(GatewayRateLimiter.REMAINING_HEADER)).isEqualTo("40");
+    }
+
+    @Test
+    void ignoresRequestsWithoutGatewayPathVariable() {
+        GatewayRateLimiter limiter = limiter(1);
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(limiter);
+
+        assertThat(interceptor.preHandle(new MockHttpServletRequest("GET", "/api/ingestion/readings/latest"),
+                                         new MockHttpServletResponse(), null)).isTrue();
+        assertThat(interceptor.preHandle(requestFor("not-a-uuid"), new MockHttpServletResponse(), null)).isTrue();
+        assertThat(limiter.size()).isZero();
+    }
+
+    /**
+     * Prints the cost of {@code preHandle} per request, for a hot gateway and
+     * spread over many gateways. Run with
+     * {@code mvn test -Dbenchmark=true -Dtest=RateLimitInterceptorTests}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void reportOverheadPerRequest() {
+        int gateways = 10_000;
+        MockHttpServletRequest[] requests = new MockHttpServletRequest[gateways];
+        for (int i = 0; i < gateways; i++) {
+            requests[i] = requestFor(UUID.randomUUID().toString());
+        }
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(limiter(1_000_000_000L));
+        // The mock's header map costs more than the limiter itself; a container's is far cheaper
+        HttpServletResponse response = new HttpServletResponseWrapper(new MockHttpServletResponse()) {
+            @Override
+            public void setHeader(String name, String value) {
+            }
+        };
+
+        for (int round = 0; round < 3; round++) {
+            report("one gateway", 2_000_000, i -> interceptor.preHandle(requests[0], response, null));
+            report(gateways + " gateways", 2_000_000,
+                   i -> interceptor.preHandle(requests[i % gateways], response, null));
+        }
+    }
+
+    private interface Call {
+        boolean run(int i);
+    }
+
+    private static void report(String name, int iterations, Call call) {
+        int passed = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            passed += call.run(i) ? 1 : 0;
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-18s %8.1f ns/request (%d passed)%n", name, (double) elapsed / iterations, passed);
+    }
+}
@@ -0,0 +1,114 @@
+package com.company.iotmonitor.ingestion.interceptor;
+
+import com.company.iotmonitor.ingestion.domain.Gateway;
+import com.company.iotmonitor.ingestion.exception.MalformedRequestBodyException;
+import com.company.iotmonitor.ingestion.exception.RequestBodyTooLargeException;
+import com.company.iotmonitor.ingestion.repository.GatewayRepository;
+import com.company.iotmonitor.ingestion.service.GatewayRegistry;
+import com.company.iotmonitor.ingestion.service.ReadingMetrics;
+import com.github.luben.zstd.Zstd;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class RequestDecompressionFilterTests {
+    private static final byte[] BODY = "{\"data\":[]}".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GatewayRegistry gatewayRegistry = new GatewayRegistry(mock(GatewayRepository.class),
+        new SimpleMeterRegistry(), 100, Duration.ofHours(1), Duration.ofMinutes(1));
+    private final ReadingMetrics metrics = new ReadingMetrics(meterRegistry, 10, Duration.ofMinutes(10));
+
+    private static MockHttpServletRequest post(String path, String encoding, byte[] content) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/ingestion" + path);
+        request.setServletPath(path);
+        request.addHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+        request.addHeader(HttpHeaders.CONTENT_LENGTH, content.length);
+        request.setContent(content);
+        return request;
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    void decompressesZstdAndCountsBytesByGatewayModel() throws Exception {
+        Gateway gateway = new Gateway();
+        gateway.setGatewayId(UUID.randomUUID());
+        gateway.setModel("GW-2000");
+        gatewayRegistry.put(gateway);
+        byte[] compressed = Zstd.compress(BODY);
+        AtomicReference<byte[]> seen = new AtomicReference<>();
+        AtomicReference<String> seenEncoding = new AtomicReference<>();
+        FilterChain chain = (request, response) -> {
+            HttpServletRequest http = (HttpServletRequest) request;
+            seen.set(http.getInputStream().readAllBytes());
+            seenEncoding.set(http.getHeader(HttpHeaders.CONTENT_ENCODING));
+            RequestDecompressionFilter.recordGateway(http, gateway.getGatewayId());
+        };
+
+        new RequestDecompressionFilter(gatewayRegistry, metrics, DataSize.ofKilobytes(64))
+            .doFilter(post("/readings/batch", "zstd", compressed), new MockHttpServletResponse(), chain);
+
+        assertThat(seen.get()).isEqualTo(BODY);
+        assertThat(seenEncoding.get()).isNull();
+        assertThat(meterRegistry.get("iot.ingest.body.compressed").tags("encoding", "zstd", "model", "GW-2000")
+            .counter().count()).isEqualTo(compressed.length);
+        assertThat(meterRegistry.get("iot.ingest.body.decompressed").tags("encoding", "zstd", "model", "GW-2000")
+            .counter().count()).isEqualTo(BODY.length);
+    }
+
+    @Test
+    void stopsReadingAtTheDecompressedSizeLimit() throws Exception {
+        RequestDecompressionFilter filter = new RequestDecompressionFilter(gatewayRegistry, metrics,
+                                                                           DataSize.ofBytes(BODY.length - 1));
+        FilterChain chain = (request, response) -> request.getInputStream().readAllBytes();
+
+        assertThatThrownBy(() -> filter.doFilter(post("/readings/stream", "gzip", gzip(BODY)),
+                                                 new MockHttpServletResponse(), chain))
+            .isInstanceOf(RequestBodyTooLargeException.class);
+        assertThatThrownBy(() -> filter.doFilter(post("/readings", "gzip", BODY),
+                                                 new MockHttpServletResponse(), chain))
+            .isInstanceOf(MalformedRequestBodyException.class);
+        assertThat(meterRegistry.get("iot.ingest.body.decompressed").tags("model", "unknown")
+            .counter().count()).isEqualTo(BODY.length);
+    }
+
+    @Test
+    void refusesUnknownEncodingsAndLeavesOtherRoutesAlone() throws Exception {
+        RequestDecompressionFilter filter = new RequestDecompressionFilter(gatewayRegistry, metrics,
+                                                                           DataSize.ofKilobytes(64));
+        MockHttpServletResponse refused = new MockHttpServletResponse();
+        filter.doFilter(post("/readings/batch", "br", BODY), refused, (request, response) -> {
+            throw new AssertionError("Chain must not run");
+        });
+        assertThat(refused.getStatus()).isEqualTo(415);
+
+        AtomicReference<byte[]> seen = new AtomicReference<>();
+        filter.doFilter(post("/devices", "gzip", BODY), new MockHttpServletResponse(),
+                        (request, response) -> seen.set(request.getInputStream().readAllBytes()));
+        assertThat(seen.get()).isEqualTo(BODY);
+    }
+}
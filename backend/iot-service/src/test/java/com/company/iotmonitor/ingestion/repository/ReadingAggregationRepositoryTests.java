@@ -0,0 +1,113 @@
+package com.company.iotmonitor.ingestion.repository;
+
+import com.company.iotmonitor.ingestion.domain.AggregateFunction;
+import com.company.iotmonitor.ingestion.domain.Gateway;
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import com.company.iotmonitor.ingestion.domain.ReadingAggregate;
+import com.company.iotmonitor.ingestion.domain.TimeBucket;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+class ReadingAggregationRepositoryTests {
+    private static final Instant START = Instant.parse("2025-04-01T00:00:00Z");
+
+    @Autowired
+    private GatewayRepository gatewayRepository;
+    @Autowired
+    private SeriesDictionary seriesDictionary;
+    @Autowired
+    private ReadingBulkWriter bulkWriter;
+    @Autowired
+    private ReadingAggregationRepository aggregationRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private UUID gatewayId;
+
+    @BeforeEach
+    void writeReadings() {
+        Gateway gateway = new Gateway();
+        gateway.setName("aggregation-" + UUID.randomUUID());
+        gateway.setModel("GW-2000");
+        gatewayId = gatewayRepository.save(gateway).getGatewayId();
+
+        // Written out of time order, so first/last must come from ordering, not insertion
+        List<IncomingReading> readings = List.of(
+            reading("house", "00:02:30", 5.0),
+            reading("house", "00:04:59.900", 3.0),
+            reading("house", "00:00:00", 1.0),
+            reading("house", "00:09:59", 12.0),
+            reading("house", "00:05:00", 10.0),
+            reading("house", "00:10:00", 7.0),
+            reading("house", "00:10:00.001", 99.0),
+            reading("garage", "00:03:00", -2.0),
+            reading("garage", "00:01:00", -4.0));
+        int[] seriesIds = seriesDictionary.idsOf(readings);
+        transactionTemplate.executeWithoutResult(status -> bulkWriter.write(readings, seriesIds));
+    }
+
+    private IncomingReading reading(String sensorLabel, String time, double value) {
+        return new IncomingReading(gatewayId, Instant.parse("2025-04-01T" + time + "Z"), sensorLabel, "celsius", value);
+    }
+
+    private static Instant at(String time) {
+        return Instant.parse("2025-04-01T" + time + "Z");
+    }
+
+    @Test
+    void bucketsByEpochAlignedWidthInTheDatabase() {
+        List<ReadingAggregate> house = aggregationRepository.aggregate(gatewayId, START, at("00:10:00"),
+            TimeBucket.FIVE_MINUTES, "house", EnumSet.of(AggregateFunction.MIN, AggregateFunction.MAX,
+                AggregateFunction.AVG, AggregateFunction.COUNT, AggregateFunction.SUM));
+
+        // 00:04:59.900 is still in the first bucket; the end of the range is inclusive
+        assertThat(house)
+            .extracting(ReadingAggregate::bucketStart, ReadingAggregate::min, ReadingAggregate::max,
+                        ReadingAggregate::avg, ReadingAggregate::count, ReadingAggregate::sum)
+            .containsExactly(
+                tuple(START, 1.0, 5.0, 3.0, 3L, 9.0),
+                tuple(at("00:05:00"), 10.0, 12.0, 11.0, 2L, 22.0),
+                tuple(at("00:10:00"), 7.0, 7.0, 7.0, 1L, 7.0));
+        assertThat(house).allSatisfy(aggregate -> {
+            assertThat(aggregate.sensorLabel()).isEqualTo("house");
+            assertThat(aggregate.unit()).isEqualTo("celsius");
+            assertThat(aggregate.first()).isNull();
+            assertThat(aggregate.last()).isNull();
+        });
+    }
+
+    @Test
+    void foldsFirstAndLastInTimeOrderAcrossSensors() {
+        List<ReadingAggregate> all = aggregationRepository.aggregate(gatewayId, at("00:00:30"), at("00:09:59"),
+            TimeBucket.FIVE_MINUTES, null,
+            EnumSet.of(AggregateFunction.FIRST, AggregateFunction.LAST, AggregateFunction.COUNT));
+
+        assertThat(all)
+            .extracting(ReadingAggregate::sensorLabel, ReadingAggregate::bucketStart, ReadingAggregate::first,
+                        ReadingAggregate::last, ReadingAggregate::count)
+            .containsExactly(
+                tuple("garage", START, -4.0, -2.0, 2L),
+                tuple("house", START, 5.0, 3.0, 2L),
+                tuple("house", at("00:05:00"), 10.0, 12.0, 2L));
+        assertThat(all).allSatisfy(aggregate -> assertThat(aggregate.min()).isNull());
+
+        assertThat(aggregationRepository.aggregate(gatewayId, START, at("01:00:00"), TimeBucket.ONE_HOUR, "garage",
+                EnumSet.of(AggregateFunction.LAST, AggregateFunction.SUM)))
+            .extracting(ReadingAggregate::sensorLabel, ReadingAggregate::last, ReadingAggregate::sum)
+            .containsExactly(tuple("garage", -2.0, -6.0));
+        assertThat(aggregationRepository.aggregate(gatewayId, START, at("01:00:00"), TimeBucket.ONE_HOUR, "attic",
+            EnumSet.of(AggregateFunction.FIRST))).isEmpty();
+    }
+}
@@ -0,0 +1,101 @@
+package com.company.iotmonitor.ingestion.repository;
+
+import com.company.iotmonitor.ingestion.domain.Gateway;
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import com.company.iotmonitor.ingestion.domain.Reading;
+import com.company.iotmonitor.ingestion.domain.SensorSeries;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares rows/sec of the JPA {@code saveAll} path against {@link ReadingBulkWriter}.
+ * Skipped by default; run with {@code mvn test -Dbenchmark=true -Dtest=ReadingBulkWriterBenchmarkTests}.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ReadingBulkWriterBenchmarkTests {
+    private static final int BATCH_SIZE = 1000;
+    private static final int WARMUP_BATCHES = 20;
+    private static final int MEASURED_BATCHES = 50;
+
+    @Autowired
+    private GatewayRepository gatewayRepository;
+    @Autowired
+    private ReadingRepository readingRepository;
+    @Autowired
+    private ReadingBulkWriter bulkWriter;
+    @Autowired
+    private SeriesDictionary seriesDictionary;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private UUID gatewayId;
+
+    @BeforeEach
+    void createGateway() {
+        Gateway gateway = new Gateway();
+        gateway.setName("bench-" + UUID.randomUUID());
+        gateway.setModel("GW-2000");
+        gatewayId = gatewayRepository.save(gateway).getGatewayId();
+    }
+
+    @Test
+    void compareSaveAllWithBulkWriter() {
+        double saveAll = rowsPerSecond(batch -> {
+            int[] seriesIds = seriesDictionary.idsOf(batch);
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Reading> entities = new ArrayList<>(batch.size());
+                for (int i = 0; i < batch.size(); i++) {
+                    IncomingReading r = batch.get(i);
+                    entities.add(new Reading(null, entityManager.getReference(SensorSeries.class, seriesIds[i]),
+                                             r.timestamp(), r.readingValue()));
+                }
+                readingRepository.saveAll(entities);
+            });
+        });
+        double bulk = rowsPerSecond(batch -> {
+            int[] seriesIds = seriesDictionary.idsOf(batch);
+            transactionTemplate.executeWithoutResult(status -> bulkWriter.write(batch, seriesIds));
+        });
+
+        System.out.printf("saveAll:    %,12.0f rows/sec%n", saveAll);
+        System.out.printf("bulkWriter: %,12.0f rows/sec (%.1fx)%n", bulk, bulk / saveAll);
+        assertThat(bulk).isPositive();
+    }
+
+    private double rowsPerSecond(Consumer<List<IncomingReading>> writer) {
+        for (int i = 0; i < WARMUP_BATCHES; i++) {
+            writer.accept(batch(i));
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_BATCHES; i++) {
+            writer.accept(batch(i));
+        }
+        long elapsed = System.nanoTime() - start;
+        return MEASURED_BATCHES * (double) BATCH_SIZE / (elapsed / 1e9);
+    }
+
+    private List<IncomingReading> batch(int seed) {
+        Instant base = Instant.parse("2025-04-01T00:00:00Z").plusSeconds(seed * (long) BATCH_SIZE);
+        List<IncomingReading> readings = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            readings.add(new IncomingReading(gatewayId, base.plusSeconds(i), "sensor " + (i % 6), "celsius", 20 + i % 10));
+        }
+        return readings;
+    }
+}
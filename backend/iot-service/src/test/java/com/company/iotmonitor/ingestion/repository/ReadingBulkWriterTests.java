@@ -0,0 +1,91 @@
+package com.company.iotmonitor.ingestion.repository;
+
+import com.company.iotmonitor.ingestion.domain.Gateway;
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+class ReadingBulkWriterTests {
+    private static final Instant START = Instant.parse("2025-04-01T00:00:00Z");
+
+    @Autowired
+    private GatewayRepository gatewayRepository;
+    @Autowired
+    private SeriesDictionary seriesDictionary;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private UUID gatewayId;
+
+    @BeforeEach
+    void createGateway() {
+        Gateway gateway = new Gateway();
+        gateway.setName("bulk-" + UUID.randomUUID());
+        gateway.setModel("GW-2000");
+        gatewayId = gatewayRepository.save(gateway).getGatewayId();
+    }
+
+    private List<IncomingReading> readings(int offset, int count) {
+        List<IncomingReading> readings = new ArrayList<>();
+        for (int i = offset; i < offset + count; i++) {
+            String sensor = i % 2 == 0 ? "house" : "garage";
+            readings.add(new IncomingReading(gatewayId, START.plusSeconds(i), sensor, "celsius", i + 0.5));
+        }
+        return readings;
+    }
+
+    private int write(ReadingBulkWriter writer, List<IncomingReading> readings) {
+        int[] seriesIds = seriesDictionary.idsOf(readings);
+        Integer written = transactionTemplate.execute(status -> writer.write(readings, seriesIds));
+        return written == null ? 0 : written;
+    }
+
+    /** Stored rows of the gateway as (sensor, timestamp, value), in time order. */
+    private List<Object[]> storedRows() {
+        return jdbcTemplate.query(
+            "SELECT s.sensor_label, r.timestamp, r.reading_value FROM readings r "
+                + "JOIN series s ON s.series_id = r.series_id WHERE s.gateway_id = ? ORDER BY r.timestamp",
+            (rs, rowNum) -> new Object[] {
+                rs.getString(1), rs.getObject(2, OffsetDateTime.class).toInstant(), rs.getDouble(3)},
+            gatewayId);
+    }
+
+    @Test
+    void insertsFullStatementsAndTheRemainderWithTheirSeries() {
+        // At seven rows per statement: full statements plus a remainder, one full statement, a remainder alone
+        ReadingBulkWriter writer = new ReadingBulkWriter(jdbcTemplate, 7, false);
+        List<IncomingReading> expected = new ArrayList<>();
+
+        for (int[] batch : new int[][] {{0, 23}, {23, 7}, {30, 3}}) {
+            List<IncomingReading> readings = readings(batch[0], batch[1]);
+            assertThat(write(writer, readings)).isEqualTo(batch[1]);
+            expected.addAll(readings);
+        }
+
+        assertThat(storedRows())
+            .extracting(row -> tuple(row[0], row[1], row[2]))
+            .containsExactlyElementsOf(expected.stream()
+                .map(reading -> tuple(reading.sensorLabel(), reading.timestamp(), reading.readingValue()))
+                .toList());
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT COUNT(DISTINCT r.reading_id) FROM readings r JOIN series s ON s.series_id = r.series_id "
+                + "WHERE s.gateway_id = ?", Long.class, gatewayId)).isEqualTo(33);
+        assertThat(write(writer, List.of())).isZero();
+    }
+}
@@ -0,0 +1,124 @@
+package com.company.iotmonitor.ingestion.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntToDoubleFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadingChunkCodecTests {
+
+    @Test
+    void roundTripsIrregularTimestampsAndArbitraryValues() {
+        Random random = new Random(42);
+        int count = 5000;
+        long[] timestamps = new long[count];
+        double[] values = new double[count];
+        long timestamp = ReadingChunkRepository.toMicros(Instant.parse("2025-04-01T00:00:00Z"));
+        for (int i = 0; i < count; i++) {
+            // Mix of regular steps, repeats, jitter, and occasional large gaps to hit every code
+            timestamp += switch (i % 5) {
+                case 0 -> 1_000_000;
+                case 1 -> 0;
+                case 2 -> 1_000_000 + random.nextInt(4000) - 2000;
+                case 3 -> random.nextInt(100_000_000);
+                default -> 1_000_000 + random.nextInt(1_000_000);
+            };
+            timestamps[i] = timestamp;
+            values[i] = switch (i % 4) {
+                case 0 -> random.nextDouble() * 1000 - 500;
+                case 1 -> values[Math.max(0, i - 1)];
+                case 2 -> Math.round(random.nextDouble() * 100) / 10.0;
+                default -> i % 8 == 3 ? Double.NaN : -0.0;
+            };
+        }
+
+        ReadingChunkCodec.Samples decoded = ReadingChunkCodec.decode(ReadingChunkCodec.encode(timestamps, values, count));
+
+        assertThat(decoded.count()).isEqualTo(count);
+        assertThat(decoded.timestamps()).containsExactly(timestamps);
+        for (int i = 0; i < count; i++) {
+            assertThat(Double.doubleToRawLongBits(decoded.values()[i]))
+                .as("value %d", i)
+                .isEqualTo(Double.doubleToRawLongBits(values[i]));
+        }
+    }
+
+    @Test
+    void decodesOnlyTheRequestedRange() {
+        long[] timestamps = {10, 20, 20, 30, 40, 50};
+        double[] values = {1, 2, 3, 4, 5, 6};
+        byte[] chunk = ReadingChunkCodec.encode(timestamps, values, timestamps.length);
+
+        List<Double> visited = new ArrayList<>();
+        ReadingChunkCodec.decode(chunk, 20, 40, (timestamp, value) -> visited.add(value));
+
+        assertThat(visited).containsExactly(2.0, 3.0, 4.0, 5.0);
+    }
+
+    @Test
+    void handlesEmptyAndSingleSampleChunks() {
+        assertThat(ReadingChunkCodec.decode(ReadingChunkCodec.encode(new long[0], new double[0], 0)).count()).isZero();
+
+        ReadingChunkCodec.Samples single = ReadingChunkCodec.decode(
+            ReadingChunkCodec.encode(new long[] {Long.MAX_VALUE}, new double[] {12.6}, 1));
+        assertThat(single.timestamps()).containsExactly(Long.MAX_VALUE);
+        assertThat(single.values()).containsExactly(12.6);
+    }
+
+    @Test
+    void mergeKeepsTimestampOrder() {
+        ReadingChunkCodec.Samples merged = ReadingChunkCodec.merge(
+            new ReadingChunkCodec.Samples(new long[] {1, 3, 5}, new double[] {1, 3, 5}, 3),
+            new ReadingChunkCodec.Samples(new long[] {2, 3, 6}, new double[] {2, 3.5, 6}, 3));
+
+        assertThat(merged.timestamps()).containsExactly(1, 2, 3, 3, 5, 6);
+        assertThat(merged.values()).containsExactly(1, 2, 3, 3.5, 5, 6);
+    }
+
+    /**
+     * Prints bytes per sample for sparse test data (15 minute interval,
+     * uniformly random values) and for a 1 Hz sensor
+     * reporting one decimal. Run with
+     * {@code mvn test -Dbenchmark=true -Dtest=ReadingChunkCodecTests}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void reportCompressionRatio() {
+        // What one readings row carries before indexes: 36 char reading_id, 16 byte gateway_id,
+        // 8 byte timestamp, 8 byte value, and the label and unit strings
+        long rowBytes = 36 + 16 + 8 + 8 + "battery 1".getBytes(StandardCharsets.UTF_8).length
+            + "volt".getBytes(StandardCharsets.UTF_8).length;
+        Random random = new Random(7);
+
+        // Sparse test data: one week at 15 minute steps, reading = base +/- variation
+        report("test data (15 min, random doubles)", rowBytes, 4, 15 * 60, i -> 12.6 + random.nextDouble() - 0.5);
+        // Typical hardware: 1 Hz, value rounded to 0.1, slowly drifting
+        double[] level = {20.0};
+        report("1 Hz sensor, 0.1 resolution", rowBytes, 3600, 1, i -> {
+            level[0] += (random.nextInt(3) - 1) * 0.1;
+            return Math.round(level[0] * 10) / 10.0;
+        });
+    }
+
+    private static void report(String name, long rowBytes, int samplesPerChunk, long stepSeconds,
+                               IntToDoubleFunction valueAt) {
+        long[] timestamps = new long[samplesPerChunk];
+        double[] values = new double[samplesPerChunk];
+        long start = ReadingChunkRepository.toMicros(Instant.parse("2025-04-01T00:00:00Z"));
+        for (int i = 0; i < samplesPerChunk; i++) {
+            timestamps[i] = start + i * stepSeconds * 1_000_000L;
+            values[i] = valueAt.applyAsDouble(i);
+        }
+        byte[] chunk = ReadingChunkCodec.encode(timestamps, values, samplesPerChunk);
+        double bytesPerSample = (double) chunk.length / samplesPerChunk;
+        System.out.printf("%-36s %5d samples/chunk  %7.2f bytes/sample  %6.1fx smaller than a row (%d bytes)%n",
+                          name, samplesPerChunk, bytesPerSample, rowBytes / bytesPerSample, rowBytes);
+    }
+}
@@ -0,0 +1,204 @@
+package com.company.iotmonitor.ingestion.repository;
+
+import com.company.iotmonitor.ingestion.domain.AggregateFunction;
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import com.company.iotmonitor.ingestion.domain.ReadingAggregate;
+import com.company.iotmonitor.ingestion.domain.ReadingPage;
+import com.company.iotmonitor.ingestion.domain.ReadingView;
+import com.company.iotmonitor.ingestion.domain.TimeBucket;
+import com.company.iotmonitor.ingestion.service.GatewayService;
+import com.company.iotmonitor.ingestion.service.ReadingChunkCompactor;
+import com.company.iotmonitor.ingestion.service.ReadingStreamExporter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(properties = "iot.storage.chunks.enabled=true")
+class ReadingChunkRepositoryTests {
+    // Older than what other tests write, so these hours are the first the compactor picks up
+    private static final Instant START = Instant.parse("2002-03-01T00:00:00Z");
+    private static final Comparator<ReadingView> ORDER =
+        Comparator.comparing(ReadingView::timestamp).thenComparing(ReadingView::readingId);
+
+    @Autowired
+    private GatewayService gatewayService;
+    @Autowired
+    private SeriesDictionary seriesDictionary;
+    @Autowired
+    private ReadingBulkWriter bulkWriter;
+    @Autowired
+    private ReadingChunkRepository chunkRepository;
+    @Autowired
+    private ReadingChunkCompactor compactor;
+    @Autowired
+    private ReadingQueryRepository queryRepository;
+    @Autowired
+    private ReadingAggregationRepository aggregationRepository;
+    @Autowired
+    private ReadingStreamExporter exporter;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private UUID gatewayId;
+
+    @BeforeEach
+    void registerGateway() {
+        gatewayId = gatewayService.registerGateway("chunks-" + UUID.randomUUID(), "lab", "GW-2000").getGatewayId();
+    }
+
+    private IncomingReading reading(String sensor, long second, double value) {
+        return new IncomingReading(gatewayId, START.plusSeconds(second), sensor, "celsius", value);
+    }
+
+    private void write(List<IncomingReading> readings) {
+        int[] seriesIds = seriesDictionary.idsOf(readings);
+        transactionTemplate.executeWithoutResult(status -> bulkWriter.write(readings, seriesIds));
+    }
+
+    /** Three hours of two sensors, compacted, plus late rows for two of those hours. */
+    private void writeCompactedAndHotReadings() {
+        write(List.of(
+            reading("house", 10, 1.0), reading("house", 3599, 2.0),
+            reading("house", 3600, 3.0), reading("house", 3700, 4.0),
+            reading("house", 7200, 5.0),
+            reading("garage", 10, 6.0), reading("garage", 3650, 7.0), reading("garage", 7300, 8.0)));
+        compactor.compact();
+        write(List.of(reading("house", 3650, 9.0), reading("garage", 7250, 10.0)));
+    }
+
+    private long countRows() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM readings r "
+            + "JOIN series s ON s.series_id = r.series_id WHERE s.gateway_id = ?", Long.class, gatewayId);
+    }
+
+    private List<ReadingView> allPages(int limit) {
+        List<ReadingView> all = new ArrayList<>();
+        ReadingPage.Cursor after = null;
+        do {
+            ReadingPage page = queryRepository.findPage(gatewayId, START, START.plusSeconds(3 * 3600), after, limit);
+            assertThat(page.items()).hasSizeLessThanOrEqualTo(limit);
+            all.addAll(page.items());
+            after = page.nextCursor() == null ? null : ReadingPage.Cursor.decode(page.nextCursor());
+        } while (after != null);
+        return all;
+    }
+
+    @Test
+    void compactsClosedHoursIntoChunksAndMergesLateRowsIntoThem() {
+        write(List.of(
+            reading("house", 10, 1.0), reading("house", 3599, 2.0), reading("house", 3700, 3.0),
+            reading("garage", 20, 4.0)));
+        // Too recent to compact
+        write(List.of(new IncomingReading(gatewayId, Instant.now().truncatedTo(ChronoUnit.MILLIS),
+                                          "house", "celsius", 0.5)));
+        double compactedBefore = meterRegistry.get("iot.storage.chunks.rows.compacted").counter().count();
+
+        compactor.compact();
+
+        assertThat(countRows()).isEqualTo(1);
+        assertThat(meterRegistry.get("iot.storage.chunks.rows.compacted").counter().count() - compactedBefore)
+            .isGreaterThanOrEqualTo(4);
+        assertThat(jdbcTemplate.query("SELECT chunk_start, sensor_label, sample_count FROM reading_chunks "
+                + "WHERE gateway_id = ? ORDER BY chunk_start, sensor_label",
+            (rs, rowNum) -> tuple(ReadingAggregationRepository.readInstant(rs, "chunk_start"),
+                                  rs.getString("sensor_label"), rs.getInt("sample_count")), gatewayId))
+            .containsExactly(tuple(START, "garage", 1), tuple(START, "house", 2),
+                             tuple(START.plusSeconds(3600), "house", 1));
+
+        // Late rows for a compacted hour, one on a timestamp the chunk already holds
+        write(List.of(reading("house", 5, 11.0), reading("house", 10, 12.0), reading("house", 3000, 13.0)));
+        compactor.compact();
+
+        assertThat(countRows()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT sample_count FROM reading_chunks "
+                + "WHERE gateway_id = ? AND sensor_label = 'house' AND chunk_start = ?",
+            Integer.class, gatewayId, START.atOffset(ZoneOffset.UTC))).isEqualTo(5);
+        List<ReadingView> samples = new ArrayList<>();
+        chunkRepository.forEachSample(gatewayId, "house", START, START.plusSeconds(3600),
+                                      START, START.plusSeconds(3599), samples::add);
+        assertThat(samples).extracting(view -> view.timestamp().getEpochSecond() - START.getEpochSecond())
+            .containsExactly(5L, 10L, 10L, 3000L, 3599L);
+        // The earlier chunk's sample comes first on a shared timestamp
+        assertThat(samples).extracting(ReadingView::readingValue).containsExactly(11.0, 1.0, 12.0, 13.0, 2.0);
+        assertThat(samples).extracting(ReadingView::readingId).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void pagesExportsAndAggregatesChunksAndRowsTogether() throws IOException {
+        writeCompactedAndHotReadings();
+        assertThat(countRows()).isEqualTo(2);
+
+        List<ReadingView> all = allPages(100);
+        assertThat(all).hasSize(10).isSortedAccordingTo(ORDER);
+        assertThat(all).extracting(ReadingView::readingId).doesNotHaveDuplicates();
+        assertThat(all).extracting(ReadingView::readingValue)
+            .containsExactlyInAnyOrder(1.0, 2.0, 3.0, 4.0, 5.0, 6.0, 7.0, 8.0, 9.0, 10.0);
+        for (int limit : new int[] {1, 3}) {
+            assertThat(allPages(limit)).containsExactlyElementsOf(all);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(exporter.export(gatewayId, START, START.plusSeconds(3 * 3600), true, out)).isEqualTo(10);
+        List<String> exportedIds = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            exportedIds.add(objectMapper.readTree(line).get("readingId").asText());
+        }
+        assertThat(exportedIds).containsExactlyElementsOf(all.stream().map(ReadingView::readingId).toList());
+
+        assertThat(aggregationRepository.aggregate(gatewayId, START, START.plusSeconds(3 * 3600),
+                TimeBucket.ONE_HOUR, null, EnumSet.of(AggregateFunction.COUNT, AggregateFunction.SUM,
+                                                      AggregateFunction.FIRST, AggregateFunction.LAST)))
+            .extracting(ReadingAggregate::sensorLabel, ReadingAggregate::bucketStart, ReadingAggregate::count,
+                        ReadingAggregate::sum, ReadingAggregate::first, ReadingAggregate::last)
+            .containsExactly(
+                tuple("garage", START, 1L, 6.0, 6.0, 6.0),
+                tuple("garage", START.plusSeconds(3600), 1L, 7.0, 7.0, 7.0),
+                tuple("garage", START.plusSeconds(7200), 2L, 18.0, 10.0, 8.0),
+                tuple("house", START, 2L, 3.0, 1.0, 2.0),
+                tuple("house", START.plusSeconds(3600), 3L, 16.0, 3.0, 4.0),
+                tuple("house", START.plusSeconds(7200), 1L, 5.0, 5.0, 5.0));
+        assertThat(aggregationRepository.aggregate(gatewayId, START, START.plusSeconds(3 * 3600),
+                TimeBucket.ONE_HOUR, "house", EnumSet.of(AggregateFunction.COUNT)))
+            .extracting(ReadingAggregate::count).containsExactly(2L, 3L, 1L);
+    }
+
+    @Test
+    void deletesAGatewaysChunksAndLeavesItsRows() {
+        writeCompactedAndHotReadings();
+        UUID otherGateway = gatewayId;
+        registerGateway();
+        writeCompactedAndHotReadings();
+
+        transactionTemplate.executeWithoutResult(status -> chunkRepository.deleteByGateway(gatewayId));
+
+        assertThat(allPages(100)).extracting(ReadingView::readingValue).containsExactly(9.0, 10.0);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reading_chunks WHERE gateway_id = ?",
+            Long.class, otherGateway)).isEqualTo(6);
+    }
+}
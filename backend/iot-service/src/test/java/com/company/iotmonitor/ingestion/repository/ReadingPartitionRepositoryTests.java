@@ -0,0 +1,117 @@
+package com.company.iotmonitor.ingestion.repository;
+
+import com.company.iotmonitor.ingestion.domain.Gateway;
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ReadingPartitionRepositoryTests {
+    private static final Instant START = Instant.parse("2025-04-01T00:00:00Z");
+
+    @Autowired
+    private GatewayRepository gatewayRepository;
+    @Autowired
+    private SeriesDictionary seriesDictionary;
+    @Autowired
+    private ReadingBulkWriter bulkWriter;
+    @Autowired
+    private ReadingPartitionRepository partitionRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private UUID gatewayWithReadings(int count) {
+        return gatewayWithReadings(START, count);
+    }
+
+    private UUID gatewayWithReadings(Instant start, int count) {
+        Gateway gateway = new Gateway();
+        gateway.setName("partition-" + UUID.randomUUID());
+        gateway.setModel("GW-2000");
+        UUID gatewayId = gatewayRepository.save(gateway).getGatewayId();
+        List<IncomingReading> readings = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // One reading per hour, alternating between two series
+            readings.add(new IncomingReading(gatewayId, start.plusSeconds(3600L * i),
+                                             i % 2 == 0 ? "house" : "garage", "celsius", i));
+        }
+        int[] seriesIds = seriesDictionary.idsOf(readings);
+        transactionTemplate.executeWithoutResult(status -> bulkWriter.write(readings, seriesIds));
+        return gatewayId;
+    }
+
+    private long countReadings(UUID gatewayId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM readings r "
+            + "JOIN series s ON s.series_id = r.series_id WHERE s.gateway_id = ?", Long.class, gatewayId);
+    }
+
+    @Test
+    void deletesOneGatewaysReadingsInBatchesAcrossSeries() {
+        UUID deleted = gatewayWithReadings(7);
+        UUID kept = gatewayWithReadings(4);
+
+        assertThat(partitionRepository.deleteByGateway(deleted, null, null, 3)).isEqualTo(3);
+        assertThat(partitionRepository.deleteByGateway(deleted, null, null, 3)).isEqualTo(3);
+        assertThat(partitionRepository.deleteByGateway(deleted, null, null, 3)).isEqualTo(1);
+        assertThat(partitionRepository.deleteByGateway(deleted, null, null, 3)).isZero();
+
+        assertThat(countReadings(deleted)).isZero();
+        assertThat(countReadings(kept)).isEqualTo(4);
+    }
+
+    @Test
+    void limitsDeletesToTheGivenRange() {
+        UUID gatewayId = gatewayWithReadings(6);
+
+        // [01:00, 04:00) holds the readings of hours 1, 2 and 3; the upper bound is exclusive
+        Instant from = START.plusSeconds(3600);
+        Instant to = START.plusSeconds(4 * 3600);
+        assertThat(partitionRepository.deleteByGateway(gatewayId, from, to, 2)).isEqualTo(2);
+        assertThat(partitionRepository.deleteByGateway(gatewayId, from, to, 2)).isEqualTo(1);
+        assertThat(partitionRepository.deleteByGateway(gatewayId, from, to, 2)).isZero();
+
+        assertThat(jdbcTemplate.queryForList("SELECT r.reading_value FROM readings r "
+                + "JOIN series s ON s.series_id = r.series_id WHERE s.gateway_id = ? ORDER BY r.timestamp",
+            Double.class, gatewayId)).containsExactly(0.0, 4.0, 5.0);
+    }
+
+    @Test
+    void deletesReadingsOlderThanTheCutoffInBatches() {
+        // Older than anything other tests write, since retention is not scoped to a gateway
+        Instant start = Instant.parse("2001-01-01T00:00:00Z");
+        UUID gatewayId = gatewayWithReadings(start, 6);
+
+        // The reading at exactly the cutoff is kept
+        Instant cutoff = start.plusSeconds(3 * 3600);
+        assertThat(partitionRepository.deleteOlderThan(cutoff, 2)).isEqualTo(2);
+        assertThat(partitionRepository.deleteOlderThan(cutoff, 2)).isEqualTo(1);
+        assertThat(partitionRepository.deleteOlderThan(cutoff, 2)).isZero();
+
+        assertThat(jdbcTemplate.queryForList("SELECT r.reading_value FROM readings r "
+                + "JOIN series s ON s.series_id = r.series_id WHERE s.gateway_id = ? ORDER BY r.timestamp",
+            Double.class, gatewayId)).containsExactly(3.0, 4.0, 5.0);
+    }
+
+    @Test
+    void parsesPartitionBoundsPrintedInAnySessionTimeZone() {
+        Instant midnight = Instant.parse("2025-10-09T00:00:00Z");
+        assertThat(ReadingPartitionRepository.parse("2025-10-09 00:00:00+00")).isEqualTo(midnight);
+        assertThat(ReadingPartitionRepository.parse("2025-10-08 20:00:00-04")).isEqualTo(midnight);
+        assertThat(ReadingPartitionRepository.parse("2025-10-09 05:30:00+05:30")).isEqualTo(midnight);
+        assertThat(ReadingPartitionRepository.parse("2025-10-08 20:15:00-03:45")).isEqualTo(midnight);
+        assertThat(ReadingPartitionRepository.parse("2025-10-09 00:00:00.25+00"))
+            .isEqualTo(midnight.plusMillis(250));
+    }
+}
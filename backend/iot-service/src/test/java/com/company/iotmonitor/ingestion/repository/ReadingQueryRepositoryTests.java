@@ -0,0 +1,209 @@
+package com.company.iotmonitor.ingestion.repository;
+
+import com.company.iotmonitor.ingestion.domain.Gateway;
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import com.company.iotmonitor.ingestion.domain.ReadingPage;
+import com.company.iotmonitor.ingestion.domain.ReadingView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+class ReadingQueryRepositoryTests {
+    private static final Instant START = Instant.parse("2025-04-01T00:00:00Z");
+    private static final Comparator<ReadingView> ORDER =
+        Comparator.comparing(ReadingView::timestamp).thenComparing(ReadingView::readingId);
+
+    @Autowired
+    private GatewayRepository gatewayRepository;
+    @Autowired
+    private SeriesDictionary seriesDictionary;
+    @Autowired
+    private ReadingBulkWriter bulkWriter;
+    @Autowired
+    private ReadingQueryRepository queryRepository;
+    @Autowired
+    private ReadingChunkRepository chunkRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private UUID gatewayId;
+
+    @BeforeEach
+    void createGateway() {
+        Gateway gateway = new Gateway();
+        gateway.setName("query-" + UUID.randomUUID());
+        gateway.setModel("GW-2000");
+        gatewayId = gatewayRepository.save(gateway).getGatewayId();
+    }
+
+    private void write(List<IncomingReading> readings) {
+        int[] seriesIds = seriesDictionary.idsOf(readings);
+        transactionTemplate.executeWithoutResult(status -> bulkWriter.write(readings, seriesIds));
+    }
+
+    private static List<ReadingView> allPages(ReadingQueryRepository repository, UUID gatewayId,
+                                              Instant start, Instant end, int limit) {
+        List<ReadingView> all = new ArrayList<>();
+        ReadingPage.Cursor after = null;
+        do {
+            ReadingPage page = repository.findPage(gatewayId, start, end, after, limit);
+            assertThat(page.items()).hasSizeLessThanOrEqualTo(limit);
+            all.addAll(page.items());
+            after = page.nextCursor() == null ? null : ReadingPage.Cursor.decode(page.nextCursor());
+        } while (after != null);
+        return all;
+    }
+
+    /** Reading IDs of the gateway in the order the database sorts them. */
+    private List<String> idsInSqlOrder() {
+        return jdbcTemplate.queryForList("SELECT r.reading_id FROM readings r "
+            + "JOIN series s ON s.series_id = r.series_id WHERE s.gateway_id = ? "
+            + "ORDER BY r.timestamp, r.reading_id", UUID.class, gatewayId)
+            .stream().map(UUID::toString).toList();
+    }
+
+    /** Collects streamed readings, checking each is handed over outside any transaction. */
+    private static Consumer<ReadingView> outsideTransaction(List<ReadingView> streamed) {
+        return reading -> {
+            assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isFalse();
+            streamed.add(reading);
+        };
+    }
+
+    private void compact(String sensorLabel, Instant chunkStart) {
+        int seriesId = seriesDictionary.idOf(gatewayId, sensorLabel, "celsius");
+        chunkRepository.compact(
+            new ReadingChunkRepository.Series(seriesId, gatewayId, sensorLabel, "celsius", chunkStart));
+    }
+
+    @Test
+    void pagesAcrossEqualTimestampsWithoutSkippingOrRepeating() {
+        // Eight readings share each timestamp, spread over three series and repeated within them
+        List<IncomingReading> readings = new ArrayList<>();
+        String[] sensors = {"house", "garage", "attic"};
+        for (int i = 0; i < 40; i++) {
+            readings.add(new IncomingReading(gatewayId, START.plusSeconds(i / 8), sensors[i % 3], "celsius", i));
+        }
+        // Written shuffled, so reading IDs do not follow the reading values
+        Collections.shuffle(readings, new Random(7));
+        write(readings);
+
+        for (int limit : new int[] {1, 3, 8, 100}) {
+            List<ReadingView> all = allPages(queryRepository, gatewayId, START, START.plusSeconds(60), limit);
+
+            assertThat(all).extracting(ReadingView::readingId)
+                .doesNotHaveDuplicates()
+                .containsExactlyElementsOf(idsInSqlOrder());
+            assertThat(all).isSortedAccordingTo(ORDER);
+            assertThat(all).extracting(ReadingView::readingValue)
+                .containsExactlyInAnyOrderElementsOf(readings.stream().map(IncomingReading::readingValue).toList());
+        }
+
+        List<ReadingView> streamed = new ArrayList<>();
+        new ReadingQueryRepository(jdbcTemplate, chunkRepository, seriesDictionary, transactionManager, 3, false,
+                                   Duration.ofHours(6))
+            .stream(gatewayId, START, START.plusSeconds(60), outsideTransaction(streamed));
+        assertThat(streamed).extracting(ReadingView::readingId).containsExactlyElementsOf(idsInSqlOrder());
+
+        List<ReadingView> exported = new ArrayList<>();
+        queryRepository.stream(gatewayId, START, START.plusSeconds(60), outsideTransaction(exported));
+        assertThat(exported).containsExactlyElementsOf(streamed);
+    }
+
+    @Test
+    void cursorComparesReadingIdsLikeTheDatabase() {
+        int house = seriesDictionary.idOf(gatewayId, "house", "celsius");
+        int garage = seriesDictionary.idOf(gatewayId, "garage", "celsius");
+        // IDs at one timestamp whose order differs between signed and unsigned comparison of either half
+        List<String> ids = List.of(
+            "00000000-0000-7000-0000-000000000000",
+            "00000000-0000-7000-7fff-ffffffffffff",
+            "00000000-0000-7000-8000-000000000000",
+            "7fffffff-ffff-7fff-ffff-ffffffffffff",
+            "80000000-0000-7000-0000-000000000000",
+            "ffffffff-ffff-7fff-ffff-ffffffffffff");
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = ids.size() - 1; i >= 0; i--) {
+                jdbcTemplate.update("INSERT INTO readings (reading_id, series_id, timestamp, reading_value) "
+                        + "VALUES (?, ?, ?, ?)",
+                    UUID.fromString(ids.get(i)), i % 2 == 0 ? house : garage,
+                    OffsetDateTime.ofInstant(START, ZoneOffset.UTC), i);
+            }
+        });
+
+        assertThat(idsInSqlOrder()).containsExactlyElementsOf(ids);
+        assertThat(allPages(queryRepository, gatewayId, START, START, 1))
+            .extracting(ReadingView::readingId).containsExactlyElementsOf(ids);
+    }
+
+    @Test
+    void pagesAcrossChunkBoundariesMergingChunksWithRows() {
+        List<IncomingReading> readings = new ArrayList<>();
+        // Hour 0 goes into chunks, with a duplicate timestamp in one series and a sample on the last second
+        readings.add(new IncomingReading(gatewayId, START.plusSeconds(10), "house", "celsius", 1.0));
+        readings.add(new IncomingReading(gatewayId, START.plusSeconds(10), "house", "celsius", 2.0));
+        readings.add(new IncomingReading(gatewayId, START.plusSeconds(10), "garage", "celsius", 3.0));
+        readings.add(new IncomingReading(gatewayId, START.plusSeconds(3599), "garage", "celsius", 4.0));
+        // Hour 1 starts on the chunk boundary and is compacted for the house only
+        readings.add(new IncomingReading(gatewayId, START.plusSeconds(3600), "house", "celsius", 5.0));
+        readings.add(new IncomingReading(gatewayId, START.plusSeconds(3600), "garage", "celsius", 6.0));
+        readings.add(new IncomingReading(gatewayId, START.plusSeconds(3700), "house", "celsius", 7.0));
+        readings.add(new IncomingReading(gatewayId, START.plusSeconds(3700), "garage", "celsius", 8.0));
+        // Hour 2 stays in rows
+        readings.add(new IncomingReading(gatewayId, START.plusSeconds(7200), "house", "celsius", 9.0));
+        readings.add(new IncomingReading(gatewayId, START.plusSeconds(7200), "garage", "celsius", 10.0));
+        write(readings);
+        for (String sensor : List.of("house", "garage")) {
+            compact(sensor, START);
+        }
+        compact("house", START.plusSeconds(3600));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reading_chunks WHERE gateway_id = ?",
+            Long.class, gatewayId)).isEqualTo(3);
+        // A late row for a compacted hour sits next to its chunk
+        write(List.of(new IncomingReading(gatewayId, START.plusSeconds(3700), "house", "celsius", 11.0)));
+
+        ReadingQueryRepository chunked = new ReadingQueryRepository(jdbcTemplate, chunkRepository, seriesDictionary,
+            transactionManager, 3, true, Duration.ofHours(1));
+        List<ReadingView> expected = allPages(chunked, gatewayId, START, START.plusSeconds(7200), 100);
+        assertThat(expected).hasSize(11).isSortedAccordingTo(ORDER);
+        assertThat(expected).filteredOn(view -> view.timestamp().equals(START.plusSeconds(10)))
+            .extracting(ReadingView::sensorLabel, ReadingView::readingValue)
+            .containsExactlyInAnyOrder(tuple("house", 1.0), tuple("house", 2.0), tuple("garage", 3.0));
+
+        for (int limit : new int[] {1, 2, 4}) {
+            List<ReadingView> all = allPages(chunked, gatewayId, START, START.plusSeconds(7200), limit);
+            assertThat(all).containsExactlyElementsOf(expected);
+        }
+
+        List<ReadingView> streamed = new ArrayList<>();
+        chunked.stream(gatewayId, START.plusSeconds(3599), START.plusSeconds(3700), outsideTransaction(streamed));
+        assertThat(streamed).extracting(ReadingView::readingValue)
+            .containsExactlyInAnyOrder(4.0, 5.0, 6.0, 7.0, 8.0, 11.0);
+        assertThat(streamed).isSortedAccordingTo(ORDER);
+    }
+}
@@ -0,0 +1,99 @@
+package com.company.iotmonitor.ingestion.repository;
+
+import com.company.iotmonitor.ingestion.domain.AggregateFunction;
+import com.company.iotmonitor.ingestion.domain.Gateway;
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import com.company.iotmonitor.ingestion.domain.ReadingAggregate;
+import com.company.iotmonitor.ingestion.domain.ReadingPage;
+import com.company.iotmonitor.ingestion.domain.ReadingView;
+import com.company.iotmonitor.ingestion.domain.TimeBucket;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class SeriesDictionaryTests {
+    private static final Instant START = Instant.parse("2025-04-01T00:00:00Z");
+
+    @Autowired
+    private GatewayRepository gatewayRepository;
+    @Autowired
+    private SeriesDictionary seriesDictionary;
+    @Autowired
+    private ReadingBulkWriter bulkWriter;
+    @Autowired
+    private ReadingQueryRepository queryRepository;
+    @Autowired
+    private ReadingAggregationRepository aggregationRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private UUID gatewayId;
+
+    @BeforeEach
+    void createGateway() {
+        Gateway gateway = new Gateway();
+        gateway.setName("series-" + UUID.randomUUID());
+        gateway.setModel("GW-2000");
+        gatewayId = gatewayRepository.save(gateway).getGatewayId();
+    }
+
+    @Test
+    void resolvesTheSameSeriesBothWays() {
+        int house = seriesDictionary.idOf(gatewayId, "house", "celsius");
+        int houseFahrenheit = seriesDictionary.idOf(gatewayId, "house", "fahrenheit");
+
+        assertThat(seriesDictionary.idOf(gatewayId, "house", "celsius")).isEqualTo(house);
+        assertThat(houseFahrenheit).isNotEqualTo(house);
+        assertThat(seriesDictionary.get(house))
+            .isEqualTo(new SeriesDictionary.Entry(house, gatewayId, "house", "celsius"));
+        assertThat(seriesDictionary.forGateway(gatewayId, "house"))
+            .extracting(SeriesDictionary.Entry::seriesId)
+            .containsExactly(house, houseFahrenheit);
+
+        transactionTemplate.executeWithoutResult(status -> seriesDictionary.deleteByGateway(gatewayId));
+        assertThat(seriesDictionary.get(house)).isNull();
+        assertThat(seriesDictionary.forGateway(gatewayId, null)).isEmpty();
+    }
+
+    @Test
+    void readsGatewayAcrossSeriesInTimeOrder() {
+        List<IncomingReading> readings = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            String sensor = i % 3 == 0 ? "garage" : "house";
+            readings.add(new IncomingReading(gatewayId, START.plusSeconds(i), sensor, "celsius", i));
+        }
+        int[] seriesIds = seriesDictionary.idsOf(readings);
+        transactionTemplate.executeWithoutResult(status -> bulkWriter.write(readings, seriesIds));
+
+        ReadingPage first = queryRepository.findPage(gatewayId, START, START.plusSeconds(60), null, 20);
+        ReadingPage second = queryRepository.findPage(gatewayId, START, START.plusSeconds(60),
+                                                      ReadingPage.Cursor.decode(first.nextCursor()), 20);
+        List<ReadingView> all = new ArrayList<>(first.items());
+        all.addAll(second.items());
+        assertThat(second.nextCursor()).isNull();
+        assertThat(all).extracting(ReadingView::readingValue)
+            .containsExactly(readings.stream().map(IncomingReading::readingValue).toArray(Double[]::new));
+        assertThat(all.get(3).sensorLabel()).isEqualTo("garage");
+        assertThat(all.get(4).sensorLabel()).isEqualTo("house");
+
+        List<ReadingAggregate> garage = aggregationRepository.aggregate(gatewayId, START, START.plusSeconds(60),
+            TimeBucket.ONE_HOUR, "garage", EnumSet.of(AggregateFunction.COUNT, AggregateFunction.LAST));
+        assertThat(garage).singleElement().satisfies(aggregate -> {
+            assertThat(aggregate.count()).isEqualTo(10);
+            assertThat(aggregate.last()).isEqualTo(27);
+        });
+        assertThat(aggregationRepository.aggregate(gatewayId, START, START.plusSeconds(60),
+            TimeBucket.ONE_HOUR, "attic", EnumSet.of(AggregateFunction.COUNT))).isEmpty();
+    }
+}
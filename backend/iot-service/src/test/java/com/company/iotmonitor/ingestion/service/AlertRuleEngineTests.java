@@ -0,0 +1,111 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.Alert;
+import com.company.iotmonitor.ingestion.domain.AlertRule;
+import com.company.iotmonitor.ingestion.domain.AlertRuleType;
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+class AlertRuleEngineTests {
+    @Autowired
+    private GatewayService gatewayService;
+    @Autowired
+    private AlertRuleService ruleService;
+    @Autowired
+    private AlertRuleEngine engine;
+    @Autowired
+    private RecentAlertSink recentAlerts;
+
+    private static AlertRule rule(UUID gatewayId, String sensorLabel, AlertRuleType type) {
+        AlertRule rule = new AlertRule();
+        rule.setGatewayId(gatewayId);
+        rule.setSensorLabel(sensorLabel);
+        rule.setType(type);
+        return rule;
+    }
+
+    private void record(UUID gatewayId, Instant timestamp, String sensorLabel, double value) {
+        gatewayService.recordBatchReadings(gatewayId,
+            List.of(new IncomingReading(gatewayId, timestamp, sensorLabel, "V", value)));
+    }
+
+    /** Alerts raised for the gateway since the given count, oldest first. */
+    private List<Alert> alertsAfter(UUID gatewayId, int seen) {
+        List<Alert> alerts = new ArrayList<>(recentAlerts.recent(gatewayId, 1000));
+        Collections.reverse(alerts);
+        return alerts.subList(seen, alerts.size());
+    }
+
+    @Test
+    void raisesStateChangesOnIngestAndAppliesRuleChangesImmediately() {
+        UUID gatewayId = gatewayService.registerGateway("alerts-" + UUID.randomUUID(), "lab", "GW-2000").getGatewayId();
+        AlertRule battery = rule(gatewayId, "battery", AlertRuleType.THRESHOLD);
+        battery.setMinValue(3.3);
+        battery = ruleService.create(battery);
+        AlertRule anySensor = rule(gatewayId, null, AlertRuleType.RATE_OF_CHANGE);
+        anySensor.setMaxChangePerMinute(5.0);
+        ruleService.create(anySensor);
+        Instant t0 = Instant.now().minus(10, ChronoUnit.MINUTES).truncatedTo(ChronoUnit.SECONDS);
+
+        record(gatewayId, t0, "battery", 3.5);
+        record(gatewayId, t0.plusSeconds(60), "battery", 3.1);
+        record(gatewayId, t0.plusSeconds(120), "battery", 3.0);
+        record(gatewayId, t0.plusSeconds(30), "battery", 2.0);
+        record(gatewayId, t0.plusSeconds(180), "battery", 3.6);
+        record(gatewayId, t0, "temperature", 20.0);
+        record(gatewayId, t0.plusSeconds(60), "temperature", 40.0);
+
+        assertThat(alertsAfter(gatewayId, 0))
+            .extracting(Alert::sensorLabel, Alert::type, Alert::state, Alert::readingValue)
+            .containsExactly(
+                tuple("battery", AlertRuleType.THRESHOLD, Alert.State.FIRING, 3.1),
+                tuple("battery", AlertRuleType.THRESHOLD, Alert.State.RESOLVED, 3.6),
+                tuple("temperature", AlertRuleType.RATE_OF_CHANGE, Alert.State.FIRING, 40.0));
+
+        battery.setMinValue(3.7);
+        ruleService.update(battery.getRuleId(), battery);
+        record(gatewayId, t0.plusSeconds(240), "battery", 3.6);
+
+        assertThat(alertsAfter(gatewayId, 3))
+            .extracting(Alert::ruleId, Alert::state)
+            .containsExactly(tuple(battery.getRuleId(), Alert.State.FIRING));
+
+        assertThatThrownBy(() -> ruleService.create(rule(gatewayId, "battery", AlertRuleType.NO_DATA)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("noDataMinutes");
+    }
+
+    @Test
+    void raisesNoDataForSilentSensorsUntilTheyReportAgain() {
+        UUID gatewayId = gatewayService.registerGateway("alerts-" + UUID.randomUUID(), "lab", "GW-2000").getGatewayId();
+        record(gatewayId, Instant.now().minus(5, ChronoUnit.MINUTES), "battery", 3.5);
+        AlertRule silence = rule(gatewayId, "battery", AlertRuleType.NO_DATA);
+        silence.setNoDataMinutes(2);
+        ruleService.create(silence);
+
+        engine.checkSilentSeries();
+        engine.checkSilentSeries();
+        record(gatewayId, Instant.now(), "battery", 3.5);
+        engine.checkSilentSeries();
+
+        assertThat(alertsAfter(gatewayId, 0))
+            .extracting(Alert::sensorLabel, Alert::type, Alert::state)
+            .containsExactly(
+                tuple("battery", AlertRuleType.NO_DATA, Alert.State.FIRING),
+                tuple("battery", AlertRuleType.NO_DATA, Alert.State.RESOLVED));
+    }
+}
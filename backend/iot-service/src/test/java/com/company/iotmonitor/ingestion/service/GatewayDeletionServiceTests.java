@@ -0,0 +1,92 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.Gateway;
+import com.company.iotmonitor.ingestion.domain.GatewayDeletionJob;
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import com.company.iotmonitor.ingestion.repository.GatewayRepository;
+import com.company.iotmonitor.ingestion.repository.ReadingBulkWriter;
+import com.company.iotmonitor.ingestion.repository.SeriesDictionary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Small batches, and a flush interval long enough that queued readings are still queued when deletion starts
+@SpringBootTest(properties = {"iot.gateway.deletion.batch-size=3", "iot.ingest.flush.interval-ms=2000"})
+class GatewayDeletionServiceTests {
+    private static final Instant START = Instant.parse("2025-04-01T00:00:00Z");
+
+    @Autowired
+    private GatewayService gatewayService;
+    @Autowired
+    private GatewayRepository gatewayRepository;
+    @Autowired
+    private SeriesDictionary seriesDictionary;
+    @Autowired
+    private ReadingBulkWriter bulkWriter;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private static List<IncomingReading> readings(UUID gatewayId, int count, int offset) {
+        List<IncomingReading> readings = new ArrayList<>();
+        for (int i = offset; i < offset + count; i++) {
+            readings.add(new IncomingReading(gatewayId, START.plusSeconds(i), i % 2 == 0 ? "house" : "garage",
+                                             "celsius", i));
+        }
+        return readings;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition met before deadline").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void deletesStoredAndStillQueuedReadingsInBatchesAndReportsProgress() throws InterruptedException {
+        UUID gatewayId = gatewayService.registerGateway("deletion-" + UUID.randomUUID(), "lab", "GW-2000")
+            .getGatewayId();
+        List<IncomingReading> stored = readings(gatewayId, 7, 0);
+        int[] seriesIds = seriesDictionary.idsOf(stored);
+        transactionTemplate.executeWithoutResult(status -> bulkWriter.write(stored, seriesIds));
+        gatewayService.recordBatchReadings(gatewayId, readings(gatewayId, 4, 7));
+        double failedBefore = meterRegistry.get("iot.ingest.readings.failed").counter().count();
+
+        GatewayDeletionJob started = gatewayService.deleteGateway(gatewayId).orElseThrow();
+        assertThat(started.status()).isEqualTo(GatewayDeletionJob.Status.RUNNING);
+        assertThat(gatewayService.getAllGateways()).extracting(Gateway::getGatewayId).doesNotContain(gatewayId);
+        await(() -> gatewayService.getDeletionJob(gatewayId).orElseThrow().isFinished());
+
+        // The queued readings were written after the first pass, then deleted before the series
+        GatewayDeletionJob finished = gatewayService.getDeletionJob(gatewayId).orElseThrow();
+        assertThat(finished.status()).as(finished.error()).isEqualTo(GatewayDeletionJob.Status.COMPLETED);
+        assertThat(finished.readingsDeleted()).isEqualTo(11);
+        assertThat(meterRegistry.get("iot.ingest.readings.failed").counter().count()).isEqualTo(failedBefore);
+        assertThat(gatewayRepository.findById(gatewayId)).isEmpty();
+        assertThat(seriesDictionary.forGateway(gatewayId, null)).isEmpty();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM readings WHERE series_id IN (?, ?)",
+            Long.class, seriesIds[0], seriesIds[1])).isZero();
+    }
+
+    @Test
+    void reportsNoJobForAnUnknownGateway() {
+        assertThat(gatewayService.deleteGateway(UUID.randomUUID())).isEmpty();
+        assertThat(gatewayService.getDeletionJob(UUID.randomUUID())).isEmpty();
+    }
+}
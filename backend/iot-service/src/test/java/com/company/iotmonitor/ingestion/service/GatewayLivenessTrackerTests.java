@@ -0,0 +1,63 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.Gateway;
+import com.company.iotmonitor.ingestion.domain.GatewayLiveness;
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class GatewayLivenessTrackerTests {
+    @Autowired
+    private GatewayService gatewayService;
+    @Autowired
+    private GatewayLivenessTracker tracker;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private OffsetDateTime storedLastSeen(UUID gatewayId) {
+        return jdbcTemplate.queryForObject("SELECT last_seen_at FROM gateways WHERE gateway_id = ?",
+                                           OffsetDateTime.class, gatewayId);
+    }
+
+    @Test
+    void tracksHeartbeatsAndReadingsAndStoresLastSeenOnFlush() {
+        UUID gatewayId = gatewayService.registerGateway("liveness-" + UUID.randomUUID(), "lab", "GW-2000").getGatewayId();
+        Gateway fresh = gatewayService.getGatewayById(gatewayId).orElseThrow();
+        assertThat(fresh.getLiveness()).isEqualTo(GatewayLiveness.OFFLINE);
+        assertThat(fresh.getLastSeenAt()).isNull();
+        int onlineBefore = tracker.getOnlineCount();
+
+        Instant before = Instant.now();
+        assertThat(gatewayService.recordHeartbeat(gatewayId)).isTrue();
+        assertThat(gatewayService.recordHeartbeat(UUID.randomUUID())).isFalse();
+        gatewayService.recordBatchReadings(gatewayId,
+            List.of(new IncomingReading(gatewayId, Instant.now(), "battery", "V", 3.5)));
+
+        Gateway seen = gatewayService.getGatewayById(gatewayId).orElseThrow();
+        assertThat(seen.getLiveness()).isEqualTo(GatewayLiveness.ONLINE);
+        assertThat(seen.getLastSeenAt()).isAfterOrEqualTo(before.minusMillis(1));
+        assertThat(gatewayService.getAllGateways())
+            .filteredOn(gateway -> gateway.getGatewayId().equals(gatewayId))
+            .extracting(Gateway::getLiveness)
+            .containsExactly(GatewayLiveness.ONLINE);
+        assertThat(tracker.getOnlineCount()).isEqualTo(onlineBefore + 1);
+        assertThat(storedLastSeen(gatewayId)).isNull();
+
+        tracker.flush();
+
+        assertThat(storedLastSeen(gatewayId).toInstant()).isEqualTo(seen.getLastSeenAt());
+
+        gatewayService.deleteGateway(gatewayId);
+        assertThat(tracker.getOnlineCount()).isEqualTo(onlineBefore);
+    }
+}
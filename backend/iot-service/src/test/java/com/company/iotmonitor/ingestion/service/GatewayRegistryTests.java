@@ -0,0 +1,101 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.Gateway;
+import com.company.iotmonitor.ingestion.repository.GatewayRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GatewayRegistryTests {
+    private static final Duration NEGATIVE_TTL = Duration.ofMillis(200);
+
+    private final GatewayRepository gatewayRepository = mock(GatewayRepository.class);
+    private final GatewayRegistry registry = new GatewayRegistry(gatewayRepository, new SimpleMeterRegistry(),
+        100, Duration.ofHours(1), NEGATIVE_TTL);
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static Gateway gateway(UUID gatewayId, String status, String model) {
+        Gateway gateway = new Gateway();
+        gateway.setGatewayId(gatewayId);
+        gateway.setName("registry-" + gatewayId);
+        gateway.setStatus(status);
+        gateway.setModel(model);
+        return gateway;
+    }
+
+    /** Runs the after-commit callbacks registered so far, as a commit would, and ends the transaction. */
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+
+    @Test
+    void cachesMissesOnlyForTheNegativeTtl() throws InterruptedException {
+        UUID gatewayId = UUID.randomUUID();
+        when(gatewayRepository.findById(gatewayId)).thenReturn(Optional.empty());
+
+        assertThat(registry.find(gatewayId)).isEmpty();
+        assertThat(registry.exists(gatewayId)).isFalse();
+        verify(gatewayRepository, times(1)).findById(gatewayId);
+
+        // Registered elsewhere: visible once the cached miss expires
+        when(gatewayRepository.findById(gatewayId))
+            .thenReturn(Optional.of(gateway(gatewayId, Gateway.STATUS_ACTIVE, "GW-2000")));
+        Thread.sleep(NEGATIVE_TTL.toMillis() * 2);
+
+        assertThat(registry.find(gatewayId)).contains(new GatewayRegistry.Entry(gatewayId, Gateway.STATUS_ACTIVE, "GW-2000"));
+        assertThat(registry.exists(gatewayId)).isTrue();
+        verify(gatewayRepository, times(2)).findById(gatewayId);
+    }
+
+    @Test
+    void appliesChangesOnlyWhenTheTransactionCommits() {
+        UUID gatewayId = UUID.randomUUID();
+        registry.put(gateway(gatewayId, Gateway.STATUS_ACTIVE, "GW-2000"));
+        assertThat(registry.exists(gatewayId)).isTrue();
+
+        TransactionSynchronizationManager.initSynchronization();
+        registry.put(gateway(gatewayId, Gateway.STATUS_ACTIVE, "GW-3000"));
+        assertThat(registry.find(gatewayId)).map(GatewayRegistry.Entry::model).contains("GW-2000");
+        commit();
+        assertThat(registry.find(gatewayId)).map(GatewayRegistry.Entry::model).contains("GW-3000");
+
+        // A rolled back change is never applied
+        TransactionSynchronizationManager.initSynchronization();
+        registry.remove(gatewayId);
+        TransactionSynchronizationManager.clearSynchronization();
+        assertThat(registry.exists(gatewayId)).isTrue();
+
+        TransactionSynchronizationManager.initSynchronization();
+        registry.put(gateway(gatewayId, Gateway.STATUS_DELETING, "GW-3000"));
+        commit();
+        assertThat(registry.find(gatewayId)).isPresent();
+        assertThat(registry.exists(gatewayId)).isFalse();
+
+        TransactionSynchronizationManager.initSynchronization();
+        registry.remove(gatewayId);
+        commit();
+        assertThat(registry.find(gatewayId)).isEmpty();
+        verify(gatewayRepository, times(0)).findById(gatewayId);
+    }
+}
@@ -0,0 +1,66 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import com.company.iotmonitor.ingestion.repository.IngestBatchKeyRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class IngestIdempotencyTests {
+    @Autowired
+    private GatewayService gatewayService;
+    @Autowired
+    private IngestBatchKeyRepository keyRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long countReadings(UUID gatewayId) {
+        return jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM readings r JOIN series s ON s.series_id = r.series_id WHERE s.gateway_id = ?",
+            Long.class, gatewayId);
+    }
+
+    private void awaitKeyStored(IngestBatchKeyRepository.Key key) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!keyRepository.existsSince(key, Instant.EPOCH)) {
+            assertThat(System.currentTimeMillis()).as("key stored before deadline").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    @Test
+    void writesABatchOncePerKeyAndRemembersKeysAcrossRestarts() throws InterruptedException {
+        UUID gatewayId = gatewayService.registerGateway("idempotency-" + UUID.randomUUID(), "lab", "GW-2000")
+            .getGatewayId();
+        List<IncomingReading> readings = new ArrayList<>();
+        Instant start = Instant.now().minusSeconds(60);
+        for (int i = 0; i < 10; i++) {
+            readings.add(new IncomingReading(gatewayId, start.plusSeconds(i), "house", "celsius", i));
+        }
+
+        assertThat(gatewayService.recordBatchReadings(gatewayId, readings, "batch-1")).isTrue();
+        assertThat(gatewayService.recordBatchReadings(gatewayId, readings, "batch-1")).isFalse();
+        IngestBatchKeyRepository.Key key = new IngestBatchKeyRepository.Key(gatewayId, "batch-1");
+        awaitKeyStored(key);
+        assertThat(countReadings(gatewayId)).isEqualTo(10);
+
+        // A fresh instance knows the key only through the database, found via its Bloom filter
+        IngestIdempotency restarted = new IngestIdempotency(keyRepository, new SimpleMeterRegistry(),
+            Duration.ofHours(1), 1000, 1000, 0.01);
+        restarted.loadPersistedKeys();
+        assertThat(restarted.claim(key)).isFalse();
+        assertThat(restarted.claim(new IngestBatchKeyRepository.Key(gatewayId, "batch-2"))).isTrue();
+        assertThat(restarted.claim(new IngestBatchKeyRepository.Key(UUID.randomUUID(), "batch-1"))).isTrue();
+    }
+}
@@ -0,0 +1,76 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import com.company.iotmonitor.ingestion.domain.LatestReading;
+import com.company.iotmonitor.ingestion.repository.ReadingQueryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class LatestReadingCacheTests {
+    private final ReadingQueryRepository queryRepository = mock(ReadingQueryRepository.class);
+    private final LatestReadingCache cache = new LatestReadingCache(queryRepository, new SimpleMeterRegistry(),
+        Duration.ofMinutes(5), Duration.ofHours(24));
+    private final UUID gatewayId = UUID.randomUUID();
+    private final Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+    private IncomingReading reading(String sensorLabel, Instant timestamp, double value) {
+        return new IncomingReading(gatewayId, timestamp, sensorLabel, "celsius", value);
+    }
+
+    @Test
+    void keepsTheNewestValuePerSensor() {
+        cache.onAccepted(gatewayId, List.of(
+            reading("house", now.minusSeconds(60), 20.0),
+            reading("house", now.minusSeconds(10), 21.0),
+            reading("garage", now.minusSeconds(30), 5.0)));
+        // Late, replayed and future-dated readings do not move a sensor
+        cache.onAccepted(gatewayId, List.of(
+            reading("house", now.minusSeconds(30), 19.0),
+            reading("house", now.minusSeconds(10), 21.0),
+            reading("garage", now.plus(Duration.ofMinutes(10)), 99.0)));
+
+        assertThat(cache.get(gatewayId)).containsExactly(
+            new LatestReading("garage", "celsius", 5.0, now.minusSeconds(30)),
+            new LatestReading("house", "celsius", 21.0, now.minusSeconds(10)));
+        assertThat(cache.get(UUID.randomUUID())).isEmpty();
+
+        cache.onAccepted(gatewayId, List.of(reading("garage", now, 6.0)));
+        assertThat(cache.get(List.of(gatewayId))).containsOnlyKeys(gatewayId);
+        assertThat(cache.get(gatewayId)).extracting(LatestReading::readingValue).containsExactly(6.0, 21.0);
+
+        cache.onGatewayRemoved(gatewayId);
+        assertThat(cache.get(gatewayId)).isEmpty();
+        assertThat(cache.getAll()).isEmpty();
+    }
+
+    @Test
+    void warmUpNeverOverridesNewerLiveValues() {
+        cache.onAccepted(gatewayId, List.of(reading("house", now, 22.0)));
+        doAnswer(call -> {
+            BiConsumer<UUID, LatestReading> consumer = call.getArgument(1);
+            consumer.accept(gatewayId, new LatestReading("house", "celsius", 18.0, now.minusSeconds(600)));
+            consumer.accept(gatewayId, new LatestReading("garage", "celsius", 4.0, now.minusSeconds(600)));
+            return null;
+        }).when(queryRepository).forEachLatestSince(any(), any());
+
+        cache.warmUp();
+
+        Map<UUID, List<LatestReading>> all = cache.getAll();
+        assertThat(all.get(gatewayId)).containsExactly(
+            new LatestReading("garage", "celsius", 4.0, now.minusSeconds(600)),
+            new LatestReading("house", "celsius", 22.0, now));
+    }
+}
@@ -0,0 +1,118 @@
+package com.company.iotmonitor.ingestion.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LivenessTimerWheelTests {
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+    private static final Duration TICK = Duration.ofSeconds(1);
+
+    /** A clock the test moves by hand. */
+    private static final class ManualClock extends Clock {
+        private Instant now = Instant.parse("2025-10-09T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    /** Moves the clock a tick at a time, advancing the wheel each tick. */
+    private static void run(LivenessTimerWheel wheel, ManualClock clock, Duration duration,
+                            List<LivenessTimerWheel.Member> offline) {
+        for (long t = 0; t < duration.dividedBy(TICK); t++) {
+            clock.advance(TICK);
+            wheel.advance(offline::add);
+        }
+    }
+
+    @Test
+    void goesOfflineOnlyAfterATimeoutWithoutSightings() {
+        ManualClock clock = new ManualClock();
+        LivenessTimerWheel wheel = new LivenessTimerWheel(TIMEOUT, TICK, clock);
+        LivenessTimerWheel.Member chatty = new LivenessTimerWheel.Member(UUID.randomUUID(), 0);
+        LivenessTimerWheel.Member quiet = new LivenessTimerWheel.Member(UUID.randomUUID(), 0);
+        List<LivenessTimerWheel.Member> offline = new ArrayList<>();
+
+        assertThat(wheel.touch(chatty)).isTrue();
+        assertThat(wheel.touch(quiet)).isTrue();
+        assertThat(wheel.touch(quiet)).isFalse();
+        assertThat(wheel.onlineCount()).isEqualTo(2);
+
+        for (int i = 0; i < 10; i++) {
+            run(wheel, clock, Duration.ofSeconds(30), offline);
+            wheel.touch(chatty);
+        }
+        assertThat(offline).containsExactly(quiet);
+        assertThat(quiet.isOnline()).isFalse();
+        assertThat(chatty.isOnline()).isTrue();
+        assertThat(wheel.onlineCount()).isEqualTo(1);
+
+        run(wheel, clock, TIMEOUT.minus(TICK), offline);
+        assertThat(chatty.isOnline()).isTrue();
+        run(wheel, clock, TICK.multipliedBy(2), offline);
+        assertThat(offline).containsExactly(quiet, chatty);
+
+        assertThat(wheel.touch(quiet)).isTrue();
+        assertThat(wheel.onlineCount()).isEqualTo(1);
+    }
+
+    @Test
+    void handlesManyMembersRemovalAndLateTicks() {
+        ManualClock clock = new ManualClock();
+        LivenessTimerWheel wheel = new LivenessTimerWheel(TIMEOUT, TICK, clock);
+        List<LivenessTimerWheel.Member> members = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            LivenessTimerWheel.Member member = new LivenessTimerWheel.Member(UUID.randomUUID(), 0);
+            members.add(member);
+            wheel.touch(member);
+        }
+        List<LivenessTimerWheel.Member> offline = new ArrayList<>();
+        run(wheel, clock, Duration.ofSeconds(30), offline);
+        for (int i = 0; i < members.size(); i += 2) {
+            wheel.touch(members.get(i));
+        }
+        wheel.remove(members.get(1));
+        assertThat(wheel.onlineCount()).isEqualTo(99_999);
+
+        // One late tick covering the whole timeout still processes every slot
+        clock.advance(Duration.ofSeconds(45));
+        wheel.advance(offline::add);
+
+        assertThat(offline).hasSize(49_999).doesNotContain(members.get(1));
+        assertThat(wheel.onlineCount()).isEqualTo(50_000);
+        assertThat(members.get(0).isOnline()).isTrue();
+        assertThat(members.get(1).isRemoved()).isTrue();
+        assertThat(wheel.touch(members.get(1))).isFalse();
+
+        // A sighting restored from before the timeout does not bring a member online
+        LivenessTimerWheel.Member restored = new LivenessTimerWheel.Member(
+            UUID.randomUUID(), clock.millis() - TIMEOUT.toMillis());
+        wheel.track(restored);
+        assertThat(restored.isOnline()).isFalse();
+    }
+}
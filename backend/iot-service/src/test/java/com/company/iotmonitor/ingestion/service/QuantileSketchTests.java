@@ -0,0 +1,77 @@
+package com.company.iotmonitor.ingestion.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class QuantileSketchTests {
+    private static final double[] QUANTILES = {0, 0.01, 0.25, 0.5, 0.75, 0.95, 0.99, 0.999, 1};
+
+    private static double exact(double[] sorted, double q) {
+        return sorted[(int) (q * (sorted.length - 1))];
+    }
+
+    private static void assertWithinRelativeAccuracy(QuantileSketch sketch, double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double q : QUANTILES) {
+            double expected = exact(sorted, q);
+            assertThat(sketch.quantile(q)).as("q=%s", q)
+                .isCloseTo(expected, within(Math.abs(expected) * QuantileSketch.RELATIVE_ACCURACY + 1e-12));
+        }
+        assertThat(sketch.count()).isEqualTo(values.length);
+        assertThat(sketch.min()).isEqualTo(sorted[0]);
+        assertThat(sketch.max()).isEqualTo(sorted[sorted.length - 1]);
+    }
+
+    @Test
+    void estimatesQuantilesWithinTheRelativeAccuracyAcrossSignsAndScales() {
+        Random random = new Random(42);
+        double[] values = new double[100_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = switch (i % 4) {
+                case 0 -> 20 + random.nextGaussian() * 5;
+                case 1 -> -40 + random.nextGaussian() * 3;
+                case 2 -> Math.exp(random.nextGaussian() * 6);
+                default -> i % 8 == 3 ? 0 : 3.3;
+            };
+        }
+        QuantileSketch sketch = new QuantileSketch();
+        for (double value : values) {
+            sketch.add(value);
+        }
+        sketch.add(Double.NaN);
+
+        assertWithinRelativeAccuracy(sketch, values);
+        assertThat(new QuantileSketch().quantile(0.5)).isNaN();
+    }
+
+    @Test
+    void mergedAndDecodedSketchesAnswerLikeOneFedEveryValue() {
+        Random random = new Random(7);
+        double[] values = new double[50_000];
+        QuantileSketch merged = new QuantileSketch();
+        QuantileSketch part = new QuantileSketch();
+        for (int i = 0; i < values.length; i++) {
+            // Parts cover different ranges, so merging has to grow the bins both ways
+            values[i] = (i / 1000 % 2 == 0 ? 1 : -1) * (i / 1000 + 1) * (1 + random.nextDouble());
+            part.add(values[i]);
+            if (i % 1000 == 999) {
+                merged.merge(QuantileSketch.decode(part.encode()));
+                part.clear();
+            }
+        }
+
+        assertWithinRelativeAccuracy(merged, values);
+        QuantileSketch single = new QuantileSketch();
+        Arrays.stream(values).forEach(single::add);
+        for (double q : QUANTILES) {
+            assertThat(merged.quantile(q)).isEqualTo(single.quantile(q));
+        }
+        assertThat(single.encode()).hasSizeLessThan(1024);
+    }
+}
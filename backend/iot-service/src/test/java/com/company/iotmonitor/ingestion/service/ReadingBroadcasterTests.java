@@ -0,0 +1,178 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ReadingBroadcasterTests {
+    private static final String END_OF_STREAM = "<end>";
+
+    /** Counts sends; once stalled, blocks every send like a client that stopped reading. */
+    private static final class StallingEmitter extends SseEmitter {
+        final AtomicInteger sent = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile boolean stalled;
+        volatile boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (stalled) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IOException("Broken pipe");
+            }
+            sent.incrementAndGet();
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private GatewayService gatewayService;
+    @Autowired
+    private ReadingBroadcaster broadcaster;
+
+    /** Opens the stream and returns its lines as they arrive, then {@link #END_OF_STREAM}. */
+    private BlockingQueue<String> subscribe(UUID gatewayId, String query) throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(
+                "http://localhost:" + port + "/api/ingestion/readings/" + gatewayId + "/live" + query))
+            .header("Accept", "text/event-stream")
+            .build();
+        HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        assertThat(response.statusCode()).isEqualTo(200);
+        BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        Thread.ofPlatform().daemon().start(() -> {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+                for (String line; (line = reader.readLine()) != null; ) {
+                    lines.add(line);
+                }
+            } catch (Exception e) {
+                // Treated as the end of the stream
+            }
+            lines.add(END_OF_STREAM);
+        });
+        return lines;
+    }
+
+    private static String nextData(BlockingQueue<String> lines) throws InterruptedException {
+        for (String line; (line = lines.poll(10, TimeUnit.SECONDS)) != null; ) {
+            if (line.startsWith("data:")) {
+                return line;
+            }
+            assertThat(line).isNotEqualTo(END_OF_STREAM);
+        }
+        throw new AssertionError("No event within 10s");
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition met before deadline").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void keepsPushingWhileOtherSubscribersAreStalledAndEndsTheStalledOnes() throws Exception {
+        ReadingBroadcaster live = new ReadingBroadcaster(new SimpleMeterRegistry(), 100, 10,
+                                                         Duration.ofMinutes(1), Duration.ofMillis(200));
+        UUID gatewayId = UUID.randomUUID();
+        List<IncomingReading> readings =
+            List.of(new IncomingReading(gatewayId, Instant.now(), "house", "celsius", 1.0));
+        // More stalled clients than any fixed sender pool this service used to have
+        List<StallingEmitter> stalled = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            StallingEmitter emitter = new StallingEmitter();
+            live.subscribe(gatewayId, null, emitter);
+            emitter.stalled = true;
+            stalled.add(emitter);
+        }
+        StallingEmitter healthy = new StallingEmitter();
+        live.subscribe(gatewayId, null, healthy);
+        assertThat(healthy.sent).hasValue(1);
+
+        try {
+            live.onAccepted(gatewayId, readings);
+            await(() -> healthy.sent.get() == 2);
+
+            // Past the send timeout, the heartbeat ends the stalled streams and still reaches the healthy one
+            Thread.sleep(300);
+            live.heartbeat();
+            assertThat(stalled).allMatch(emitter -> emitter.completed);
+            assertThat(healthy.completed).isFalse();
+            assertThat(live.getSubscriberCount()).isEqualTo(1);
+            await(() -> healthy.sent.get() == 3);
+            live.onAccepted(gatewayId, readings);
+            await(() -> healthy.sent.get() == 4);
+        } finally {
+            stalled.forEach(emitter -> emitter.release.countDown());
+            live.stop();
+        }
+    }
+
+    @Test
+    void pushesMatchingReadingsUntilGatewayIsDeleted() throws Exception {
+        UUID gatewayId = gatewayService.registerGateway("live-" + UUID.randomUUID(), "lab", "GW-2000").getGatewayId();
+        int subscribersBefore = broadcaster.getSubscriberCount();
+        BlockingQueue<String> lines = subscribe(gatewayId, "?sensorLabel=house");
+        assertThat(broadcaster.getSubscriberCount()).isEqualTo(subscribersBefore + 1);
+
+        Instant now = Instant.now();
+        gatewayService.recordBatchReadings(gatewayId, List.of(
+            new IncomingReading(gatewayId, now, "garage", "celsius", 1.0),
+            new IncomingReading(gatewayId, now, "house", "celsius", 21.5)));
+
+        String data = nextData(lines);
+        assertThat(data).contains("\"sensorLabel\":\"house\"").contains("21.5").contains("\"dropped\":0");
+        assertThat(data).doesNotContain("garage");
+
+        gatewayService.deleteGateway(gatewayId);
+
+        for (String line; !END_OF_STREAM.equals(line = lines.poll(10, TimeUnit.SECONDS)); ) {
+            assertThat(line).as("stream ended after deletion").isNotNull();
+        }
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (broadcaster.getSubscriberCount() != subscribersBefore) {
+            assertThat(System.currentTimeMillis()).as("subscriber removed before deadline").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
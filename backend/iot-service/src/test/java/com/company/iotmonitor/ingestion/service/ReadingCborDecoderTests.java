@@ -0,0 +1,93 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReadingCborDecoderTests {
+    private static final Instant TIMESTAMP = Instant.parse("2025-10-09T12:00:00.250Z");
+
+    private final ReadingCborDecoder decoder = new ReadingCborDecoder();
+
+    private static byte[] encode(CBORMapper mapper, Object gatewayId, Object data) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("gatewayId", gatewayId);
+        body.put("data", data);
+        return mapper.writeValueAsBytes(body);
+    }
+
+    private static byte[] bytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+            .putLong(uuid.getMostSignificantBits())
+            .putLong(uuid.getLeastSignificantBits())
+            .array();
+    }
+
+    @Test
+    void decodesBatchWithBinaryGatewayAndStringReferences() throws IOException {
+        UUID gatewayId = UUID.randomUUID();
+        List<List<Object>> data = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            data.add(Arrays.asList(TIMESTAMP.toEpochMilli() + i, "house", "celsius", 20.5 + i));
+        }
+        CBORMapper mapper = CBORMapper.builder().enable(CBORGenerator.Feature.STRINGREF).build();
+
+        ReadingCborDecoder.Body body = decoder.decodeBatch(
+            new ByteArrayInputStream(encode(mapper, bytes(gatewayId), data)), 1000);
+
+        assertThat(body.gatewayId()).isEqualTo(gatewayId);
+        assertThat(body.readings()).containsExactly(
+            new IncomingReading(gatewayId, TIMESTAMP, "house", "celsius", 20.5),
+            new IncomingReading(gatewayId, TIMESTAMP.plusMillis(1), "house", "celsius", 21.5),
+            new IncomingReading(gatewayId, TIMESTAMP.plusMillis(2), "house", "celsius", 22.5));
+    }
+
+    @Test
+    void decodesSingleReadingWithTextGateway() throws IOException {
+        UUID gatewayId = UUID.randomUUID();
+        byte[] encoded = encode(new CBORMapper(), gatewayId.toString(),
+                                Arrays.asList(null, "garage", "percent", 55.0));
+
+        ReadingCborDecoder.Body body = decoder.decodeSingle(new ByteArrayInputStream(encoded));
+
+        assertThat(body.readings()).singleElement().satisfies(reading -> {
+            assertThat(reading.sensorLabel()).isEqualTo("garage");
+            assertThat(reading.readingValue()).isEqualTo(55.0);
+            assertThat(reading.timestamp()).isNotNull();
+        });
+    }
+
+    @Test
+    void refusesOversizedMalformedAndInvalidBodies() throws IOException {
+        UUID gatewayId = UUID.randomUUID();
+        List<Object> reading = Arrays.asList(TIMESTAMP.toEpochMilli(), "house", "celsius", 1.0);
+        CBORMapper mapper = new CBORMapper();
+
+        assertThatThrownBy(() -> decoder.decodeBatch(
+                new ByteArrayInputStream(encode(mapper, bytes(gatewayId), List.of(reading, reading))), 1))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("maximum of 1");
+        assertThatThrownBy(() -> decoder.decodeBatch(new ByteArrayInputStream(new byte[]{(byte) 0xa2, 0x01}), 10))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageStartingWith("Malformed CBOR body");
+        assertThatThrownBy(() -> decoder.decodeSingle(new ByteArrayInputStream(
+                encode(mapper, bytes(gatewayId), Arrays.asList(TIMESTAMP.toEpochMilli(), "house", "", 1.0)))))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Unit");
+    }
+}
@@ -0,0 +1,225 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import com.company.iotmonitor.ingestion.exception.IngestBackpressureException;
+import com.company.iotmonitor.ingestion.repository.IngestBatchKeyRepository;
+import com.company.iotmonitor.ingestion.repository.ReadingBulkWriter;
+import com.company.iotmonitor.ingestion.repository.SeriesDictionary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReadingIngestPipelineTests {
+    /** Records every write; fails writes that contain a failing gateway, and can be held shut. */
+    private static final class StubWriter extends ReadingBulkWriter {
+        final BlockingQueue<List<IncomingReading>> writes = new LinkedBlockingQueue<>();
+        final Set<UUID> failing;
+        final CountDownLatch open;
+
+        StubWriter(Set<UUID> failing, CountDownLatch open) {
+            super(null, 100, false);
+            this.failing = failing;
+            this.open = open;
+        }
+
+        @Override
+        public int write(List<IncomingReading> readings, int[] seriesIds) {
+            try {
+                open.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (readings.stream().anyMatch(reading -> failing.contains(reading.gatewayId()))) {
+                throw new IllegalStateException("Referential integrity constraint violation");
+            }
+            writes.add(List.copyOf(readings));
+            return readings.size();
+        }
+    }
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final IngestIdempotency idempotency = mock(IngestIdempotency.class);
+    private ReadingIngestPipeline pipeline;
+
+    private ReadingIngestPipeline start(StubWriter writer, int capacity, int batchSize, long flushIntervalMillis) {
+        SeriesDictionary seriesDictionary = mock(SeriesDictionary.class);
+        when(seriesDictionary.idsOf(any())).thenAnswer(call -> new int[call.<List<?>>getArgument(0).size()]);
+        pipeline = new ReadingIngestPipeline(writer, seriesDictionary, mock(IngestBatchKeyRepository.class),
+            idempotency, new TransactionTemplate(mock(PlatformTransactionManager.class)), meterRegistry,
+            new ReadingMetrics(meterRegistry, 10, Duration.ofMinutes(10)),
+            capacity, 1, batchSize, flushIntervalMillis, 5_000, false);
+        pipeline.start();
+        return pipeline;
+    }
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+
+    private static List<IncomingReading> readings(UUID gatewayId, int count) {
+        List<IncomingReading> readings = new ArrayList<>();
+        Instant start = Instant.parse("2025-10-09T00:00:00Z");
+        for (int i = 0; i < count; i++) {
+            readings.add(new IncomingReading(gatewayId, start.plusSeconds(i), "house", "celsius", i));
+        }
+        return readings;
+    }
+
+    private double count(String counter) {
+        return meterRegistry.get(counter).counter().count();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition met before deadline").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void admitsWholeBatchesWhileThereIsRoomAndRejectsTheRest() throws InterruptedException {
+        CountDownLatch open = new CountDownLatch(1);
+        StubWriter writer = new StubWriter(Set.of(), open);
+        start(writer, 10, 1, 1_000);
+        UUID gatewayId = UUID.randomUUID();
+
+        pipeline.enqueue(readings(gatewayId, 6));
+        assertThatThrownBy(() -> pipeline.enqueue(readings(gatewayId, 5)))
+            .isInstanceOf(IngestBackpressureException.class);
+        pipeline.enqueue(readings(gatewayId, 4));
+        assertThatThrownBy(() -> pipeline.enqueue(readings(gatewayId, 11)))
+            .isInstanceOf(IngestBackpressureException.class);
+        assertThat(pipeline.getQueueDepth()).isEqualTo(10);
+        assertThat(count("iot.ingest.readings.rejected")).isEqualTo(16);
+
+        // A waiting enqueue is admitted once a flush frees room
+        Thread.ofPlatform().start(() -> {
+            sleep(200);
+            open.countDown();
+        });
+        pipeline.enqueue(readings(gatewayId, 3), Duration.ofSeconds(10));
+        await(() -> pipeline.getQueueDepth() == 0);
+        assertThat(count("iot.ingest.readings.written")).isEqualTo(13);
+        assertThat(writer.writes).extracting(List::size).containsExactly(6, 4, 3);
+    }
+
+    @Test
+    void flushesWhenTheBatchIsFullOrTheOldestReadingIsDue() throws InterruptedException {
+        StubWriter writer = new StubWriter(Set.of(), new CountDownLatch(0));
+        start(writer, 100, 5, 2_000);
+        UUID gatewayId = UUID.randomUUID();
+
+        pipeline.enqueue(readings(gatewayId, 3));
+        assertThat(writer.writes.poll(300, TimeUnit.MILLISECONDS)).isNull();
+        pipeline.enqueue(readings(gatewayId, 2));
+        assertThat(writer.writes.poll(5, TimeUnit.SECONDS)).hasSize(5);
+        pipeline.stop();
+
+        StubWriter timed = new StubWriter(Set.of(), new CountDownLatch(0));
+        start(timed, 100, 1000, 300);
+        long enqueuedAt = System.currentTimeMillis();
+        pipeline.enqueue(readings(gatewayId, 3));
+        pipeline.enqueue(readings(gatewayId, 2));
+        assertThat(timed.writes.poll(5, TimeUnit.SECONDS)).hasSize(5);
+        assertThat(System.currentTimeMillis() - enqueuedAt).isGreaterThanOrEqualTo(250);
+    }
+
+    @Test
+    void retriesAFailedFlushPerGatewayAndDropsOnlyTheFailingGateway() throws InterruptedException {
+        UUID good = UUID.randomUUID();
+        UUID bad = UUID.randomUUID();
+        StubWriter writer = new StubWriter(Set.of(bad), new CountDownLatch(0));
+        start(writer, 100, 7, 1_000);
+        IngestBatchKeyRepository.Key goodKey = new IngestBatchKeyRepository.Key(good, "batch-1");
+        IngestBatchKeyRepository.Key badKey = new IngestBatchKeyRepository.Key(bad, "batch-1");
+
+        pipeline.enqueue(readings(good, 4), goodKey);
+        pipeline.enqueue(readings(bad, 3), badKey);
+
+        assertThat(writer.writes.poll(5, TimeUnit.SECONDS)).hasSize(4)
+            .allMatch(reading -> reading.gatewayId().equals(good));
+        await(() -> pipeline.getQueueDepth() == 0);
+        assertThat(count("iot.ingest.readings.written")).isEqualTo(4);
+        assertThat(count("iot.ingest.readings.failed")).isEqualTo(3);
+        verify(idempotency).release(List.of(badKey));
+        assertThat(writer.writes).isEmpty();
+    }
+
+    @Test
+    void awaitsOnlyReadingsQueuedBeforeTheBarrier() throws InterruptedException {
+        CountDownLatch open = new CountDownLatch(1);
+        StubWriter writer = new StubWriter(Set.of(), open);
+        start(writer, 100, 1, 1_000);
+        UUID gatewayId = UUID.randomUUID();
+        assertThat(pipeline.awaitFlushed(Duration.ZERO)).isTrue();
+
+        pipeline.enqueue(readings(gatewayId, 2));
+        assertThat(pipeline.awaitFlushed(Duration.ofMillis(200))).isFalse();
+
+        Thread.ofPlatform().start(() -> {
+            sleep(200);
+            open.countDown();
+        });
+        assertThat(pipeline.awaitFlushed(Duration.ofSeconds(10))).isTrue();
+        assertThat(writer.writes).extracting(List::size).containsExactly(2);
+
+        // A failed write counts as flushed too
+        pipeline.stop();
+        UUID bad = UUID.randomUUID();
+        start(new StubWriter(Set.of(bad), new CountDownLatch(0)), 100, 1, 1_000);
+        pipeline.enqueue(readings(bad, 3));
+        assertThat(pipeline.awaitFlushed(Duration.ofSeconds(10))).isTrue();
+        assertThat(count("iot.ingest.readings.failed")).isEqualTo(3);
+    }
+
+    @Test
+    void drainsQueuedReadingsOnShutdownAndRefusesNewOnes() throws InterruptedException {
+        StubWriter writer = new StubWriter(Set.of(), new CountDownLatch(0));
+        start(writer, 100, 1000, 1_000);
+        UUID gatewayId = UUID.randomUUID();
+        pipeline.enqueue(readings(gatewayId, 3));
+        pipeline.enqueue(readings(gatewayId, 4));
+
+        // Stops within a flush interval, writing what is queued rather than waiting for a full batch
+        pipeline.stop();
+
+        assertThat(pipeline.getQueueDepth()).isZero();
+        assertThat(writer.writes.stream().mapToInt(List::size).sum()).isEqualTo(7);
+        assertThatThrownBy(() -> pipeline.enqueue(readings(gatewayId, 1)))
+            .isInstanceOf(IngestBackpressureException.class)
+            .hasMessageContaining("shutting down");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
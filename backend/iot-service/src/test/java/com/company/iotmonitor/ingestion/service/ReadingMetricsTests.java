@@ -0,0 +1,51 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadingMetricsTests {
+
+    private static List<IncomingReading> readings(UUID gatewayId, int count) {
+        List<IncomingReading> readings = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            readings.add(new IncomingReading(gatewayId, Instant.now(), "house", "celsius", i));
+        }
+        return readings;
+    }
+
+    @Test
+    void countsWrittenReadingsPerGatewayUpToTheTagLimit() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ReadingMetrics metrics = new ReadingMetrics(registry, 2, Duration.ofMinutes(10));
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        List<IncomingReading> batch = new ArrayList<>(readings(first, 3));
+        batch.addAll(readings(second, 2));
+        batch.addAll(readings(first, 1));
+        metrics.recordWritten(batch);
+        for (int i = 0; i < 50; i++) {
+            metrics.recordWritten(readings(UUID.randomUUID(), 1));
+        }
+
+        assertThat(written(registry, first.toString())).isEqualTo(4);
+        assertThat(written(registry, second.toString())).isEqualTo(2);
+        assertThat(written(registry, ReadingMetrics.OTHER_GATEWAYS)).isEqualTo(50);
+        assertThat(registry.find("iot.ingest.gateway.readings.written").counters()).hasSize(3);
+    }
+
+    private static double written(SimpleMeterRegistry registry, String gateway) {
+        Counter counter = registry.find("iot.ingest.gateway.readings.written").tag("gateway", gateway).counter();
+        return counter != null ? counter.count() : 0;
+    }
+}
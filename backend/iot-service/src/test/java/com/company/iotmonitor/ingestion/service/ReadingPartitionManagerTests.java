@@ -0,0 +1,142 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.repository.ReadingChunkRepository;
+import com.company.iotmonitor.ingestion.repository.ReadingPartitionRepository;
+import com.company.iotmonitor.ingestion.repository.ReadingSketchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class ReadingPartitionManagerTests {
+    /** Keeps partitions in memory and hands out row deletes from a fixed number of expired rows. */
+    private static final class FakePartitionRepository extends ReadingPartitionRepository {
+        final List<Partition> partitions = new ArrayList<>();
+        final List<String> dropped = new ArrayList<>();
+        final List<Integer> deleteBatches = new ArrayList<>();
+        int expiredRows;
+
+        FakePartitionRepository() {
+            super(null);
+        }
+
+        @Override
+        public List<Partition> findPartitions() {
+            return partitions.stream().sorted(Comparator.comparing(Partition::from)).toList();
+        }
+
+        @Override
+        public String createPartition(Instant from, Instant to) {
+            String name = "readings_p" + from.toString().substring(0, 10).replace("-", "");
+            partitions.add(new Partition(name, from, to));
+            return name;
+        }
+
+        @Override
+        public void dropPartition(Partition partition) {
+            partitions.remove(partition);
+            dropped.add(partition.name());
+        }
+
+        @Override
+        public int deleteOlderThan(Instant cutoff, int batchSize) {
+            int batch = Math.min(expiredRows, batchSize);
+            expiredRows -= batch;
+            deleteBatches.add(batch);
+            return batch;
+        }
+    }
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final FakePartitionRepository partitionRepository = new FakePartitionRepository();
+    private final ReadingChunkRepository chunkRepository = mock(ReadingChunkRepository.class);
+    private final ReadingSketchRepository sketchRepository = mock(ReadingSketchRepository.class);
+
+    private ReadingPartitionManager manager(boolean partitioningEnabled, ReadingPartitionManager.Period period) {
+        return new ReadingPartitionManager(partitionRepository, chunkRepository, sketchRepository, meterRegistry,
+            partitioningEnabled, period, Duration.ofDays(7), true, Duration.ofDays(90), 5);
+    }
+
+    private static Instant day(String date) {
+        return Instant.parse(date + "T00:00:00Z");
+    }
+
+    private void existing(String from, String to) {
+        partitionRepository.createPartition(day(from), day(to));
+    }
+
+    private List<String> ranges() {
+        return partitionRepository.findPartitions().stream()
+            .map(partition -> partition.from().toString().substring(0, 10) + "/"
+                + partition.to().toString().substring(0, 10))
+            .toList();
+    }
+
+    @Test
+    void continuesFromTheNewestPartitionUpToTheHorizon() {
+        existing("2025-10-06", "2025-10-07");
+        existing("2025-10-07", "2025-10-08");
+
+        // Partitions starting before the horizon are created; one starting on it is not
+        manager(true, ReadingPartitionManager.Period.DAY).createUpcomingPartitions(day("2025-10-10"));
+
+        assertThat(ranges()).containsExactly("2025-10-06/2025-10-07", "2025-10-07/2025-10-08",
+            "2025-10-08/2025-10-09", "2025-10-09/2025-10-10");
+
+        // Nothing is due until the horizon moves past the newest partition
+        manager(true, ReadingPartitionManager.Period.DAY).createUpcomingPartitions(day("2025-10-10"));
+        assertThat(partitionRepository.partitions).hasSize(4);
+    }
+
+    @Test
+    void keepsRangesContiguousWhenSwitchingFromDayToWeekPartitions() {
+        // The newest day partition ends on a Thursday, mid-week
+        existing("2025-10-08", "2025-10-09");
+
+        manager(true, ReadingPartitionManager.Period.WEEK).createUpcomingPartitions(day("2025-10-20"));
+
+        assertThat(ranges()).containsExactly("2025-10-08/2025-10-09",
+            "2025-10-09/2025-10-16", "2025-10-16/2025-10-23");
+    }
+
+    @Test
+    void dropsOnlyPartitionsEndingAtOrBeforeTheCutoff() {
+        existing("2025-10-06", "2025-10-07");
+        existing("2025-10-07", "2025-10-08");
+        existing("2025-10-08", "2025-10-09");
+        existing("2025-10-09", "2025-10-10");
+
+        // 2025-10-08 straddles the cutoff and stays; its expired rows go through row deletes
+        partitionRepository.expiredRows = 12;
+        manager(true, ReadingPartitionManager.Period.DAY).enforceRetention(day("2025-10-08").plusSeconds(3600));
+
+        assertThat(partitionRepository.dropped).containsExactly("readings_p20251006", "readings_p20251007");
+        assertThat(ranges()).containsExactly("2025-10-08/2025-10-09", "2025-10-09/2025-10-10");
+        assertThat(partitionRepository.deleteBatches).containsExactly(5, 5, 2);
+        assertThat(meterRegistry.get("iot.retention.partitions.dropped").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("iot.retention.rows.deleted").counter().count()).isEqualTo(12);
+        verify(chunkRepository).deleteOlderThan(day("2025-10-08").plusSeconds(3600));
+        verify(sketchRepository).deleteOlderThan(day("2025-10-08").plusSeconds(3600));
+    }
+
+    @Test
+    void fallsBackToRowDeletesWithoutPartitioning() {
+        existing("2025-10-06", "2025-10-07");
+        partitionRepository.expiredRows = 10;
+
+        manager(false, ReadingPartitionManager.Period.DAY).enforceRetention(day("2025-10-08"));
+
+        assertThat(partitionRepository.dropped).isEmpty();
+        // A full last batch means another look, which finds nothing
+        assertThat(partitionRepository.deleteBatches).containsExactly(5, 5, 0);
+        assertThat(meterRegistry.get("iot.retention.rows.deleted").counter().count()).isEqualTo(10);
+    }
+}
@@ -0,0 +1,79 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import com.company.iotmonitor.ingestion.domain.ReadingQuantiles;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+class ReadingSketchEngineTests {
+    private static final List<Double> QUANTILES = List.of(0.5, 0.99);
+
+    @Autowired
+    private GatewayService gatewayService;
+    @Autowired
+    private ReadingSketchEngine sketchEngine;
+
+    /** Records 1..count (plus offset) one second apart from {@code from}. */
+    private void record(UUID gatewayId, String sensorLabel, Instant from, int count, double offset) {
+        List<IncomingReading> readings = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            readings.add(new IncomingReading(gatewayId, from.plusSeconds(i % 3600), sensorLabel, "celsius", offset + i));
+        }
+        gatewayService.recordBatchReadings(gatewayId, readings);
+    }
+
+    private static double value(ReadingQuantiles result, double quantile) {
+        return result.quantiles().stream().filter(q -> q.quantile() == quantile).findFirst().orElseThrow().value();
+    }
+
+    @Test
+    void mergesRecentAndStoredHoursAcrossAndPerGateway() {
+        String sensorLabel = "sketch-" + UUID.randomUUID();
+        UUID first = gatewayService.registerGateway("sketch-" + UUID.randomUUID(), "lab", "GW-2000").getGatewayId();
+        UUID second = gatewayService.registerGateway("sketch-" + UUID.randomUUID(), "lab", "GW-2000").getGatewayId();
+        Instant hour = Instant.now().truncatedTo(ChronoUnit.HOURS).minus(2, ChronoUnit.HOURS);
+        record(first, sensorLabel, hour, 1000, 0);
+        record(second, sensorLabel, hour.plus(1, ChronoUnit.HOURS), 1000, 1000);
+        // Older than the in-memory retention, so queried from reading_sketches once persisted
+        Instant stored = hour.minus(3, ChronoUnit.DAYS);
+        record(first, sensorLabel, stored, 1000, 2000);
+        sketchEngine.persistClosedBuckets();
+
+        List<ReadingQuantiles> fleet = gatewayService.getQuantiles(sensorLabel, null, false,
+            stored, Instant.now(), QUANTILES);
+        assertThat(fleet).singleElement().satisfies(result -> {
+            assertThat(result.gatewayId()).isNull();
+            assertThat(result.count()).isEqualTo(3000);
+            assertThat(result.min()).isEqualTo(1.0);
+            assertThat(result.max()).isEqualTo(3000.0);
+            assertThat(value(result, 0.5)).isCloseTo(1500.0, within(15.0));
+            assertThat(value(result, 0.99)).isCloseTo(2970.0, within(29.7));
+        });
+
+        List<ReadingQuantiles> perGateway = gatewayService.getQuantiles(sensorLabel, List.of(first, second), true,
+            hour, hour.plus(1, ChronoUnit.HOURS), QUANTILES);
+        assertThat(perGateway)
+            .extracting(ReadingQuantiles::gatewayId, ReadingQuantiles::count, ReadingQuantiles::start)
+            .containsExactlyInAnyOrder(tuple(first, 1000L, hour), tuple(second, 1000L, hour));
+        assertThat(perGateway).allSatisfy(result -> assertThat(result.end()).isEqualTo(hour.plus(2, ChronoUnit.HOURS)));
+
+        List<ReadingQuantiles> storedOnly = gatewayService.getQuantiles(sensorLabel, List.of(first), true,
+            stored, stored.plus(30, ChronoUnit.MINUTES), QUANTILES);
+        assertThat(storedOnly).singleElement().satisfies(result -> {
+            assertThat(result.count()).isEqualTo(1000);
+            assertThat(value(result, 0.5)).isCloseTo(2500.0, within(25.0));
+        });
+    }
+}
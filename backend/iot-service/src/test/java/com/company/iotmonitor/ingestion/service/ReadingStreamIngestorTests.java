@@ -0,0 +1,143 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import com.company.iotmonitor.ingestion.exception.IngestBackpressureException;
+import com.company.iotmonitor.ingestion.interceptor.GatewayRateLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReadingStreamIngestorTests {
+    private static final int CHUNK_SIZE = 2;
+
+    private final GatewayService gatewayService = mock(GatewayService.class);
+    private final GatewayRegistry gatewayRegistry = mock(GatewayRegistry.class);
+    private final ReadingStreamIngestor ingestor = new ReadingStreamIngestor(gatewayService, gatewayRegistry,
+        new ObjectMapper().registerModule(new JavaTimeModule()), CHUNK_SIZE, Duration.ofMillis(10));
+    private final UUID gatewayId = UUID.randomUUID();
+    private final List<List<IncomingReading>> queued = new ArrayList<>();
+
+    private static InputStream ndjson(int readings, String tail) {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < readings; i++) {
+            body.append("{\"timestamp\":\"2025-04-01T00:00:0").append(i)
+                .append("Z\",\"sensor\":\"house\",\"unit\":\"celsius\",\"reading\":").append(i).append("}\n");
+        }
+        body.append(tail);
+        return new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Queues the first {@code chunks} chunks, then fails every later one with {@code failure}. */
+    private void queueThenFail(int chunks, RuntimeException failure) {
+        when(gatewayRegistry.exists(gatewayId)).thenReturn(true);
+        doAnswer(call -> {
+            if (queued.size() == chunks) {
+                throw failure;
+            }
+            queued.add(List.copyOf(call.<List<IncomingReading>>getArgument(1)));
+            return null;
+        }).when(gatewayService).recordBatchReadings(eq(gatewayId), any(), any(Duration.class));
+    }
+
+    @Test
+    void reportsReadingsQueuedBeforeTheQueueStayedFull() throws IOException {
+        queueThenFail(2, new IngestBackpressureException("Ingest queue is full", 3));
+
+        ReadingStreamIngestor.Result result = ingestor.ingest(gatewayId, ndjson(7, ""), chunk -> { });
+
+        assertThat(result.outcome()).isEqualTo(ReadingStreamIngestor.Outcome.QUEUE_FULL);
+        assertThat(result.accepted()).isEqualTo(4);
+        assertThat(result.retryAfter()).isEqualTo(3);
+        assertThat(result.error()).contains("full");
+        assertThat(queued).flatExtracting(chunk -> chunk).extracting(IncomingReading::readingValue)
+            .containsExactly(0.0, 1.0, 2.0, 3.0);
+    }
+
+    @Test
+    void reportsReadingsQueuedBeforeTheRateLimitRanOut() throws IOException {
+        queueThenFail(Integer.MAX_VALUE, new IllegalStateException("unused"));
+        GatewayRateLimiter rateLimiter = new GatewayRateLimiter(new SimpleMeterRegistry(), 5, 60, 1000);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        ReadingStreamIngestor.Result result = ingestor.ingest(gatewayId, ndjson(7, ""),
+            chunk -> rateLimiter.consume(gatewayId, chunk, response));
+
+        assertThat(result.outcome()).isEqualTo(ReadingStreamIngestor.Outcome.RATE_LIMITED);
+        assertThat(result.accepted()).isEqualTo(4);
+        assertThat(result.retryAfter()).isPositive();
+        assertThat(queued).hasSize(2);
+    }
+
+    @Test
+    void reportsReadingsQueuedBeforeTheGatewayWasRemoved() throws IOException {
+        queueThenFail(1, new IllegalArgumentException("Gateway not found with ID: " + gatewayId));
+
+        ReadingStreamIngestor.Result result = ingestor.ingest(gatewayId, ndjson(5, ""), chunk -> { });
+
+        assertThat(result.outcome()).isEqualTo(ReadingStreamIngestor.Outcome.GATEWAY_REMOVED);
+        assertThat(result.accepted()).isEqualTo(2);
+        assertThat(result.retryAfter()).isNull();
+    }
+
+    @Test
+    void queuesReadingsBeforeASyntaxErrorAndSurvivesAFailureFlushingThem() throws IOException {
+        queueThenFail(Integer.MAX_VALUE, new IllegalStateException("unused"));
+
+        ReadingStreamIngestor.Result malformed = ingestor.ingest(gatewayId, ndjson(3, "{\"timestamp\":"), chunk -> { });
+        assertThat(malformed.outcome()).isEqualTo(ReadingStreamIngestor.Outcome.MALFORMED);
+        assertThat(malformed.accepted()).isEqualTo(3);
+
+        // The partial chunk flushed after the syntax error can itself be refused
+        queued.clear();
+        queueThenFail(1, new IngestBackpressureException("Ingest queue is full", 1));
+        ReadingStreamIngestor.Result refused = ingestor.ingest(gatewayId, ndjson(3, "]"), chunk -> { });
+        assertThat(refused.outcome()).isEqualTo(ReadingStreamIngestor.Outcome.QUEUE_FULL);
+        assertThat(refused.accepted()).isEqualTo(2);
+
+        queued.clear();
+        ReadingStreamIngestor.Result completed = ingestor.ingest(gatewayId, ndjson(1, ""), chunk -> { });
+        assertThat(completed.outcome()).isEqualTo(ReadingStreamIngestor.Outcome.COMPLETED);
+        assertThat(completed.accepted()).isEqualTo(1);
+        assertThat(completed.error()).isNull();
+    }
+
+    @Test
+    void readsNumericTimestampsAsEpochSecondsLikeTheBatchRequest() throws IOException {
+        queueThenFail(Integer.MAX_VALUE, new IllegalStateException("unused"));
+        String body = """
+            {"timestamp":1743465600,"sensor":"house","unit":"celsius","reading":1}
+            {"timestamp":1743465600.25,"sensor":"house","unit":"celsius","reading":2}
+            {"timestamp":"2025-04-01T00:00:00Z","sensor":"house","unit":"celsius","reading":3}
+            {"timestamp":"yesterday","sensor":"house","unit":"celsius","reading":4}
+            {"timestamp":true,"sensor":"house","unit":"celsius","reading":5}
+            """;
+
+        ReadingStreamIngestor.Result result = ingestor.ingest(gatewayId,
+            new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), chunk -> { });
+
+        assertThat(result.accepted()).isEqualTo(3);
+        assertThat(result.rejected()).isEqualTo(2);
+        Instant start = Instant.parse("2025-04-01T00:00:00Z");
+        assertThat(queued).flatExtracting(chunk -> chunk).extracting(IncomingReading::timestamp)
+            .containsExactly(start, start.plusMillis(250), start);
+    }
+}
@@ -0,0 +1,146 @@
+package com.company.iotmonitor.ingestion.service;
+
+import com.company.iotmonitor.ingestion.domain.IncomingReading;
+import com.company.iotmonitor.ingestion.domain.ReadingAggregate;
+import com.company.iotmonitor.ingestion.domain.TimeBucket;
+import com.company.iotmonitor.ingestion.repository.ReadingRollupRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+class RollupRingTests {
+    private static final long WIDTH = 60;
+    /** An arbitrary bucket-aligned instant, in epoch seconds. */
+    private static final long T0 = 1_743_465_600L;
+
+    private record Bucket(long start, double min, double max, double sum, long count) {
+    }
+
+    private static List<Bucket> inRange(RollupRing ring, long from, long to) {
+        List<Bucket> buckets = new ArrayList<>();
+        ring.forEachInRange(from, to, (start, min, max, sum, count) -> buckets.add(new Bucket(start, min, max, sum, count)));
+        return buckets;
+    }
+
+    private static List<Bucket> drain(RollupRing ring, long closedBefore) {
+        List<Bucket> buckets = new ArrayList<>();
+        ring.drainClosed(closedBefore, (start, min, max, sum, count) -> buckets.add(new Bucket(start, min, max, sum, count)));
+        return buckets;
+    }
+
+    @Test
+    void visitsEveryBucketOverlappingTheRangeWithinRetention() {
+        RollupRing ring = new RollupRing(WIDTH, 5);
+        assertThat(inRange(ring, T0, T0 + 3600)).isEmpty();
+
+        ring.add(T0, 2.0);
+        ring.add(T0 + 59, 4.0);
+        ring.add(T0 + 60, -1.0);
+        ring.add(T0 + 185, 7.0);
+
+        assertThat(inRange(ring, T0, T0 + 3600)).containsExactly(
+            new Bucket(T0, 2.0, 4.0, 6.0, 2),
+            new Bucket(T0 + 60, -1.0, -1.0, -1.0, 1),
+            new Bucket(T0 + 180, 7.0, 7.0, 7.0, 1));
+        // Both range ends are widened to the buckets they fall in
+        assertThat(inRange(ring, T0 + 59, T0 + 60)).extracting(Bucket::start).containsExactly(T0, T0 + 60);
+        assertThat(inRange(ring, T0 + 61, T0 + 179)).extracting(Bucket::start).containsExactly(T0 + 60);
+        assertThat(inRange(ring, T0 + 240, T0 + 3600)).isEmpty();
+
+        // Wrapping reuses the oldest slot; samples for buckets it no longer holds are ignored
+        ring.add(T0 + 5 * WIDTH, 9.0);
+        ring.add(T0 + 30, 100.0);
+        assertThat(inRange(ring, T0 - 3600, T0 + 3600)).extracting(Bucket::start)
+            .containsExactly(T0 + 60, T0 + 180, T0 + 300);
+    }
+
+    @Test
+    void drainsClosedBucketsOnceUntilTheyChangeAgain() {
+        RollupRing ring = new RollupRing(WIDTH, 5);
+        ring.add(T0 + 10, 1.0);
+        ring.add(T0 + 70, 2.0);
+
+        // A bucket is closed once its end is at or before the cutoff
+        assertThat(drain(ring, T0 + 59)).isEmpty();
+        assertThat(drain(ring, T0 + 60)).extracting(Bucket::start).containsExactly(T0);
+        assertThat(drain(ring, T0 + 120)).extracting(Bucket::start).containsExactly(T0 + 60);
+        assertThat(drain(ring, T0 + 120)).isEmpty();
+
+        // Late data reopens a bucket, and a failed write can put one back
+        ring.add(T0 + 20, 3.0);
+        assertThat(drain(ring, T0 + 120)).containsExactly(new Bucket(T0, 1.0, 3.0, 4.0, 2));
+        ring.markDirty(T0 + 60);
+        ring.markDirty(T0 + 600);
+        assertThat(drain(ring, T0 + 120)).extracting(Bucket::start).containsExactly(T0 + 60);
+    }
+
+    @Test
+    void restoresPersistedBucketsWithoutOverwritingNewerOnes() {
+        RollupRing ring = new RollupRing(WIDTH, 5);
+        ring.add(T0 + 300, 5.0);
+
+        ring.restore(T0, 1.0, 2.0, 3.0, 2);
+        ring.restore(T0 + 60, 1.0, 1.0, 1.0, 1);
+        ring.restore(T0 + 300, 0.0, 0.0, 0.0, 9);
+
+        assertThat(inRange(ring, T0, T0 + 3600)).containsExactly(
+            new Bucket(T0 + 60, 1.0, 1.0, 1.0, 1),
+            new Bucket(T0 + 300, 5.0, 5.0, 5.0, 1));
+        // Restored buckets are already stored
+        assertThat(drain(ring, Long.MAX_VALUE)).extracting(Bucket::start).containsExactly(T0 + 300);
+    }
+
+    @Test
+    void enginePersistsBucketsOnlyAfterTheCloseGrace() {
+        ReadingRollupRepository repository = mock(ReadingRollupRepository.class);
+        List<ReadingRollupRepository.Row> saved = new ArrayList<>();
+        doAnswer(call -> saved.addAll(call.getArgument(0))).when(repository).saveAll(anyList());
+        ReadingRollupEngine engine = new ReadingRollupEngine(repository, new SimpleMeterRegistry(),
+            Duration.ofHours(6), Duration.ofDays(7), Duration.ofMinutes(2), Duration.ofMinutes(5));
+        UUID gatewayId = UUID.randomUUID();
+        Instant now = Instant.now();
+        Instant old = now.minus(3, ChronoUnit.HOURS);
+
+        engine.onAccepted(gatewayId, List.of(
+            new IncomingReading(gatewayId, old, "house", "celsius", 20.0),
+            new IncomingReading(gatewayId, now, "house", "celsius", 21.0),
+            new IncomingReading(gatewayId, now.plus(Duration.ofMinutes(30)), "house", "celsius", 99.0)));
+
+        assertThat(engine.query(gatewayId, "house", TimeBucket.ONE_MINUTE, old, now.plusSeconds(3600)))
+            .extracting(ReadingAggregate::bucketStart, ReadingAggregate::max)
+            .containsExactly(tuple(TimeBucket.ONE_MINUTE.startOf(old), 20.0), tuple(TimeBucket.ONE_MINUTE.startOf(now), 21.0));
+
+        engine.persistClosedBuckets();
+        // Only the old minute and hour are past the grace; the current ones are still open
+        assertThat(saved)
+            .extracting(ReadingRollupRepository.Row::resolutionSeconds, ReadingRollupRepository.Row::bucketStart)
+            .containsExactlyInAnyOrder(
+                tuple(60, TimeBucket.ONE_MINUTE.startOf(old)),
+                tuple(3600, TimeBucket.ONE_HOUR.startOf(old)));
+
+        // A failed write is retried on the next flush
+        saved.clear();
+        engine.onAccepted(gatewayId, List.of(new IncomingReading(gatewayId, old, "house", "celsius", 19.0)));
+        doThrow(new IllegalStateException("database down")).when(repository).saveAll(anyList());
+        engine.persistClosedBuckets();
+        doAnswer(call -> saved.addAll(call.getArgument(0))).when(repository).saveAll(anyList());
+        engine.persistClosedBuckets();
+        assertThat(saved)
+            .extracting(ReadingRollupRepository.Row::resolutionSeconds, ReadingRollupRepository.Row::min,
+                        ReadingRollupRepository.Row::count)
+            .containsExactlyInAnyOrder(tuple(60, 19.0, 2L), tuple(3600, 19.0, 2L));
+    }
+}
@@ -0,0 +1,75 @@
+package com.company.iotmonitor.ingestion.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RotatingBloomFilterTests {
+
+    /** A clock the test moves by hand. */
+    private static final class ManualClock extends Clock {
+        private Instant now = Instant.parse("2025-10-09T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    @Test
+    void hasNoFalseNegativesAndAboutTheConfiguredFalsePositiveRate() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(10_000, 0.01, Duration.ofHours(1), new ManualClock());
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("gateway/" + i);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("gateway/" + i)).isTrue();
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("other/" + i)) {
+                falsePositives++;
+            }
+        }
+        // Each generation is checked, so the rate can reach twice the configured one
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+
+    @Test
+    void remembersEntriesForOneToTwoRetentionPeriods() {
+        ManualClock clock = new ManualClock();
+        RotatingBloomFilter filter = new RotatingBloomFilter(1_000, 0.001, Duration.ofHours(1), clock);
+        filter.put("first");
+
+        clock.advance(Duration.ofMinutes(90));
+        filter.put("second");
+        assertThat(filter.mightContain("first")).isTrue();
+
+        clock.advance(Duration.ofMinutes(60));
+        assertThat(filter.mightContain("first")).isFalse();
+        assertThat(filter.mightContain("second")).isTrue();
+
+        clock.advance(Duration.ofHours(3));
+        assertThat(filter.mightContain("second")).isFalse();
+    }
+}
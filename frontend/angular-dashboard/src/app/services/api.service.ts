@@ -1,6 +1,6 @@
 import { Injectable } from '@angular/core';
 import { HttpClient, HttpParams } from '@angular/common/http';
-import { Observable } from 'rxjs';
+import { NEVER, Observable } from 'rxjs';
 import { environment } from '../../environments/environment';
 import { MockDataService } from './mock-data.service';
 
@@ -12,6 +12,17 @@ export interface GatewayReading {
   readingValue: number;
 }
 
+export interface LiveReadings {
+  readings: {
+    sensorLabel: string;
+    unit: string;
+    readingValue: number;
+    timestamp: string;
+  }[];
+  // Readings the server left out because this client fell behind
+  dropped: number;
+}
+
 @Injectable({
   providedIn: 'root'
 })
@@ -59,6 +70,22 @@ export class ApiService {
     );
   }
 
+  // Readings accepted for the gateway from now on, pushed by the server (SSE).
+  // EventSource reconnects on its own when the stream ends.
+  streamReadings(gatewayId: string): Observable<LiveReadings> {
+    if (this.useMockData) {
+      return NEVER;
+    }
+
+    return new Observable<LiveReadings>(subscriber => {
+      const source = new EventSource(`${environment.apiUrl}/api/ingestion/readings/${gatewayId}/live`);
+      source.addEventListener('readings', event => {
+        subscriber.next(JSON.parse((event as MessageEvent).data) as LiveReadings);
+      });
+      return () => source.close();
+    });
+  }
+
   // Method to toggle between mock and real data
   toggleMockData(useMock: boolean): void {
     this.useMockData = useMock;
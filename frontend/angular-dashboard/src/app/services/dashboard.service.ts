@@ -1,6 +1,6 @@
 import { Injectable, OnDestroy } from '@angular/core';
-import { ApiService, GatewayReading } from './api.service';
-import { BehaviorSubject, Observable, interval, switchMap, tap, catchError, of, Subject, takeUntil, combineLatest, startWith, filter, distinctUntilChanged, map } from 'rxjs';
+import { ApiService, GatewayReading, LiveReadings } from './api.service';
+import { BehaviorSubject, Observable, interval, switchMap, tap, catchError, of, Subject, takeUntil, combineLatest, startWith, filter, distinctUntilChanged, map, scan } from 'rxjs';
 import { GatewayService } from './gateway.service'; // Import GatewayService
 import { Gateway } from '../models/gateway.model'; // Import Gateway model
 
@@ -42,14 +42,20 @@ export class DashboardService implements OnDestroy { // Implement OnDestroy
 
     const refreshTimer$ = interval(this.refreshIntervalMs).pipe(startWith(0)); // Start immediately then repeat
 
-    // Combine gateway changes and timer. Trigger fetch on either.
+    // Combine gateway changes and timer. Trigger fetch on either; between fetches,
+    // readings pushed by the server are appended to the fetched data.
     combineLatest([gatewayChanges$, refreshTimer$]).pipe(
       map(([gatewayId, _]) => gatewayId), // We only need the gatewayId from the combined emission
       tap(() => {
         this.loading$.next(true); // Set loading before fetching
         this.error$.next(null);   // Clear previous errors
       }),
-      switchMap(gatewayId => this.fetchAndTransformReadings(gatewayId)), // Fetch data for the current gateway
+      switchMap(gatewayId => this.fetchAndTransformReadings(gatewayId).pipe( // Fetch data for the current gateway
+        switchMap(unitGroups => this.apiService.streamReadings(gatewayId).pipe(
+          scan((groups, live) => this.appendLiveReadings(groups, live), unitGroups),
+          startWith(unitGroups)
+        ))
+      )),
       takeUntil(this.destroy$) // Unsubscribe when the service is destroyed
     ).subscribe({
       next: unitGroups => {
@@ -149,6 +155,23 @@ export class DashboardService implements OnDestroy { // Implement OnDestroy
     return Array.from(groups.values()).sort((a, b) => a.unit.localeCompare(b.unit));
   }
 
+  private appendLiveReadings(unitGroups: UnitGroup[], live: LiveReadings): UnitGroup[] {
+    if (live.dropped > 0) {
+      console.warn(`DashboardService: ${live.dropped} live readings were dropped; they appear after the next refresh`);
+    }
+    // Copy the groups so change detection sees new arrays for the appended readings
+    const groups = new Map<string, UnitGroup>(unitGroups.map(group => [group.unit, {
+      ...group,
+      sensors: group.sensors.map(sensor => ({ ...sensor, readings: [...sensor.readings] }))
+    }]));
+    live.readings.forEach(reading => {
+      const unit = reading.unit || 'Unknown';
+      const sensorName = reading.sensorLabel || 'Unknown Sensor';
+      this.addReadingToGroup(groups, unit, sensorName, sensorName, reading.timestamp, reading.readingValue);
+    });
+    return Array.from(groups.values()).sort((a, b) => a.unit.localeCompare(b.unit));
+  }
+
   private addReadingToGroup(
     groups: Map<string, UnitGroup>,
     unit: string,